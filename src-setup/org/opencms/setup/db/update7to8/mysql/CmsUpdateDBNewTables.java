@@ -81,7 +81,9 @@ public class CmsUpdateDBNewTables extends org.opencms.setup.db.update7to8.CmsUpd
                 "CMS_SUBSCRIPTION_VISIT",
                 "CMS_ALIASES",
                 "CMS_REWRITES",
-                "CMS_USER_PUBLISH_LIST"});
+                "CMS_USER_PUBLISH_LIST",
+                "CMS_OFFLINE_STRUCTURE_TREE",
+                "CMS_ONLINE_STRUCTURE_TREE"});
 
         Map<String, String> replacer = Collections.singletonMap("${tableEngine}", m_poolData.get("engine"));
         for (String table : elements) {
@@ -120,6 +120,14 @@ public class CmsUpdateDBNewTables extends org.opencms.setup.db.update7to8.CmsUpd
         elements.put("CMS_REWRITES", indexes);
         indexes.add("CMS_REWRITES_IDX_01");
 
+        indexes = new ArrayList<String>();
+        elements.put("CMS_OFFLINE_STRUCTURE_TREE", indexes);
+        indexes.add("CMS_OFFLINE_STRUCTURE_TREE_01_IDX");
+
+        indexes = new ArrayList<String>();
+        elements.put("CMS_ONLINE_STRUCTURE_TREE", indexes);
+        indexes.add("CMS_ONLINE_STRUCTURE_TREE_01_IDX");
+
         Map<String, String> replacer = Collections.emptyMap();
         for (Map.Entry<String, List<String>> entry : elements.entrySet()) {
             String table = entry.getKey();
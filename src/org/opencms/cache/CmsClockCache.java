@@ -0,0 +1,361 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.main.CmsLog;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Implements a cost based cache with the CLOCK ("second chance") replacement policy,
+ * as a drop-in replacement for the {@link CmsLruCache}.<p>
+ *
+ * The {@link CmsLruCache} moves every touched object to the head of a linked list, so all
+ * cache hits are serialized on a single monitor. This cache only sets a "referenced" flag
+ * on a touch, which needs no lock at all. Adding and removing objects use concurrent data structures.<p>
+ *
+ * If the costs of all cached objects exceed the max. cache costs, the clock hand walks over the
+ * cached objects in insertion order. Objects that have been referenced since the hand passed them
+ * the last time get a second chance, the others are removed until the costs are below the avg. cache costs
+ * again. Only one thread runs this eviction at a time, other threads adding objects are not blocked by it.<p>
+ *
+ * The cached objects are notified with {@link I_CmsLruCacheObject#addToLruCache()} and
+ * {@link I_CmsLruCacheObject#removeFromLruCache()} like in the {@link CmsLruCache}, but the
+ * next/previous pointers of the objects are not used.<p>
+ *
+ * @see org.opencms.cache.I_CmsLruCacheObject
+ *
+ * @since 10.5.0
+ */
+public class CmsClockCache extends CmsLruCache {
+
+    /**
+     * The node of a cached object in the clock.<p>
+     */
+    private static class CmsClockCacheNode {
+
+        /** The costs of the cached object at the time it was added. */
+        int m_costs;
+
+        /** The cached object. */
+        I_CmsLruCacheObject m_object;
+
+        /** Indicates if the object was used since the clock hand passed it the last time. */
+        volatile boolean m_referenced;
+
+        /** Indicates if the object was removed from the cache, but the node is still in the clock. */
+        volatile boolean m_removed;
+
+        /**
+         * Creates a new clock node.<p>
+         *
+         * @param object the cached object
+         * @param costs the costs of the cached object
+         */
+        CmsClockCacheNode(I_CmsLruCacheObject object, int costs) {
+
+            m_object = object;
+            m_costs = costs;
+        }
+    }
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsClockCache.class);
+
+    /** The clock, i.e. the queue of nodes the clock hand walks over. */
+    private ConcurrentLinkedQueue<CmsClockCacheNode> m_clock;
+
+    /** The lock that makes sure only one thread moves the clock hand. */
+    private ReentrantLock m_clockLock;
+
+    /** The number of objects removed by the clock hand. */
+    private AtomicLong m_evictionCount;
+
+    /** The nodes of all cached objects. */
+    private ConcurrentHashMap<I_CmsLruCacheObject, CmsClockCacheNode> m_nodes;
+
+    /** The costs of all cached objects. */
+    private AtomicLong m_objectCosts;
+
+    /** The number of nodes of removed objects that are still in the clock. */
+    private AtomicInteger m_removedNodes;
+
+    /**
+     * The constructor with all options.<p>
+     *
+     * @param theMaxCacheCosts the maximum cache costs of all cached objects
+     * @param theAvgCacheCosts the average cache costs of all cached objects
+     * @param theMaxObjectCosts the maximum allowed cache costs per object. Set theMaxObjectCosts to -1 if you don't want to limit the max. allowed cache costs per object
+     */
+    public CmsClockCache(long theMaxCacheCosts, long theAvgCacheCosts, int theMaxObjectCosts) {
+
+        super(theMaxCacheCosts, theAvgCacheCosts, theMaxObjectCosts);
+        m_clock = new ConcurrentLinkedQueue<CmsClockCacheNode>();
+        m_clockLock = new ReentrantLock();
+        m_evictionCount = new AtomicLong();
+        m_nodes = new ConcurrentHashMap<I_CmsLruCacheObject, CmsClockCacheNode>();
+        m_objectCosts = new AtomicLong();
+        m_removedNodes = new AtomicInteger();
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#add(org.opencms.cache.I_CmsLruCacheObject)
+     */
+    @Override
+    public boolean add(I_CmsLruCacheObject theCacheObject) {
+
+        if (theCacheObject == null) {
+            // null can't be added or touched in the cache
+            return false;
+        }
+
+        int costs = theCacheObject.getLruCacheCosts();
+        if (isTooExpensive(costs)) {
+            return false;
+        }
+
+        CmsClockCacheNode node = new CmsClockCacheNode(theCacheObject, costs);
+        if (m_nodes.putIfAbsent(theCacheObject, node) != null) {
+            touch(theCacheObject);
+            return true;
+        }
+        m_clock.offer(node);
+        m_objectCosts.addAndGet(costs);
+        theCacheObject.addToLruCache();
+
+        // check if the cache has to trash objects, or if the clock contains too many removed nodes
+        if ((m_objectCosts.get() > getMaxCacheCosts()) || (m_removedNodes.get() > m_nodes.size())) {
+            gc();
+        }
+        return true;
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#clear()
+     */
+    @Override
+    public void clear() {
+
+        for (I_CmsLruCacheObject cacheObject : new ArrayList<I_CmsLruCacheObject>(m_nodes.keySet())) {
+            remove(cacheObject);
+        }
+        m_clockLock.lock();
+        try {
+            purgeRemovedNodes();
+        } finally {
+            m_clockLock.unlock();
+        }
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#getEvictionCount()
+     */
+    @Override
+    public long getEvictionCount() {
+
+        return m_evictionCount.get();
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#getObjectCosts()
+     */
+    @Override
+    public int getObjectCosts() {
+
+        return (int)m_objectCosts.get();
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#remove(org.opencms.cache.I_CmsLruCacheObject)
+     */
+    @Override
+    public I_CmsLruCacheObject remove(I_CmsLruCacheObject theCacheObject) {
+
+        if (theCacheObject == null) {
+            return null;
+        }
+        CmsClockCacheNode node = m_nodes.remove(theCacheObject);
+        if (node == null) {
+            // not inside the cache
+            return null;
+        }
+        // the node is removed from the clock lazily when the clock hand reaches it
+        node.m_removed = true;
+        m_removedNodes.incrementAndGet();
+        decreaseCache(node);
+        return theCacheObject;
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#size()
+     */
+    @Override
+    public int size() {
+
+        return m_nodes.size();
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#toString()
+     */
+    @Override
+    public String toString() {
+
+        StringBuffer buf = new StringBuffer();
+        buf.append("max. costs: " + getMaxCacheCosts()).append(", ");
+        buf.append("avg. costs: " + getAvgCacheCosts()).append(", ");
+        buf.append("max. costs/object: " + getMaxObjectCosts()).append(", ");
+        buf.append("costs: " + m_objectCosts.get()).append(", ");
+        buf.append("count: " + m_nodes.size());
+        return buf.toString();
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#touch(org.opencms.cache.I_CmsLruCacheObject)
+     */
+    @Override
+    public boolean touch(I_CmsLruCacheObject theCacheObject) {
+
+        if (theCacheObject == null) {
+            return false;
+        }
+        CmsClockCacheNode node = m_nodes.get(theCacheObject);
+        if (node == null) {
+            return false;
+        }
+        if (isTooExpensive(theCacheObject.getLruCacheCosts())) {
+            remove(theCacheObject);
+            return false;
+        }
+        if (!node.m_referenced) {
+            // avoid writing the flag for every hit of frequently used objects
+            node.m_referenced = true;
+        }
+        return true;
+    }
+
+    /**
+     * Updates the cache statistics and notifies the cached object that it was removed from this cache.<p>
+     *
+     * @param node the node of the object removed from the cache
+     */
+    private void decreaseCache(CmsClockCacheNode node) {
+
+        m_objectCosts.addAndGet(-node.m_costs);
+        node.m_object.removeFromLruCache();
+    }
+
+    /**
+     * Moves the clock hand and removes objects that were not referenced since the hand passed them
+     * the last time, as long as the costs of all cached objects are higher than the allowed avg. costs.<p>
+     *
+     * If another thread is already moving the clock hand, this method returns immediately.<p>
+     */
+    private void gc() {
+
+        if (!m_clockLock.tryLock()) {
+            return;
+        }
+        try {
+            // after one round all reference flags are cleared, so two rounds are enough
+            int steps = 2 * (m_nodes.size() + m_removedNodes.get());
+            while ((m_objectCosts.get() >= getAvgCacheCosts()) && (steps > 0)) {
+                steps--;
+                CmsClockCacheNode node = m_clock.poll();
+                if (node == null) {
+                    break;
+                }
+                if (node.m_removed) {
+                    m_removedNodes.decrementAndGet();
+                } else if (node.m_referenced) {
+                    // second chance
+                    node.m_referenced = false;
+                    m_clock.offer(node);
+                } else if (m_nodes.remove(node.m_object, node)) {
+                    decreaseCache(node);
+                    m_evictionCount.incrementAndGet();
+                } else {
+                    // the object has been removed concurrently
+                    m_removedNodes.decrementAndGet();
+                }
+            }
+            if (m_removedNodes.get() > m_nodes.size()) {
+                purgeRemovedNodes();
+            }
+        } finally {
+            m_clockLock.unlock();
+        }
+    }
+
+    /**
+     * Checks if an object with the given costs is too expensive to be cached.<p>
+     *
+     * @param costs the costs of the object
+     *
+     * @return <code>true</code> if the costs are higher than the max. allowed costs per object
+     */
+    private boolean isTooExpensive(int costs) {
+
+        // only objects with cache costs < the max. allowed object cache costs can be cached!
+        if ((getMaxObjectCosts() != -1) && (costs > getMaxObjectCosts())) {
+            if (LOG.isInfoEnabled()) {
+                LOG.info(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_CACHE_COSTS_TOO_HIGH_2,
+                        new Integer(costs),
+                        new Integer(getMaxObjectCosts())));
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes the nodes of removed objects from the clock.<p>
+     *
+     * Must only be called while holding the clock lock.<p>
+     */
+    private void purgeRemovedNodes() {
+
+        Iterator<CmsClockCacheNode> it = m_clock.iterator();
+        while (it.hasNext()) {
+            if (it.next().m_removed) {
+                it.remove();
+                m_removedNodes.decrementAndGet();
+            }
+        }
+    }
+}
@@ -60,6 +60,9 @@ public class CmsLruCache extends java.lang.Object {
     /** The average sum of costs the cached objects. */
     private long m_avgCacheCosts;
 
+    /** The number of objects removed from this cache because the costs were too high. */
+    private long m_evictionCount;
+
     /** The head of the list of double linked LRU cache objects. */
     private I_CmsLruCacheObject m_listHead;
 
@@ -164,6 +167,17 @@ public class CmsLruCache extends java.lang.Object {
         return m_avgCacheCosts;
     }
 
+    /**
+     * Returns the number of objects that have been removed from this cache because the costs
+     * of all cached objects were too high.<p>
+     *
+     * @return the number of evicted objects
+     */
+    public synchronized long getEvictionCount() {
+
+        return m_evictionCount;
+    }
+
     /**
      * Returns the max costs of all cached objects.<p>
      *
@@ -386,6 +400,7 @@ public class CmsLruCache extends java.lang.Object {
             }
             currentObject = currentObject.getNextLruObject();
             removeTail();
+            m_evictionCount++;
         }
     }
 
@@ -47,6 +47,7 @@ import org.opencms.main.I_CmsRequestHandler;
 import org.opencms.main.I_CmsResourceInit;
 import org.opencms.main.I_CmsSessionStorageProvider;
 import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor.CacheType;
 import org.opencms.monitor.CmsMemoryMonitorConfiguration;
 import org.opencms.publish.CmsPublishManager;
 import org.opencms.scheduler.CmsScheduleManager;
@@ -98,6 +99,15 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         standard
     }
 
+    /** The "blocksize" attribute. */
+    public static final String A_BLOCKSIZE = "blocksize";
+
+    /** The "bytes" attribute. */
+    public static final String A_BYTES = "bytes";
+
+    /** The "ceiling" attribute. */
+    public static final String A_CEILING = "ceiling";
+
     /** The attribute name for the deleted node. */
     public static final String A_DELETED = "deleted";
 
@@ -110,12 +120,18 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The "exclusive" attribute. */
     public static final String A_EXCLUSIVE = "exclusive";
 
+    /** The "file" attribute. */
+    public static final String A_FILE = "file";
+
     /** The attribute name for the localization mode. */
     public static final String A_LOCALIZATION_MODE = "localizationMode";
 
     /** The "maxvisited" attribute. */
     public static final String A_MAXVISITED = "maxvisited";
 
+    /** The "minbytes" attribute. */
+    public static final String A_MINBYTES = "minbytes";
+
     /** The "offline" attribute. */
     public static final String A_OFFLINE = "offline";
 
@@ -137,6 +153,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The "server" attribute. */
     public static final String A_SERVER = "server";
 
+    /** The "timeout" attribute. */
+    public static final String A_TIMEOUT = "timeout";
+
     /** The "title" attribute. */
     public static final String A_TITLE = "title";
 
@@ -176,6 +195,12 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the browser-based node. */
     public static final String N_BROWSER_BASED = "browser-based";
 
+    /** The node name for the cache-budget node. */
+    public static final String N_CACHE_BUDGET = "cache-budget";
+
+    /** The node name for the cache-budgets node. */
+    public static final String N_CACHE_BUDGETS = "cache-budgets";
+
     /** The node name for the cache-enabled node. */
     public static final String N_CACHE_ENABLED = "cache-enabled";
 
@@ -185,6 +210,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for a job class. */
     public static final String N_CLASS = "class";
 
+    /** The node name for the Flex cache "clear all" path node. */
+    public static final String N_CLEAR_ALL_PATH = "clear-all-path";
+
     /** The configuration node name. */
     public static final String N_CONFIGURATION = "configuration";
 
@@ -239,6 +267,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the context encoding. */
     public static final String N_ENCODING = "encoding";
 
+    /** The node name for the Flex cache entry cache node. */
+    public static final String N_ENTRY_CACHE = "entry-cache";
+
     /** The node name for the request handler classes. */
     public static final String N_EVENTMANAGER = "eventmanager";
 
@@ -251,6 +282,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the form-based node. */
     public static final String N_FORM_BASED = "form-based";
 
+    /** The node name for the Flex cache gzip node. */
+    public static final String N_GZIP = "gzip";
+
     /** The node name for the group-administrators node. */
     public static final String N_GROUP_ADMINISTRATORS = "group-administrators";
 
@@ -281,6 +315,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The name of the class to generate cache keys. */
     public static final String N_KEYGENERATOR = "keygenerator";
 
+    /** The node name for the max. number of threads for asynchronous after publish event listeners. */
+    public static final String N_LISTENERTHREADS = "listener-threads";
+
     /** The node name for individual locales. */
     public static final String N_LOCALE = "locale";
 
@@ -341,6 +378,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The duration after which responsibles will be notified about out-dated content. */
     public static final String N_NOTIFICATION_TIME = "notification-time";
 
+    /** The node name for the Flex cache off-heap storage node. */
+    public static final String N_OFF_HEAP = "off-heap";
+
     /** The node name for the job parameters. */
     public static final String N_PARAMETERS = "parameters";
 
@@ -362,18 +402,33 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the context project name. */
     public static final String N_PROJECT = "project";
 
+    /** The node name for the Flex cache publish invalidation node. */
+    public static final String N_PUBLISH_INVALIDATION = "publish-invalidation";
+
     /** The node name for the publish list remove mode. */
     public static final String N_PUBLISH_LIST_REMOVE_MODE = "publish-list-remove-mode";
 
     /** The node name for the "publishhistory" section. */
     public static final String N_PUBLISHMANAGER = "publishmanager";
 
+    /** The node name for the time after which the priority of a waiting publish job is raised. */
+    public static final String N_QUEUEAGINGTIME = "queue-agingtime";
+
+    /** The node name for the min. number of resources of a bulk publish job. */
+    public static final String N_QUEUEBULKSIZE = "queue-bulksize";
+
     /** The node name for the "publishhistory" section. */
     public static final String N_QUEUEPERSISTANCE = "queue-persistance";
 
     /** The node name for the "publishhistory" section. */
     public static final String N_QUEUESHUTDOWNTIME = "queue-shutdowntime";
 
+    /** The node name for the number of resources below which a direct publish job is a small job. */
+    public static final String N_QUEUESMALLSIZE = "queue-smallsize";
+
+    /** The node name for the number of publish jobs running at the same time. */
+    public static final String N_QUEUEWORKERS = "queue-workers";
+
     /** The node name for the memory email receiver. */
     public static final String N_RECEIVER = "receiver";
 
@@ -437,6 +492,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** Shared folder node name. */
     public static final String N_SHARED_FOLDER = "shared-folder";
 
+    /** The node name for the Flex cache single-flight node. */
+    public static final String N_SINGLE_FLIGHT = "single-flight";
+
     /** The sitemap node name. */
     public static final String N_SITEMAP = "sitemap";
 
@@ -494,6 +552,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The size of the memory monitor's cache for users. */
     public static final String N_SIZE_USERS = "size-users";
 
+    /** The node name for the Flex cache snapshot node. */
+    public static final String N_SNAPSHOT = "snapshot";
+
     /** The subscriptionmanager node name. */
     public static final String N_SUBSCRIPTIONMANAGER = "subscriptionmanager";
 
@@ -1045,6 +1106,23 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "*/" + N_SYSTEM + "/" + N_MEMORYMONITOR + "/" + N_EMAIL_RECEIVER + "/" + N_RECEIVER,
             "addEmailReceiver",
             0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_MEMORYMONITOR + "/" + N_CACHE_BUDGETS,
+            "setCacheCeilingPercent",
+            1);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_MEMORYMONITOR + "/" + N_CACHE_BUDGETS, 0, A_CEILING);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_MEMORYMONITOR + "/" + N_CACHE_BUDGETS + "/" + N_CACHE_BUDGET,
+            "addCacheBudget",
+            2);
+        digester.addCallParam(
+            "*/" + N_SYSTEM + "/" + N_MEMORYMONITOR + "/" + N_CACHE_BUDGETS + "/" + N_CACHE_BUDGET,
+            0,
+            A_TYPE);
+        digester.addCallParam(
+            "*/" + N_SYSTEM + "/" + N_MEMORYMONITOR + "/" + N_CACHE_BUDGETS + "/" + N_CACHE_BUDGET,
+            1,
+            A_BYTES);
 
         // set the MemoryMonitorConfiguration initialized once before
         digester.addSetNext("*/" + N_SYSTEM + "/" + N_MEMORYMONITOR, "setCmsMemoryMonitorConfiguration");
@@ -1064,6 +1142,38 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "setDeviceSelectorConfiguration",
             1);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_DEVICESELECTOR, 0, A_CLASS);
+        // add flexcache entry cache implementation
+        digester.addCallMethod("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_ENTRY_CACHE, "setEntryCacheClass", 1);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_ENTRY_CACHE, 0, A_CLASS);
+        // add flexcache gzip compressed copies
+        digester.addCallMethod("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_GZIP, "setGzip", 2);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_GZIP, 0, A_ENABLED);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_GZIP, 1, A_MINBYTES);
+        // add flexcache off-heap storage
+        digester.addCallMethod("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_OFF_HEAP, "setOffHeap", 2);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_OFF_HEAP, 0, A_ENABLED);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_OFF_HEAP, 1, A_BLOCKSIZE);
+        // add flexcache publish invalidation
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_PUBLISH_INVALIDATION,
+            "setPublishInvalidation",
+            1);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_PUBLISH_INVALIDATION, 0, A_MODE);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_PUBLISH_INVALIDATION + "/" + N_CLEAR_ALL_PATH,
+            "addClearAllPath",
+            0);
+        // add flexcache single-flight rendering
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_SINGLE_FLIGHT,
+            "setSingleFlight",
+            2);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_SINGLE_FLIGHT, 0, A_ENABLED);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_SINGLE_FLIGHT, 1, A_TIMEOUT);
+        // add flexcache snapshot
+        digester.addCallMethod("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_SNAPSHOT, "setSnapshot", 2);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_SNAPSHOT, 0, A_ENABLED);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_SNAPSHOT, 1, A_FILE);
 
         // set the FlexCacheConfiguration initialized once before
         digester.addSetNext("*/" + N_SYSTEM + "/" + N_FLEXCACHE, "setCmsFlexCacheConfiguration");
@@ -1159,6 +1269,26 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_QUEUESHUTDOWNTIME,
             "setPublishQueueShutdowntime",
             0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_QUEUEWORKERS,
+            "setPublishQueueWorkers",
+            0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_QUEUESMALLSIZE,
+            "setPublishQueueSmallSize",
+            0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_QUEUEBULKSIZE,
+            "setPublishQueueBulkSize",
+            0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_QUEUEAGINGTIME,
+            "setPublishQueueAgingTime",
+            0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_LISTENERTHREADS,
+            "setPublishListenerThreads",
+            0);
         digester.addSetNext("*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER, "setPublishManager");
 
         // add rule for session storage provider
@@ -1547,6 +1677,20 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
                     emailreceiverElement.addElement(N_RECEIVER).addText(iter.next());
                 }
             }
+            Map<CacheType, Long> cacheBudgets = m_cmsMemoryMonitorConfiguration.getCacheBudgets();
+            if (!cacheBudgets.isEmpty() || (m_cmsMemoryMonitorConfiguration.getCacheCeilingPercent() > 0)) {
+                Element budgetsElement = memorymonitorElement.addElement(N_CACHE_BUDGETS);
+                if (m_cmsMemoryMonitorConfiguration.getCacheCeilingPercent() > 0) {
+                    budgetsElement.addAttribute(
+                        A_CEILING,
+                        String.valueOf(m_cmsMemoryMonitorConfiguration.getCacheCeilingPercent()));
+                }
+                for (Map.Entry<CacheType, Long> budget : cacheBudgets.entrySet()) {
+                    Element budgetElement = budgetsElement.addElement(N_CACHE_BUDGET);
+                    budgetElement.addAttribute(A_TYPE, budget.getKey().name());
+                    budgetElement.addAttribute(A_BYTES, budget.getValue().toString());
+                }
+            }
         }
 
         // create <flexcache> node
@@ -1568,6 +1712,45 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
                 A_CLASS,
                 m_cmsFlexCacheConfiguration.getDeviceSelectorConfiguration());
         }
+        if (m_cmsFlexCacheConfiguration.getEntryCacheClass() != null) {
+            flexcacheElement.addElement(N_ENTRY_CACHE).addAttribute(
+                A_CLASS,
+                m_cmsFlexCacheConfiguration.getEntryCacheClass());
+        }
+        if (m_cmsFlexCacheConfiguration.isGzip()) {
+            Element flexcacheGzipElement = flexcacheElement.addElement(N_GZIP);
+            flexcacheGzipElement.addAttribute(A_ENABLED, Boolean.TRUE.toString());
+            flexcacheGzipElement.addAttribute(
+                A_MINBYTES,
+                String.valueOf(m_cmsFlexCacheConfiguration.getGzipMinBytes()));
+        }
+        if (m_cmsFlexCacheConfiguration.isOffHeap()) {
+            Element flexcacheOffHeapElement = flexcacheElement.addElement(N_OFF_HEAP);
+            flexcacheOffHeapElement.addAttribute(A_ENABLED, Boolean.TRUE.toString());
+            flexcacheOffHeapElement.addAttribute(
+                A_BLOCKSIZE,
+                String.valueOf(m_cmsFlexCacheConfiguration.getOffHeapBlockSize()));
+        }
+        if (m_cmsFlexCacheConfiguration.isSelectiveInvalidation()
+            || !m_cmsFlexCacheConfiguration.getConfiguredClearAllPaths().isEmpty()) {
+            Element flexcachePublishElement = flexcacheElement.addElement(N_PUBLISH_INVALIDATION);
+            flexcachePublishElement.addAttribute(A_MODE, m_cmsFlexCacheConfiguration.getPublishInvalidation());
+            for (String path : m_cmsFlexCacheConfiguration.getConfiguredClearAllPaths()) {
+                flexcachePublishElement.addElement(N_CLEAR_ALL_PATH).addText(path);
+            }
+        }
+        if (m_cmsFlexCacheConfiguration.isSingleFlight()) {
+            Element flexcacheSingleFlightElement = flexcacheElement.addElement(N_SINGLE_FLIGHT);
+            flexcacheSingleFlightElement.addAttribute(A_ENABLED, Boolean.TRUE.toString());
+            flexcacheSingleFlightElement.addAttribute(
+                A_TIMEOUT,
+                String.valueOf(m_cmsFlexCacheConfiguration.getSingleFlightTimeout()));
+        }
+        if (m_cmsFlexCacheConfiguration.isSnapshot()) {
+            Element flexcacheSnapshotElement = flexcacheElement.addElement(N_SNAPSHOT);
+            flexcacheSnapshotElement.addAttribute(A_ENABLED, Boolean.TRUE.toString());
+            flexcacheSnapshotElement.addAttribute(A_FILE, m_cmsFlexCacheConfiguration.getSnapshotFile());
+        }
 
         // create <http-authentication> node
         Element httpAuthenticationElement = systemElement.addElement(N_HTTP_AUTHENTICATION);
@@ -1634,6 +1817,26 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
                 String.valueOf(m_publishManager.isPublishQueuePersistanceEnabled()));
             pubHistElement.addElement(N_QUEUESHUTDOWNTIME).setText(
                 String.valueOf(m_publishManager.getPublishQueueShutdowntime()));
+            if (m_publishManager.getPublishQueueWorkers() != CmsPublishManager.DEFAULT_QUEUE_WORKERS) {
+                pubHistElement.addElement(N_QUEUEWORKERS).setText(
+                    String.valueOf(m_publishManager.getPublishQueueWorkers()));
+            }
+            if (m_publishManager.getPublishQueueSmallSize() != CmsPublishManager.DEFAULT_QUEUE_SMALLSIZE) {
+                pubHistElement.addElement(N_QUEUESMALLSIZE).setText(
+                    String.valueOf(m_publishManager.getPublishQueueSmallSize()));
+            }
+            if (m_publishManager.getPublishQueueBulkSize() != CmsPublishManager.DEFAULT_QUEUE_BULKSIZE) {
+                pubHistElement.addElement(N_QUEUEBULKSIZE).setText(
+                    String.valueOf(m_publishManager.getPublishQueueBulkSize()));
+            }
+            if (m_publishManager.getPublishQueueAgingTime() != CmsPublishManager.DEFAULT_QUEUE_AGINGTIME) {
+                pubHistElement.addElement(N_QUEUEAGINGTIME).setText(
+                    String.valueOf(m_publishManager.getPublishQueueAgingTime()));
+            }
+            if (m_publishManager.getPublishListenerThreads() != CmsPublishManager.DEFAULT_LISTENER_THREADS) {
+                pubHistElement.addElement(N_LISTENERTHREADS).setText(
+                    String.valueOf(m_publishManager.getPublishListenerThreads()));
+            }
         }
 
         // session storage provider
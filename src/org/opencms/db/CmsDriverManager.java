@@ -115,6 +115,8 @@ import org.opencms.util.CmsUUID;
 import org.opencms.util.PrintfFormat;
 import org.opencms.workplace.threads.A_CmsProgressThread;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -130,6 +132,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -326,6 +329,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** Constant mode parameter to read all files and folders in the {@link #readChangedResourcesInsideProject(CmsDbContext, CmsUUID, CmsReadChangedProjectResourceMode)}} method. */
     private static final CmsReadChangedProjectResourceMode RCPRM_FOLDERS_ONLY_MODE = new CmsReadChangedProjectResourceMode();
 
+    /** The blob store for large file contents, or <code>null</code> if no blob store is configured. */
+    private I_CmsBlobStore m_blobStore;
+
     /** The list of initialized JDBC pools. */
     private List<PoolingDriver> m_connectionPools;
 
@@ -338,11 +344,14 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** The class used for cache key generation. */
     private I_CmsCacheKey m_keyGenerator;
 
+    /** The publish tag reserved for the last started publish job. */
+    private AtomicInteger m_lastPublishTag = new AtomicInteger();
+
     /** The lock manager. */
     private CmsLockManager m_lockManager;
 
-    /** The log entry cache. */
-    private List<CmsLogEntry> m_log = new ArrayList<CmsLogEntry>();
+    /** The writer for the log entries. */
+    private CmsLogEntryWriter m_logWriter;
 
     /** Local reference to the memory monitor to avoid multiple lookups through the OpenCms singleton. */
     private CmsMemoryMonitor m_monitor;
@@ -359,12 +368,18 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** Object used for synchronizing updates to the user publish list. */
     private Object m_publishListUpdateLock = new Object();
 
+    /** The read replica for the reads in the online project, or <code>null</code> if no replica is configured. */
+    private CmsReadReplica m_readReplica;
+
     /** The security manager (for access checks). */
     private CmsSecurityManager m_securityManager;
 
     /** The sql manager. */
     private CmsSqlManager m_sqlManager;
 
+    /** The SQL statistics, or <code>null</code> if no statistics are collected. */
+    private CmsSqlStatistics m_sqlStatistics;
+
     /** The subscription driver. */
     private I_CmsSubscriptionDriver m_subscriptionDriver;
 
@@ -451,6 +466,42 @@ public final class CmsDriverManager implements I_CmsEventListener {
         // set the publish engine
         driverManager.m_publishEngine = publishEngine;
 
+        // create the blob store for large file contents, if configured
+        driverManager.m_blobStore = driverManager.newBlobStoreInstance(config);
+
+        // create the read replica, if configured
+        String replicaPool = config.getString(CmsReadReplica.CONFIGURATION_POOL, null);
+        if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(replicaPool)) {
+            driverManager.m_readReplica = new CmsReadReplica(
+                replicaPool.trim(),
+                config.getInteger(CmsReadReplica.CONFIGURATION_LAG_WINDOW, CmsReadReplica.DEFAULT_LAG_WINDOW),
+                config.getInteger(CmsReadReplica.CONFIGURATION_RETRY_DELAY, CmsReadReplica.DEFAULT_RETRY_DELAY));
+            if (CmsLog.INIT.isInfoEnabled()) {
+                CmsLog.INIT.info(
+                    Messages.get().getBundle().key(
+                        Messages.INIT_READ_REPLICA_2,
+                        replicaPool.trim(),
+                        new Long(driverManager.m_readReplica.getLagWindow())));
+            }
+        }
+
+        // create the writer for the log entries, it is started when the drivers are initialized
+        driverManager.m_logWriter = new CmsLogEntryWriter(
+            driverManager,
+            runtimeInfoFactory,
+            driverManager.m_publishListUpdateLock,
+            config.getInteger(CmsLogEntryWriter.CONFIGURATION_QUEUE_SIZE, CmsLogEntryWriter.DEFAULT_QUEUE_SIZE),
+            config.getInteger(CmsLogEntryWriter.CONFIGURATION_BATCH_SIZE, CmsLogEntryWriter.DEFAULT_BATCH_SIZE),
+            config.getInteger(
+                CmsLogEntryWriter.CONFIGURATION_FLUSH_INTERVAL,
+                CmsLogEntryWriter.DEFAULT_FLUSH_INTERVAL));
+
+        // create the SQL statistics, if enabled
+        if (config.getBoolean(CmsSqlStatistics.CONFIGURATION_STATISTICS_ENABLED, false)) {
+            driverManager.m_sqlStatistics = new CmsSqlStatistics(
+                config.getInteger(CmsSqlStatistics.CONFIGURATION_SLOW_QUERY_THRESHOLD, 0));
+        }
+
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_DRIVER_MANAGER_START_PHASE2_0));
         }
@@ -1936,7 +1987,11 @@ public final class CmsDriverManager implements I_CmsEventListener {
         } finally {
             // clear the internal caches
             m_monitor.clearAccessControlListCache();
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            if (newResource != null) {
+                uncacheProperties(newResource, true);
+            } else {
+                m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            }
 
             if (newResource != null) {
                 // fire an event that a new resource has been created
@@ -2291,7 +2346,10 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
         } finally {
             // clear the driver manager cache
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            if (resource != null) {
+                // only the structure values are deleted if the resource has siblings
+                m_monitor.uncachePropertyLists(resource.getRootPath(), false);
+            }
 
             // fire an event that all properties of a resource have been deleted
             OpenCms.fireCmsEvent(
@@ -3068,10 +3126,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         // flush all caches
         m_monitor.clearAccessControlListCache();
-        m_monitor.flushCache(
-            CmsMemoryMonitor.CacheType.PROPERTY,
-            CmsMemoryMonitor.CacheType.PROPERTY_LIST,
-            CmsMemoryMonitor.CacheType.PROJECT_RESOURCES);
+        m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROJECT_RESOURCES);
+        uncacheProperties(resource, true);
 
         OpenCms.fireCmsEvent(
             new CmsEvent(
@@ -3079,6 +3135,129 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 Collections.<String, Object> singletonMap(I_CmsEventListener.KEY_RESOURCES, resources)));
     }
 
+    /**
+     * Deletes all resources below a folder with set based updates, instead of deleting them one by one.<p>
+     *
+     * All resources in the subtree that exist online are marked as deleted with a few updates.
+     * Only the resources that have to be removed, since they do not exist online, and files with siblings
+     * which have to be deleted as well are handled one by one with
+     * {@link #deleteResource(CmsDbContext, CmsResource, CmsResource.CmsResourceDeleteMode)}.
+     * These files are deleted before the subtree is marked as deleted, so the states of their siblings are
+     * still the original ones. New folders are removed afterwards, when their sub resources are deleted.
+     * A single event is fired for all resources marked as deleted.<p>
+     *
+     * Like deleting the resources one by one, the inherited locks of the resources marked as deleted
+     * are changed to exclusive locks.<p>
+     *
+     * The folder itself is not deleted.<p>
+     *
+     * @param dbc the current database context
+     * @param folder the folder to delete the resources from
+     * @param siblingMode indicates how to handle siblings of the deleted resources
+     *
+     * @return <code>false</code> if the resources can not be deleted with set based updates
+     *      and have to be deleted one by one
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public boolean deleteResourceTree(
+        CmsDbContext dbc,
+        CmsResource folder,
+        CmsResource.CmsResourceDeleteMode siblingMode)
+    throws CmsException {
+
+        if (dbc.currentProject().isOnlineProject()) {
+            return false;
+        }
+        I_CmsVfsDriver vfsDriver = getVfsDriver(dbc);
+        List<CmsResource> resources = readSubtree(dbc, folder.getRootPath(), true);
+
+        // collect the resources which can not just be marked as deleted
+        List<CmsResource> singleResources = new ArrayList<CmsResource>();
+        List<CmsResource> deletedResources = new ArrayList<CmsResource>(resources.size());
+        for (CmsResource resource : resources) {
+            if (((siblingMode == CmsResource.DELETE_REMOVE_SIBLINGS) && (resource.getSiblingCount() > 1))
+                || (resource.getState().isNew()
+                    && !vfsDriver.validateStructureIdExists(
+                        dbc,
+                        CmsProject.ONLINE_PROJECT_ID,
+                        resource.getStructureId()))) {
+                singleResources.add(resource);
+            } else {
+                deletedResources.add(resource);
+            }
+        }
+
+        // delete the single files first, so the siblings read by deleteResource still have their original state
+        Collections.sort(singleResources, Collections.reverseOrder(I_CmsResource.COMPARE_ROOT_PATH));
+        Set<CmsUUID> deletedResourceIds = new HashSet<CmsUUID>();
+        List<CmsResource> singleFolders = new ArrayList<CmsResource>();
+        for (CmsResource resource : singleResources) {
+            if (resource.isFolder()) {
+                // new folders can only be removed after their sub resources have been deleted
+                singleFolders.add(resource);
+                continue;
+            }
+            if ((siblingMode == CmsResource.DELETE_REMOVE_SIBLINGS)
+                && !deletedResourceIds.add(resource.getResourceId())) {
+                // another sibling of the resource has already been deleted together with its siblings
+                continue;
+            }
+            deleteResource(dbc, resource, siblingMode);
+        }
+
+        // upgrade the directly inherited locks into exclusive locks, like deleteResource does
+        for (CmsResource resource : deletedResources) {
+            if (getLock(dbc, resource).getEditionLock().isDirectlyInherited()) {
+                m_lockManager.addResource(
+                    dbc,
+                    resource,
+                    dbc.currentUser(),
+                    dbc.currentProject(),
+                    CmsLockType.EXCLUSIVE);
+            }
+        }
+        m_monitor.clearResourceCache();
+        m_monitor.flushCache(CmsMemoryMonitor.CacheType.PERMISSION);
+
+        vfsDriver.deleteResourceTree(dbc, dbc.currentProject(), folder.getRootPath());
+        boolean hasSiblings = false;
+        for (CmsResource resource : deletedResources) {
+            resource.setState(CmsResource.STATE_DELETED);
+            hasSiblings |= resource.getSiblingCount() > 1;
+            log(
+                dbc,
+                new CmsLogEntry(
+                    dbc,
+                    resource.getStructureId(),
+                    CmsLogEntryType.RESOURCE_DELETED,
+                    new String[] {resource.getRootPath()}),
+                true);
+        }
+
+        // the new folders still have their original state, the sub folders are removed first
+        for (CmsResource resource : singleFolders) {
+            deleteResource(dbc, resource, siblingMode);
+        }
+
+        // flush all caches
+        m_monitor.clearAccessControlListCache();
+        m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROJECT_RESOURCES);
+        if (hasSiblings) {
+            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+        } else {
+            uncacheProperties(folder, true);
+        }
+
+        if (!deletedResources.isEmpty()) {
+            OpenCms.fireCmsEvent(
+                new CmsEvent(
+                    I_CmsEventListener.EVENT_RESOURCE_DELETED,
+                    Collections.<String, Object> singletonMap(I_CmsEventListener.KEY_RESOURCES, deletedResources)));
+        }
+        return true;
+    }
+
     /**
      * Deletes an entry in the published resource table.<p>
      *
@@ -3099,6 +3278,27 @@ public final class CmsDriverManager implements I_CmsEventListener {
         getProjectDriver(dbc).deleteStaticExportPublishedResource(dbc, resourceName, linkType, linkParameter);
     }
 
+    /**
+     * Deletes all blobs from the blob store that are no longer referenced by any offline, online
+     * or historical file content.<p>
+     *
+     * @param dbc the current database context
+     * @param dateLastUsed only blobs which have not been used after this date are deleted
+     *
+     * @return the number of deleted blobs, or 0 if no blob store is configured
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public int deleteUnreferencedBlobs(CmsDbContext dbc, long dateLastUsed) throws CmsException {
+
+        if (m_blobStore == null) {
+            return 0;
+        }
+        // the keys are read before the blobs are listed, blobs stored in the meantime are protected by their date
+        Set<String> referencedKeys = getVfsDriver(dbc).readBlobKeys(dbc);
+        return m_blobStore.deleteUnreferenced(referencedKeys, dateLastUsed);
+    }
+
     /**
      * Deletes a user, where all permissions and resources attributes of the user
      * were transfered to a replacement user, if given.<p>
@@ -3191,6 +3391,10 @@ public final class CmsDriverManager implements I_CmsEventListener {
     public void destroy() {
 
         try {
+            if (m_logWriter != null) {
+                // write the pending log entries while the drivers are still available
+                m_logWriter.shutdown();
+            }
             if (m_projectDriver != null) {
                 try {
                     m_projectDriver.destroy();
@@ -3243,6 +3447,11 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 m_connectionPools = null;
             }
 
+            if (m_sqlStatistics != null) {
+                m_sqlStatistics.shutdown();
+                m_sqlStatistics = null;
+            }
+
             m_monitor.clearCache();
 
             m_lockManager = null;
@@ -3797,6 +4006,16 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return manageableProjects;
     }
 
+    /**
+     * Returns the blob store for large file contents.<p>
+     *
+     * @return the blob store, or <code>null</code> if no blob store is configured
+     */
+    public I_CmsBlobStore getBlobStore() {
+
+        return m_blobStore;
+    }
+
     /**
      * Returns all child groups of a group.<p>
      *
@@ -4371,6 +4590,16 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return m_propertyConfiguration;
     }
 
+    /**
+     * Returns the read replica for the reads in the online project.<p>
+     *
+     * @return the read replica, or <code>null</code> if no replica is configured
+     */
+    public CmsReadReplica getReadReplica() {
+
+        return m_readReplica;
+    }
+
     /**
      * Returns a new publish list that contains the unpublished resources related
      * to all resources in the given publish list, the related resources exclude
@@ -4801,6 +5030,16 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return m_sqlManager;
     }
 
+    /**
+     * Returns the SQL statistics.<p>
+     *
+     * @return the SQL statistics, or <code>null</code> if no statistics are collected
+     */
+    public CmsSqlStatistics getSqlStatistics() {
+
+        return m_sqlStatistics;
+    }
+
     /**
      * Returns the subscription driver of this driver manager.<p>
      *
@@ -5184,6 +5423,20 @@ public final class CmsDriverManager implements I_CmsEventListener {
         dbc1.clear();
         getUserDriver().createRootOrganizationalUnit(dbc2);
         dbc2.clear();
+
+        // start writing the log entries in the background
+        m_logWriter.start();
+        if (CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(
+                Messages.get().getBundle().key(
+                    Messages.INIT_LOG_ENTRY_WRITER_2,
+                    new Integer(m_propertyConfiguration.getInteger(
+                        CmsLogEntryWriter.CONFIGURATION_BATCH_SIZE,
+                        CmsLogEntryWriter.DEFAULT_BATCH_SIZE)),
+                    new Integer(m_propertyConfiguration.getInteger(
+                        CmsLogEntryWriter.CONFIGURATION_FLUSH_INTERVAL,
+                        CmsLogEntryWriter.DEFAULT_FLUSH_INTERVAL))));
+        }
     }
 
     /**
@@ -5433,8 +5686,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /**
      * Adds the given log entry to the current user's log.<p>
      *
-     * This operation works only on memory, to get the log entries actually
-     * written to DB you have to call the {@link #updateLog(CmsDbContext)} method.<p>
+     * The log entry is written to the DB in the background, to get the log entries actually
+     * written to DB immediately you have to call the {@link #updateLog(CmsDbContext)} method.<p>
      *
      * @param dbc the current database context
      * @param logEntry the log entry to create
@@ -5464,7 +5717,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         // prevent several entries for the same operation
         dbc.setAttribute(CmsLogEntry.ATTR_LOG_ENTRY, Boolean.TRUE);
         // keep it for later
-        m_log.add(logEntry);
+        m_logWriter.add(logEntry);
     }
 
     /**
@@ -5729,75 +5982,123 @@ public final class CmsDriverManager implements I_CmsEventListener {
     public void moveResource(CmsDbContext dbc, CmsResource source, String destination, boolean internal)
     throws CmsException {
 
-        CmsFolder destinationFolder = readFolder(dbc, CmsResource.getParentFolder(destination), CmsResourceFilter.ALL);
-        m_securityManager.checkPermissions(
-            dbc,
-            destinationFolder,
-            CmsPermissionSet.ACCESS_WRITE,
-            false,
-            CmsResourceFilter.ALL);
+        List<CmsResource> resources = internalMoveResource(dbc, source, destination, internal);
+        // fire the events
+        OpenCms.fireCmsEvent(
+            new CmsEvent(
+                I_CmsEventListener.EVENT_RESOURCE_MOVED,
+                Collections.<String, Object> singletonMap(I_CmsEventListener.KEY_RESOURCES, resources)));
+    }
 
-        if (source.isFolder()) {
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.HAS_ROLE, CmsMemoryMonitor.CacheType.ROLE_LIST);
+    /**
+     * Moves a folder together with all resources below it, using set based updates for the sub resources.<p>
+     *
+     * The folder itself is moved like with {@link #moveResource(CmsDbContext, CmsResource, String, boolean)},
+     * the paths, relations and states of all sub resources are updated with a few updates, and the locks of
+     * the sub resources are moved along. A single event is fired for the folder and all sub resources.<p>
+     *
+     * @param dbc the current database context
+     * @param source the folder to move
+     * @param destination the root path of the destination folder
+     *
+     * @return <code>false</code> if the folder can not be moved with set based updates
+     *      and the resources have to be moved one by one
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public boolean moveResourceTree(CmsDbContext dbc, CmsResource source, String destination) throws CmsException {
+
+        CmsProject project = dbc.currentProject();
+        if (project.isOnlineProject()) {
+            return false;
         }
-        getVfsDriver(dbc).moveResource(dbc, dbc.getRequestContext().getCurrentProject().getUuid(), source, destination);
+        I_CmsVfsDriver vfsDriver = getVfsDriver(dbc);
+        String sourcePath = source.getRootPath();
+        String destinationPath = CmsFileUtil.addTrailingSeparator(destination);
+        List<CmsResource> resources = readSubtree(dbc, sourcePath, false);
 
-        if (!internal) {
-            CmsResourceState newState = CmsResource.STATE_CHANGED;
-            if (source.getState().isNew()) {
-                newState = CmsResource.STATE_NEW;
-            } else if (source.getState().isDeleted()) {
-                newState = CmsResource.STATE_DELETED;
+        // online resources with a different structure id at a destination path are detected resource by resource
+        List<CmsResource> onlineResources = vfsDriver.readResourceTree(
+            dbc,
+            CmsProject.ONLINE_PROJECT_ID,
+            destinationPath,
+            CmsDriverManager.READ_IGNORE_TYPE,
+            null,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READMODE_INCLUDE_TREE);
+        if (!onlineResources.isEmpty()) {
+            Map<String, CmsUUID> destinationIds = new HashMap<String, CmsUUID>();
+            for (CmsResource resource : resources) {
+                destinationIds.put(
+                    destinationPath + resource.getRootPath().substring(sourcePath.length()),
+                    resource.getStructureId());
             }
-            source.setState(newState);
-            // safe since this operation always uses the ids instead of the resource path
-            getVfsDriver(dbc).writeResourceState(
-                dbc,
-                dbc.currentProject(),
-                source,
-                CmsDriverManager.UPDATE_STRUCTURE_STATE,
-                false);
-            // log it
+            for (CmsResource onlineResource : onlineResources) {
+                CmsUUID structureId = destinationIds.get(onlineResource.getRootPath());
+                if ((structureId != null) && !structureId.equals(onlineResource.getStructureId())) {
+                    return false;
+                }
+            }
+        }
+
+        List<CmsResource> eventResources = internalMoveResource(dbc, source, destinationPath, false);
+        vfsDriver.moveResourceTree(dbc, project, sourcePath, destinationPath);
+        m_lockManager.moveResourceTree(sourcePath, destinationPath);
+
+        boolean hasSiblings = false;
+        for (CmsResource resource : resources) {
+            CmsResourceState state = resource.getState();
+            resource.setState(state.isNew() || state.isDeleted() ? state : CmsResource.STATE_CHANGED);
+            hasSiblings |= resource.getSiblingCount() > 1;
             log(
                 dbc,
                 new CmsLogEntry(
                     dbc,
-                    source.getStructureId(),
+                    resource.getStructureId(),
                     CmsLogEntryType.RESOURCE_MOVED,
-                    new String[] {source.getRootPath(), destination}),
+                    new String[] {
+                        resource.getRootPath(),
+                        destinationPath + resource.getRootPath().substring(sourcePath.length())}),
                 false);
         }
+        eventResources.addAll(resources);
+        m_monitor.clearResourceCache();
+        List<CmsResource> movedResources = readSubtree(dbc, destinationPath, false);
+        eventResources.addAll(movedResources);
 
-        CmsResource destRes = readResource(dbc, destination, CmsResourceFilter.ALL);
-        // move lock
-        m_lockManager.moveResource(source.getRootPath(), destRes.getRootPath());
+        // repair the category relations of the moved resources that have categories
+        Set<CmsUUID> categorizedIds = new HashSet<CmsUUID>();
+        CmsResource destinationFolder = readResource(dbc, destinationPath, CmsResourceFilter.ALL);
+        for (CmsRelation relation : vfsDriver.readRelations(
+            dbc,
+            project.getUuid(),
+            destinationFolder,
+            CmsRelationFilter.TARGETS.filterType(CmsRelationType.CATEGORY).filterIncludeChildren())) {
+            categorizedIds.add(relation.getSourceId());
+        }
+        for (CmsResource resource : movedResources) {
+            if (categorizedIds.contains(resource.getStructureId())) {
+                repairCategories(dbc, project.getUuid(), resource);
+            }
+        }
 
         // flush all relevant caches
         m_monitor.clearAccessControlListCache();
-        m_monitor.flushCache(
-            CmsMemoryMonitor.CacheType.PROPERTY,
-            CmsMemoryMonitor.CacheType.PROPERTY_LIST,
-            CmsMemoryMonitor.CacheType.PROJECT_RESOURCES);
-
-        List<CmsResource> resources = new ArrayList<CmsResource>(4);
-        // source
-        resources.add(source);
-        try {
-            resources.add(readFolder(dbc, CmsResource.getParentFolder(source.getRootPath()), CmsResourceFilter.ALL));
-        } catch (Exception e) {
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(e);
-            }
+        m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROJECT_RESOURCES);
+        if (hasSiblings) {
+            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
         }
-        // destination
-        resources.add(destRes);
-        resources.add(destinationFolder);
 
-        // fire the events
         OpenCms.fireCmsEvent(
             new CmsEvent(
                 I_CmsEventListener.EVENT_RESOURCE_MOVED,
-                Collections.<String, Object> singletonMap(I_CmsEventListener.KEY_RESOURCES, resources)));
+                Collections.<String, Object> singletonMap(I_CmsEventListener.KEY_RESOURCES, eventResources)));
+        return true;
     }
 
     /**
@@ -5902,6 +6203,34 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return destination;
     }
 
+    /**
+     * Creates the blob store configured in the <code>opencms.properties</code>.<p>
+     *
+     * @param configuration the configuration from the <code>opencms.properties</code>
+     *
+     * @return the initialized blob store, or <code>null</code> if no blob store is configured
+     *
+     * @throws CmsInitException if the blob store can not be initialized
+     */
+    public I_CmsBlobStore newBlobStoreInstance(CmsParameterConfiguration configuration) throws CmsInitException {
+
+        String className = configuration.getString(I_CmsBlobStore.CONFIGURATION_BLOBSTORE, null);
+        if (CmsStringUtil.isEmptyOrWhitespaceOnly(className)) {
+            return null;
+        }
+        try {
+            I_CmsBlobStore blobStore = (I_CmsBlobStore)Class.forName(className.trim()).newInstance();
+            blobStore.initConfiguration(configuration);
+            return blobStore;
+        } catch (Throwable t) {
+            CmsMessageContainer message = Messages.get().container(Messages.ERR_INIT_BLOBSTORE_1, className);
+            if (LOG.isFatalEnabled()) {
+                LOG.fatal(message.key(), t);
+            }
+            throw new CmsInitException(message, t);
+        }
+    }
+
     /**
      * Gets a new driver instance.<p>
      *
@@ -6044,6 +6373,10 @@ public final class CmsDriverManager implements I_CmsEventListener {
     public void publishJob(CmsObject cms, CmsDbContext dbc, CmsPublishList publishList, I_CmsReport report)
     throws CmsException {
 
+        if (m_readReplica != null) {
+            // the replica lags behind while the online tables are changed
+            m_readReplica.publishStarted();
+        }
         try {
             // check state and lock
             List<CmsResource> allResources = new ArrayList<CmsResource>(publishList.getFolderList());
@@ -6088,7 +6421,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             // clear the cache
             m_monitor.clearCache();
 
-            int publishTag = getNextPublishTag(dbc);
+            int publishTag = reservePublishTag(dbc);
             getProjectDriver(dbc).publishProject(dbc, report, onlineProject, publishList, publishTag);
 
             // iterate the initialized module action instances
@@ -6118,6 +6451,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
         } finally {
             // clear the cache again
             m_monitor.clearCache();
+            if (m_readReplica != null) {
+                m_readReplica.publishFinished();
+            }
         }
     }
 
@@ -6133,7 +6469,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
      *
      * @see #fillPublishList(CmsDbContext, CmsPublishList)
      */
-    public synchronized void publishProject(
+    public void publishProject(
         CmsObject cms,
         CmsDbContext dbc,
         CmsPublishList publishList,
@@ -6164,77 +6500,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
         }
 
-        // lock all resources with the special publish lock
-        Iterator<CmsResource> itResources = new ArrayList<CmsResource>(publishList.getAllResources()).iterator();
-        while (itResources.hasNext()) {
-            CmsResource resource = itResources.next();
-            CmsLock lock = m_lockManager.getLock(dbc, resource, false);
-            if (lock.getSystemLock().isUnlocked() && lock.isLockableBy(dbc.currentUser())) {
-                if (getLock(dbc, resource).getEditionLock().isNullLock()) {
-                    lockResource(dbc, resource, CmsLockType.PUBLISH);
-                } else {
-                    changeLock(dbc, resource, CmsLockType.PUBLISH);
-                }
-            } else if (lock.getSystemLock().isPublish()) {
-                if (LOG.isWarnEnabled()) {
-                    LOG.warn(
-                        Messages.get().getBundle().key(
-                            Messages.RPT_PUBLISH_REMOVED_RESOURCE_1,
-                            dbc.removeSiteRoot(resource.getRootPath())));
-                }
-                // remove files that are already waiting to be published
-                publishList.remove(resource);
-                continue;
-            } else {
-                // this is needed to fix TestPublishIsssues#testPublishScenarioE
-                changeLock(dbc, resource, CmsLockType.PUBLISH);
-            }
-            // now re-check the lock state
-            lock = m_lockManager.getLock(dbc, resource, false);
-            if (!lock.getSystemLock().isPublish()) {
-                if (report != null) {
-                    report.println(
-                        Messages.get().container(
-                            Messages.RPT_PUBLISH_REMOVED_RESOURCE_1,
-                            dbc.removeSiteRoot(resource.getRootPath())),
-                        I_CmsReport.FORMAT_WARNING);
-                }
-                if (LOG.isWarnEnabled()) {
-                    LOG.warn(
-                        Messages.get().getBundle().key(
-                            Messages.RPT_PUBLISH_REMOVED_RESOURCE_1,
-                            dbc.removeSiteRoot(resource.getRootPath())));
-                }
-                // remove files that could not be locked
-                publishList.remove(resource);
-            }
-        }
-
-        // enqueue the publish job
-        CmsException enqueueException = null;
-        try {
-            m_publishEngine.enqueuePublishJob(cms, publishList, report);
-        } catch (CmsException exc) {
-            enqueueException = exc;
-        }
-
-        // if an exception was raised, remove the publish locks
-        // and throw the exception again
-        if (enqueueException != null) {
-            itResources = publishList.getAllResources().iterator();
-            while (itResources.hasNext()) {
-                CmsResource resource = itResources.next();
-                CmsLock lock = m_lockManager.getLock(dbc, resource, false);
-                if (lock.getSystemLock().isPublish()
-                    && lock.getSystemLock().isOwnedInProjectBy(
-                        cms.getRequestContext().getCurrentUser(),
-                        cms.getRequestContext().getCurrentProject())) {
-                    unlockResource(dbc, resource, true, true);
-                }
-            }
-
-            throw enqueueException;
-        }
+        // lock the resources and enqueue the publish job
+        lockAndEnqueuePublishJob(cms, dbc, publishList, report);
     }
 
     /**
@@ -6577,10 +6844,45 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
         }
 
+        // the result depends on the folder contents, not only on the resources read
+        updateContextFolderDependency(dbc, resource.getRootPath());
         // we must always apply the result filter and update the context dates
         return updateContextDates(dbc, resourceList, filter);
     }
 
+    /**
+     * Reads the content of a file resource as a stream.<p>
+     *
+     * The content is not read into memory completely, so this should be preferred over
+     * {@link #readFile(CmsDbContext, CmsResource)} if the content is only copied, e.g. to a response.
+     * The returned stream must always be closed after use.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the file resource to read the content of
+     *
+     * @return the content of the file
+     *
+     * @throws CmsException if the content could not be read
+     */
+    public InputStream readContentStream(CmsDbContext dbc, CmsResource resource) throws CmsException {
+
+        if (resource.isFolder()) {
+            throw new CmsVfsResourceNotFoundException(
+                Messages.get().container(
+                    Messages.ERR_ACCESS_FOLDER_AS_FILE_1,
+                    dbc.removeSiteRoot(resource.getRootPath())));
+        }
+        if (resource instanceof I_CmsHistoryResource) {
+            // historical contents are always read completely
+            return new ByteArrayInputStream(
+                getHistoryDriver(dbc).readContent(
+                    dbc,
+                    resource.getResourceId(),
+                    ((I_CmsHistoryResource)resource).getPublishTag()));
+        }
+        return getVfsDriver(dbc).readContentStream(dbc, dbc.currentProject().getUuid(), resource.getResourceId());
+    }
+
     /**
      * Returns the default file for the given folder.<p>
      *
@@ -7475,6 +7777,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
         List<CmsProperty> properties = m_monitor.getCachedPropertyList(cacheKey);
 
         if ((properties == null) || !dbc.getProjectId().isNullUUID()) {
+            // the resource is replaced by the parent folders while searching
+            String rootPath = resource.getRootPath();
             // result not cached, let's look it up in the DB
             if (search) {
                 boolean cont;
@@ -7517,13 +7821,75 @@ public final class CmsDriverManager implements I_CmsEventListener {
             CmsProperty.setFrozen(properties);
             if (dbc.getProjectId().isNullUUID()) {
                 // store the result in the cache if needed
-                m_monitor.cachePropertyList(cacheKey, properties);
+                m_monitor.cachePropertyList(cacheKey, rootPath, search, properties);
             }
         }
 
         return new ArrayList<CmsProperty>(properties);
     }
 
+    /**
+     * Reads all property objects directly attached to the given resources.<p>
+     *
+     * The properties of the resources that are not cached are read with as few database queries as possible,
+     * and are stored in the cache afterwards.<p>
+     *
+     * @param dbc the current database context
+     * @param resources the resources to read the properties for
+     *
+     * @return the lists of CmsProperty objects, by structure id of the resource
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see CmsObject#readPropertyObjects(List)
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(CmsDbContext dbc, List<CmsResource> resources)
+    throws CmsException {
+
+        CmsUUID projectId = getProjectIdForContext(dbc);
+        boolean useCache = dbc.getProjectId().isNullUUID();
+        Map<CmsUUID, List<CmsProperty>> result = new HashMap<CmsUUID, List<CmsProperty>>();
+        List<CmsResource> uncachedResources = new ArrayList<CmsResource>();
+        for (CmsResource resource : resources) {
+            List<CmsProperty> properties = null;
+            if (useCache) {
+                properties = m_monitor.getCachedPropertyList(
+                    getCacheKey(CACHE_ALL_PROPERTIES, false, projectId, resource.getRootPath()));
+            }
+            if (properties != null) {
+                result.put(resource.getStructureId(), new ArrayList<CmsProperty>(properties));
+            } else {
+                uncachedResources.add(resource);
+            }
+        }
+        if (uncachedResources.isEmpty()) {
+            return result;
+        }
+
+        Map<CmsUUID, List<CmsProperty>> readProperties = getVfsDriver(dbc).readPropertyObjects(
+            dbc,
+            dbc.currentProject(),
+            uncachedResources);
+        for (CmsResource resource : uncachedResources) {
+            List<CmsProperty> properties = readProperties.get(resource.getStructureId());
+            if (properties == null) {
+                properties = new ArrayList<CmsProperty>();
+            }
+            // set all properties in the result list as frozen
+            CmsProperty.setFrozen(properties);
+            if (useCache) {
+                // store the result in the cache
+                m_monitor.cachePropertyList(
+                    getCacheKey(CACHE_ALL_PROPERTIES, false, projectId, resource.getRootPath()),
+                    resource.getRootPath(),
+                    false,
+                    properties);
+            }
+            result.put(resource.getStructureId(), new ArrayList<CmsProperty>(properties));
+        }
+        return result;
+    }
+
     /**
      * Reads the resources that were published in a publish task for a given publish history ID.<p>
      *
@@ -7754,10 +8120,124 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 m_monitor.cacheResourceList(cacheKey, resourceList);
             }
         }
+        // the result depends on the folder contents, not only on the resources read
+        updateContextFolderDependency(dbc, parent.getRootPath());
         // we must always apply the result filter and update the context dates
         return updateContextDates(dbc, resourceList, filter);
     }
 
+    /**
+     * Reads the resources with the given structure ids, using the specified resource filter.<p>
+     *
+     * The resources are read with as few database queries as possible. Resources that do not exist,
+     * do not match the filter or can not be read by the current user are not contained in the result.<p>
+     *
+     * @param dbc the current database context
+     * @param structureIds the structure ids of the resources to read
+     * @param filter the resource filter to use while reading
+     *
+     * @return the resources that were read, in the order of the given structure ids
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see CmsObject#readResources(Collection, CmsResourceFilter)
+     */
+    public List<CmsResource> readResources(
+        CmsDbContext dbc,
+        Collection<CmsUUID> structureIds,
+        CmsResourceFilter filter)
+    throws CmsException {
+
+        CmsUUID projectId = getProjectIdForContext(dbc);
+        List<CmsResource> resources = getVfsDriver(dbc).readResources(
+            dbc,
+            projectId,
+            structureIds,
+            filter.includeDeleted());
+        cacheResources(dbc, projectId, resources);
+
+        Map<CmsUUID, CmsResource> resourcesById = new HashMap<CmsUUID, CmsResource>(resources.size());
+        for (CmsResource resource : resources) {
+            resourcesById.put(resource.getStructureId(), resource);
+        }
+        List<CmsResource> result = new ArrayList<CmsResource>(resources.size());
+        for (CmsUUID structureId : structureIds) {
+            CmsResource resource = resourcesById.remove(structureId);
+            if (resource != null) {
+                result.add(resource);
+            }
+        }
+        // apply permission filter
+        result = filterPermissions(dbc, result, filter);
+        // we must always apply the result filter and update the context dates
+        return updateContextDates(dbc, result, filter);
+    }
+
+    /**
+     * Reads the resources with the given paths, using the specified resource filter.<p>
+     *
+     * Resources that are not cached are read with as few database queries as possible. Resources that do not exist,
+     * do not match the filter or can not be read by the current user are not contained in the result.<p>
+     *
+     * @param dbc the current database context
+     * @param resourcePaths the full paths of the resources to read
+     * @param filter the resource filter to use while reading
+     *
+     * @return the resources that were read, in the order of the given paths
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see CmsObject#readResourcesForPaths(Collection, CmsResourceFilter)
+     */
+    public List<CmsResource> readResourcesForPaths(
+        CmsDbContext dbc,
+        Collection<String> resourcePaths,
+        CmsResourceFilter filter)
+    throws CmsException {
+
+        CmsUUID projectId = getProjectIdForContext(dbc);
+        Map<String, CmsResource> resources = new HashMap<String, CmsResource>();
+        List<String> uncachedPaths = new ArrayList<String>();
+        for (String path : resourcePaths) {
+            CmsResource resource = null;
+            if (dbc.getProjectId().isNullUUID()) {
+                resource = m_monitor.getCachedResource(getCacheKey(null, false, projectId, path));
+            }
+            if (resource != null) {
+                resources.put(CmsFileUtil.removeTrailingSeparator(path), resource);
+            } else {
+                uncachedPaths.add(path);
+            }
+        }
+        if (!uncachedPaths.isEmpty()) {
+            List<CmsResource> readResources = getVfsDriver(dbc).readResourcesForPaths(
+                dbc,
+                projectId,
+                uncachedPaths,
+                filter.includeDeleted());
+            cacheResources(dbc, projectId, readResources);
+            for (CmsResource resource : readResources) {
+                resources.put(CmsFileUtil.removeTrailingSeparator(resource.getRootPath()), resource);
+            }
+        }
+
+        List<CmsResource> result = new ArrayList<CmsResource>(resources.size());
+        for (String path : resourcePaths) {
+            CmsResource resource = resources.remove(CmsFileUtil.removeTrailingSeparator(path));
+            if ((resource == null)
+                || (resource.getState().isDeleted() && !filter.includeDeleted())
+                || (resource.isFile() && path.endsWith("/"))) {
+                // a file is not found if the path ends with a slash, see readResource
+                continue;
+            }
+            result.add(resource);
+        }
+        // apply permission filter
+        result = filterPermissions(dbc, result, filter);
+        // we must always apply the result filter and update the context dates
+        return updateContextDates(dbc, result, filter);
+    }
+
     /**
      * Returns the resources that were visited by a user set in the filter.<p>
      *
@@ -7842,6 +8322,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 m_monitor.cacheResourceList(cacheKey, resourceList);
             }
         }
+        // the result depends on the folder contents, not only on the resources read
+        updateContextFolderDependency(dbc, folder.getRootPath());
         // we must always apply the result filter and update the context dates
         return updateContextDates(dbc, resourceList, filter);
     }
@@ -8416,7 +8898,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         if ((properties != null) && !properties.isEmpty()) {
             // write the properties
             getVfsDriver(dbc).writePropertyObjects(dbc, dbc.currentProject(), resource, properties);
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            uncacheProperties(resource, false);
         }
 
         // update the resource state
@@ -9449,25 +9931,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
      */
     public void updateLog(CmsDbContext dbc) throws CmsDataAccessException {
 
-        synchronized (m_publishListUpdateLock) {
-
-            if (m_log.isEmpty()) {
-                return;
-            }
-
-            List<CmsLogEntry> log = new ArrayList<CmsLogEntry>(m_log);
-            m_log.clear();
-            String logTableEnabledStr = (String)OpenCms.getRuntimeProperty(PARAM_LOG_TABLE_ENABLED);
-            if (Boolean.parseBoolean(logTableEnabledStr)) { // defaults to 'false' if value not set
-                m_projectDriver.log(dbc, log);
-            }
-            CmsLogToPublishListChangeConverter converter = new CmsLogToPublishListChangeConverter();
-            for (CmsLogEntry entry : log) {
-                converter.add(entry);
-            }
-            m_projectDriver.deleteUserPublishListEntries(dbc, converter.getPublishListDeletions());
-            m_projectDriver.writeUserPublishListEntries(dbc, converter.getPublishListAdditions());
-        }
+        m_logWriter.flush(dbc);
     }
 
     /**
@@ -9901,6 +10365,34 @@ public final class CmsDriverManager implements I_CmsEventListener {
         m_lockManager.writeLocks(dbc);
     }
 
+    /**
+     * Writes the given log entries to the log table and updates the user publish lists.<p>
+     *
+     * This is called by the log entry writer, use {@link #updateLog(CmsDbContext)} to write
+     * the pending log entries.<p>
+     *
+     * @param dbc the current db context
+     * @param log the log entries to write
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    public void writeLogEntries(CmsDbContext dbc, List<CmsLogEntry> log) throws CmsDataAccessException {
+
+        synchronized (m_publishListUpdateLock) {
+
+            String logTableEnabledStr = (String)OpenCms.getRuntimeProperty(PARAM_LOG_TABLE_ENABLED);
+            if (Boolean.parseBoolean(logTableEnabledStr)) { // defaults to 'false' if value not set
+                m_projectDriver.log(dbc, log);
+            }
+            CmsLogToPublishListChangeConverter converter = new CmsLogToPublishListChangeConverter();
+            for (CmsLogEntry entry : log) {
+                converter.add(entry);
+            }
+            m_projectDriver.deleteUserPublishListEntries(dbc, converter.getPublishListDeletions());
+            m_projectDriver.writeUserPublishListEntries(dbc, converter.getPublishListAdditions());
+        }
+    }
+
     /**
      * Writes an already existing organizational unit.<p>
      *
@@ -10022,7 +10514,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         } finally {
             // update the driver manager cache
             m_monitor.clearResourceCache();
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            uncacheProperties(resource, false);
 
             // fire an event that a property of a resource has been modified
             Map<String, Object> data = new HashMap<String, Object>();
@@ -10106,7 +10598,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         } finally {
             // update the driver manager cache
             m_monitor.clearResourceCache();
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            uncacheProperties(resource, false);
 
             // fire an event that the properties of a resource have been modified
             OpenCms.fireCmsEvent(
@@ -10701,6 +11193,31 @@ public final class CmsDriverManager implements I_CmsEventListener {
         publishList.addAll(filterResources(dbc, publishList, fileList), true);
     }
 
+    /**
+     * Stores the given resources in the resource cache, by root path.<p>
+     *
+     * Deleted resources are not cached. Folders are cached as {@link CmsFolder} objects,
+     * like in {@link #readPath(CmsDbContext, String, CmsResourceFilter)}.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project the resources were read from
+     * @param resources the resources to cache
+     */
+    private void cacheResources(CmsDbContext dbc, CmsUUID projectId, List<CmsResource> resources) {
+
+        if (!dbc.getProjectId().isNullUUID()) {
+            return;
+        }
+        for (CmsResource resource : resources) {
+            if (resource.getState().isDeleted()) {
+                continue;
+            }
+            m_monitor.cacheResource(
+                getCacheKey(null, false, projectId, resource.getRootPath()),
+                resource.isFolder() ? new CmsFolder(resource) : resource);
+        }
+    }
+
     /**
      * Helper method to check whether we should bother with reading the group for a given role in a given OU.<p>
      *
@@ -11323,6 +11840,90 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return groups;
     }
 
+    /**
+     * Moves a resource without firing the move event.<p>
+     *
+     * @param dbc the current database context
+     * @param source the resource to move
+     * @param destination the name of the move destination with complete path
+     * @param internal if set nothing more than the path is modified
+     *
+     * @return the resources to fire the move event for
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private List<CmsResource> internalMoveResource(
+        CmsDbContext dbc,
+        CmsResource source,
+        String destination,
+        boolean internal)
+    throws CmsException {
+
+        CmsFolder destinationFolder = readFolder(dbc, CmsResource.getParentFolder(destination), CmsResourceFilter.ALL);
+        m_securityManager.checkPermissions(
+            dbc,
+            destinationFolder,
+            CmsPermissionSet.ACCESS_WRITE,
+            false,
+            CmsResourceFilter.ALL);
+
+        if (source.isFolder()) {
+            m_monitor.flushCache(CmsMemoryMonitor.CacheType.HAS_ROLE, CmsMemoryMonitor.CacheType.ROLE_LIST);
+        }
+        getVfsDriver(dbc).moveResource(dbc, dbc.getRequestContext().getCurrentProject().getUuid(), source, destination);
+
+        if (!internal) {
+            CmsResourceState newState = CmsResource.STATE_CHANGED;
+            if (source.getState().isNew()) {
+                newState = CmsResource.STATE_NEW;
+            } else if (source.getState().isDeleted()) {
+                newState = CmsResource.STATE_DELETED;
+            }
+            source.setState(newState);
+            // safe since this operation always uses the ids instead of the resource path
+            getVfsDriver(dbc).writeResourceState(
+                dbc,
+                dbc.currentProject(),
+                source,
+                CmsDriverManager.UPDATE_STRUCTURE_STATE,
+                false);
+            // log it
+            log(
+                dbc,
+                new CmsLogEntry(
+                    dbc,
+                    source.getStructureId(),
+                    CmsLogEntryType.RESOURCE_MOVED,
+                    new String[] {source.getRootPath(), destination}),
+                false);
+        }
+
+        CmsResource destRes = readResource(dbc, destination, CmsResourceFilter.ALL);
+        // move lock
+        m_lockManager.moveResource(source.getRootPath(), destRes.getRootPath());
+
+        // flush all relevant caches
+        m_monitor.clearAccessControlListCache();
+        m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROJECT_RESOURCES);
+        uncacheProperties(source, true);
+        uncacheProperties(destRes, true);
+
+        List<CmsResource> resources = new ArrayList<CmsResource>(4);
+        // source
+        resources.add(source);
+        try {
+            resources.add(readFolder(dbc, CmsResource.getParentFolder(source.getRootPath()), CmsResourceFilter.ALL));
+        } catch (Exception e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(e);
+            }
+        }
+        // destination
+        resources.add(destRes);
+        resources.add(destinationFolder);
+        return resources;
+    }
+
     /**
      * Returns a list of users in a group.<p>
      *
@@ -11434,6 +12035,99 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return allUsers;
     }
 
+    /**
+     * Locks the resources of the given publish list with the special publish lock and enqueues the publish job.<p>
+     *
+     * Only locking and enqueueing are synchronized, so a resource is never enqueued in two publish jobs.
+     * The publish jobs themselves run outside this monitor.<p>
+     *
+     * @param cms the current request context
+     * @param dbc the current database context
+     * @param publishList the publish list
+     * @param report an instance of <code>{@link I_CmsReport}</code> to print messages
+     *
+     * @throws CmsException if the publish job could not be enqueued
+     */
+    private synchronized void lockAndEnqueuePublishJob(
+        CmsObject cms,
+        CmsDbContext dbc,
+        CmsPublishList publishList,
+        I_CmsReport report)
+    throws CmsException {
+
+        // lock all resources with the special publish lock
+        Iterator<CmsResource> itResources = new ArrayList<CmsResource>(publishList.getAllResources()).iterator();
+        while (itResources.hasNext()) {
+            CmsResource resource = itResources.next();
+            CmsLock lock = m_lockManager.getLock(dbc, resource, false);
+            if (lock.getSystemLock().isUnlocked() && lock.isLockableBy(dbc.currentUser())) {
+                if (getLock(dbc, resource).getEditionLock().isNullLock()) {
+                    lockResource(dbc, resource, CmsLockType.PUBLISH);
+                } else {
+                    changeLock(dbc, resource, CmsLockType.PUBLISH);
+                }
+            } else if (lock.getSystemLock().isPublish()) {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn(
+                        Messages.get().getBundle().key(
+                            Messages.RPT_PUBLISH_REMOVED_RESOURCE_1,
+                            dbc.removeSiteRoot(resource.getRootPath())));
+                }
+                // remove files that are already waiting to be published
+                publishList.remove(resource);
+                continue;
+            } else {
+                // this is needed to fix TestPublishIsssues#testPublishScenarioE
+                changeLock(dbc, resource, CmsLockType.PUBLISH);
+            }
+            // now re-check the lock state
+            lock = m_lockManager.getLock(dbc, resource, false);
+            if (!lock.getSystemLock().isPublish()) {
+                if (report != null) {
+                    report.println(
+                        Messages.get().container(
+                            Messages.RPT_PUBLISH_REMOVED_RESOURCE_1,
+                            dbc.removeSiteRoot(resource.getRootPath())),
+                        I_CmsReport.FORMAT_WARNING);
+                }
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn(
+                        Messages.get().getBundle().key(
+                            Messages.RPT_PUBLISH_REMOVED_RESOURCE_1,
+                            dbc.removeSiteRoot(resource.getRootPath())));
+                }
+                // remove files that could not be locked
+                publishList.remove(resource);
+            }
+        }
+
+        // enqueue the publish job
+        CmsException enqueueException = null;
+        try {
+            m_publishEngine.enqueuePublishJob(cms, publishList, report);
+        } catch (CmsException exc) {
+            enqueueException = exc;
+        }
+
+        // if an exception was raised, remove the publish locks
+        // and throw the exception again
+        if (enqueueException != null) {
+            itResources = publishList.getAllResources().iterator();
+            while (itResources.hasNext()) {
+                CmsResource resource = itResources.next();
+                CmsLock lock = m_lockManager.getLock(dbc, resource, false);
+                if (lock.getSystemLock().isPublish()
+                    && lock.getSystemLock().isOwnedInProjectBy(
+                        cms.getRequestContext().getCurrentUser(),
+                        cms.getRequestContext().getCurrentProject())) {
+                    unlockResource(dbc, resource, true, true);
+                }
+            }
+
+            throw enqueueException;
+        }
+    }
+
     /**
      * Reads all resources that are inside and changed in a specified project.<p>
      *
@@ -11510,6 +12204,59 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return result;
     }
 
+    /**
+     * Reads all resources below the given folder from the database, without checking permissions.<p>
+     *
+     * @param dbc the current database context
+     * @param folderPath the root path of the folder
+     * @param excludeDeleted if deleted resources should be excluded
+     *
+     * @return the resources below the folder, the folder itself is not included
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    private List<CmsResource> readSubtree(CmsDbContext dbc, String folderPath, boolean excludeDeleted)
+    throws CmsDataAccessException {
+
+        return getVfsDriver(dbc).readResourceTree(
+            dbc,
+            dbc.currentProject().getUuid(),
+            folderPath,
+            CmsDriverManager.READ_IGNORE_TYPE,
+            excludeDeleted ? CmsResource.STATE_DELETED : null,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READMODE_INCLUDE_TREE | (excludeDeleted ? CmsDriverManager.READMODE_EXCLUDE_STATE : 0));
+    }
+
+    /**
+     * Reserves the publish tag for a publish job.<p>
+     *
+     * If more than one publish queue worker is configured, publish jobs with publish lists that do not overlap
+     * are published at the same time, and the next publish tag read from the history only changes after the
+     * historical resources of a job have been written.
+     * The reserved publish tags are unique and increase in the order the publish jobs are started.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @return the reserved publish tag
+     */
+    private int reservePublishTag(CmsDbContext dbc) {
+
+        int nextPublishTag = getNextPublishTag(dbc);
+        while (true) {
+            int lastPublishTag = m_lastPublishTag.get();
+            int publishTag = Math.max(nextPublishTag, lastPublishTag + 1);
+            if (m_lastPublishTag.compareAndSet(lastPublishTag, publishTag)) {
+                return publishTag;
+            }
+        }
+    }
+
     /**
      * Sorts the given list of {@link CmsAccessControlEntry} objects.<p>
      *
@@ -11616,6 +12363,24 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Removes the cached properties that are affected by a change of the given resource.<p>
+     *
+     * If the resource has siblings, the shared property values of the siblings may have changed as well,
+     * so all cached properties are flushed.<p>
+     *
+     * @param resource the changed resource
+     * @param subtree <code>true</code> if all resources in the folder have changed, e.g. the folder was moved
+     */
+    private void uncacheProperties(CmsResource resource, boolean subtree) {
+
+        if (resource.getSiblingCount() > 1) {
+            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+        } else {
+            m_monitor.uncachePropertyLists(resource.getRootPath(), subtree);
+        }
+    }
+
     /**
      * Undoes all content changes of a resource.<p>
      *
@@ -11808,7 +12573,10 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         // update the cache
         m_monitor.clearResourceCache();
-        m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+        if (offlineResource != null) {
+            uncacheProperties(offlineResource, true);
+        }
+        uncacheProperties(onlineResource, true);
 
         if ((offlineResource == null) || offlineResource.getRootPath().equals(onlineResource.getRootPath())) {
             log(
@@ -11930,6 +12698,23 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return result;
     }
 
+    /**
+     * Adds the given folder to the dependencies of the current users context.<p>
+     *
+     * This is required for the selective invalidation of the Flex cache, since a list of resources read
+     * from a folder also depends on the resources that are newly created in this folder later.<p>
+     *
+     * @param dbc the current database context
+     * @param folderRootPath the root path of the folder whose contents have been read
+     */
+    private void updateContextFolderDependency(CmsDbContext dbc, String folderRootPath) {
+
+        CmsFlexRequestContextInfo info = dbc.getFlexRequestContextInfo();
+        if (info != null) {
+            info.addFolderDependency(folderRootPath);
+        }
+    }
+
     /**
      * Updates the state of a resource, depending on the <code>resourceState</code> parameter.<p>
      *
@@ -0,0 +1,382 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.file.CmsDataAccessException;
+import org.opencms.main.CmsInitException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.util.CmsFileUtil;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.logging.Log;
+
+/**
+ * A blob store that keeps the contents in a content addressed directory of the real file system.<p>
+ *
+ * Every blob is stored in a file named by the SHA-256 hash of its content. To keep the directories small,
+ * the files are distributed over two levels of sub directories named by the first four characters of the hash.
+ * A blob file is never changed after it has been written, storing an identical content again only updates
+ * the date of last modification of the file, which is used by {@link #deleteUnreferenced(Set, long)}.<p>
+ *
+ * The blob store is configured in the <code>opencms.properties</code> with the following keys:<p>
+ * <dl>
+ * <dt><code>db.blobstore.path</code></dt>
+ * <dd>The directory of the blob store, relative to the <code>WEB-INF</code> folder, default is <code>blobstore</code>.
+ * In a cluster, all servers must use a shared directory.</dd>
+ * <dt><code>db.blobstore.threshold</code></dt>
+ * <dd>The size in bytes from which on contents are stored in the blob store, default is 256 kB.</dd>
+ * </dl>
+ *
+ * @since 10.5.0
+ */
+public class CmsFileSystemBlobStore implements I_CmsBlobStore {
+
+    /** The configuration key for the directory of the blob store. */
+    public static final String CONFIGURATION_PATH = CONFIGURATION_BLOBSTORE + ".path";
+
+    /** The configuration key for the size threshold. */
+    public static final String CONFIGURATION_THRESHOLD = CONFIGURATION_BLOBSTORE + ".threshold";
+
+    /** The default directory of the blob store. */
+    public static final String DEFAULT_PATH = "blobstore";
+
+    /** The default size threshold. */
+    public static final int DEFAULT_THRESHOLD = 256 * 1024;
+
+    /** The digest algorithm used to create the keys. */
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    /** The length of a key. */
+    private static final int KEY_LENGTH = 64;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsFileSystemBlobStore.class);
+
+    /** The prefix of the references written to the database, starts with a zero byte to keep it apart from text. */
+    private static final byte[] REFERENCE_PREFIX = "\u0000OCMS-BLOB:SHA-256:".getBytes();
+
+    /** The suffix of temporary files. */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /** The directory of the blob store. */
+    private File m_directory;
+
+    /** The size in bytes from which on contents are stored in the blob store. */
+    private int m_threshold;
+
+    /**
+     * @see org.opencms.db.I_CmsBlobStore#deleteUnreferenced(java.util.Set, long)
+     */
+    public int deleteUnreferenced(Set<String> referencedKeys, long dateLastUsed) {
+
+        int result = 0;
+        File[] firstLevel = m_directory.listFiles();
+        if (firstLevel == null) {
+            return result;
+        }
+        for (File first : firstLevel) {
+            File[] secondLevel = first.listFiles();
+            if (secondLevel == null) {
+                continue;
+            }
+            for (File second : secondLevel) {
+                File[] blobs = second.listFiles();
+                if (blobs == null) {
+                    continue;
+                }
+                for (File blob : blobs) {
+                    String name = blob.getName();
+                    boolean unused = blob.isFile() && (blob.lastModified() < dateLastUsed);
+                    boolean temp = name.endsWith(TEMP_SUFFIX);
+                    if (unused && (temp || ((name.length() == KEY_LENGTH) && !referencedKeys.contains(name)))) {
+                        if (blob.delete()) {
+                            result++;
+                            if (LOG.isDebugEnabled()) {
+                                LOG.debug(Messages.get().getBundle().key(Messages.LOG_BLOBSTORE_DELETED_1, name));
+                            }
+                        } else {
+                            LOG.warn(
+                                Messages.get().getBundle().key(
+                                    Messages.LOG_BLOBSTORE_DELETE_FAILED_1,
+                                    blob.getAbsolutePath()));
+                        }
+                    }
+                }
+                // remove empty directories, the directories are created again when required
+                second.delete();
+            }
+            first.delete();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the directory of the blob store.<p>
+     *
+     * @return the directory of the blob store
+     */
+    public File getDirectory() {
+
+        return m_directory;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsBlobStore#getKey(byte[])
+     */
+    public String getKey(byte[] value) {
+
+        if ((value == null) || (value.length != getReferenceLength())) {
+            return null;
+        }
+        for (int i = 0; i < REFERENCE_PREFIX.length; i++) {
+            if (value[i] != REFERENCE_PREFIX[i]) {
+                return null;
+            }
+        }
+        for (int i = REFERENCE_PREFIX.length; i < value.length; i++) {
+            byte b = value[i];
+            if (!(((b >= '0') && (b <= '9')) || ((b >= 'a') && (b <= 'f')))) {
+                return null;
+            }
+        }
+        return new String(value, REFERENCE_PREFIX.length, KEY_LENGTH);
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsBlobStore#getReferenceLength()
+     */
+    public int getReferenceLength() {
+
+        return REFERENCE_PREFIX.length + KEY_LENGTH;
+    }
+
+    /**
+     * Returns the size in bytes from which on contents are stored in the blob store.<p>
+     *
+     * @return the size in bytes from which on contents are stored in the blob store
+     */
+    public int getThreshold() {
+
+        return m_threshold;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsBlobStore#initConfiguration(org.opencms.configuration.CmsParameterConfiguration)
+     */
+    public void initConfiguration(CmsParameterConfiguration configuration) throws CmsInitException {
+
+        String path = configuration.getString(CONFIGURATION_PATH, DEFAULT_PATH);
+        m_directory = new File(OpenCms.getSystemInfo().getAbsoluteRfsPathRelativeToWebInf(path));
+        if (!m_directory.isDirectory() && !m_directory.mkdirs()) {
+            throw new CmsInitException(
+                Messages.get().container(Messages.ERR_BLOBSTORE_CREATE_DIRECTORY_1, m_directory.getAbsolutePath()));
+        }
+        // smaller contents would not save any space in the database
+        m_threshold = Math.max(
+            configuration.getInteger(CONFIGURATION_THRESHOLD, DEFAULT_THRESHOLD),
+            getReferenceLength());
+        try {
+            MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new CmsInitException(
+                Messages.get().container(Messages.ERR_BLOBSTORE_DIGEST_1, DIGEST_ALGORITHM),
+                e);
+        }
+        if (CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(
+                Messages.get().getBundle().key(
+                    Messages.INIT_BLOBSTORE_2,
+                    m_directory.getAbsolutePath(),
+                    new Integer(m_threshold)));
+        }
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsBlobStore#resolve(byte[])
+     */
+    public byte[] resolve(byte[] value) throws CmsDataAccessException {
+
+        String key = getKey(value);
+        if (key == null) {
+            return value;
+        }
+        try {
+            return CmsFileUtil.readFully(openBlob(key));
+        } catch (IOException e) {
+            throw new CmsDbIoException(Messages.get().container(Messages.ERR_BLOBSTORE_READ_1, key), e);
+        }
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsBlobStore#resolve(java.io.InputStream)
+     */
+    public InputStream resolve(InputStream value) throws CmsDataAccessException {
+
+        int length = getReferenceLength();
+        BufferedInputStream in = new BufferedInputStream(value, length + 1);
+        byte[] start = new byte[length + 1];
+        try {
+            in.mark(length + 1);
+            // a reference is only found if the value has exactly the length of a reference
+            int count = 0;
+            int read = 0;
+            while ((count <= length) && ((read = in.read(start, count, (length + 1) - count)) != -1)) {
+                count += read;
+            }
+            if (count == length) {
+                byte[] reference = new byte[length];
+                System.arraycopy(start, 0, reference, 0, length);
+                String key = getKey(reference);
+                if (key != null) {
+                    in.close();
+                    return openBlob(key);
+                }
+            }
+            in.reset();
+            return in;
+        } catch (IOException e) {
+            try {
+                in.close();
+            } catch (IOException ex) {
+                // ignore, the original exception is thrown
+            }
+            throw new CmsDbIoException(Messages.get().container(Messages.ERR_BLOBSTORE_READ_STREAM_0), e);
+        }
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsBlobStore#store(byte[])
+     */
+    public byte[] store(byte[] content) throws CmsDataAccessException {
+
+        if ((content.length < m_threshold) && (getKey(content) == null)) {
+            // small contents are kept in the database, unless they look like a reference
+            return content;
+        }
+        String key;
+        try {
+            key = Hex.encodeHexString(MessageDigest.getInstance(DIGEST_ALGORITHM).digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            // should never happen, since the algorithm has been checked during initialization
+            throw new CmsDbIoException(Messages.get().container(Messages.ERR_BLOBSTORE_DIGEST_1, DIGEST_ALGORITHM), e);
+        }
+        File blob = getBlobFile(key);
+        if (!blob.exists() || !blob.setLastModified(System.currentTimeMillis())) {
+            writeBlob(blob, content);
+        }
+        byte[] result = new byte[getReferenceLength()];
+        System.arraycopy(REFERENCE_PREFIX, 0, result, 0, REFERENCE_PREFIX.length);
+        System.arraycopy(key.getBytes(), 0, result, REFERENCE_PREFIX.length, KEY_LENGTH);
+        return result;
+    }
+
+    /**
+     * Returns the file of the blob with the given key.<p>
+     *
+     * @param key the key of the blob
+     *
+     * @return the file of the blob
+     */
+    private File getBlobFile(String key) {
+
+        File directory = new File(new File(m_directory, key.substring(0, 2)), key.substring(2, 4));
+        return new File(directory, key);
+    }
+
+    /**
+     * Opens the blob with the given key.<p>
+     *
+     * @param key the key of the blob
+     *
+     * @return a stream of the blob content
+     *
+     * @throws CmsDataAccessException if the blob does not exist
+     */
+    private InputStream openBlob(String key) throws CmsDataAccessException {
+
+        try {
+            return new FileInputStream(getBlobFile(key));
+        } catch (FileNotFoundException e) {
+            throw new CmsDbEntryNotFoundException(Messages.get().container(Messages.ERR_BLOBSTORE_NOT_FOUND_1, key), e);
+        }
+    }
+
+    /**
+     * Writes the content of a blob.<p>
+     *
+     * The content is written to a temporary file first, which is renamed afterwards, so that
+     * a blob file is always complete.<p>
+     *
+     * @param blob the file of the blob
+     * @param content the content of the blob
+     *
+     * @throws CmsDataAccessException if writing the blob fails
+     */
+    private void writeBlob(File blob, byte[] content) throws CmsDataAccessException {
+
+        File directory = blob.getParentFile();
+        File temp = null;
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+                throw new IOException(directory.getAbsolutePath());
+            }
+            temp = File.createTempFile(blob.getName(), TEMP_SUFFIX, directory);
+            OutputStream out = new FileOutputStream(temp);
+            try {
+                out.write(content);
+            } finally {
+                out.close();
+            }
+            if (!temp.renameTo(blob) && !blob.exists()) {
+                throw new IOException(blob.getAbsolutePath());
+            }
+        } catch (IOException e) {
+            throw new CmsDbIoException(Messages.get().container(Messages.ERR_BLOBSTORE_WRITE_1, blob.getName()), e);
+        } finally {
+            if ((temp != null) && temp.exists()) {
+                // another thread has written the same blob in the meantime
+                temp.delete();
+            }
+        }
+    }
+}
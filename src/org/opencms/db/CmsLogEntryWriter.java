@@ -0,0 +1,322 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+import org.opencms.db.log.CmsLogEntry;
+import org.opencms.file.CmsDataAccessException;
+import org.opencms.main.CmsLog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingDeque;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Writes the log entries of the driver manager to the database in the background.<p>
+ *
+ * Log entries are collected in a bounded queue. A background thread writes them in batches,
+ * as soon as a batch is complete or the flush interval has passed. If the queue is full,
+ * the thread adding a log entry writes the pending entries itself, so that the queue never grows
+ * beyond its capacity.<p>
+ *
+ * If writing a batch fails, its entries are put back at the head of the queue and written by the next flush.
+ * If the queue is full and the pending entries can not be written, new log entries are dropped.<p>
+ *
+ * Operations reading the log have to call {@link #flush(CmsDbContext)} first, which writes all pending
+ * entries. All writes are synchronized with the given lock, so that a reader holding the lock sees
+ * all entries added before.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsLogEntryWriter {
+
+    /** The configuration key for the number of log entries written in one batch. */
+    public static final String CONFIGURATION_BATCH_SIZE = "db.log.batchsize";
+
+    /** The configuration key for the max. time in ms log entries are kept in the queue. */
+    public static final String CONFIGURATION_FLUSH_INTERVAL = "db.log.flushinterval";
+
+    /** The configuration key for the capacity of the queue. */
+    public static final String CONFIGURATION_QUEUE_SIZE = "db.log.queuesize";
+
+    /** The default number of log entries written in one batch. */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    /** The default max. time in ms log entries are kept in the queue. */
+    public static final int DEFAULT_FLUSH_INTERVAL = 5000;
+
+    /** The default capacity of the queue. */
+    public static final int DEFAULT_QUEUE_SIZE = 10000;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsLogEntryWriter.class);
+
+    /** Flag indicating if the background thread should keep running. */
+    private volatile boolean m_alive;
+
+    /** The number of log entries written in one batch. */
+    private int m_batchSize;
+
+    /** The factory for the database contexts of the background thread. */
+    private I_CmsDbContextFactory m_dbContextFactory;
+
+    /** The driver manager. */
+    private CmsDriverManager m_driverManager;
+
+    /** The max. time in ms log entries are kept in the queue. */
+    private long m_flushInterval;
+
+    /** The lock held while log entries are written. */
+    private Object m_lock;
+
+    /** The log entries that have not been written yet. */
+    private LinkedBlockingDeque<CmsLogEntry> m_queue;
+
+    /** The monitor used to wake up the background thread. */
+    private Object m_signal;
+
+    /** The background thread. */
+    private Thread m_thread;
+
+    /**
+     * Creates a new log entry writer.<p>
+     *
+     * @param driverManager the driver manager used to write the log entries
+     * @param dbContextFactory the factory for the database contexts of the background thread
+     * @param lock the lock held while log entries are written
+     * @param queueSize the capacity of the queue
+     * @param batchSize the number of log entries written in one batch
+     * @param flushInterval the max. time in ms log entries are kept in the queue
+     */
+    public CmsLogEntryWriter(
+        CmsDriverManager driverManager,
+        I_CmsDbContextFactory dbContextFactory,
+        Object lock,
+        int queueSize,
+        int batchSize,
+        long flushInterval) {
+
+        m_driverManager = driverManager;
+        m_dbContextFactory = dbContextFactory;
+        m_lock = lock;
+        m_queue = new LinkedBlockingDeque<CmsLogEntry>(Math.max(1, queueSize));
+        m_batchSize = Math.max(1, batchSize);
+        m_flushInterval = Math.max(1, flushInterval);
+        m_signal = new Object();
+    }
+
+    /**
+     * Adds a log entry to the queue.<p>
+     *
+     * If the queue is full, the pending log entries are written in the calling thread.
+     * If they can not be written, the given log entry is dropped.<p>
+     *
+     * @param logEntry the log entry to add
+     */
+    public void add(CmsLogEntry logEntry) {
+
+        while (!m_queue.offer(logEntry)) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_LOG_ENTRY_QUEUE_FULL_1,
+                        new Integer(m_queue.size())));
+            }
+            if (!flush()) {
+                // the database is not available, do not block the calling thread
+                LOG.error(Messages.get().getBundle().key(Messages.LOG_LOG_ENTRY_DROPPED_0));
+                return;
+            }
+        }
+        if ((m_thread != null) && (m_queue.size() >= m_batchSize)) {
+            synchronized (m_signal) {
+                m_signal.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Writes all pending log entries with the given database context.<p>
+     *
+     * If writing fails, the entries that have not been written are kept in the queue.<p>
+     *
+     * @param dbc the database context
+     *
+     * @throws CmsDataAccessException if writing the log entries fails
+     */
+    public void flush(CmsDbContext dbc) throws CmsDataAccessException {
+
+        synchronized (m_lock) {
+            // only write the entries pending now, entries added concurrently may be written by the next flush
+            int count = m_queue.size();
+            List<CmsLogEntry> entries = new ArrayList<CmsLogEntry>(Math.min(count, m_batchSize));
+            while ((count > 0) && (m_queue.drainTo(entries, Math.min(count, m_batchSize)) > 0)) {
+                count -= entries.size();
+                boolean written = false;
+                try {
+                    write(dbc, entries);
+                    written = true;
+                } finally {
+                    if (!written) {
+                        // put the entries back, so they are written by the next flush
+                        requeue(entries);
+                    }
+                }
+                entries.clear();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of log entries that have not been written yet.<p>
+     *
+     * @return the number of log entries that have not been written yet
+     */
+    public int getPendingCount() {
+
+        return m_queue.size();
+    }
+
+    /**
+     * Stops the background thread and writes all pending log entries.<p>
+     */
+    public void shutdown() {
+
+        m_alive = false;
+        Thread thread = m_thread;
+        if (thread != null) {
+            synchronized (m_signal) {
+                m_signal.notifyAll();
+            }
+            try {
+                thread.join(m_flushInterval);
+            } catch (InterruptedException e) {
+                // ignore, the pending entries are written below
+            }
+            m_thread = null;
+        }
+        flush();
+    }
+
+    /**
+     * Starts the background thread writing the log entries.<p>
+     */
+    public synchronized void start() {
+
+        if (m_thread != null) {
+            return;
+        }
+        m_alive = true;
+        m_thread = new Thread(new Runnable() {
+
+            public void run() {
+
+                writeInBackground();
+            }
+        }, "OpenCms: Log entry writer");
+        m_thread.setDaemon(true);
+        m_thread.start();
+    }
+
+    /**
+     * Writes the given log entries.<p>
+     *
+     * @param dbc the database context
+     * @param entries the log entries to write
+     *
+     * @throws CmsDataAccessException if writing the log entries fails
+     */
+    protected void write(CmsDbContext dbc, List<CmsLogEntry> entries) throws CmsDataAccessException {
+
+        m_driverManager.writeLogEntries(dbc, entries);
+    }
+
+    /**
+     * Writes all pending log entries with a new database context, logging failures.<p>
+     *
+     * @return <code>true</code> if the pending log entries have been written
+     */
+    boolean flush() {
+
+        CmsDbContext dbc = m_dbContextFactory.getDbContext();
+        int count = m_queue.size();
+        try {
+            flush(dbc);
+            return true;
+        } catch (Throwable t) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_LOG_ENTRY_WRITE_FAILED_1, new Integer(count)), t);
+            return false;
+        } finally {
+            dbc.clear();
+        }
+    }
+
+    /**
+     * Puts log entries which could not be written back at the head of the queue, keeping their order.<p>
+     *
+     * @param entries the log entries to put back
+     */
+    void requeue(List<CmsLogEntry> entries) {
+
+        int lost = 0;
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            if (!m_queue.offerFirst(entries.get(i))) {
+                // entries added concurrently have filled the queue
+                lost++;
+            }
+        }
+        if (lost > 0) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_LOG_ENTRIES_LOST_1, new Integer(lost)));
+        }
+    }
+
+    /**
+     * Writes the log entries until the writer is shut down, called by the background thread.<p>
+     */
+    void writeInBackground() {
+
+        boolean written = true;
+        while (m_alive) {
+            synchronized (m_signal) {
+                // after a failure wait for the flush interval before trying again
+                if (m_alive && (!written || (m_queue.size() < m_batchSize))) {
+                    try {
+                        m_signal.wait(m_flushInterval);
+                    } catch (InterruptedException e) {
+                        // continue with writing the pending entries
+                    }
+                }
+            }
+            if (!m_queue.isEmpty()) {
+                written = flush();
+            }
+        }
+    }
+}
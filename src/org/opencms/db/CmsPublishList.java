@@ -52,6 +52,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 import org.apache.commons.logging.Log;
 
@@ -115,6 +116,12 @@ public class CmsPublishList implements Externalizable {
     /** Flag to indicate if the list needs to be revived. */
     private boolean m_needsRevive;
 
+    /** The resource ids of the overlap snapshot, or <code>null</code> if no snapshot has been taken. */
+    private Set<CmsUUID> m_overlapResourceIds;
+
+    /** The root paths of the overlap snapshot, or <code>null</code> if no snapshot has been taken. */
+    private TreeSet<String> m_overlapRootPaths;
+
     /** The id of the project that is to be published. */
     private CmsUUID m_projectId;
 
@@ -338,6 +345,27 @@ public class CmsPublishList implements Externalizable {
         return result;
     }
 
+    /**
+     * Takes a snapshot of the root paths and resource ids of this publish list for the overlap check.<p>
+     *
+     * Once the snapshot has been taken, {@link #isOverlapping(CmsPublishList)} uses the snapshot instead of
+     * the resources of this list, so the resources may be removed from the list while it is being published.<p>
+     */
+    public void initOverlapSnapshot() {
+
+        if (m_needsRevive) {
+            return;
+        }
+        Set<CmsUUID> resourceIds = new HashSet<CmsUUID>();
+        TreeSet<String> rootPaths = new TreeSet<String>();
+        for (CmsResource resource : getAllResources()) {
+            resourceIds.add(resource.getResourceId());
+            rootPaths.add(resource.getRootPath());
+        }
+        m_overlapResourceIds = resourceIds;
+        m_overlapRootPaths = rootPaths;
+    }
+
     /**
      * Checks if this is a publish list is used for a "direct publish" operation.<p>
      *
@@ -348,6 +376,49 @@ public class CmsPublishList implements Externalizable {
         return (m_projectId == null);
     }
 
+    /**
+     * Checks if this publish list overlaps the given publish list.<p>
+     *
+     * Two publish lists overlap if they contain the same resource or siblings of the same resource,
+     * or if a folder of one list contains a resource of the other list.
+     * Publish lists which overlap must not be published at the same time.<p>
+     *
+     * A publish list which has not been revived yet overlaps any other publish list.<p>
+     *
+     * @param publishList the publish list to check
+     *
+     * @return <code>true</code> if the publish lists overlap
+     */
+    public boolean isOverlapping(CmsPublishList publishList) {
+
+        if (m_needsRevive || publishList.m_needsRevive) {
+            return true;
+        }
+        Set<CmsUUID> resourceIds = getOverlapResourceIds();
+        for (CmsUUID resourceId : publishList.getOverlapResourceIds()) {
+            if (resourceIds.contains(resourceId)) {
+                return true;
+            }
+        }
+        TreeSet<String> rootPaths = getOverlapRootPaths();
+        for (String rootPath : publishList.getOverlapRootPaths()) {
+            // the first path which is not smaller is either the same resource or a resource in the folder
+            String nextPath = rootPaths.ceiling(rootPath);
+            if ((nextPath != null)
+                && (nextPath.equals(rootPath) || (CmsResource.isFolder(rootPath) && nextPath.startsWith(rootPath)))) {
+                return true;
+            }
+            String parentFolder = CmsResource.getParentFolder(rootPath);
+            while (parentFolder != null) {
+                if (rootPaths.contains(parentFolder)) {
+                    return true;
+                }
+                parentFolder = CmsResource.getParentFolder(parentFolder);
+            }
+        }
+        return false;
+    }
+
     /**
      * Returns <code>true</code> if all siblings of the project resources are to be published.<p>
      *
@@ -759,6 +830,40 @@ public class CmsPublishList implements Externalizable {
         return ret;
     }
 
+    /**
+     * Returns the resource ids used to check if this publish list overlaps another one.<p>
+     *
+     * @return the resource ids of the overlap snapshot, or of the current resources if no snapshot has been taken
+     */
+    private Set<CmsUUID> getOverlapResourceIds() {
+
+        if (m_overlapResourceIds != null) {
+            return m_overlapResourceIds;
+        }
+        Set<CmsUUID> resourceIds = new HashSet<CmsUUID>();
+        for (CmsResource resource : getAllResources()) {
+            resourceIds.add(resource.getResourceId());
+        }
+        return resourceIds;
+    }
+
+    /**
+     * Returns the root paths used to check if this publish list overlaps another one.<p>
+     *
+     * @return the root paths of the overlap snapshot, or of the current resources if no snapshot has been taken
+     */
+    private TreeSet<String> getOverlapRootPaths() {
+
+        if (m_overlapRootPaths != null) {
+            return m_overlapRootPaths;
+        }
+        TreeSet<String> rootPaths = new TreeSet<String>();
+        for (CmsResource resource : getAllResources()) {
+            rootPaths.add(resource.getRootPath());
+        }
+        return rootPaths;
+    }
+
     /**
      * Builds a list of <code>CmsResource</code> instances from a list of resource structure IDs.<p>
      *
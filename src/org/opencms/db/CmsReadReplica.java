@@ -0,0 +1,212 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+import org.opencms.file.CmsProject;
+import org.opencms.main.CmsLog;
+import org.opencms.util.CmsUUID;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Decides if the reads of a database context can be sent to a read replica of the database.<p>
+ *
+ * Only reads in the online project are sent to the replica, and only as long as the context has not written
+ * to the database. Since the replica lags behind the primary database, all reads use the primary pool while
+ * a publish job is running and for the configured lag window after it has finished.
+ * If the replica fails, all reads use the primary pool for the configured retry delay.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsReadReplica {
+
+    /** The configuration key for the time in milliseconds after a publish job during which the primary pool is used. */
+    public static final String CONFIGURATION_LAG_WINDOW = "db.replica.lagwindow";
+
+    /** The configuration key for the URL of the replica pool. */
+    public static final String CONFIGURATION_POOL = "db.replica.pool";
+
+    /** The configuration key for the time in milliseconds after a replica failure during which the primary is used. */
+    public static final String CONFIGURATION_RETRY_DELAY = "db.replica.retrydelay";
+
+    /** The key of the database context attribute that marks contexts that have written to the database. */
+    public static final String DBC_ATTR_WRITTEN = "readReplica.written";
+
+    /** The default lag window in milliseconds. */
+    public static final int DEFAULT_LAG_WINDOW = 5000;
+
+    /** The default retry delay in milliseconds. */
+    public static final int DEFAULT_RETRY_DELAY = 30000;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsReadReplica.class);
+
+    /** The time in milliseconds after a publish job during which the primary pool is used. */
+    private long m_lagWindow;
+
+    /** The URL of the replica pool. */
+    private String m_poolUrl;
+
+    /** The time until the primary pool is used. */
+    private AtomicLong m_primaryUntil;
+
+    /** The number of running publish jobs. */
+    private AtomicInteger m_publishJobs;
+
+    /** The time in milliseconds after a failure of the replica during which the primary pool is used. */
+    private long m_retryDelay;
+
+    /**
+     * Creates a new read replica.<p>
+     *
+     * @param poolUrl the URL of the replica pool, with or without the DBCP prefix
+     * @param lagWindow the time in milliseconds after a publish job during which the primary pool is used
+     * @param retryDelay the time in milliseconds after a failure of the replica during which the primary pool is used
+     */
+    public CmsReadReplica(String poolUrl, long lagWindow, long retryDelay) {
+
+        if (!poolUrl.startsWith(CmsDbPool.DBCP_JDBC_URL_PREFIX)) {
+            poolUrl = CmsDbPool.DBCP_JDBC_URL_PREFIX + poolUrl;
+        }
+        m_poolUrl = poolUrl;
+        m_lagWindow = lagWindow;
+        m_retryDelay = retryDelay;
+        m_primaryUntil = new AtomicLong();
+        m_publishJobs = new AtomicInteger();
+    }
+
+    /**
+     * Returns the time in milliseconds after a publish job during which the primary pool is used.<p>
+     *
+     * @return the lag window in milliseconds
+     */
+    public long getLagWindow() {
+
+        return m_lagWindow;
+    }
+
+    /**
+     * Returns the URL of the replica pool, including the DBCP prefix.<p>
+     *
+     * @return the URL of the replica pool
+     */
+    public String getPoolUrl() {
+
+        return m_poolUrl;
+    }
+
+    /**
+     * Checks if the replica can currently be used, i.e. no publish job is running,
+     * and neither the lag window of the last publish job nor the retry delay after a failure is active.<p>
+     *
+     * @return <code>true</code> if the replica can currently be used
+     */
+    public boolean isAvailable() {
+
+        return (m_publishJobs.get() == 0) && (System.currentTimeMillis() >= m_primaryUntil.get());
+    }
+
+    /**
+     * Marks the given database context as having written to the database,
+     * so that all following reads of the context use the primary pool.<p>
+     *
+     * @param dbc the database context
+     */
+    public void markWritten(CmsDbContext dbc) {
+
+        if ((dbc != null) && (dbc.getAttribute(DBC_ATTR_WRITTEN) == null)) {
+            dbc.setAttribute(DBC_ATTR_WRITTEN, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Records that a publish job has finished, which starts the lag window.<p>
+     */
+    public void publishFinished() {
+
+        usePrimaryUntil(System.currentTimeMillis() + m_lagWindow);
+        m_publishJobs.decrementAndGet();
+    }
+
+    /**
+     * Records that a publish job has started.<p>
+     */
+    public void publishStarted() {
+
+        m_publishJobs.incrementAndGet();
+    }
+
+    /**
+     * Records a failure of the replica, which starts the retry delay.<p>
+     *
+     * @param e the exception thrown by the replica
+     */
+    public void replicaFailed(Exception e) {
+
+        usePrimaryUntil(System.currentTimeMillis() + m_retryDelay);
+        LOG.warn(
+            Messages.get().getBundle().key(Messages.LOG_READ_REPLICA_FAILED_2, m_poolUrl, new Long(m_retryDelay)),
+            e);
+    }
+
+    /**
+     * Checks if the reads of the given database context can be sent to the replica.<p>
+     *
+     * @param dbc the database context
+     *
+     * @return <code>true</code> if the reads of the given database context can be sent to the replica
+     */
+    public boolean useReplica(CmsDbContext dbc) {
+
+        if ((dbc == null) || (dbc.getAttribute(DBC_ATTR_WRITTEN) != null) || !isAvailable()) {
+            return false;
+        }
+        CmsUUID projectId = dbc.getProjectId();
+        if ((projectId != null) && !projectId.isNullUUID()) {
+            return CmsProject.ONLINE_PROJECT_ID.equals(projectId);
+        }
+        return (dbc.getRequestContext() != null) && dbc.currentProject().isOnlineProject();
+    }
+
+    /**
+     * Makes sure the primary pool is used until the given time.<p>
+     *
+     * @param time the time until the primary pool is used
+     */
+    private void usePrimaryUntil(long time) {
+
+        long current = m_primaryUntil.get();
+        while ((time > current) && !m_primaryUntil.compareAndSet(current, time)) {
+            current = m_primaryUntil.get();
+        }
+    }
+}
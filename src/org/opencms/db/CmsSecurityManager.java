@@ -92,6 +92,7 @@ import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -1646,6 +1647,33 @@ public final class CmsSecurityManager {
         }
     }
 
+    /**
+     * Deletes all blobs from the blob store that are no longer referenced by any file content.<p>
+     *
+     * @param context the current request context
+     * @param dateLastUsed only blobs which have not been used after this date are deleted
+     *
+     * @return the number of deleted blobs
+     *
+     * @throws CmsException if something goes wrong
+     * @throws CmsRoleViolationException if the current user does not have the role {@link CmsRole#ROOT_ADMIN}
+     */
+    public int deleteUnreferencedBlobs(CmsRequestContext context, long dateLastUsed)
+    throws CmsException, CmsRoleViolationException {
+
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        int result = 0;
+        try {
+            checkRole(dbc, CmsRole.ROOT_ADMIN);
+            result = m_driverManager.deleteUnreferencedBlobs(dbc, dateLastUsed);
+        } catch (Exception e) {
+            dbc.report(null, Messages.get().container(Messages.ERR_DELETE_UNREFERENCED_BLOBS_0), e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Deletes a user.<p>
      *
@@ -4138,6 +4166,34 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Reads the content of a file resource as a stream.<p>
+     *
+     * The returned stream must always be closed after use.<p>
+     *
+     * @param context the current request context
+     * @param resource the file resource to read the content of
+     *
+     * @return the content of the file
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see CmsObject#readContentStream(CmsResource)
+     */
+    public InputStream readContentStream(CmsRequestContext context, CmsResource resource) throws CmsException {
+
+        InputStream result = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            result = m_driverManager.readContentStream(dbc, resource);
+        } catch (Exception e) {
+            dbc.report(null, Messages.get().container(Messages.ERR_READ_FILE_1, context.getSitePath(resource)), e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Returns the default file for the given folder.<p>
      *
@@ -4546,6 +4602,25 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Reads the next publish tag, i.e. the tag the next publish job will use.<p>
+     *
+     * @param context the current request context
+     *
+     * @return the next publish tag
+     */
+    public int readNextPublishTag(CmsRequestContext context) {
+
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        int result;
+        try {
+            result = m_driverManager.getNextPublishTag(dbc);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Reads an organizational Unit based on its fully qualified name.<p>
      *
@@ -4901,6 +4976,37 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Reads all property objects directly attached to the given resources.<p>
+     *
+     * The properties of all resources are read with as few database queries as possible.<p>
+     *
+     * @param context the context of the current request
+     * @param resources the resources to read the properties for
+     *
+     * @return the lists of <code>{@link CmsProperty}</code> objects, by structure id of the resource
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsRequestContext context,
+        List<CmsResource> resources) throws CmsException {
+
+        Map<CmsUUID, List<CmsProperty>> result = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            result = m_driverManager.readPropertyObjects(dbc, resources);
+        } catch (Exception e) {
+            dbc.report(
+                null,
+                Messages.get().container(Messages.ERR_READ_PROPS_FOR_RESOURCES_1, new Integer(resources.size())),
+                e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Reads the resources that were published in a publish task for a given publish history ID.<p>
      *
@@ -5098,6 +5204,80 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Reads the resources with the given structure ids, using the specified resource filter.<p>
+     *
+     * Resources that do not exist, do not match the filter or can not be read by the current user
+     * are not contained in the result.<p>
+     *
+     * @param context the current request context
+     * @param structureIds the structure ids of the resources to read
+     * @param filter the resource filter to use while reading
+     *
+     * @return the resources that were read, in the order of the given structure ids
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see CmsObject#readResources(Collection, CmsResourceFilter)
+     */
+    public List<CmsResource> readResources(
+        CmsRequestContext context,
+        Collection<CmsUUID> structureIds,
+        CmsResourceFilter filter)
+    throws CmsException {
+
+        List<CmsResource> result = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            result = m_driverManager.readResources(dbc, structureIds, filter);
+        } catch (Exception e) {
+            dbc.report(
+                null,
+                Messages.get().container(Messages.ERR_READ_RESOURCES_FOR_IDS_1, new Integer(structureIds.size())),
+                e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
+    /**
+     * Reads the resources with the given paths, using the specified resource filter.<p>
+     *
+     * Resources that do not exist, do not match the filter or can not be read by the current user
+     * are not contained in the result.<p>
+     *
+     * @param context the current request context
+     * @param resourcePaths the full paths of the resources to read
+     * @param filter the resource filter to use while reading
+     *
+     * @return the resources that were read, in the order of the given paths
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see CmsObject#readResourcesForPaths(Collection, CmsResourceFilter)
+     */
+    public List<CmsResource> readResourcesForPaths(
+        CmsRequestContext context,
+        Collection<String> resourcePaths,
+        CmsResourceFilter filter)
+    throws CmsException {
+
+        List<CmsResource> result = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            result = m_driverManager.readResourcesForPaths(dbc, resourcePaths, filter);
+        } catch (Exception e) {
+            dbc.report(
+                null,
+                Messages.get().container(Messages.ERR_READ_RESOURCES_FOR_PATHS_1, new Integer(resourcePaths.size())),
+                e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Returns the resources that were visited by a user set in the filter.<p>
      *
@@ -7126,7 +7306,7 @@ public final class CmsSecurityManager {
     protected void deleteResource(CmsDbContext dbc, CmsResource resource, CmsResource.CmsResourceDeleteMode siblingMode)
     throws CmsException {
 
-        if (resource.isFolder()) {
+        if (resource.isFolder() && !m_driverManager.deleteResourceTree(dbc, resource, siblingMode)) {
             // collect all resources in the folder (but exclude deleted ones)
             List<CmsResource> resources = m_driverManager.readChildResources(
                 dbc,
@@ -7345,18 +7525,25 @@ public final class CmsSecurityManager {
     protected void moveResource(CmsDbContext dbc, CmsResource source, String destination) throws CmsException {
 
         List<CmsResource> resources = null;
+        boolean movedTree = false;
 
         if (source.isFolder()) {
             if (!CmsResource.isFolder(destination)) {
                 // ensure folder name end's with a /
                 destination = destination.concat("/");
             }
-            // collect all resources in the folder without checking permissions
-            resources = m_driverManager.readChildResources(dbc, source, CmsResourceFilter.ALL, true, true, false);
+            // move the folder together with all sub resources, the locks of the sub resources are inherited
+            movedTree = m_driverManager.moveResourceTree(dbc, source, destination);
+            if (!movedTree) {
+                // collect all resources in the folder without checking permissions
+                resources = m_driverManager.readChildResources(dbc, source, CmsResourceFilter.ALL, true, true, false);
+            }
         }
 
-        // target permissions will be checked later
-        m_driverManager.moveResource(dbc, source, destination, false);
+        if (!movedTree) {
+            // target permissions will be checked later
+            m_driverManager.moveResource(dbc, source, destination, false);
+        }
 
         // make sure lock is set
         CmsResource destinationResource = m_driverManager.readResource(dbc, destination, CmsResourceFilter.ALL);
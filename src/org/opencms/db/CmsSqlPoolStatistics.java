@@ -0,0 +1,127 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the number of connections taken from a database pool and the time needed to get them.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsSqlPoolStatistics implements I_CmsSqlPoolStatistics {
+
+    /** The number of connections taken from the pool. */
+    private AtomicLong m_connections;
+
+    /** The max. wait time in nanoseconds. */
+    private AtomicLong m_maxTime;
+
+    /** The URL of the pool. */
+    private String m_poolUrl;
+
+    /** The total wait time in nanoseconds. */
+    private AtomicLong m_totalTime;
+
+    /**
+     * Creates new statistics for a pool.<p>
+     *
+     * @param poolUrl the URL of the pool
+     */
+    public CmsSqlPoolStatistics(String poolUrl) {
+
+        m_poolUrl = poolUrl;
+        m_connections = new AtomicLong();
+        m_maxTime = new AtomicLong();
+        m_totalTime = new AtomicLong();
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsSqlPoolStatistics#getConnections()
+     */
+    public long getConnections() {
+
+        return m_connections.get();
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsSqlPoolStatistics#getPoolUrl()
+     */
+    public String getPoolUrl() {
+
+        return m_poolUrl;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsSqlPoolStatistics#getWaitTimeAverage()
+     */
+    public double getWaitTimeAverage() {
+
+        long connections = getConnections();
+        return connections == 0 ? 0 : getWaitTimeTotal() / connections;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsSqlPoolStatistics#getWaitTimeMax()
+     */
+    public double getWaitTimeMax() {
+
+        return m_maxTime.get() / 1000000.0;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsSqlPoolStatistics#getWaitTimeTotal()
+     */
+    public double getWaitTimeTotal() {
+
+        return m_totalTime.get() / 1000000.0;
+    }
+
+    /**
+     * Records a connection taken from the pool.<p>
+     *
+     * @param nanos the time needed to get the connection in nanoseconds
+     */
+    public void recordConnection(long nanos) {
+
+        m_connections.incrementAndGet();
+        m_totalTime.addAndGet(nanos);
+        CmsSqlStatistics.updateMax(m_maxTime, nanos);
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsSqlPoolStatistics#reset()
+     */
+    public void reset() {
+
+        m_connections.set(0);
+        m_maxTime.set(0);
+        m_totalTime.set(0);
+    }
+}
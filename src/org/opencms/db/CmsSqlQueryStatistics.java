@@ -0,0 +1,171 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the execution counts, execution times and row counts of a SQL query.<p>
+ *
+ * All counters are updated without locking, so the statistics can be used for frequently executed queries.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsSqlQueryStatistics implements I_CmsSqlQueryStatistics {
+
+    /** The number of executions. */
+    private AtomicLong m_count;
+
+    /** The number of failed executions. */
+    private AtomicLong m_errors;
+
+    /** The max. execution time in nanoseconds. */
+    private AtomicLong m_maxTime;
+
+    /** The key of the query. */
+    private String m_queryKey;
+
+    /** The number of rows read or changed. */
+    private AtomicLong m_rows;
+
+    /** The total execution time in nanoseconds. */
+    private AtomicLong m_totalTime;
+
+    /**
+     * Creates new statistics for a query.<p>
+     *
+     * @param queryKey the key of the query
+     */
+    public CmsSqlQueryStatistics(String queryKey) {
+
+        m_queryKey = queryKey;
+        m_count = new AtomicLong();
+        m_errors = new AtomicLong();
+        m_maxTime = new AtomicLong();
+        m_rows = new AtomicLong();
+        m_totalTime = new AtomicLong();
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsSqlQueryStatistics#getCount()
+     */
+    public long getCount() {
+
+        return m_count.get();
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsSqlQueryStatistics#getErrors()
+     */
+    public long getErrors() {
+
+        return m_errors.get();
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsSqlQueryStatistics#getExecutionTimeAverage()
+     */
+    public double getExecutionTimeAverage() {
+
+        long count = getCount();
+        return count == 0 ? 0 : getExecutionTimeTotal() / count;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsSqlQueryStatistics#getExecutionTimeMax()
+     */
+    public double getExecutionTimeMax() {
+
+        return m_maxTime.get() / 1000000.0;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsSqlQueryStatistics#getExecutionTimeTotal()
+     */
+    public double getExecutionTimeTotal() {
+
+        return m_totalTime.get() / 1000000.0;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsSqlQueryStatistics#getQueryKey()
+     */
+    public String getQueryKey() {
+
+        return m_queryKey;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsSqlQueryStatistics#getRows()
+     */
+    public long getRows() {
+
+        return m_rows.get();
+    }
+
+    /**
+     * Records an execution of the query.<p>
+     *
+     * @param nanos the execution time in nanoseconds
+     * @param failed <code>true</code> if the execution failed with an exception
+     */
+    public void recordExecution(long nanos, boolean failed) {
+
+        m_count.incrementAndGet();
+        if (failed) {
+            m_errors.incrementAndGet();
+        }
+        m_totalTime.addAndGet(nanos);
+        CmsSqlStatistics.updateMax(m_maxTime, nanos);
+    }
+
+    /**
+     * Records rows read from the results of the query, or changed by the query.<p>
+     *
+     * @param rows the number of rows
+     */
+    public void recordRows(long rows) {
+
+        if (rows > 0) {
+            m_rows.addAndGet(rows);
+        }
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsSqlQueryStatistics#reset()
+     */
+    public void reset() {
+
+        m_count.set(0);
+        m_errors.set(0);
+        m_maxTime.set(0);
+        m_rows.set(0);
+        m_totalTime.set(0);
+    }
+}
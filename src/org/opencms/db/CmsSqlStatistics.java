@@ -0,0 +1,293 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+import org.opencms.main.CmsLog;
+import org.opencms.util.CmsUUID;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Collects the statistics of the SQL queries executed by the database drivers and of the connection pools.<p>
+ *
+ * The statistics of every query key and every pool are published as MBeans.
+ * Queries that take longer than the configured threshold are written to the log at level WARN,
+ * together with the project and the driver manager method that executed the query.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsSqlStatistics {
+
+    /** The configuration key for the execution time in milliseconds above which queries are logged. */
+    public static final String CONFIGURATION_SLOW_QUERY_THRESHOLD = "db.statistics.slowquery.threshold";
+
+    /** The configuration key to enable the SQL statistics. */
+    public static final String CONFIGURATION_STATISTICS_ENABLED = "db.statistics.enabled";
+
+    /** The key for the pseudo query that collects all statements created from dynamically built SQL. */
+    public static final String DYNAMIC_QUERY_KEY = "SQL";
+
+    /** The prefix of the names of the pool statistics MBeans. */
+    private static final String POOL_MBEAN_PREFIX = "org.opencms:type=SqlPoolStatistics,name=";
+
+    /** The prefix of the names of the query statistics MBeans. */
+    private static final String QUERY_MBEAN_PREFIX = "org.opencms:type=SqlQueryStatistics,name=";
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsSqlStatistics.class);
+
+    /** The statistics of the pools by pool URL. */
+    private ConcurrentMap<String, CmsSqlPoolStatistics> m_poolStatistics;
+
+    /** The statistics of the queries by query key. */
+    private ConcurrentMap<String, CmsSqlQueryStatistics> m_queryStatistics;
+
+    /** The execution time in milliseconds above which queries are logged, or 0 to log no queries. */
+    private long m_slowQueryThreshold;
+
+    /**
+     * Creates new SQL statistics.<p>
+     *
+     * @param slowQueryThreshold the execution time in milliseconds above which queries are logged,
+     *      or 0 to log no queries
+     */
+    public CmsSqlStatistics(long slowQueryThreshold) {
+
+        m_slowQueryThreshold = slowQueryThreshold;
+        m_poolStatistics = new ConcurrentHashMap<String, CmsSqlPoolStatistics>();
+        m_queryStatistics = new ConcurrentHashMap<String, CmsSqlQueryStatistics>();
+    }
+
+    /**
+     * Updates the given max. value if the given value is larger.<p>
+     *
+     * @param max the max. value to update
+     * @param value the new value
+     */
+    static void updateMax(AtomicLong max, long value) {
+
+        long current = max.get();
+        while ((value > current) && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Returns the statistics of all pools.<p>
+     *
+     * @return the statistics of all pools
+     */
+    public List<CmsSqlPoolStatistics> getPoolStatistics() {
+
+        return new ArrayList<CmsSqlPoolStatistics>(m_poolStatistics.values());
+    }
+
+    /**
+     * Returns the statistics of the given pool, creating them if required.<p>
+     *
+     * @param poolUrl the URL of the pool
+     *
+     * @return the statistics of the pool
+     */
+    public CmsSqlPoolStatistics getPoolStatistics(String poolUrl) {
+
+        CmsSqlPoolStatistics result = m_poolStatistics.get(poolUrl);
+        if (result == null) {
+            result = new CmsSqlPoolStatistics(poolUrl);
+            CmsSqlPoolStatistics previous = m_poolStatistics.putIfAbsent(poolUrl, result);
+            if (previous != null) {
+                return previous;
+            }
+            registerMBean(POOL_MBEAN_PREFIX + ObjectName.quote(poolUrl), result, I_CmsSqlPoolStatistics.class);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the statistics of all queries.<p>
+     *
+     * @return the statistics of all queries
+     */
+    public List<CmsSqlQueryStatistics> getQueryStatistics() {
+
+        return new ArrayList<CmsSqlQueryStatistics>(m_queryStatistics.values());
+    }
+
+    /**
+     * Returns the statistics of the given query, creating them if required.<p>
+     *
+     * @param queryKey the key of the query
+     *
+     * @return the statistics of the query
+     */
+    public CmsSqlQueryStatistics getQueryStatistics(String queryKey) {
+
+        CmsSqlQueryStatistics result = m_queryStatistics.get(queryKey);
+        if (result == null) {
+            result = new CmsSqlQueryStatistics(queryKey);
+            CmsSqlQueryStatistics previous = m_queryStatistics.putIfAbsent(queryKey, result);
+            if (previous != null) {
+                return previous;
+            }
+            registerMBean(QUERY_MBEAN_PREFIX + queryKey, result, I_CmsSqlQueryStatistics.class);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the execution time in milliseconds above which queries are logged.<p>
+     *
+     * @return the execution time in milliseconds above which queries are logged, or 0 if no queries are logged
+     */
+    public long getSlowQueryThreshold() {
+
+        return m_slowQueryThreshold;
+    }
+
+    /**
+     * Records an execution of a query, and logs the query if it exceeded the slow query threshold.<p>
+     *
+     * @param statistics the statistics of the query
+     * @param projectId the id of the project the query was bound to, may be <code>null</code>
+     * @param nanos the execution time in nanoseconds
+     * @param failed <code>true</code> if the execution failed with an exception
+     */
+    public void recordExecution(CmsSqlQueryStatistics statistics, CmsUUID projectId, long nanos, boolean failed) {
+
+        statistics.recordExecution(nanos, failed);
+        long millis = nanos / 1000000L;
+        if ((m_slowQueryThreshold > 0) && (millis >= m_slowQueryThreshold) && LOG.isWarnEnabled()) {
+            LOG.warn(
+                Messages.get().getBundle().key(
+                    Messages.LOG_SLOW_QUERY_4,
+                    new Object[] {statistics.getQueryKey(), projectId, new Long(millis), getCaller()}));
+        }
+    }
+
+    /**
+     * Resets the statistics of all queries and pools.<p>
+     */
+    public void reset() {
+
+        for (CmsSqlQueryStatistics statistics : m_queryStatistics.values()) {
+            statistics.reset();
+        }
+        for (CmsSqlPoolStatistics statistics : m_poolStatistics.values()) {
+            statistics.reset();
+        }
+    }
+
+    /**
+     * Removes the MBeans of all statistics.<p>
+     */
+    public void shutdown() {
+
+        for (String queryKey : m_queryStatistics.keySet()) {
+            unregisterMBean(QUERY_MBEAN_PREFIX + queryKey);
+        }
+        for (String poolUrl : m_poolStatistics.keySet()) {
+            unregisterMBean(POOL_MBEAN_PREFIX + ObjectName.quote(poolUrl));
+        }
+    }
+
+    /**
+     * Returns the method that executed the current query.<p>
+     *
+     * This is the first driver manager method on the stack, or the first method outside of the
+     * database layer if the query was not executed through the driver manager.<p>
+     *
+     * @return the method that executed the current query
+     */
+    private String getCaller() {
+
+        String dbPackage = CmsDriverManager.class.getPackage().getName() + ".";
+        StackTraceElement outside = null;
+        for (StackTraceElement element : Thread.currentThread().getStackTrace()) {
+            String className = element.getClassName();
+            if (className.equals(CmsDriverManager.class.getName())) {
+                return element.getClassName() + "#" + element.getMethodName();
+            }
+            if ((outside == null) && !className.startsWith(dbPackage) && !className.startsWith("java.")) {
+                outside = element;
+            }
+        }
+        return outside == null ? "" : outside.getClassName() + "#" + outside.getMethodName();
+    }
+
+    /**
+     * Publishes the given statistics as MBean, replacing an MBean registered before with the same name.<p>
+     *
+     * @param <T> the type of the management interface
+     * @param name the name of the MBean
+     * @param statistics the statistics
+     * @param mbeanInterface the management interface
+     */
+    private <T> void registerMBean(String name, T statistics, Class<T> mbeanInterface) {
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName objectName = new ObjectName(name);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(new StandardMBean(statistics, mbeanInterface), objectName);
+        } catch (Exception e) {
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_SQL_STATISTICS_REGISTER_FAILED_1, name), e);
+        }
+    }
+
+    /**
+     * Removes the MBean with the given name.<p>
+     *
+     * @param name the name of the MBean
+     */
+    private void unregisterMBean(String name) {
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName objectName = new ObjectName(name);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (Exception e) {
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_SQL_STATISTICS_UNREGISTER_FAILED_1, name), e);
+        }
+    }
+}
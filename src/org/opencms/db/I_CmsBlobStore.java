@@ -0,0 +1,131 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.file.CmsDataAccessException;
+import org.opencms.main.CmsInitException;
+
+import java.io.InputStream;
+import java.util.Set;
+
+/**
+ * Stores large file contents outside of the database.<p>
+ *
+ * If a blob store is configured in the <code>opencms.properties</code> with the key
+ * <code>db.blobstore</code>, the VFS driver passes every file content to {@link #store(byte[])}
+ * before writing it to the database, and every value read from the content columns to
+ * {@link #resolve(byte[])}. Contents above the size threshold of the store are kept outside
+ * of the database, only a fixed length reference is written to the content column.<p>
+ *
+ * The references are derived from the content, so identical contents share a single blob,
+ * regardless of whether they are used offline, online or in the history.<p>
+ *
+ * @since 10.5.0
+ */
+public interface I_CmsBlobStore {
+
+    /** The configuration key for the class name of the blob store. */
+    String CONFIGURATION_BLOBSTORE = "db.blobstore";
+
+    /**
+     * Deletes all blobs that are not contained in the given set of keys.<p>
+     *
+     * Only blobs that have not been used since the given date are deleted, so that blobs which have just been
+     * stored by a transaction that is not yet committed are kept.<p>
+     *
+     * @param referencedKeys the keys of all blobs that are still referenced from the database
+     * @param dateLastUsed only blobs which have not been used after this date are deleted
+     *
+     * @return the number of deleted blobs
+     */
+    int deleteUnreferenced(Set<String> referencedKeys, long dateLastUsed);
+
+    /**
+     * Returns the key of the blob that is referenced by the given database value.<p>
+     *
+     * @param value the value read from a content column
+     *
+     * @return the key of the referenced blob, or <code>null</code> if the value is no reference
+     */
+    String getKey(byte[] value);
+
+    /**
+     * Returns the length of the references written to the database.<p>
+     *
+     * @return the length of the references written to the database
+     */
+    int getReferenceLength();
+
+    /**
+     * Initializes the blob store.<p>
+     *
+     * @param configuration the configuration from the <code>opencms.properties</code>
+     *
+     * @throws CmsInitException if the blob store can not be initialized
+     */
+    void initConfiguration(CmsParameterConfiguration configuration) throws CmsInitException;
+
+    /**
+     * Returns the content for the given database value.<p>
+     *
+     * @param value the value read from a content column
+     *
+     * @return the content of the referenced blob, or the value itself if it is no reference
+     *
+     * @throws CmsDataAccessException if the referenced blob can not be read
+     */
+    byte[] resolve(byte[] value) throws CmsDataAccessException;
+
+    /**
+     * Returns a stream for the content of the given database value.<p>
+     *
+     * If the value is a reference, the given stream is closed and a stream of the referenced blob is returned.
+     * Otherwise, a stream that returns the complete value is returned.<p>
+     *
+     * @param value the stream of a value read from a content column
+     *
+     * @return the stream of the content
+     *
+     * @throws CmsDataAccessException if the value or the referenced blob can not be read
+     */
+    InputStream resolve(InputStream value) throws CmsDataAccessException;
+
+    /**
+     * Stores the given content and returns the value to write to the database.<p>
+     *
+     * @param content the content to store
+     *
+     * @return the reference of the blob the content is stored in, or the content itself
+     *      if it is below the size threshold of the store
+     *
+     * @throws CmsDataAccessException if the content can not be stored
+     */
+    byte[] store(byte[] content) throws CmsDataAccessException;
+}
@@ -44,6 +44,7 @@ import org.opencms.publish.CmsPublishJobInfoBean;
 import org.opencms.report.I_CmsReport;
 import org.opencms.util.CmsUUID;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -637,6 +638,21 @@ public interface I_CmsProjectDriver {
      */
     void unmarkProjectResources(CmsDbContext dbc, CmsProject project) throws CmsDataAccessException;
 
+    /**
+     * Writes the lock changes of the given resources to the database.<p>
+     *
+     * The stored locks of the given root paths are replaced by the persistent locks of the given list,
+     * the stored locks of all other resources are left unchanged.<p>
+     *
+     * @param dbc the current database context
+     * @param rootPaths the root paths of the resources with changed locks
+     * @param locks the current locks of the given root paths, resources that are not locked anymore are omitted
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    void writeLockChanges(CmsDbContext dbc, Collection<String> rootPaths, List<CmsLock> locks)
+    throws CmsDataAccessException;
+
     /**
      * Writes the <code>{@link List}&lt{@link org.opencms.lock.CmsLock};&gt; </code>
      * to the database for reuse in the next run of OpenCms.<p>
@@ -0,0 +1,77 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+/**
+ * The management interface of the connection statistics of a database pool, used to publish the statistics via JMX.<p>
+ *
+ * @since 10.5.0
+ */
+public interface I_CmsSqlPoolStatistics {
+
+    /**
+     * Returns the number of connections taken from the pool.<p>
+     *
+     * @return the number of connections taken from the pool
+     */
+    long getConnections();
+
+    /**
+     * Returns the URL of the pool.<p>
+     *
+     * @return the URL of the pool
+     */
+    String getPoolUrl();
+
+    /**
+     * Returns the average time in milliseconds to get a connection from the pool.<p>
+     *
+     * @return the average wait time in milliseconds
+     */
+    double getWaitTimeAverage();
+
+    /**
+     * Returns the max. time in milliseconds to get a connection from the pool.<p>
+     *
+     * @return the max. wait time in milliseconds
+     */
+    double getWaitTimeMax();
+
+    /**
+     * Returns the total time in milliseconds spent waiting for connections from the pool.<p>
+     *
+     * @return the total wait time in milliseconds
+     */
+    double getWaitTimeTotal();
+
+    /**
+     * Resets all counters.<p>
+     */
+    void reset();
+}
@@ -0,0 +1,91 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+/**
+ * The management interface of the statistics of a SQL query, used to publish the statistics via JMX.<p>
+ *
+ * @since 10.5.0
+ */
+public interface I_CmsSqlQueryStatistics {
+
+    /**
+     * Returns the number of executions of the query.<p>
+     *
+     * @return the number of executions
+     */
+    long getCount();
+
+    /**
+     * Returns the number of executions that failed with an exception.<p>
+     *
+     * @return the number of failed executions
+     */
+    long getErrors();
+
+    /**
+     * Returns the average execution time in milliseconds.<p>
+     *
+     * @return the average execution time in milliseconds
+     */
+    double getExecutionTimeAverage();
+
+    /**
+     * Returns the max. execution time in milliseconds.<p>
+     *
+     * @return the max. execution time in milliseconds
+     */
+    double getExecutionTimeMax();
+
+    /**
+     * Returns the total execution time in milliseconds.<p>
+     *
+     * @return the total execution time in milliseconds
+     */
+    double getExecutionTimeTotal();
+
+    /**
+     * Returns the key of the query in the <code>query.properties</code>.<p>
+     *
+     * @return the key of the query
+     */
+    String getQueryKey();
+
+    /**
+     * Returns the number of rows read from the results of the query, or changed by the query.<p>
+     *
+     * @return the number of rows
+     */
+    long getRows();
+
+    /**
+     * Resets all counters.<p>
+     */
+    void reset();
+}
@@ -41,11 +41,13 @@ import org.opencms.relations.CmsRelationFilter;
 import org.opencms.security.CmsOrganizationalUnit;
 import org.opencms.util.CmsUUID;
 
+import java.io.InputStream;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Definitions of all required VFS driver methods.<p>
@@ -279,6 +281,23 @@ public interface I_CmsVfsDriver {
     void deleteRelations(CmsDbContext dbc, CmsUUID projectId, CmsResource resource, CmsRelationFilter filter)
     throws CmsDataAccessException;
 
+    /**
+     * Marks all resources below the given folder as deleted.<p>
+     *
+     * The state of every resource in the subtree that is not already deleted is set to deleted,
+     * and the resources are marked as last modified in the given project. The folder itself is not changed.<p>
+     *
+     * Resources that have to be removed instead of being marked as deleted, like new resources,
+     * must be handled separately by the caller.<p>
+     *
+     * @param dbc the current database context
+     * @param project the current project
+     * @param folderPath the root path of the folder
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    void deleteResourceTree(CmsDbContext dbc, CmsProject project, String folderPath) throws CmsDataAccessException;
+
     /**
      * Deletes rewrite aliases matching a given filter.<p>
      *
@@ -390,6 +409,24 @@ public interface I_CmsVfsDriver {
     void moveResource(CmsDbContext dbc, CmsUUID projectId, CmsResource source, String destinationPath)
     throws CmsDataAccessException;
 
+    /**
+     * Moves all resources below the given source folder to the destination folder.<p>
+     *
+     * The folder itself must already have been moved with
+     * {@link #moveResource(CmsDbContext, CmsUUID, CmsResource, String)}.
+     * The paths of the resources, their relations and the project resources are updated,
+     * and the state of the moved resources is set to changed, unless they are new or deleted.<p>
+     *
+     * @param dbc the current database context
+     * @param project the current project
+     * @param sourcePath the root path of the source folder
+     * @param destinationPath the root path of the destination folder
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    void moveResourceTree(CmsDbContext dbc, CmsProject project, String sourcePath, String destinationPath)
+    throws CmsDataAccessException;
+
     /**
      * Publishes the structure and resource records of an
      * offline resource into it's online counterpart.<p>
@@ -432,6 +469,17 @@ public interface I_CmsVfsDriver {
     List<CmsAlias> readAliases(CmsDbContext dbc, CmsProject project, CmsAliasFilter filter)
     throws CmsDataAccessException;
 
+    /**
+     * Reads the keys of all blobs that are referenced by an offline, online or historical file content.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @return the keys of all referenced blobs, empty if no blob store is used
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    Set<String> readBlobKeys(CmsDbContext dbc) throws CmsDataAccessException;
+
     /**
      * Reads all child-files and/or child-folders of a specified parent resource.<p>
      *
@@ -464,6 +512,23 @@ public interface I_CmsVfsDriver {
      */
     byte[] readContent(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId) throws CmsDataAccessException;
 
+    /**
+     * Reads the content of a file specified by it's resource ID as a stream.<p>
+     *
+     * The database resources required for reading the content may be held until the stream is closed,
+     * so the returned stream must always be closed after use.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the ID of the current project
+     * @param resourceId the id of the resource
+     *
+     * @return the file content as stream
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    InputStream readContentStream(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId)
+    throws CmsDataAccessException;
+
     /**
      * Reads a folder specified by it's structure ID.<p>
      *
@@ -570,6 +635,27 @@ public interface I_CmsVfsDriver {
     List<CmsProperty> readPropertyObjects(CmsDbContext dbc, CmsProject project, CmsResource resource)
     throws CmsDataAccessException;
 
+    /**
+     * Reads all property objects mapped to the given resources from the database.<p>
+     *
+     * The implementation should read the properties of many resources with as few queries as possible.
+     * The result contains an entry for each of the given resources, with an empty list if
+     * no properties are found for the resource.<p>
+     *
+     * @param dbc the current database context
+     * @param project the current project
+     * @param resources the resources to read the properties for
+     *
+     * @return the lists of CmsProperty objects containing both the structure and resource value of the properties,
+     *      by structure id of the resource
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsDbContext dbc,
+        CmsProject project,
+        List<CmsResource> resources) throws CmsDataAccessException;
+
     /**
      * Reads all relations with the given filter for the given resource.<p>
      *
@@ -627,6 +713,50 @@ public interface I_CmsVfsDriver {
     List<CmsResource> readResources(CmsDbContext dbc, CmsUUID currentProject, CmsResourceState state, int mode)
     throws CmsDataAccessException;
 
+    /**
+     * Reads the resources with the given structure ids.<p>
+     *
+     * The implementation should read many resources with as few queries as possible.
+     * Structure ids for which no resource is found are ignored.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the current project
+     * @param structureIds the structure ids of the resources to read
+     * @param includeDeleted <code>true</code> if already deleted files should be included
+     *
+     * @return the resources that were read, in no particular order
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    List<CmsResource> readResources(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        Collection<CmsUUID> structureIds,
+        boolean includeDeleted) throws CmsDataAccessException;
+
+    /**
+     * Reads the resources with the given resource paths.<p>
+     *
+     * The implementation should read many resources with as few queries as possible.
+     * Paths for which no resource is found are ignored. If more than one resource is found for a path,
+     * the resource with the lowest structure state is returned, like in
+     * {@link #readResource(CmsDbContext, CmsUUID, String, boolean)}.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the current project
+     * @param paths the full paths of the resources to read, a trailing slash is ignored
+     * @param includeDeleted <code>true</code> if already deleted files should be included
+     *
+     * @return the resources that were read, in no particular order
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    List<CmsResource> readResourcesForPaths(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        Collection<String> paths,
+        boolean includeDeleted) throws CmsDataAccessException;
+
     /**
      * Returns all resources associated to a given principal via an ACE.<p>
      *
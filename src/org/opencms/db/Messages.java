@@ -90,6 +90,24 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_BAD_USER_1 = "ERR_BAD_USER_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_BLOBSTORE_CREATE_DIRECTORY_1 = "ERR_BLOBSTORE_CREATE_DIRECTORY_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_BLOBSTORE_DIGEST_1 = "ERR_BLOBSTORE_DIGEST_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_BLOBSTORE_NOT_FOUND_1 = "ERR_BLOBSTORE_NOT_FOUND_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_BLOBSTORE_READ_1 = "ERR_BLOBSTORE_READ_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_BLOBSTORE_READ_STREAM_0 = "ERR_BLOBSTORE_READ_STREAM_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_BLOBSTORE_WRITE_1 = "ERR_BLOBSTORE_WRITE_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_CANNOT_READ_PUBLISHLIST_0 = "ERR_CANNOT_READ_PUBLISHLIST_0";
 
@@ -228,6 +246,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_DELETE_STATEXP_PUBLISHES_RESOURCE_1 = "ERR_DELETE_STATEXP_PUBLISHES_RESOURCE_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_DELETE_UNREFERENCED_BLOBS_0 = "ERR_DELETE_UNREFERENCED_BLOBS_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_DELETE_USER_1 = "ERR_DELETE_USER_1";
 
@@ -336,6 +357,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_INCREMENT_COUNTER_1 = "ERR_INCREMENT_COUNTER_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_INIT_BLOBSTORE_1 = "ERR_INIT_BLOBSTORE_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_INIT_CONN_POOL_1 = "ERR_INIT_CONN_POOL_1";
 
@@ -519,6 +543,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_READ_PROPS_FOR_RESOURCE_1 = "ERR_READ_PROPS_FOR_RESOURCE_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_READ_PROPS_FOR_RESOURCES_1 = "ERR_READ_PROPS_FOR_RESOURCES_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_READ_PUBLISHED_RESOURCES_FOR_ID_1 = "ERR_READ_PUBLISHED_RESOURCES_FOR_ID_1";
 
@@ -534,6 +561,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_READ_RESOURCES_1 = "ERR_READ_RESOURCES_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_READ_RESOURCES_FOR_IDS_1 = "ERR_READ_RESOURCES_FOR_IDS_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_READ_RESOURCES_FOR_PATHS_1 = "ERR_READ_RESOURCES_FOR_PATHS_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_READ_RESOURCES_FOR_PRINCIPAL_LOG_1 = "ERR_READ_RESOURCES_FOR_PRINCIPAL_LOG_1";
 
@@ -795,6 +828,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String GUI_WORKPLACE_TEMPFILE_PROJECT_DESC_0 = "GUI_WORKPLACE_TEMPFILE_PROJECT_DESC_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_BLOBSTORE_2 = "INIT_BLOBSTORE_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_CLOSE_CONN_POOL_1 = "INIT_CLOSE_CONN_POOL_1";
 
@@ -840,6 +876,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_JDBC_POOL_2 = "INIT_JDBC_POOL_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_LOG_ENTRY_WRITER_2 = "INIT_LOG_ENTRY_WRITER_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_READ_REPLICA_2 = "INIT_READ_REPLICA_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_SECURITY_MANAGER_INIT_0 = "INIT_SECURITY_MANAGER_INIT_0";
 
@@ -849,6 +891,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_WAIT_FOR_DB_4 = "INIT_WAIT_FOR_DB_4";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_BLOBSTORE_DELETE_FAILED_1 = "LOG_BLOBSTORE_DELETE_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_BLOBSTORE_DELETED_1 = "LOG_BLOBSTORE_DELETED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_CHECK_RESOURCE_INSIDE_CURRENT_PROJECT_2 = "LOG_CHECK_RESOURCE_INSIDE_CURRENT_PROJECT_2";
 
@@ -876,9 +924,33 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_GET_TIMESTAMP_2 = "LOG_GET_TIMESTAMP_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_LOG_ENTRIES_LOST_1 = "LOG_LOG_ENTRIES_LOST_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_LOG_ENTRY_DROPPED_0 = "LOG_LOG_ENTRY_DROPPED_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_LOG_ENTRY_QUEUE_FULL_1 = "LOG_LOG_ENTRY_QUEUE_FULL_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_LOG_ENTRY_WRITE_FAILED_1 = "LOG_LOG_ENTRY_WRITE_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_NO_EXPORT_POINTS_CONFIGURED_0 = "LOG_NO_EXPORT_POINTS_CONFIGURED_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_READ_REPLICA_FAILED_2 = "LOG_READ_REPLICA_FAILED_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_SLOW_QUERY_4 = "LOG_SLOW_QUERY_4";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_SQL_STATISTICS_REGISTER_FAILED_1 = "LOG_SQL_STATISTICS_REGISTER_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_SQL_STATISTICS_UNREGISTER_FAILED_1 = "LOG_SQL_STATISTICS_UNREGISTER_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_UPDATE_EXORT_POINTS_ERROR_0 = "LOG_UPDATE_EXORT_POINTS_ERROR_0";
 
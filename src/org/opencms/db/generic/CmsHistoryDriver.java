@@ -35,6 +35,7 @@ import org.opencms.db.CmsDbEntryNotFoundException;
 import org.opencms.db.CmsDbSqlException;
 import org.opencms.db.CmsDriverManager;
 import org.opencms.db.CmsResourceState;
+import org.opencms.db.I_CmsBlobStore;
 import org.opencms.db.I_CmsDriver;
 import org.opencms.db.I_CmsHistoryDriver;
 import org.opencms.db.I_CmsVfsDriver;
@@ -426,6 +427,8 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
 
         m_sqlManager = initSqlManager(classname);
         m_sqlManager.init(I_CmsHistoryDriver.DRIVER_TYPE_ID, poolUrl);
+        m_sqlManager.setReadReplica(driverManager.getReadReplica());
+        m_sqlManager.setStatistics(driverManager.getSqlStatistics());
 
         m_driverManager = driverManager;
 
@@ -610,7 +613,8 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
         } finally {
             m_sqlManager.closeAll(dbc, conn, stmt, res);
         }
-        return content;
+        I_CmsBlobStore blobStore = m_driverManager.getBlobStore();
+        return blobStore == null ? content : blobStore.resolve(content);
     }
 
     /**
@@ -187,15 +187,24 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
     }
 
+    /** The configuration key for the number of statements executed in one JDBC batch while publishing. */
+    public static final String CONFIGURATION_PUBLISH_BATCH_SIZE = "db.publish.batchsize";
+
     /** Attribute name for reading the project of a resource. */
     public static final String DBC_ATTR_READ_PROJECT_FOR_RESOURCE = "DBC_ATTR_READ_PROJECT_FOR_RESOURCE";
 
+    /** The default number of statements executed in one JDBC batch while publishing. */
+    public static final int DEFAULT_PUBLISH_BATCH_SIZE = 500;
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(org.opencms.db.generic.CmsProjectDriver.class);
 
     /** The driver manager. */
     protected CmsDriverManager m_driverManager;
 
+    /** The number of statements executed in one JDBC batch while publishing, 0 disables batching. */
+    protected int m_publishBatchSize;
+
     /** The SQL manager. */
     protected CmsSqlManager m_sqlManager;
 
@@ -874,6 +883,9 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         String classname = configuration.get("db.project.sqlmanager");
         m_sqlManager = initSqlManager(classname);
         m_sqlManager.init(I_CmsProjectDriver.DRIVER_TYPE_ID, poolUrl);
+        m_sqlManager.setReadReplica(driverManager.getReadReplica());
+        m_sqlManager.setStatistics(driverManager.getSqlStatistics());
+        m_publishBatchSize = configuration.getInteger(CONFIGURATION_PUBLISH_BATCH_SIZE, DEFAULT_PUBLISH_BATCH_SIZE);
 
         m_driverManager = driverManager;
 
@@ -904,30 +916,13 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
      */
     public void log(CmsDbContext dbc, List<CmsLogEntry> logEntries) throws CmsDbSqlException {
 
+        // fail if the statement can not be prepared, e.g. because there is no connection,
+        // so the entries are written again later
         Connection conn = null;
         PreparedStatement stmt = null;
-
         try {
             conn = m_sqlManager.getConnection(dbc);
             stmt = m_sqlManager.getPreparedStatement(conn, "C_LOG_CREATE_5");
-
-            for (CmsLogEntry logEntry : logEntries) {
-                stmt.setString(1, logEntry.getUserId().toString());
-                stmt.setLong(2, logEntry.getDate());
-                stmt.setString(3, logEntry.getStructureId() == null ? null : logEntry.getStructureId().toString());
-                stmt.setInt(4, logEntry.getType().getId());
-                stmt.setString(5, CmsStringUtil.arrayAsString(logEntry.getData(), "|"));
-                try {
-                    stmt.executeUpdate();
-                } catch (SQLException e) {
-                    // ignore, most likely a duplicate entry
-                    LOG.debug(
-                        Messages.get().container(
-                            Messages.ERR_GENERIC_SQL_1,
-                            CmsDbSqlException.getErrorQuery(stmt)).key(),
-                        e);
-                }
-            }
         } catch (SQLException e) {
             throw new CmsDbSqlException(
                 Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
@@ -940,6 +935,28 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                 LOG.debug(t.getLocalizedMessage(), t);
             }
         }
+
+        // write the entries in one JDBC batch, failed entries are retried one by one
+        CmsSqlBatch batch = new CmsSqlBatch(m_sqlManager, dbc, logEntries.size());
+        for (CmsLogEntry logEntry : logEntries) {
+            String data = CmsStringUtil.arrayAsString(logEntry.getData(), "|");
+            batch.add(
+                null,
+                "C_LOG_CREATE_5",
+                data,
+                logEntry.getUserId().toString(),
+                Long.valueOf(logEntry.getDate()),
+                logEntry.getStructureId() == null ? null : logEntry.getStructureId().toString(),
+                Integer.valueOf(logEntry.getType().getId()),
+                data);
+        }
+        Map<String, List<CmsDbSqlException>> errors = batch.flush();
+        for (List<CmsDbSqlException> entryFailures : errors.values()) {
+            for (CmsDbSqlException e : entryFailures) {
+                // ignore, most likely a duplicate entry
+                LOG.debug(e.getLocalizedMessage(), e);
+            }
+        }
     }
 
     /**
@@ -1657,6 +1674,10 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         Set<CmsUUID> publishedContentIds = new HashSet<CmsUUID>();
         Set<CmsUUID> publishedIds = new HashSet<CmsUUID>();
 
+        if (m_publishBatchSize > 0) {
+            // collect the publish history entries and the state resets in JDBC batches
+            CmsSqlBatch.begin(dbc, m_publishBatchSize);
+        }
         try {
 
             ////////////////////////////////////////////////////////////////////////////////////////
@@ -1774,6 +1795,7 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                 }
             }
 
+            reportBatchErrors(dbc, report, CmsSqlBatch.flush(dbc));
             if (foldersSize > 0) {
                 report.println(
                     Messages.get().container(Messages.RPT_PUBLISH_FOLDERS_END_0),
@@ -1853,6 +1875,7 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                 }
             }
 
+            reportBatchErrors(dbc, report, CmsSqlBatch.flush(dbc));
             if (filesSize > 0) {
                 report.println(Messages.get().container(Messages.RPT_PUBLISH_FILES_END_0), I_CmsReport.FORMAT_HEADLINE);
             }
@@ -1921,6 +1944,7 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                 }
             }
 
+            reportBatchErrors(dbc, report, CmsSqlBatch.flush(dbc));
             if (deletedFoldersSize > 0) {
                 report.println(
                     Messages.get().container(Messages.RPT_DELETE_FOLDERS_END_0),
@@ -1937,6 +1961,12 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             }
             throw new CmsDataAccessException(message, o);
         } finally {
+            // write the statements left over by a failure, the failure itself has already been reported
+            for (Map.Entry<String, List<CmsDbSqlException>> error : CmsSqlBatch.end(dbc).entrySet()) {
+                for (CmsDbSqlException e : error.getValue()) {
+                    LOG.error(Messages.get().getBundle().key(Messages.ERR_WRITING_PUBLISH_BATCH_1, error.getKey()), e);
+                }
+            }
             // reset vfs driver internal info after publishing
             m_driverManager.getVfsDriver(dbc).publishVersions(dbc, null, false);
             Object[] msgArgs = new Object[] {
@@ -2685,6 +2715,61 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         }
     }
 
+    /**
+     * @see org.opencms.db.I_CmsProjectDriver#writeLockChanges(org.opencms.db.CmsDbContext, java.util.Collection, java.util.List)
+     */
+    public void writeLockChanges(CmsDbContext dbc, Collection<String> rootPaths, List<CmsLock> locks)
+    throws CmsDataAccessException {
+
+        if (rootPaths.isEmpty()) {
+            return;
+        }
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_RESOURCE_LOCKS_DELETE_PATH");
+            for (String rootPath : rootPaths) {
+                stmt.setString(1, rootPath);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            m_sqlManager.closeAll(dbc, null, stmt, null);
+
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_RESOURCE_LOCK_WRITE");
+            int count = 0;
+            for (CmsLock lock : locks) {
+                // only persist locks that should be written to the DB
+                for (CmsLock persistentLock : new CmsLock[] {lock.getSystemLock(), lock.getEditionLock()}) {
+                    if (persistentLock.isPersistent()) {
+                        stmt.setString(1, persistentLock.getResourceName());
+                        stmt.setString(2, persistentLock.getUserId().toString());
+                        stmt.setString(3, persistentLock.getProjectId().toString());
+                        stmt.setInt(4, persistentLock.getType().hashCode());
+                        stmt.addBatch();
+                        count++;
+                    }
+                }
+            }
+            if (count > 0) {
+                stmt.executeBatch();
+            }
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_DBG_WRITE_LOCK_CHANGES_2,
+                        new Integer(rootPaths.size()),
+                        new Integer(count)));
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, null);
+        }
+    }
+
     /**
      * @see org.opencms.db.I_CmsProjectDriver#writeLocks(org.opencms.db.CmsDbContext, java.util.List)
      */
@@ -2779,6 +2864,23 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
     public void writePublishHistory(CmsDbContext dbc, CmsUUID publishId, CmsPublishedResource resource)
     throws CmsDataAccessException {
 
+        CmsSqlBatch batch = CmsSqlBatch.getBatch(dbc, m_sqlManager);
+        if (batch != null) {
+            batch.add(
+                null,
+                "C_RESOURCES_WRITE_PUBLISH_HISTORY",
+                resource.getRootPath(),
+                Integer.valueOf(resource.getPublishTag()),
+                resource.getStructureId().toString(),
+                resource.getResourceId().toString(),
+                resource.getRootPath(),
+                Integer.valueOf(resource.getMovedState().getState()),
+                Integer.valueOf(resource.getType()),
+                publishId.toString(),
+                Integer.valueOf(resource.getSiblingCount()));
+            return;
+        }
+
         Connection conn = null;
         PreparedStatement stmt = null;
 
@@ -3850,4 +3952,41 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         m_driverManager.getVfsDriver(dbc).updateRelations(dbc, onlineProject, offlineResource);
     }
 
+    /**
+     * Reports the failed statements of a publish batch.<p>
+     *
+     * All failures are written to the report, then the first failure is thrown.<p>
+     *
+     * @param dbc the current database context
+     * @param report the report to write to
+     * @param errors the failed statements, the root paths of the resources mapped to the exceptions
+     *
+     * @throws CmsException for the first failure
+     */
+    protected void reportBatchErrors(
+        CmsDbContext dbc,
+        I_CmsReport report,
+        Map<String, List<CmsDbSqlException>> errors)
+    throws CmsException {
+
+        CmsMessageContainer firstMessage = null;
+        CmsDbSqlException firstError = null;
+        for (Map.Entry<String, List<CmsDbSqlException>> error : errors.entrySet()) {
+            CmsMessageContainer message = Messages.get().container(
+                Messages.ERR_WRITING_PUBLISH_BATCH_1,
+                error.getKey());
+            report.println(message, I_CmsReport.FORMAT_ERROR);
+            for (CmsDbSqlException e : error.getValue()) {
+                report.println(e);
+            }
+            if (firstError == null) {
+                firstMessage = message;
+                firstError = error.getValue().get(0);
+            }
+        }
+        if (firstError != null) {
+            dbc.throwException(firstMessage, firstError);
+        }
+    }
+
 }
\ No newline at end of file
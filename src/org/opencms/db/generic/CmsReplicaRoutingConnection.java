@@ -0,0 +1,220 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db.generic;
+
+import org.opencms.db.CmsDbContext;
+import org.opencms.db.CmsReadReplica;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.commons.dbcp.DelegatingConnection;
+
+/**
+ * A connection that sends the read queries of a database context in the online project to the read replica,
+ * and all other statements to the primary pool.<p>
+ *
+ * The connections of both pools are only taken when they are needed. A statement that is no read query,
+ * or disabling the auto commit mode, marks the database context as having written to the database,
+ * so that all following statements of the context use the primary pool.
+ * If the replica fails while preparing a statement, the statement is prepared with the primary pool instead.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsReplicaRoutingConnection extends DelegatingConnection {
+
+    /** The database context. */
+    private CmsDbContext m_dbc;
+
+    /** The read replica. */
+    private CmsReadReplica m_replica;
+
+    /** The connection of the replica pool, or <code>null</code> if not yet taken. */
+    private Connection m_replicaConnection;
+
+    /** The SQL manager used to get the connections. */
+    private CmsSqlManager m_sqlManager;
+
+    /**
+     * Creates a new routing connection.<p>
+     *
+     * @param sqlManager the SQL manager used to get the connections
+     * @param dbc the database context
+     * @param replica the read replica
+     */
+    public CmsReplicaRoutingConnection(CmsSqlManager sqlManager, CmsDbContext dbc, CmsReadReplica replica) {
+
+        super(null);
+        m_sqlManager = sqlManager;
+        m_dbc = dbc;
+        m_replica = replica;
+    }
+
+    /**
+     * Checks if the given SQL statement is a query that only reads from the database.<p>
+     *
+     * @param sql the SQL statement
+     *
+     * @return <code>true</code> if the statement only reads from the database
+     */
+    public static boolean isReadQuery(String sql) {
+
+        String query = sql.trim().toUpperCase(Locale.ENGLISH);
+        return query.startsWith("SELECT") && !query.contains(" FOR UPDATE");
+    }
+
+    /**
+     * @see org.apache.commons.dbcp.DelegatingConnection#close()
+     */
+    @Override
+    public void close() throws SQLException {
+
+        try {
+            if (m_replicaConnection != null) {
+                m_replicaConnection.close();
+                m_replicaConnection = null;
+            }
+        } finally {
+            if (getDelegateInternal() == null) {
+                passivate();
+            } else {
+                super.close();
+            }
+        }
+    }
+
+    /**
+     * @see org.apache.commons.dbcp.DelegatingConnection#getAutoCommit()
+     */
+    @Override
+    public boolean getAutoCommit() throws SQLException {
+
+        if (getDelegateInternal() == null) {
+            // the connections of the pool use the auto commit mode by default
+            return true;
+        }
+        return super.getAutoCommit();
+    }
+
+    /**
+     * Returns the type map with the type required by {@link Connection#getTypeMap()}.<p>
+     *
+     * The inherited method of DBCP returns a raw map.<p>
+     *
+     * @see org.apache.commons.dbcp.DelegatingConnection#getTypeMap()
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, Class<?>> getTypeMap() throws SQLException {
+
+        return super.getTypeMap();
+    }
+
+    /**
+     * @see org.apache.commons.dbcp.DelegatingConnection#isClosed()
+     */
+    @Override
+    public boolean isClosed() throws SQLException {
+
+        if (getDelegateInternal() == null) {
+            return _closed;
+        }
+        return super.isClosed();
+    }
+
+    /**
+     * @see org.apache.commons.dbcp.DelegatingConnection#prepareStatement(java.lang.String)
+     */
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+
+        if (!isReadQuery(sql)) {
+            m_replica.markWritten(m_dbc);
+        } else if (m_replica.useReplica(m_dbc)) {
+            try {
+                if (m_replicaConnection == null) {
+                    m_replicaConnection = m_sqlManager.getPoolConnection(m_replica.getPoolUrl());
+                }
+                return m_replicaConnection.prepareStatement(sql);
+            } catch (SQLException e) {
+                m_replica.replicaFailed(e);
+                closeReplicaConnection();
+            }
+        }
+        return super.prepareStatement(sql);
+    }
+
+    /**
+     * @see org.apache.commons.dbcp.DelegatingConnection#setAutoCommit(boolean)
+     */
+    @Override
+    public void setAutoCommit(boolean autoCommit) throws SQLException {
+
+        if (!autoCommit) {
+            // a transaction is started, which must only use the primary pool
+            m_replica.markWritten(m_dbc);
+        } else if (getDelegateInternal() == null) {
+            // the connections of the pool use the auto commit mode by default
+            return;
+        }
+        super.setAutoCommit(autoCommit);
+    }
+
+    /**
+     * Takes the connection of the primary pool when it is needed for the first time.<p>
+     *
+     * @see org.apache.commons.dbcp.DelegatingConnection#checkOpen()
+     */
+    @Override
+    protected void checkOpen() throws SQLException {
+
+        super.checkOpen();
+        if (getDelegateInternal() == null) {
+            setDelegate(m_sqlManager.getPoolConnection(m_sqlManager.m_poolUrl));
+        }
+    }
+
+    /**
+     * Closes the connection of the replica pool after a failure, ignoring further errors.<p>
+     */
+    private void closeReplicaConnection() {
+
+        if (m_replicaConnection != null) {
+            try {
+                m_replicaConnection.close();
+            } catch (SQLException e) {
+                // ignore, the replica has already failed
+            }
+            m_replicaConnection = null;
+        }
+    }
+}
@@ -0,0 +1,440 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db.generic;
+
+import org.opencms.db.CmsDbContext;
+import org.opencms.db.CmsDbSqlException;
+import org.opencms.util.CmsUUID;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the write statements of a database context and executes them in JDBC batches.<p>
+ *
+ * Batching is enabled for a database context with {@link #begin(CmsDbContext, int)}.
+ * Drivers get the batch for their SQL manager with {@link #getBatch(CmsDbContext, CmsSqlManager)},
+ * which returns <code>null</code> if batching is not enabled, and add their statements to it.
+ * The statements of a query are executed as soon as the batch size is reached, and all remaining statements
+ * are executed by {@link #flush(CmsDbContext)}.<p>
+ *
+ * Every statement has a description, usually the root path of the resource it belongs to.
+ * If a batch fails, the statements that have not been executed are executed one by one,
+ * so that the failures can be reported for the single resources. As a resource may have several statements,
+ * the failures are reported as a list of exceptions per description.<p>
+ *
+ * Only statements that are not read again until the batch is flushed must be added to a batch.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsSqlBatch {
+
+    /**
+     * The statements collected for a query.<p>
+     */
+    private static class CmsBatchQuery {
+
+        /** The descriptions of the statements. */
+        List<String> m_descriptions = new ArrayList<String>();
+
+        /** The parameters of the statements. */
+        List<Object[]> m_parameters = new ArrayList<Object[]>();
+
+        /** The id of the project the query is bound to. */
+        CmsUUID m_projectId;
+
+        /** The key of the query. */
+        String m_queryKey;
+
+        /**
+         * Creates a new query.<p>
+         *
+         * @param projectId the id of the project the query is bound to
+         * @param queryKey the key of the query
+         */
+        CmsBatchQuery(CmsUUID projectId, String queryKey) {
+
+            m_projectId = projectId;
+            m_queryKey = queryKey;
+        }
+    }
+
+    /** The key of the database context attribute holding the batches by SQL manager. */
+    private static final String DBC_ATTR_BATCHES = "sqlBatch.batches";
+
+    /** The key of the database context attribute holding the batch size. */
+    private static final String DBC_ATTR_BATCH_SIZE = "sqlBatch.size";
+
+    /** The max. number of statements of a query executed in one batch. */
+    private int m_batchSize;
+
+    /** The database context. */
+    private CmsDbContext m_dbc;
+
+    /** The failed statements, the descriptions of the statements mapped to the exceptions. */
+    private Map<String, List<CmsDbSqlException>> m_errors;
+
+    /** The collected statements by project and query key. */
+    private Map<String, CmsBatchQuery> m_queries;
+
+    /** The SQL manager. */
+    private CmsSqlManager m_sqlManager;
+
+    /**
+     * Creates a new batch.<p>
+     *
+     * @param sqlManager the SQL manager
+     * @param dbc the database context
+     * @param batchSize the max. number of statements of a query executed in one batch
+     */
+    public CmsSqlBatch(CmsSqlManager sqlManager, CmsDbContext dbc, int batchSize) {
+
+        m_sqlManager = sqlManager;
+        m_dbc = dbc;
+        m_batchSize = Math.max(1, batchSize);
+        m_errors = new LinkedHashMap<String, List<CmsDbSqlException>>();
+        m_queries = new LinkedHashMap<String, CmsBatchQuery>();
+    }
+
+    /**
+     * Adds failed statements to a map of failed statements.<p>
+     *
+     * @param errors the map to add the failed statements to
+     * @param newErrors the failed statements to add
+     */
+    public static void addErrors(
+        Map<String, List<CmsDbSqlException>> errors,
+        Map<String, List<CmsDbSqlException>> newErrors) {
+
+        for (Map.Entry<String, List<CmsDbSqlException>> entry : newErrors.entrySet()) {
+            List<CmsDbSqlException> list = errors.get(entry.getKey());
+            if (list == null) {
+                list = new ArrayList<CmsDbSqlException>();
+                errors.put(entry.getKey(), list);
+            }
+            list.addAll(entry.getValue());
+        }
+    }
+
+    /**
+     * Enables batching for the given database context.<p>
+     *
+     * @param dbc the database context
+     * @param batchSize the max. number of statements of a query executed in one batch
+     */
+    public static void begin(CmsDbContext dbc, int batchSize) {
+
+        dbc.setAttribute(DBC_ATTR_BATCH_SIZE, Integer.valueOf(batchSize));
+        dbc.setAttribute(DBC_ATTR_BATCHES, new IdentityHashMap<CmsSqlManager, CmsSqlBatch>());
+    }
+
+    /**
+     * Executes all collected statements and disables batching for the given database context.<p>
+     *
+     * @param dbc the database context
+     *
+     * @return the failed statements, the descriptions of the statements mapped to the exceptions
+     */
+    public static Map<String, List<CmsDbSqlException>> end(CmsDbContext dbc) {
+
+        Map<String, List<CmsDbSqlException>> result = flush(dbc);
+        dbc.removeAttribute(DBC_ATTR_BATCHES);
+        dbc.removeAttribute(DBC_ATTR_BATCH_SIZE);
+        return result;
+    }
+
+    /**
+     * Executes all collected statements of the given database context.<p>
+     *
+     * @param dbc the database context
+     *
+     * @return the failed statements, the descriptions of the statements mapped to the exceptions
+     */
+    public static Map<String, List<CmsDbSqlException>> flush(CmsDbContext dbc) {
+
+        Map<String, List<CmsDbSqlException>> result = new LinkedHashMap<String, List<CmsDbSqlException>>();
+        Map<CmsSqlManager, CmsSqlBatch> batches = getBatches(dbc);
+        if (batches != null) {
+            for (CmsSqlBatch batch : batches.values()) {
+                addErrors(result, batch.flush());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the batch of the given SQL manager for the given database context.<p>
+     *
+     * @param dbc the database context
+     * @param sqlManager the SQL manager
+     *
+     * @return the batch, or <code>null</code> if batching is not enabled for the database context
+     */
+    public static CmsSqlBatch getBatch(CmsDbContext dbc, CmsSqlManager sqlManager) {
+
+        Map<CmsSqlManager, CmsSqlBatch> batches = getBatches(dbc);
+        if (batches == null) {
+            return null;
+        }
+        CmsSqlBatch result = batches.get(sqlManager);
+        if (result == null) {
+            int batchSize = ((Integer)dbc.getAttribute(DBC_ATTR_BATCH_SIZE)).intValue();
+            result = new CmsSqlBatch(sqlManager, dbc, batchSize);
+            batches.put(sqlManager, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the batches of the given database context.<p>
+     *
+     * @param dbc the database context
+     *
+     * @return the batches by SQL manager, or <code>null</code> if batching is not enabled
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<CmsSqlManager, CmsSqlBatch> getBatches(CmsDbContext dbc) {
+
+        if (dbc == null) {
+            return null;
+        }
+        return (Map<CmsSqlManager, CmsSqlBatch>)dbc.getAttribute(DBC_ATTR_BATCHES);
+    }
+
+    /**
+     * Adds a statement to this batch, and executes the statements of the query if the batch size is reached.<p>
+     *
+     * The parameters may be Strings, Integers, Longs, byte arrays or <code>null</code>.<p>
+     *
+     * @param projectId the id of the project the query is bound to, or <code>null</code> if it is not project dependent
+     * @param queryKey the key of the query
+     * @param description the description of the statement used to report failures, e.g. a resource path
+     * @param parameters the parameters of the statement
+     */
+    public void add(CmsUUID projectId, String queryKey, String description, Object... parameters) {
+
+        String key = projectId + "|" + queryKey;
+        CmsBatchQuery query = m_queries.get(key);
+        if (query == null) {
+            query = new CmsBatchQuery(projectId, queryKey);
+            m_queries.put(key, query);
+        }
+        query.m_descriptions.add(description);
+        query.m_parameters.add(parameters);
+        if (query.m_parameters.size() >= m_batchSize) {
+            execute(query);
+        }
+    }
+
+    /**
+     * Executes all collected statements of this batch.<p>
+     *
+     * @return the failed statements since the last flush, the descriptions of the statements mapped to the exceptions
+     */
+    public Map<String, List<CmsDbSqlException>> flush() {
+
+        for (CmsBatchQuery query : m_queries.values()) {
+            if (!query.m_parameters.isEmpty()) {
+                execute(query);
+            }
+        }
+        Map<String, List<CmsDbSqlException>> result = m_errors;
+        m_errors = new LinkedHashMap<String, List<CmsDbSqlException>>();
+        return result;
+    }
+
+    /**
+     * Returns the number of statements that have not been executed yet.<p>
+     *
+     * @return the number of statements that have not been executed yet
+     */
+    public int getPendingCount() {
+
+        int result = 0;
+        for (CmsBatchQuery query : m_queries.values()) {
+            result += query.m_parameters.size();
+        }
+        return result;
+    }
+
+    /**
+     * Records a failed statement.<p>
+     *
+     * @param description the description of the statement
+     * @param e the exception
+     */
+    private void addError(String description, CmsDbSqlException e) {
+
+        List<CmsDbSqlException> list = m_errors.get(description);
+        if (list == null) {
+            list = new ArrayList<CmsDbSqlException>();
+            m_errors.put(description, list);
+        }
+        list.add(e);
+    }
+
+    /**
+     * Executes the collected statements of the given query as JDBC batch.<p>
+     *
+     * @param query the query
+     */
+    private void execute(CmsBatchQuery query) {
+
+        List<String> descriptions = new ArrayList<String>(query.m_descriptions);
+        List<Object[]> parameters = new ArrayList<Object[]>(query.m_parameters);
+        query.m_descriptions.clear();
+        query.m_parameters.clear();
+
+        // the index of the first statement that has not been executed successfully
+        int retryFrom = parameters.size();
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = m_sqlManager.getConnection(m_dbc);
+            stmt = prepareStatement(conn, query);
+            for (Object[] statementParameters : parameters) {
+                setParameters(stmt, statementParameters);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } catch (BatchUpdateException e) {
+            int[] counts = e.getUpdateCounts();
+            if ((counts != null) && (counts.length < parameters.size())) {
+                // the driver stopped at the first failure
+                retryFrom = counts.length;
+            } else {
+                // the driver continued after the failures
+                retryFrom = parameters.size();
+                for (int i = 0; (counts != null) && (i < counts.length); i++) {
+                    if (counts[i] == Statement.EXECUTE_FAILED) {
+                        addError(descriptions.get(i), createException(stmt, e));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            retryFrom = 0;
+        } finally {
+            m_sqlManager.closeAll(m_dbc, conn, stmt, null);
+        }
+        for (int i = retryFrom; i < parameters.size(); i++) {
+            executeSingle(query, descriptions.get(i), parameters.get(i));
+        }
+    }
+
+    /**
+     * Creates the exception for a failed statement.<p>
+     *
+     * @param stmt the statement
+     * @param e the SQL exception
+     *
+     * @return the exception
+     */
+    private CmsDbSqlException createException(PreparedStatement stmt, SQLException e) {
+
+        return new CmsDbSqlException(
+            Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+            e);
+    }
+
+    /**
+     * Executes a single statement of a query, recording a failure.<p>
+     *
+     * @param query the query
+     * @param description the description of the statement
+     * @param parameters the parameters of the statement
+     */
+    private void executeSingle(CmsBatchQuery query, String description, Object[] parameters) {
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = m_sqlManager.getConnection(m_dbc);
+            stmt = prepareStatement(conn, query);
+            setParameters(stmt, parameters);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            addError(description, createException(stmt, e));
+        } finally {
+            m_sqlManager.closeAll(m_dbc, conn, stmt, null);
+        }
+    }
+
+    /**
+     * Prepares the statement of a query.<p>
+     *
+     * @param conn the connection
+     * @param query the query
+     *
+     * @return the statement
+     *
+     * @throws SQLException if a database access error occurs
+     */
+    private PreparedStatement prepareStatement(Connection conn, CmsBatchQuery query) throws SQLException {
+
+        if (query.m_projectId == null) {
+            return m_sqlManager.getPreparedStatement(conn, query.m_queryKey);
+        }
+        return m_sqlManager.getPreparedStatement(conn, query.m_projectId, query.m_queryKey);
+    }
+
+    /**
+     * Sets the parameters of a statement.<p>
+     *
+     * @param stmt the statement
+     * @param parameters the parameters
+     *
+     * @throws SQLException if a database access error occurs
+     */
+    private void setParameters(PreparedStatement stmt, Object[] parameters) throws SQLException {
+
+        for (int i = 0; i < parameters.length; i++) {
+            Object parameter = parameters[i];
+            if (parameter == null) {
+                stmt.setNull(i + 1, Types.VARCHAR);
+            } else if (parameter instanceof Integer) {
+                stmt.setInt(i + 1, ((Integer)parameter).intValue());
+            } else if (parameter instanceof Long) {
+                stmt.setLong(i + 1, ((Long)parameter).longValue());
+            } else if (parameter instanceof byte[]) {
+                m_sqlManager.setBytes(stmt, i + 1, (byte[])parameter);
+            } else {
+                stmt.setString(i + 1, parameter.toString());
+            }
+        }
+    }
+}
@@ -29,6 +29,8 @@ package org.opencms.db.generic;
 
 import org.opencms.db.CmsDbContext;
 import org.opencms.db.CmsDbPool;
+import org.opencms.db.CmsReadReplica;
+import org.opencms.db.CmsSqlStatistics;
 import org.opencms.file.CmsProject;
 import org.opencms.main.CmsLog;
 import org.opencms.main.CmsRuntimeException;
@@ -37,6 +39,7 @@ import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
 import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -48,6 +51,7 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.apache.commons.dbcp.DelegatingConnection;
 import org.apache.commons.logging.Log;
 
 /**
@@ -78,6 +82,12 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
     /** A map holding all SQL queries. */
     protected Map<String, String> m_queries;
 
+    /** The read replica, or <code>null</code> if all statements use the primary pool. */
+    protected CmsReadReplica m_readReplica;
+
+    /** The SQL statistics, or <code>null</code> if no statistics are collected. */
+    protected CmsSqlStatistics m_statistics;
+
     /**
      * Creates a new, empty SQL manager.<p>
      */
@@ -186,6 +196,25 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
 
     }
 
+    /**
+     * Retrieves the value of the designated column in the current row of this ResultSet object as
+     * a stream of bytes.<p>
+     *
+     * The stream can only be read as long as the result set is open. Overwrite this method if another
+     * database server requires a different handling of byte attributes in tables.<p>
+     *
+     * @param res the result set
+     * @param attributeName the name of the table attribute
+     *
+     * @return the column value as stream; if the value is SQL NULL, the value returned is null
+     *
+     * @throws SQLException if a database access error occurs
+     */
+    public InputStream getBinaryStream(ResultSet res, String attributeName) throws SQLException {
+
+        return res.getBinaryStream(attributeName);
+    }
+
     /**
      * Retrieves the value of the designated column in the current row of this ResultSet object as
      * a byte array in the Java programming language.<p>
@@ -221,8 +250,13 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
         if (dbc == null) {
             LOG.error(Messages.get().getBundle().key(Messages.LOG_NULL_DB_CONTEXT_0));
         }
+        CmsReadReplica readReplica = m_readReplica;
+        if ((readReplica != null) && readReplica.useReplica(dbc)) {
+            // the connections are taken from the pools when the statements are prepared
+            return new CmsReplicaRoutingConnection(this, dbc, readReplica);
+        }
         // match the ID to a JDBC pool URL of the OpenCms JDBC pools {online|offline|backup}
-        return getConnectionByUrl(m_poolUrl);
+        return getPoolConnection(m_poolUrl);
     }
 
     /**
@@ -259,7 +293,7 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
     throws SQLException {
 
         String rawSql = readQuery(projectId, queryKey);
-        return getPreparedStatementForSql(con, rawSql);
+        return prepareStatement(con, rawSql, queryKey, projectId);
     }
 
     /**
@@ -273,7 +307,7 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
     public PreparedStatement getPreparedStatement(Connection con, String queryKey) throws SQLException {
 
         String rawSql = readQuery(CmsUUID.getNullUUID(), queryKey);
-        return getPreparedStatementForSql(con, rawSql);
+        return prepareStatement(con, rawSql, queryKey, null);
     }
 
     /**
@@ -286,9 +320,27 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
      */
     public PreparedStatement getPreparedStatementForSql(Connection con, String query) throws SQLException {
 
-        // unfortunately, this wrapper is essential, because some JDBC driver
-        // implementations don't accept the delegated objects of DBCP's connection pool.
-        return con.prepareStatement(query);
+        return prepareStatement(con, query, CmsSqlStatistics.DYNAMIC_QUERY_KEY, null);
+    }
+
+    /**
+     * Returns the read replica.<p>
+     *
+     * @return the read replica, or <code>null</code> if all statements use the primary pool
+     */
+    public CmsReadReplica getReadReplica() {
+
+        return m_readReplica;
+    }
+
+    /**
+     * Returns the SQL statistics.<p>
+     *
+     * @return the SQL statistics, or <code>null</code> if no statistics are collected
+     */
+    public CmsSqlStatistics getStatistics() {
+
+        return m_statistics;
     }
 
     /**
@@ -414,6 +466,26 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
         }
     }
 
+    /**
+     * Sets the read replica used for the reads in the online project.<p>
+     *
+     * @param readReplica the read replica, or <code>null</code> to use the primary pool for all statements
+     */
+    public void setReadReplica(CmsReadReplica readReplica) {
+
+        m_readReplica = readReplica;
+    }
+
+    /**
+     * Sets the SQL statistics used to record the executed statements and the connections taken from the pool.<p>
+     *
+     * @param statistics the SQL statistics, or <code>null</code> to collect no statistics
+     */
+    public void setStatistics(CmsSqlStatistics statistics) {
+
+        m_statistics = statistics;
+    }
+
     /**
      * Replaces null or empty Strings with a String with one space character <code>" "</code>.<p>
      *
@@ -429,6 +501,27 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
         return " ";
     }
 
+    /**
+     * Returns a connection of the pool with the given URL, and records the time needed in the statistics.<p>
+     *
+     * @param poolUrl the URL of the pool
+     *
+     * @return a connection of the pool
+     *
+     * @throws SQLException if a database access error occurs
+     */
+    protected Connection getPoolConnection(String poolUrl) throws SQLException {
+
+        CmsSqlStatistics statistics = m_statistics;
+        if (statistics == null) {
+            return getConnectionByUrl(poolUrl);
+        }
+        long start = System.nanoTime();
+        Connection result = getConnectionByUrl(poolUrl);
+        statistics.getPoolStatistics(poolUrl).recordConnection(System.nanoTime() - start);
+        return result;
+    }
+
     /**
      * Loads a Java properties hash containing SQL queries.<p>
      *
@@ -453,6 +546,37 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
         }
     }
 
+    /**
+     * Creates a prepared statement for the given SQL query.<p>
+     *
+     * If statistics are collected, the statement is wrapped to record its executions
+     * under the given query key.<p>
+     *
+     * @param con the JDBC connection
+     * @param query the SQL query
+     * @param queryKey the key of the SQL query
+     * @param projectId the ID of the project the query is bound to, may be <code>null</code>
+     *
+     * @return a new prepared statement containing the pre-compiled SQL statement
+     *
+     * @throws SQLException if a database access error occurs
+     */
+    protected PreparedStatement prepareStatement(Connection con, String query, String queryKey, CmsUUID projectId)
+    throws SQLException {
+
+        // unfortunately, this wrapper is essential, because some JDBC driver
+        // implementations don't accept the delegated objects of DBCP's connection pool.
+        PreparedStatement result = con.prepareStatement(query);
+        CmsSqlStatistics statistics = m_statistics;
+        if (statistics != null) {
+            DelegatingConnection delegatingCon = con instanceof DelegatingConnection
+            ? (DelegatingConnection)con
+            : new DelegatingConnection(con);
+            result = new CmsStatisticsPreparedStatement(delegatingCon, result, statistics, queryKey, projectId);
+        }
+        return result;
+    }
+
     /**
      * Replaces patterns ${XXX} by another property value, if XXX is a property key with a value.<p>
      */
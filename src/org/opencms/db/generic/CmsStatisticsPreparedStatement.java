@@ -0,0 +1,171 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db.generic;
+
+import org.opencms.db.CmsSqlQueryStatistics;
+import org.opencms.db.CmsSqlStatistics;
+import org.opencms.util.CmsUUID;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.apache.commons.dbcp.DelegatingConnection;
+import org.apache.commons.dbcp.DelegatingPreparedStatement;
+
+/**
+ * A prepared statement that records the executions of a query in the SQL statistics.<p>
+ *
+ * The statement extends the DBCP delegating statement, so drivers that unwrap the statements and
+ * result sets of the pool to access vendor specific features still work with the wrapped statement.
+ * The result sets returned by {@link #executeQuery()} count the rows read.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsStatisticsPreparedStatement extends DelegatingPreparedStatement {
+
+    /** The id of the project the query is bound to. */
+    private CmsUUID m_projectId;
+
+    /** The statistics of the query. */
+    private CmsSqlQueryStatistics m_queryStatistics;
+
+    /** The SQL statistics. */
+    private CmsSqlStatistics m_statistics;
+
+    /**
+     * Creates a new statement.<p>
+     *
+     * @param connection the connection that created the statement
+     * @param statement the statement to wrap
+     * @param statistics the SQL statistics
+     * @param queryKey the key of the query
+     * @param projectId the id of the project the query is bound to, may be <code>null</code>
+     */
+    public CmsStatisticsPreparedStatement(
+        DelegatingConnection connection,
+        PreparedStatement statement,
+        CmsSqlStatistics statistics,
+        String queryKey,
+        CmsUUID projectId) {
+
+        super(connection, statement);
+        m_statistics = statistics;
+        m_queryStatistics = statistics.getQueryStatistics(queryKey);
+        m_projectId = projectId;
+    }
+
+    /**
+     * @see org.apache.commons.dbcp.DelegatingPreparedStatement#execute()
+     */
+    @Override
+    public boolean execute() throws SQLException {
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            boolean result = getPreparedStatement().execute();
+            failed = false;
+            return result;
+        } finally {
+            m_statistics.recordExecution(m_queryStatistics, m_projectId, System.nanoTime() - start, failed);
+        }
+    }
+
+    /**
+     * @see org.apache.commons.dbcp.DelegatingStatement#executeBatch()
+     */
+    @Override
+    public int[] executeBatch() throws SQLException {
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            int[] result = getPreparedStatement().executeBatch();
+            failed = false;
+            for (int count : result) {
+                m_queryStatistics.recordRows(count);
+            }
+            return result;
+        } finally {
+            m_statistics.recordExecution(m_queryStatistics, m_projectId, System.nanoTime() - start, failed);
+        }
+    }
+
+    /**
+     * @see org.apache.commons.dbcp.DelegatingPreparedStatement#executeQuery()
+     */
+    @Override
+    public ResultSet executeQuery() throws SQLException {
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            ResultSet result = new CmsStatisticsResultSet(
+                this,
+                getPreparedStatement().executeQuery(),
+                m_queryStatistics);
+            failed = false;
+            return result;
+        } finally {
+            m_statistics.recordExecution(m_queryStatistics, m_projectId, System.nanoTime() - start, failed);
+        }
+    }
+
+    /**
+     * @see org.apache.commons.dbcp.DelegatingPreparedStatement#executeUpdate()
+     */
+    @Override
+    public int executeUpdate() throws SQLException {
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            int result = getPreparedStatement().executeUpdate();
+            failed = false;
+            m_queryStatistics.recordRows(result);
+            return result;
+        } finally {
+            m_statistics.recordExecution(m_queryStatistics, m_projectId, System.nanoTime() - start, failed);
+        }
+    }
+
+    /**
+     * Returns the wrapped statement.<p>
+     *
+     * @return the wrapped statement
+     *
+     * @throws SQLException if this statement has already been closed
+     */
+    private PreparedStatement getPreparedStatement() throws SQLException {
+
+        checkOpen();
+        return (PreparedStatement)getDelegate();
+    }
+}
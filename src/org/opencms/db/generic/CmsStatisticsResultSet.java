@@ -0,0 +1,90 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db.generic;
+
+import org.opencms.db.CmsSqlQueryStatistics;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.apache.commons.dbcp.DelegatingResultSet;
+
+/**
+ * A result set that counts the rows read and adds them to the statistics of the query when it is closed.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsStatisticsResultSet extends DelegatingResultSet {
+
+    /** The statistics of the query. */
+    private CmsSqlQueryStatistics m_queryStatistics;
+
+    /** The number of rows read so far, or -1 if the rows have already been recorded. */
+    private long m_rows;
+
+    /**
+     * Creates a new result set.<p>
+     *
+     * @param statement the statement that created the result set
+     * @param resultSet the result set to wrap
+     * @param queryStatistics the statistics of the query
+     */
+    public CmsStatisticsResultSet(Statement statement, ResultSet resultSet, CmsSqlQueryStatistics queryStatistics) {
+
+        super(statement, resultSet);
+        m_queryStatistics = queryStatistics;
+    }
+
+    /**
+     * @see org.apache.commons.dbcp.DelegatingResultSet#close()
+     */
+    @Override
+    public void close() throws SQLException {
+
+        if (m_rows >= 0) {
+            m_queryStatistics.recordRows(m_rows);
+            m_rows = -1;
+        }
+        super.close();
+    }
+
+    /**
+     * @see org.apache.commons.dbcp.DelegatingResultSet#next()
+     */
+    @Override
+    public boolean next() throws SQLException {
+
+        boolean result = super.next();
+        if (result && (m_rows >= 0)) {
+            m_rows++;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,419 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db.generic;
+
+import org.opencms.db.CmsDbContext;
+import org.opencms.db.CmsDbSqlException;
+import org.opencms.file.CmsDataAccessException;
+import org.opencms.file.CmsProject;
+import org.opencms.util.CmsUUID;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains the structure tree index, which allows to read all resources of a subtree without
+ * comparing the resource paths with <code>LIKE</code>.<p>
+ *
+ * The index is a closure table with one row for every ancestor folder of a structure entry, and one row
+ * for the structure entry itself. Every row stores the distance between the ancestor and the entry,
+ * so the subtree of a folder are all rows with the folder as ancestor and a depth greater than 0.<p>
+ *
+ * The index is maintained by the VFS driver whenever a structure entry is created, moved or removed.
+ * It can be built from the structure table with {@link #rebuild(CmsDbContext, CmsUUID)}.
+ * This is done automatically on startup if the index does not contain one entry for every structure entry,
+ * e.g. because it is empty. As the index is not maintained while it is disabled, the VFS driver removes
+ * all entries with {@link #clear(CmsDbContext)} on startup if the index is disabled, so that it is rebuilt
+ * when it is enabled again.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsStructureTreeIndex {
+
+    /** The configuration key for enabling the structure tree index. */
+    public static final String CONFIGURATION_ENABLED = "db.vfs.treeindex.enabled";
+
+    /** A project id that selects the offline tables. */
+    public static final CmsUUID OFFLINE_TABLES_ID = CmsUUID.getConstantUUID("structure-tree-offline");
+
+    /** The number of rows inserted in one batch when the index is built. */
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    /** The SQL manager. */
+    private CmsSqlManager m_sqlManager;
+
+    /**
+     * Creates a new structure tree index.<p>
+     *
+     * @param sqlManager the SQL manager of the VFS driver
+     */
+    public CmsStructureTreeIndex(CmsSqlManager sqlManager) {
+
+        m_sqlManager = sqlManager;
+    }
+
+    /**
+     * Removes all rows of the online and offline index.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @return <code>true</code> if the index contained rows
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    public boolean clear(CmsDbContext dbc) throws CmsDataAccessException {
+
+        boolean result = false;
+        for (CmsUUID projectId : new CmsUUID[] {CmsProject.ONLINE_PROJECT_ID, OFFLINE_TABLES_ID}) {
+            if (!isEmpty(dbc, projectId)) {
+                executeUpdate(dbc, projectId, "C_STRUCTURE_TREE_DELETE_ALL");
+                result = true;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds a new structure entry to the index.<p>
+     *
+     * The structure entry must already have been written, and its parent folder must already be part of the index.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project of the structure entry
+     * @param structureId the structure id of the new entry
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    public void insert(CmsDbContext dbc, CmsUUID projectId, CmsUUID structureId) throws CmsDataAccessException {
+
+        // remove stale rows of an entry with the same id first
+        executeUpdate(dbc, projectId, "C_STRUCTURE_TREE_DELETE_ANCESTORS", structureId.toString());
+        executeUpdate(
+            dbc,
+            projectId,
+            "C_STRUCTURE_TREE_INSERT",
+            structureId.toString(),
+            structureId.toString(),
+            new Integer(0));
+        executeUpdate(dbc, projectId, "C_STRUCTURE_TREE_INSERT_ANCESTORS", structureId.toString());
+    }
+
+    /**
+     * Checks if the index of the given project contains exactly one entry for every structure entry.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project
+     *
+     * @return <code>true</code> if the number of entries of the index and the structure table match
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    public boolean isConsistent(CmsDbContext dbc, CmsUUID projectId) throws CmsDataAccessException {
+
+        return countRows(dbc, projectId, "C_STRUCTURE_TREE_COUNT_ENTRIES") == countRows(
+            dbc,
+            projectId,
+            "C_STRUCTURE_TREE_COUNT_STRUCTURE");
+    }
+
+    /**
+     * Checks if the index of the given project contains no rows.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project
+     *
+     * @return <code>true</code> if the index is empty
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    public boolean isEmpty(CmsDbContext dbc, CmsUUID projectId) throws CmsDataAccessException {
+
+        return !hasRows(dbc, projectId, "C_STRUCTURE_TREE_READ_ENTRY");
+    }
+
+    /**
+     * Moves a structure entry and its subtree to the given parent folder.<p>
+     *
+     * Nothing is changed if the parent folder of the entry is unchanged.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project of the structure entry
+     * @param structureId the structure id of the entry
+     * @param parentId the structure id of the new parent folder
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    public void move(CmsDbContext dbc, CmsUUID projectId, CmsUUID structureId, String parentId)
+    throws CmsDataAccessException {
+
+        if (hasRows(dbc, projectId, "C_STRUCTURE_TREE_READ_PARENT", parentId, structureId.toString())) {
+            // the parent is unchanged
+            return;
+        }
+        // remove all links between the subtree and the old ancestors, then link the subtree with the new ancestors
+        executeUpdate(
+            dbc,
+            projectId,
+            "C_STRUCTURE_TREE_DETACH",
+            structureId.toString(),
+            structureId.toString());
+        executeUpdate(dbc, projectId, "C_STRUCTURE_TREE_ATTACH", parentId, structureId.toString());
+    }
+
+    /**
+     * Builds the index of the given project from the structure table.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project
+     *
+     * @return the number of rows written to the index
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    public int rebuild(CmsDbContext dbc, CmsUUID projectId) throws CmsDataAccessException {
+
+        // only the folders are kept in memory, the other entries are read one by one
+        Map<String, String> folders = new HashMap<String, String>();
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_STRUCTURE_TREE_READ_FOLDERS");
+            res = stmt.executeQuery();
+            while (res.next()) {
+                folders.put(res.getString(1), res.getString(2));
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+
+        executeUpdate(dbc, projectId, "C_STRUCTURE_TREE_DELETE_ALL");
+        CmsSqlBatch batch = new CmsSqlBatch(m_sqlManager, dbc, REBUILD_BATCH_SIZE);
+        Map<String, List<CmsDbSqlException>> errors = new HashMap<String, List<CmsDbSqlException>>();
+        int result = 0;
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_STRUCTURE_TREE_READ_STRUCTURE");
+            res = stmt.executeQuery();
+            while (res.next()) {
+                String structureId = res.getString(1);
+                String ancestorId = structureId;
+                int depth = 0;
+                // the depth is limited by the number of folders, in case the structure contains a cycle
+                while ((ancestorId != null) && (depth <= folders.size())) {
+                    batch.add(
+                        projectId,
+                        "C_STRUCTURE_TREE_INSERT",
+                        ancestorId + "/" + structureId,
+                        ancestorId,
+                        structureId,
+                        new Integer(depth));
+                    result++;
+                    ancestorId = depth == 0 ? res.getString(2) : folders.get(ancestorId);
+                    if ((ancestorId != null) && !folders.containsKey(ancestorId)) {
+                        // the parent of the root folder is not a structure entry
+                        ancestorId = null;
+                    }
+                    depth++;
+                }
+                if (batch.getPendingCount() >= REBUILD_BATCH_SIZE) {
+                    CmsSqlBatch.addErrors(errors, batch.flush());
+                }
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+            CmsSqlBatch.addErrors(errors, batch.flush());
+        }
+        if (!errors.isEmpty()) {
+            throw errors.values().iterator().next().get(0);
+        }
+        return result;
+    }
+
+    /**
+     * Builds the online and offline index if it is not consistent with the structure table.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @return the number of rows written to the index
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     *
+     * @see #isConsistent(CmsDbContext, CmsUUID)
+     */
+    public int rebuildIfInconsistent(CmsDbContext dbc) throws CmsDataAccessException {
+
+        int result = 0;
+        for (CmsUUID projectId : new CmsUUID[] {CmsProject.ONLINE_PROJECT_ID, OFFLINE_TABLES_ID}) {
+            if (!isConsistent(dbc, projectId)) {
+                result += rebuild(dbc, projectId);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes a structure entry from the index.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project of the structure entry
+     * @param structureId the structure id of the removed entry
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    public void remove(CmsDbContext dbc, CmsUUID projectId, CmsUUID structureId) throws CmsDataAccessException {
+
+        executeUpdate(dbc, projectId, "C_STRUCTURE_TREE_DELETE", structureId.toString(), structureId.toString());
+    }
+
+    /**
+     * Returns the number returned by a count query.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project
+     * @param queryKey the key of the query
+     *
+     * @return the number of rows counted by the query
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    private int countRows(CmsDbContext dbc, CmsUUID projectId, String queryKey) throws CmsDataAccessException {
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            stmt = m_sqlManager.getPreparedStatement(conn, projectId, queryKey);
+            res = stmt.executeQuery();
+            return res.next() ? res.getInt(1) : 0;
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+    }
+
+    /**
+     * Executes an update statement.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project
+     * @param queryKey the key of the query
+     * @param params the parameters of the statement
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    private void executeUpdate(CmsDbContext dbc, CmsUUID projectId, String queryKey, Object... params)
+    throws CmsDataAccessException {
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            stmt = m_sqlManager.getPreparedStatement(conn, projectId, queryKey);
+            setParameters(stmt, params);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, null);
+        }
+    }
+
+    /**
+     * Checks if a query returns at least one row.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project
+     * @param queryKey the key of the query
+     * @param params the parameters of the query
+     *
+     * @return <code>true</code> if the query returns at least one row
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    private boolean hasRows(CmsDbContext dbc, CmsUUID projectId, String queryKey, Object... params)
+    throws CmsDataAccessException {
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            stmt = m_sqlManager.getPreparedStatement(conn, projectId, queryKey);
+            setParameters(stmt, params);
+            stmt.setMaxRows(1);
+            res = stmt.executeQuery();
+            return res.next();
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+    }
+
+    /**
+     * Sets the parameters of a statement.<p>
+     *
+     * @param stmt the statement
+     * @param params the parameters, either strings or integers
+     *
+     * @throws SQLException if something goes wrong
+     */
+    private void setParameters(PreparedStatement stmt, Object... params) throws SQLException {
+
+        for (int i = 0; i < params.length; i++) {
+            if (params[i] instanceof Integer) {
+                stmt.setInt(i + 1, ((Integer)params[i]).intValue());
+            } else {
+                stmt.setString(i + 1, (String)params[i]);
+            }
+        }
+    }
+}
@@ -978,6 +978,8 @@ public class CmsUserDriver implements I_CmsUserDriver {
         String classname = config.get("db.user.sqlmanager");
         m_sqlManager = initSqlManager(classname);
         m_sqlManager.init(I_CmsUserDriver.DRIVER_TYPE_ID, poolUrl);
+        m_sqlManager.setReadReplica(driverManager.getReadReplica());
+        m_sqlManager.setStatistics(driverManager.getSqlStatistics());
 
         m_driverManager = driverManager;
 
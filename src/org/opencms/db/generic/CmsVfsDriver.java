@@ -43,6 +43,7 @@ import org.opencms.db.CmsResourceState;
 import org.opencms.db.CmsRewriteAlias;
 import org.opencms.db.CmsRewriteAliasFilter;
 import org.opencms.db.CmsVfsOnlineResourceAlreadyExistsException;
+import org.opencms.db.I_CmsBlobStore;
 import org.opencms.db.I_CmsDriver;
 import org.opencms.db.I_CmsPreparedStatementParameter;
 import org.opencms.db.I_CmsProjectDriver;
@@ -80,6 +81,7 @@ import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
 import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -90,6 +92,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -109,22 +113,27 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     /** Contains the macro replacement value for the online project. */
     protected static final String ONLINE = "ONLINE";
 
+    /** The max. number of resources for which the properties are read with a single query. */
+    protected static final int PROPERTIES_READ_CHUNK_SIZE = 250;
+
+    /** The max. number of resources which are read with a single query. */
+    protected static final int RESOURCES_READ_CHUNK_SIZE = 500;
+
+    /** The key of the database context attribute holding the ids of the resources with increased resource version. */
+    private static final String DBC_ATTR_RESOURCE_OPERATIONS = "vfsDriver.resourceOperations";
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(org.opencms.db.generic.CmsVfsDriver.class);
 
     /** The driver manager. */
     protected CmsDriverManager m_driverManager;
 
-    /**
-     * This field is temporarily used to compute the versions during publishing.<p>
-     *
-     * @see #publishVersions(CmsDbContext, CmsResource, boolean)
-     */
-    protected List<CmsUUID> m_resOp = new ArrayList<CmsUUID>();
-
     /** The sql manager. */
     protected CmsSqlManager m_sqlManager;
 
+    /** The structure tree index, <code>null</code> if the index is not enabled. */
+    protected CmsStructureTreeIndex m_treeIndex;
+
     /**
      * This method prepares the SQL conditions for mapping entries for a given URL name mapping filter.<p>
      *
@@ -271,16 +280,17 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         Connection conn = null;
         PreparedStatement stmt = null;
+        byte[] value = storeContent(content);
 
         try {
             conn = m_sqlManager.getConnection(dbc);
             // create new offline content
             stmt = m_sqlManager.getPreparedStatement(conn, "C_OFFLINE_CONTENTS_WRITE");
             stmt.setString(1, resourceId.toString());
-            if (content.length < 2000) {
-                stmt.setBytes(2, content);
+            if (value.length < 2000) {
+                stmt.setBytes(2, value);
             } else {
-                stmt.setBinaryStream(2, new ByteArrayInputStream(content), content.length);
+                stmt.setBinaryStream(2, new ByteArrayInputStream(value), value.length);
             }
             stmt.executeUpdate();
         } catch (SQLException e) {
@@ -311,7 +321,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         int resourceSize = res.getInt(m_sqlManager.readQuery("C_RESOURCES_SIZE"));
         CmsUUID userCreated = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RESOURCES_USER_CREATED")));
         CmsUUID userLastModified = new CmsUUID(res.getString(m_sqlManager.readQuery("C_RESOURCES_USER_LASTMODIFIED")));
-        byte[] content = m_sqlManager.getBytes(res, m_sqlManager.readQuery("C_RESOURCES_FILE_CONTENT"));
+        byte[] content = readContentValue(res);
         int siblingCount = res.getInt(m_sqlManager.readQuery("C_RESOURCES_SIBLING_COUNT"));
         long dateContent = res.getLong(m_sqlManager.readQuery("C_RESOURCES_DATE_CONTENT"));
         int resourceVersion = res.getInt(m_sqlManager.readQuery("C_RESOURCES_VERSION"));
@@ -380,7 +390,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             resourcePath = CmsFileUtil.addTrailingSeparator(resourcePath);
         }
         if (hasFileContentInResultSet) {
-            content = m_sqlManager.getBytes(res, m_sqlManager.readQuery("C_RESOURCES_FILE_CONTENT"));
+            content = readContentValue(res);
         }
         resProjectId = lockedInProject;
         int newState = (structureState > resourceState) ? structureState : resourceState;
@@ -487,14 +497,15 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
                     m_sqlManager.closeAll(dbc, null, stmt, null);
                 }
 
-                // create new online content
+                // create new online content, with a blob store only the reference to the existing blob is written
+                byte[] value = storeContent(contents);
                 stmt = m_sqlManager.getPreparedStatement(conn, "C_ONLINE_CONTENTS_WRITE");
 
                 stmt.setString(1, resourceId.toString());
-                if (contents.length < 2000) {
-                    stmt.setBytes(2, contents);
+                if (value.length < 2000) {
+                    stmt.setBytes(2, value);
                 } else {
-                    stmt.setBinaryStream(2, new ByteArrayInputStream(contents), contents.length);
+                    stmt.setBinaryStream(2, new ByteArrayInputStream(value), value.length);
                 }
                 stmt.setInt(3, publishTag);
                 stmt.setInt(4, publishTag);
@@ -752,6 +763,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             stmt.setInt(8, newStrVersion); // starting version number
             stmt.executeUpdate();
             m_sqlManager.closeAll(dbc, conn, stmt, null);
+            if (m_treeIndex != null) {
+                m_treeIndex.insert(dbc, projectId, newStructureId);
+            }
 
             if (!validateResourceIdExists(dbc, projectId, resource.getResourceId())) {
                 try {
@@ -992,6 +1006,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             stmt.setInt(8, newStrVersion); // initial structure version number
             stmt.executeUpdate();
             m_sqlManager.closeAll(dbc, conn, stmt, null);
+            if (m_treeIndex != null) {
+                m_treeIndex.insert(dbc, project.getUuid(), newStructureId);
+            }
 
             int sibCount = countSiblings(dbc, project.getUuid(), resource.getResourceId());
             conn = m_sqlManager.getConnection(dbc);
@@ -1206,6 +1223,34 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         updateBrokenRelations(dbc, projectId, resource.getRootPath());
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#deleteResourceTree(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, java.lang.String)
+     */
+    public void deleteResourceTree(CmsDbContext dbc, CmsProject project, String folderPath)
+    throws CmsDataAccessException {
+
+        if (project.getUuid().equals(CmsProject.ONLINE_PROJECT_ID)) {
+            return;
+        }
+        String pathPattern = CmsFileUtil.addTrailingSeparator(escapeDbWildcard(folderPath)) + "%";
+        Integer deleted = Integer.valueOf(CmsResource.STATE_DELETED.getState());
+        // update the project first, since only the resources which are not yet deleted are changed
+        updateResourceTree(
+            dbc,
+            project.getUuid(),
+            "C_RESOURCES_UPDATE_TREE_PROJECT_LASTMODIFIED",
+            project.getUuid().toString(),
+            pathPattern,
+            deleted);
+        updateResourceTree(
+            dbc,
+            project.getUuid(),
+            "C_RESOURCES_UPDATE_TREE_STRUCTURE_STATE",
+            deleted,
+            pathPattern,
+            deleted);
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#deleteRewriteAliases(org.opencms.db.CmsDbContext, org.opencms.db.CmsRewriteAliasFilter)
      */
@@ -1257,6 +1302,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         m_sqlManager = null;
         m_driverManager = null;
+        m_treeIndex = null;
 
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_SHUTDOWN_DRIVER_1, getClass().getName()));
@@ -1362,6 +1408,8 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         String classname = configuration.get("db.vfs.sqlmanager");
         m_sqlManager = initSqlManager(classname);
         m_sqlManager.init(I_CmsVfsDriver.DRIVER_TYPE_ID, poolUrl);
+        m_sqlManager.setReadReplica(driverManager.getReadReplica());
+        m_sqlManager.setStatistics(driverManager.getSqlStatistics());
 
         m_driverManager = driverManager;
 
@@ -1369,6 +1417,12 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_ASSIGNED_POOL_1, poolUrl));
         }
 
+        if (configuration.getBoolean(CmsStructureTreeIndex.CONFIGURATION_ENABLED, false)) {
+            initTreeIndex(dbc);
+        } else {
+            clearTreeIndex(dbc);
+        }
+
         if ((successiveDrivers != null) && !successiveDrivers.isEmpty()) {
             if (LOG.isWarnEnabled()) {
                 LOG.warn(
@@ -1522,6 +1576,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         } finally {
             m_sqlManager.closeAll(dbc, conn, stmt, res);
         }
+        if (m_treeIndex != null) {
+            m_treeIndex.move(dbc, projectId, source.getStructureId(), destinationFolder.getStructureId().toString());
+        }
 
         moveRelations(dbc, projectId, source.getStructureId(), destinationPath);
         repairBrokenRelations(dbc, projectId, source.getStructureId(), destinationPath);
@@ -1547,6 +1604,57 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#moveResourceTree(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, java.lang.String, java.lang.String)
+     */
+    public void moveResourceTree(CmsDbContext dbc, CmsProject project, String sourcePath, String destinationPath)
+    throws CmsDataAccessException {
+
+        CmsUUID projectId = project.getUuid();
+        String source = CmsFileUtil.addTrailingSeparator(sourcePath);
+        String destination = CmsFileUtil.addTrailingSeparator(destinationPath);
+        String sourcePattern = escapeDbWildcard(source) + "%";
+        String destinationPattern = escapeDbWildcard(destination) + "%";
+        // the position of the first character after the source folder path, SQL positions start with 1
+        Integer offset = Integer.valueOf(source.length() + 1);
+
+        // the parent ids do not change, so the structure tree index is still valid
+        updateResourceTree(dbc, projectId, "C_RESOURCES_MOVE_TREE", destination, offset, sourcePattern);
+        updateResourceTree(
+            dbc,
+            projectId,
+            "C_MOVE_RELATIONS_SOURCE_TREE",
+            destination,
+            offset,
+            sourcePattern,
+            destinationPattern);
+        updateResourceTree(
+            dbc,
+            projectId,
+            "C_MOVE_RELATIONS_TARGET_TREE",
+            destination,
+            offset,
+            sourcePattern,
+            destinationPattern);
+        updateResourceTree(dbc, projectId, "C_RELATIONS_REPAIR_BROKEN_TREE", destinationPattern, destinationPattern);
+        if (projectId.equals(CmsProject.ONLINE_PROJECT_ID)) {
+            return;
+        }
+
+        // new and deleted resources keep their state, all other resources are changed
+        updateResourceTree(dbc, projectId, "C_RESOURCES_UPDATE_TREE_STATE_FROM_RESOURCE", destinationPattern);
+        Integer changed = Integer.valueOf(CmsResource.STATE_CHANGED.getState());
+        updateResourceTree(
+            dbc,
+            projectId,
+            "C_RESOURCES_UPDATE_TREE_STRUCTURE_STATE",
+            changed,
+            destinationPattern,
+            changed);
+        // repair project resources
+        updateResourceTree(dbc, projectId, "C_PROJECTRESOURCES_MOVE_TREE", destination, offset, sourcePattern);
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#publishResource(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.file.CmsResource, org.opencms.file.CmsResource)
      */
@@ -1628,6 +1736,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
                 stmt.setString(7, offlineResource.getStructureId().toString());
                 stmt.executeUpdate();
                 m_sqlManager.closeAll(dbc, null, stmt, null);
+                if (m_treeIndex != null) {
+                    m_treeIndex.move(dbc, onlineProject.getUuid(), offlineResource.getStructureId(), parentId);
+                }
             } else {
                 // create the structure record online
                 stmt = m_sqlManager.getPreparedStatement(conn, onlineProject, "C_STRUCTURE_WRITE");
@@ -1641,6 +1752,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
                 stmt.setInt(8, resourceExists ? 1 : 0); // new resources start with 0, new siblings with 1
                 stmt.executeUpdate();
                 m_sqlManager.closeAll(dbc, null, stmt, null);
+                if (m_treeIndex != null) {
+                    m_treeIndex.insert(dbc, onlineProject.getUuid(), offlineResource.getStructureId());
+                }
             }
         } catch (SQLException e) {
             throw new CmsDbSqlException(
@@ -1657,9 +1771,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     public void publishVersions(CmsDbContext dbc, CmsResource resource, boolean firstSibling)
     throws CmsDataAccessException {
 
-        // if resource is null just flush the internal cache
+        // if resource is null just flush the resource operations of the publish job
         if (resource == null) {
-            m_resOp.clear();
+            dbc.removeAttribute(DBC_ATTR_RESOURCE_OPERATIONS);
             return;
         }
 
@@ -1668,9 +1782,10 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             return;
         }
 
+        Set<CmsUUID> resourceOperations = getResourceOperations(dbc);
         if (firstSibling) {
             // reset the resource operation flag
-            m_resOp.remove(resource.getResourceId());
+            resourceOperations.remove(resource.getResourceId());
         }
 
         boolean resOp = false; // assume structure operation
@@ -1692,7 +1807,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             if (resOp) {
                 return;
             }
-            if (m_resOp.contains(resource.getResourceId())) {
+            if (resourceOperations.contains(resource.getResourceId())) {
                 return;
             }
         }
@@ -1708,7 +1823,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         if (resOp) {
             if (resource.getSiblingCount() > 1) {
-                m_resOp.add(resource.getResourceId());
+                resourceOperations.add(resource.getResourceId());
             }
             resVersion++;
         }
@@ -1790,6 +1905,48 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readBlobKeys(org.opencms.db.CmsDbContext)
+     */
+    public Set<String> readBlobKeys(CmsDbContext dbc) throws CmsDataAccessException {
+
+        Set<String> result = new HashSet<String>();
+        I_CmsBlobStore blobStore = m_driverManager.getBlobStore();
+        if (blobStore == null) {
+            return result;
+        }
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            // the table of the online contents also contains the historical contents
+            String[] queries = {"C_OFFLINE_CONTENTS_READ_REFERENCES", "C_ONLINE_CONTENTS_READ_REFERENCES"};
+            for (String query : queries) {
+                // only values with the length of a reference are read
+                stmt = m_sqlManager.getPreparedStatement(conn, query);
+                stmt.setInt(1, blobStore.getReferenceLength());
+                res = stmt.executeQuery();
+                while (res.next()) {
+                    String key = blobStore.getKey(
+                        m_sqlManager.getBytes(res, m_sqlManager.readQuery("C_RESOURCES_FILE_CONTENT")));
+                    if (key != null) {
+                        result.add(key);
+                    }
+                }
+                m_sqlManager.closeAll(dbc, null, stmt, res);
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readChildResources(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.file.CmsResource, boolean, boolean)
      */
@@ -1890,7 +2047,61 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         } finally {
             m_sqlManager.closeAll(dbc, conn, stmt, res);
         }
-        return byteRes;
+        return resolveContent(byteRes);
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readContentStream(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, org.opencms.util.CmsUUID)
+     */
+    public InputStream readContentStream(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId)
+    throws CmsDataAccessException {
+
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        Connection conn = null;
+        InputStream result = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            if (projectId.equals(CmsProject.ONLINE_PROJECT_ID)) {
+                stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_ONLINE_FILES_CONTENT");
+            } else {
+                stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_OFFLINE_FILES_CONTENT");
+            }
+            stmt.setString(1, resourceId.toString());
+            res = stmt.executeQuery();
+
+            if (res.next()) {
+                InputStream content = m_sqlManager.getBinaryStream(
+                    res,
+                    m_sqlManager.readQuery("C_RESOURCES_FILE_CONTENT"));
+                if (content == null) {
+                    content = new ByteArrayInputStream(new byte[0]);
+                }
+                // the JDBC resources are released when the stream is closed
+                result = new CmsResultSetInputStream(content, m_sqlManager, dbc, conn, stmt, res);
+                I_CmsBlobStore blobStore = m_driverManager.getBlobStore();
+                if (blobStore != null) {
+                    // for a reference to a blob, the JDBC resources are released right away
+                    result = blobStore.resolve(result);
+                }
+            } else {
+                throw new CmsVfsResourceNotFoundException(
+                    Messages.get().container(
+                        Messages.ERR_READ_CONTENT_WITH_RESOURCE_ID_2,
+                        resourceId,
+                        Boolean.valueOf(projectId.equals(CmsProject.ONLINE_PROJECT_ID))));
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            if (result == null) {
+                m_sqlManager.closeAll(dbc, conn, stmt, res);
+            }
+        }
+        return result;
     }
 
     /**
@@ -2218,6 +2429,28 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return new ArrayList<CmsProperty>(propertyMap.values());
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readPropertyObjects(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, java.util.List)
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsDbContext dbc,
+        CmsProject project,
+        List<CmsResource> resources) throws CmsDataAccessException {
+
+        CmsUUID projectId = ((dbc.getProjectId() == null) || dbc.getProjectId().isNullUUID())
+        ? project.getUuid()
+        : dbc.getProjectId();
+
+        Map<CmsUUID, List<CmsProperty>> result = new HashMap<CmsUUID, List<CmsProperty>>();
+        for (int i = 0; i < resources.size(); i += PROPERTIES_READ_CHUNK_SIZE) {
+            List<CmsResource> chunk = resources.subList(
+                i,
+                Math.min(resources.size(), i + PROPERTIES_READ_CHUNK_SIZE));
+            internalReadPropertyObjects(dbc, projectId, chunk, result);
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readRelations(org.opencms.db.CmsDbContext, CmsUUID, CmsResource, org.opencms.relations.CmsRelationFilter)
      */
@@ -2457,6 +2690,59 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return result;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readResources(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.Collection, boolean)
+     */
+    public List<CmsResource> readResources(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        Collection<CmsUUID> structureIds,
+        boolean includeDeleted) throws CmsDataAccessException {
+
+        Set<String> ids = new LinkedHashSet<String>();
+        for (CmsUUID structureId : structureIds) {
+            ids.add(structureId.toString());
+        }
+        List<CmsResource> result = new ArrayList<CmsResource>(ids.size());
+        for (CmsResource resource : internalReadResources(dbc, projectId, "C_RESOURCES_READBYID_LIST", ids)) {
+            if (includeDeleted || !resource.getState().isDeleted()) {
+                result.add(resource);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readResourcesForPaths(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.Collection, boolean)
+     */
+    public List<CmsResource> readResourcesForPaths(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        Collection<String> paths,
+        boolean includeDeleted) throws CmsDataAccessException {
+
+        // must remove trailing slashes
+        Set<String> resourcePaths = new LinkedHashSet<String>();
+        for (String path : paths) {
+            resourcePaths.add(CmsFileUtil.removeTrailingSeparator(path));
+        }
+        Map<String, CmsResource> resources = new LinkedHashMap<String, CmsResource>();
+        for (CmsResource resource : internalReadResources(dbc, projectId, "C_RESOURCES_READ_LIST", resourcePaths)) {
+            // the rows are ordered by state, use the first resource read for a path
+            String path = CmsFileUtil.removeTrailingSeparator(resource.getRootPath());
+            if (!resources.containsKey(path)) {
+                resources.put(path, resource);
+            }
+        }
+        List<CmsResource> result = new ArrayList<CmsResource>(resources.size());
+        for (CmsResource resource : resources.values()) {
+            if (includeDeleted || !resource.getState().isDeleted()) {
+                result.add(resource);
+            }
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readResourcesForPrincipalACE(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.util.CmsUUID)
      */
@@ -2539,24 +2825,31 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         PreparedStatement stmt = null;
         Connection conn = null;
 
+        // the tree index can only be used for the subtree of a folder other than the root folder
+        boolean useTreeIndex = (m_treeIndex != null) && CmsResource.isFolder(path) && (path.length() > 1);
+        String pathParam = useTreeIndex ? CmsFileUtil.removeTrailingSeparator(path) : path + "%";
+        String querySuffix = useTreeIndex ? "_TREE" : "";
         try {
             conn = m_sqlManager.getConnection(dbc);
             if (value == null) {
-                stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RESOURCES_GET_RESOURCE_WITH_PROPERTYDEF");
+                stmt = m_sqlManager.getPreparedStatement(
+                    conn,
+                    projectId,
+                    "C_RESOURCES_GET_RESOURCE_WITH_PROPERTYDEF" + querySuffix);
                 stmt.setString(1, propertyDef.toString());
-                stmt.setString(2, path + "%");
+                stmt.setString(2, pathParam);
                 stmt.setString(3, propertyDef.toString());
-                stmt.setString(4, path + "%");
+                stmt.setString(4, pathParam);
             } else {
                 stmt = m_sqlManager.getPreparedStatement(
                     conn,
                     projectId,
-                    "C_RESOURCES_GET_RESOURCE_WITH_PROPERTYDEF_VALUE");
+                    "C_RESOURCES_GET_RESOURCE_WITH_PROPERTYDEF_VALUE" + querySuffix);
                 stmt.setString(1, propertyDef.toString());
-                stmt.setString(2, path + "%");
+                stmt.setString(2, pathParam);
                 stmt.setString(3, "%" + value + "%");
                 stmt.setString(4, propertyDef.toString());
-                stmt.setString(5, path + "%");
+                stmt.setString(5, pathParam);
                 stmt.setString(6, "%" + value + "%");
             }
             res = stmt.executeQuery();
@@ -2843,6 +3136,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             stmt.executeUpdate();
 
             m_sqlManager.closeAll(dbc, conn, stmt, null);
+            if (m_treeIndex != null) {
+                m_treeIndex.remove(dbc, projectId, resource.getStructureId());
+            }
 
             // count the references to the resource
             siblingCount = countSiblings(dbc, projectId, resource.getResourceId());
@@ -3165,15 +3461,16 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         Connection conn = null;
         PreparedStatement stmt = null;
+        byte[] value = storeContent(content);
 
         try {
             conn = m_sqlManager.getConnection(dbc);
             stmt = m_sqlManager.getPreparedStatement(conn, dbc.currentProject(), "C_OFFLINE_CONTENTS_UPDATE");
             // update the file content in the database.
-            if (content.length < 2000) {
-                stmt.setBytes(1, content);
+            if (value.length < 2000) {
+                stmt.setBytes(1, value);
             } else {
-                stmt.setBinaryStream(1, new ByteArrayInputStream(content), content.length);
+                stmt.setBinaryStream(1, new ByteArrayInputStream(value), value.length);
             }
             stmt.setString(2, resourceId.toString());
             stmt.executeUpdate();
@@ -3475,6 +3772,10 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             stmt.setString(6, parentId);
             stmt.setString(7, resource.getStructureId().toString());
             stmt.executeUpdate();
+            if (m_treeIndex != null) {
+                // the resource path may have been changed
+                m_treeIndex.move(dbc, projectId, resource.getStructureId(), parentId);
+            }
         } catch (SQLException e) {
             throw new CmsDbSqlException(
                 Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
@@ -3501,6 +3802,34 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             return;
         }
 
+        CmsSqlBatch batch = null;
+        if (isPublishing && (changed == CmsDriverManager.UPDATE_ALL)) {
+            // the state is reset after publishing, it is not read again until the publish batch is flushed
+            batch = CmsSqlBatch.getBatch(dbc, m_sqlManager);
+        }
+        if (batch != null) {
+            String path = resource.getRootPath();
+            Integer state = Integer.valueOf(resource.getState().getState());
+            String structureId = resource.getStructureId().toString();
+            batch.add(
+                project.getUuid(),
+                "C_RESOURCES_UPDATE_RESOURCE_STATE",
+                path,
+                state,
+                project.getUuid().toString(),
+                resource.getResourceId().toString());
+            batch.add(project.getUuid(), "C_RESOURCES_UPDATE_STRUCTURE_STATE", path, state, structureId);
+            batch.add(
+                project.getUuid(),
+                "C_RESOURCES_UPDATE_RELEASE_EXPIRED",
+                path,
+                Long.valueOf(resource.getDateReleased()),
+                Long.valueOf(resource.getDateExpired()),
+                structureId);
+            internalUpdateVersions(dbc, resource);
+            return;
+        }
+
         try {
             conn = m_sqlManager.getConnection(dbc);
 
@@ -3648,6 +3977,52 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * Removes all entries of the disabled structure tree index.<p>
+     *
+     * The index is not maintained while it is disabled, so it has to be rebuilt when it is enabled again.
+     * Errors are ignored, e.g. if the index tables do not exist.<p>
+     *
+     * @param dbc the current database context
+     */
+    protected void clearTreeIndex(CmsDbContext dbc) {
+
+        try {
+            if (new CmsStructureTreeIndex(m_sqlManager).clear(dbc) && CmsLog.INIT.isInfoEnabled()) {
+                CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_STRUCTURE_TREE_INDEX_CLEARED_0));
+            }
+        } catch (CmsDataAccessException e) {
+            LOG.debug(e.getLocalizedMessage(), e);
+        }
+    }
+
+    /**
+     * Initializes the structure tree index, and builds it if it is not consistent with the structure table.<p>
+     *
+     * If the index can not be initialized, e.g. because the index tables do not exist,
+     * the index stays disabled and subtrees are read by comparing the resource paths.<p>
+     *
+     * @param dbc the current database context
+     */
+    protected void initTreeIndex(CmsDbContext dbc) {
+
+        CmsStructureTreeIndex treeIndex = new CmsStructureTreeIndex(m_sqlManager);
+        try {
+            int count = treeIndex.rebuildIfInconsistent(dbc);
+            if ((count > 0) && CmsLog.INIT.isInfoEnabled()) {
+                CmsLog.INIT.info(
+                    Messages.get().getBundle().key(Messages.INIT_STRUCTURE_TREE_INDEX_BUILT_1, new Integer(count)));
+            }
+        } catch (CmsDataAccessException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            return;
+        }
+        m_treeIndex = treeIndex;
+        if (CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_STRUCTURE_TREE_INDEX_ENABLED_0));
+        }
+    }
+
     /**
      * Returns the count of properties for a property definition.<p>
      *
@@ -3867,6 +4242,118 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return parentId;
     }
 
+    /**
+     * Reads all property objects mapped to the given resources with a single query.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project to read the properties from
+     * @param resources the resources to read the properties for
+     * @param result the map to add the properties to, by structure id of the resource
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected void internalReadPropertyObjects(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        List<CmsResource> resources,
+        Map<CmsUUID, List<CmsProperty>> result) throws CmsDataAccessException {
+
+        // siblings share the properties mapped to the resource record
+        Map<String, CmsResource> resourcesByStructureId = new HashMap<String, CmsResource>();
+        Map<String, List<CmsResource>> resourcesByResourceId = new HashMap<String, List<CmsResource>>();
+        Map<CmsUUID, Map<String, CmsProperty>> propertyMaps = new HashMap<CmsUUID, Map<String, CmsProperty>>();
+        for (CmsResource resource : resources) {
+            if (resourcesByStructureId.put(resource.getStructureId().toString(), resource) != null) {
+                // the resource is contained twice
+                continue;
+            }
+            List<CmsResource> siblings = resourcesByResourceId.get(resource.getResourceId().toString());
+            if (siblings == null) {
+                siblings = new ArrayList<CmsResource>(1);
+                resourcesByResourceId.put(resource.getResourceId().toString(), siblings);
+            }
+            siblings.add(resource);
+            propertyMaps.put(resource.getStructureId(), new HashMap<String, CmsProperty>());
+        }
+        if (propertyMaps.isEmpty()) {
+            return;
+        }
+
+        List<Object> params = new ArrayList<Object>(resourcesByStructureId.keySet());
+        params.addAll(resourcesByResourceId.keySet());
+        StringBuffer ids = new StringBuffer(params.size() * 3);
+        for (int i = 0; i < params.size(); i++) {
+            ids.append((i == 0) ? "?" : ", ?");
+        }
+        String query = CmsStringUtil.substitute(
+            m_sqlManager.readQuery(projectId, "C_PROPERTIES_READALL_LIST"),
+            "%(IDS)",
+            ids.toString());
+
+        ResultSet res = null;
+        PreparedStatement stmt = null;
+        Connection conn = null;
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            stmt = m_sqlManager.getPreparedStatementForSql(conn, query);
+            CmsDbUtil.fillParameters(stmt, params);
+            res = stmt.executeQuery();
+            while (res.next()) {
+                String propertyKey = res.getString(1);
+                String propertyValue = res.getString(2);
+                int mappingType = res.getInt(3);
+                String mappingId = res.getString(4);
+
+                List<CmsResource> mappedResources;
+                if (mappingType == CmsProperty.STRUCTURE_RECORD_MAPPING) {
+                    CmsResource resource = resourcesByStructureId.get(mappingId);
+                    mappedResources = (resource != null)
+                    ? Collections.singletonList(resource)
+                    : Collections.<CmsResource> emptyList();
+                } else if (mappingType == CmsProperty.RESOURCE_RECORD_MAPPING) {
+                    mappedResources = resourcesByResourceId.get(mappingId);
+                    if (mappedResources == null) {
+                        mappedResources = Collections.emptyList();
+                    }
+                } else {
+                    throw new CmsDbConsistencyException(
+                        Messages.get().container(
+                            Messages.ERR_UNKNOWN_PROPERTY_VALUE_MAPPING_3,
+                            mappingId,
+                            new Integer(mappingType),
+                            propertyKey));
+                }
+
+                for (CmsResource resource : mappedResources) {
+                    Map<String, CmsProperty> propertyMap = propertyMaps.get(resource.getStructureId());
+                    CmsProperty property = propertyMap.get(propertyKey);
+                    if (property == null) {
+                        // there doesn't exist a property object for this key yet
+                        property = new CmsProperty();
+                        property.setName(propertyKey);
+                        property.setOrigin(resource.getRootPath());
+                        propertyMap.put(propertyKey, property);
+                    }
+                    if (mappingType == CmsProperty.STRUCTURE_RECORD_MAPPING) {
+                        property.setStructureValue(propertyValue);
+                    } else {
+                        property.setResourceValue(propertyValue);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+
+        for (Map.Entry<CmsUUID, Map<String, CmsProperty>> entry : propertyMaps.entrySet()) {
+            result.put(entry.getKey(), new ArrayList<CmsProperty>(entry.getValue().values()));
+        }
+    }
+
     /**
      * Creates a new {@link CmsRelation} object from the given result set entry.<p>
      *
@@ -3926,6 +4413,62 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return state;
     }
 
+    /**
+     * Reads resources with the given query, using the given values for the <code>%(IDS)</code> list.<p>
+     *
+     * The values are split into chunks of {@link #RESOURCES_READ_CHUNK_SIZE}, so that the number of
+     * parameters of a single statement remains limited.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the current project
+     * @param queryKey the key of the query to use
+     * @param values the values to read the resources for
+     *
+     * @return the resources that were read
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected List<CmsResource> internalReadResources(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        String queryKey,
+        Collection<String> values) throws CmsDataAccessException {
+
+        List<CmsResource> result = new ArrayList<CmsResource>(values.size());
+        List<Object> params = new ArrayList<Object>(values);
+        for (int i = 0; i < params.size(); i += RESOURCES_READ_CHUNK_SIZE) {
+            List<Object> chunk = params.subList(i, Math.min(params.size(), i + RESOURCES_READ_CHUNK_SIZE));
+            StringBuffer ids = new StringBuffer(chunk.size() * 3);
+            for (int j = 0; j < chunk.size(); j++) {
+                ids.append((j == 0) ? "?" : ", ?");
+            }
+            String query = CmsStringUtil.substitute(
+                m_sqlManager.readQuery(projectId, queryKey),
+                "%(IDS)",
+                ids.toString());
+
+            ResultSet res = null;
+            PreparedStatement stmt = null;
+            Connection conn = null;
+            try {
+                conn = m_sqlManager.getConnection(dbc);
+                stmt = m_sqlManager.getPreparedStatementForSql(conn, query);
+                CmsDbUtil.fillParameters(stmt, chunk);
+                res = stmt.executeQuery();
+                while (res.next()) {
+                    result.add(createResource(res, projectId));
+                }
+            } catch (SQLException e) {
+                throw new CmsDbSqlException(
+                    Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                    e);
+            } finally {
+                m_sqlManager.closeAll(dbc, conn, stmt, res);
+            }
+        }
+        return result;
+    }
+
     /**
      * Returns the structure state of the given resource.<p>
      *
@@ -3990,6 +4533,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             stmt.executeUpdate();
 
             m_sqlManager.closeAll(dbc, null, stmt, null);
+            if (m_treeIndex != null) {
+                m_treeIndex.remove(dbc, currentProject.getUuid(), resource.getStructureId());
+            }
 
             // delete the resource record
             stmt = m_sqlManager.getPreparedStatement(conn, currentProject, "C_RESOURCES_DELETE_BY_RESOURCEID");
@@ -4198,6 +4744,15 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             return;
         }
 
+        if (m_treeIndex != null) {
+            // read the subtree using the structure tree index
+            conditions.append(BEGIN_INCLUDE_CONDITION);
+            conditions.append(m_sqlManager.readQuery(projectId, "C_RESOURCES_SELECT_BY_TREE_INDEX"));
+            conditions.append(END_CONDITION);
+            params.add(CmsFileUtil.removeTrailingSeparator(parent));
+            return;
+        }
+
         // add condition to read path subtree
         conditions.append(BEGIN_INCLUDE_CONDITION);
         conditions.append(m_sqlManager.readQuery(projectId, "C_RESOURCES_SELECT_BY_PATH_PREFIX"));
@@ -4659,6 +5214,38 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * Returns the file content for a value read from a content column.<p>
+     *
+     * @param value the value read from a content column
+     *
+     * @return the content of the referenced blob if a blob store is configured and the value is a reference,
+     *      otherwise the value itself
+     *
+     * @throws CmsDataAccessException if the referenced blob can not be read
+     */
+    protected byte[] resolveContent(byte[] value) throws CmsDataAccessException {
+
+        I_CmsBlobStore blobStore = m_driverManager.getBlobStore();
+        return blobStore == null ? value : blobStore.resolve(value);
+    }
+
+    /**
+     * Returns the value to write to a content column for the given file content.<p>
+     *
+     * @param content the file content
+     *
+     * @return the reference to the blob if a blob store is configured and the content has been stored in it,
+     *      otherwise the content itself
+     *
+     * @throws CmsDataAccessException if the content can not be stored in the blob store
+     */
+    protected byte[] storeContent(byte[] content) throws CmsDataAccessException {
+
+        I_CmsBlobStore blobStore = m_driverManager.getBlobStore();
+        return blobStore == null ? content : blobStore.store(content);
+    }
+
     /**
      * Updates broken links.<p>
      *
@@ -4716,6 +5303,41 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
     }
 
+    /**
+     * Executes a set based update of all resources in a folder subtree.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the project id
+     * @param queryKey the key of the update query
+     * @param params the query parameters, <code>Integer</code> parameters are set as int, all others as String
+     *
+     * @return the number of updated rows
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected int updateResourceTree(CmsDbContext dbc, CmsUUID projectId, String queryKey, Object... params)
+    throws CmsDataAccessException {
+
+        PreparedStatement stmt = null;
+        Connection conn = null;
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            stmt = m_sqlManager.getPreparedStatement(conn, projectId, queryKey);
+            for (int i = 0; i < params.length; i++) {
+                if (params[i] instanceof Integer) {
+                    stmt.setInt(i + 1, ((Integer)params[i]).intValue());
+                } else {
+                    stmt.setString(i + 1, params[i].toString());
+                }
+            }
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw wrapException(stmt, e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, null);
+        }
+    }
+
     /**
      * Wrap a SQL exception into a CmsDbSqlException.<p>
      *
@@ -4788,6 +5410,26 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return CmsPair.create(conditionString, conditionParams);
     }
 
+    /**
+     * Returns the ids of the resources for which the current publish job has increased the resource version.<p>
+     *
+     * The ids are kept in the database context, so publish jobs running at the same time do not share them.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @return the ids of the resources for which the resource version has been increased
+     */
+    @SuppressWarnings("unchecked")
+    private Set<CmsUUID> getResourceOperations(CmsDbContext dbc) {
+
+        Set<CmsUUID> resourceOperations = (Set<CmsUUID>)dbc.getAttribute(DBC_ATTR_RESOURCE_OPERATIONS);
+        if (resourceOperations == null) {
+            resourceOperations = new HashSet<CmsUUID>();
+            dbc.setAttribute(DBC_ATTR_RESOURCE_OPERATIONS, resourceOperations);
+        }
+        return resourceOperations;
+    }
+
     /**
      * Helper method to prepare the SQL conditions for accessing rewrite aliases using a given filter.<p>
      *
@@ -4811,6 +5453,25 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return CmsPair.create(CmsStringUtil.listAsString(conditions, " AND "), parameters);
     }
 
+    /**
+     * Reads the file content from the current row of the given result set.<p>
+     *
+     * @param res the result set
+     *
+     * @return the file content
+     *
+     * @throws SQLException if the content can not be read
+     */
+    private byte[] readContentValue(ResultSet res) throws SQLException {
+
+        byte[] value = m_sqlManager.getBytes(res, m_sqlManager.readQuery("C_RESOURCES_FILE_CONTENT"));
+        try {
+            return resolveContent(value);
+        } catch (CmsDataAccessException e) {
+            throw new SQLException(e.getLocalizedMessage(), e);
+        }
+    }
+
     /**
      * Replaces the %(PROJECT) macro inside a query with either ONLINE or OFFLINE, depending on the value
      * of a flag.<p>
@@ -241,6 +241,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_WRITING_HISTORY_OF_PROJECT_1 = "ERR_WRITING_HISTORY_OF_PROJECT_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_WRITING_PUBLISH_BATCH_1 = "ERR_WRITING_PUBLISH_BATCH_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_WRITING_TO_OUTPUT_STREAM_1 = "ERR_WRITING_TO_OUTPUT_STREAM_1";
 
@@ -310,6 +313,15 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_SHUTDOWN_DRIVER_1 = "INIT_SHUTDOWN_DRIVER_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_STRUCTURE_TREE_INDEX_BUILT_1 = "INIT_STRUCTURE_TREE_INDEX_BUILT_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_STRUCTURE_TREE_INDEX_CLEARED_0 = "INIT_STRUCTURE_TREE_INDEX_CLEARED_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_STRUCTURE_TREE_INDEX_ENABLED_0 = "INIT_STRUCTURE_TREE_INDEX_ENABLED_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_SYSTEM_FOLDER_INITIALIZATION_FAILED_0 = "INIT_SYSTEM_FOLDER_INITIALIZATION_FAILED_0";
 
@@ -349,6 +361,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_DBG_UPDATE_ROLEGROUP_USER_1 = "LOG_DBG_UPDATE_ROLEGROUP_USER_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_DBG_WRITE_LOCK_CHANGES_2 = "LOG_DBG_WRITE_LOCK_CHANGES_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_DBG_WRITE_LOCKS_1 = "LOG_DBG_WRITE_LOCKS_1";
 
@@ -201,6 +201,9 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
     /** Query key. */
     private static final String C_PUBLISHJOB_READ_REPORT = "C_PUBLISHJOB_READ_REPORT";
 
+    /** Query key. */
+    private static final String C_RESOURCE_LOCKS_DELETE_PATH = "C_RESOURCE_LOCKS_DELETE_PATH";
+
     /** Query key. */
     private static final String C_RESOURCE_LOCKS_DELETEALL = "C_RESOURCE_LOCKS_DELETEALL";
 
@@ -2395,6 +2398,49 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         }
     }
 
+    /**
+     * @see org.opencms.db.I_CmsProjectDriver#writeLockChanges(org.opencms.db.CmsDbContext, java.util.Collection, java.util.List)
+     */
+    public void writeLockChanges(CmsDbContext dbc, Collection<String> rootPaths, List<CmsLock> locks)
+    throws CmsDataAccessException {
+
+        try {
+            for (String rootPath : rootPaths) {
+                Query q = m_sqlManager.createQuery(dbc, C_RESOURCE_LOCKS_DELETE_PATH);
+                q.setParameter(1, rootPath);
+                @SuppressWarnings("unchecked")
+                List<CmsDAOResourceLocks> res = q.getResultList();
+                for (CmsDAOResourceLocks r : res) {
+                    m_sqlManager.remove(dbc, r);
+                }
+            }
+            int count = 0;
+            for (CmsLock lock : locks) {
+                // only persist locks that should be written to the DB
+                for (CmsLock persistentLock : new CmsLock[] {lock.getSystemLock(), lock.getEditionLock()}) {
+                    if (persistentLock.isPersistent()) {
+                        CmsDAOResourceLocks rl = new CmsDAOResourceLocks();
+                        rl.setResourcePath(persistentLock.getResourceName());
+                        rl.setUserId(persistentLock.getUserId().toString());
+                        rl.setProjectId(persistentLock.getProjectId().toString());
+                        rl.setLockType(persistentLock.getType().hashCode());
+                        m_sqlManager.persist(dbc, rl);
+                        count++;
+                    }
+                }
+            }
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_DBG_WRITE_LOCK_CHANGES_2,
+                        new Integer(rootPaths.size()),
+                        new Integer(count)));
+            }
+        } catch (PersistenceException e) {
+            throw new CmsDataAccessException(Messages.get().container(Messages.ERR_JPA_PERSITENCE_1, e), e);
+        }
+    }
+
     /**
      * @see org.opencms.db.I_CmsProjectDriver#writeLocks(org.opencms.db.CmsDbContext, java.util.List)
      */
@@ -103,6 +103,8 @@ import org.opencms.util.CmsPair;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -394,19 +396,15 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     /** Query key. */
     private static final String C_STRUCTURE_SELECT_BY_DATE_RELEASED_BEFORE = "C_STRUCTURE_SELECT_BY_DATE_RELEASED_BEFORE";
 
+    /** The key of the database context attribute holding the ids of the resources with increased resource version. */
+    private static final String DBC_ATTR_RESOURCE_OPERATIONS = "vfsDriver.resourceOperations";
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(org.opencms.db.jpa.CmsVfsDriver.class);
 
     /** The driver manager. */
     protected CmsDriverManager m_driverManager;
 
-    /**
-     * This field is temporarily used to compute the versions during publishing.<p>
-     *
-     * @see #publishVersions(CmsDbContext, CmsResource, boolean)
-     */
-    protected List<CmsUUID> m_resOp = new ArrayList<CmsUUID>();
-
     /** The sql manager. */
     protected CmsSqlManager m_sqlManager;
 
@@ -1375,6 +1373,25 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         updateBrokenRelations(dbc, projectId, resource.getRootPath());
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#deleteResourceTree(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, java.lang.String)
+     */
+    public void deleteResourceTree(CmsDbContext dbc, CmsProject project, String folderPath)
+    throws CmsDataAccessException {
+
+        if (project.getUuid().equals(CmsProject.ONLINE_PROJECT_ID)) {
+            return;
+        }
+        for (CmsResource resource : readSubtree(dbc, project.getUuid(), folderPath)) {
+            if (resource.getState().isDeleted()) {
+                continue;
+            }
+            resource.setState(CmsResource.STATE_DELETED);
+            writeResourceState(dbc, project, resource, CmsDriverManager.UPDATE_STRUCTURE, false);
+            writeLastModifiedProjectId(dbc, project, project.getUuid(), resource);
+        }
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#deleteRewriteAliases(org.opencms.db.CmsDbContext, org.opencms.db.CmsRewriteAliasFilter)
      */
@@ -1673,6 +1690,31 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#moveResourceTree(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, java.lang.String, java.lang.String)
+     */
+    public void moveResourceTree(CmsDbContext dbc, CmsProject project, String sourcePath, String destinationPath)
+    throws CmsDataAccessException {
+
+        String source = CmsFileUtil.addTrailingSeparator(sourcePath);
+        String destination = CmsFileUtil.addTrailingSeparator(destinationPath);
+        List<CmsResource> resources = readSubtree(dbc, project.getUuid(), source);
+        // move the parent folders first, since the destination folder of a resource must exist
+        Collections.sort(resources, I_CmsResource.COMPARE_ROOT_PATH);
+        for (CmsResource resource : resources) {
+            moveResource(
+                dbc,
+                project.getUuid(),
+                resource,
+                destination + resource.getRootPath().substring(source.length()));
+            if (!project.isOnlineProject()) {
+                CmsResourceState state = resource.getState();
+                resource.setState(state.isNew() || state.isDeleted() ? state : CmsResource.STATE_CHANGED);
+                writeResourceState(dbc, project, resource, CmsDriverManager.UPDATE_STRUCTURE_STATE, false);
+            }
+        }
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#publishResource(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.file.CmsResource, org.opencms.file.CmsResource)
      */
@@ -1783,9 +1825,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     public void publishVersions(CmsDbContext dbc, CmsResource resource, boolean firstSibling)
     throws CmsDataAccessException {
 
-        // if resource is null just flush the internal cache
+        // if resource is null just flush the resource operations of the publish job
         if (resource == null) {
-            m_resOp.clear();
+            dbc.removeAttribute(DBC_ATTR_RESOURCE_OPERATIONS);
             return;
         }
 
@@ -1794,9 +1836,10 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             return;
         }
 
+        Set<CmsUUID> resourceOperations = getResourceOperations(dbc);
         if (firstSibling) {
             // reset the resource operation flag
-            m_resOp.remove(resource.getResourceId());
+            resourceOperations.remove(resource.getResourceId());
         }
 
         boolean resOp = false; // assume structure operation
@@ -1818,7 +1861,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             if (resOp) {
                 return;
             }
-            if (m_resOp.contains(resource.getResourceId())) {
+            if (resourceOperations.contains(resource.getResourceId())) {
                 return;
             }
         }
@@ -1834,7 +1877,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         if (resOp) {
             if (resource.getSiblingCount() > 1) {
-                m_resOp.add(resource.getResourceId());
+                resourceOperations.add(resource.getResourceId());
             }
             resVersion++;
         }
@@ -1901,6 +1944,15 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readBlobKeys(org.opencms.db.CmsDbContext)
+     */
+    public Set<String> readBlobKeys(CmsDbContext dbc) {
+
+        // the JPA driver keeps all contents in the database
+        return Collections.emptySet();
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readChildResources(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.file.CmsResource, boolean, boolean)
      */
@@ -1996,6 +2048,16 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return byteRes == null ? EMPTY_BLOB : byteRes;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readContentStream(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, org.opencms.util.CmsUUID)
+     */
+    public InputStream readContentStream(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId)
+    throws CmsDataAccessException {
+
+        // the content entities are always read completely
+        return new ByteArrayInputStream(readContent(dbc, projectId, resourceId));
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readFolder(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.util.CmsUUID)
      */
@@ -2193,6 +2255,24 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return (property != null) ? property : CmsProperty.getNullProperty();
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readPropertyObjects(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, java.util.List)
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsDbContext dbc,
+        CmsProject project,
+        List<CmsResource> resources) throws CmsDataAccessException {
+
+        // the properties are read one resource after the other
+        Map<CmsUUID, List<CmsProperty>> result = new HashMap<CmsUUID, List<CmsProperty>>();
+        for (CmsResource resource : resources) {
+            if (!result.containsKey(resource.getStructureId())) {
+                result.put(resource.getStructureId(), readPropertyObjects(dbc, project, resource));
+            }
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readPropertyObjects(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.file.CmsResource)
      */
@@ -2440,6 +2520,52 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return result;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readResources(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.Collection, boolean)
+     */
+    public List<CmsResource> readResources(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        Collection<CmsUUID> structureIds,
+        boolean includeDeleted) throws CmsDataAccessException {
+
+        // the resources are read one after the other
+        List<CmsResource> result = new ArrayList<CmsResource>(structureIds.size());
+        for (CmsUUID structureId : new HashSet<CmsUUID>(structureIds)) {
+            try {
+                result.add(readResource(dbc, projectId, structureId, includeDeleted));
+            } catch (CmsVfsResourceNotFoundException e) {
+                // ignore resources that do not exist
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readResourcesForPaths(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.Collection, boolean)
+     */
+    public List<CmsResource> readResourcesForPaths(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        Collection<String> paths,
+        boolean includeDeleted) throws CmsDataAccessException {
+
+        // the resources are read one after the other
+        Set<String> resourcePaths = new HashSet<String>();
+        for (String path : paths) {
+            resourcePaths.add(CmsFileUtil.removeTrailingSeparator(path));
+        }
+        List<CmsResource> result = new ArrayList<CmsResource>(resourcePaths.size());
+        for (String path : resourcePaths) {
+            try {
+                result.add(readResource(dbc, projectId, path, includeDeleted));
+            } catch (CmsVfsResourceNotFoundException e) {
+                // ignore resources that do not exist
+            }
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readResourcesForPrincipalACE(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.util.CmsUUID)
      */
@@ -4311,6 +4437,35 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * Reads all resources below the given folder, including deleted resources.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the project id
+     * @param folderPath the root path of the folder
+     *
+     * @return the resources below the folder, the folder itself is not included
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected List<CmsResource> readSubtree(CmsDbContext dbc, CmsUUID projectId, String folderPath)
+    throws CmsDataAccessException {
+
+        return readResourceTree(
+            dbc,
+            projectId,
+            folderPath,
+            CmsDriverManager.READ_IGNORE_TYPE,
+            null,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READMODE_INCLUDE_TREE);
+    }
+
     /**
      * Reads all resources inside a given project matching the criteria specified by parameter values.<p>
      *
@@ -4560,6 +4715,26 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return q;
     }
 
+    /**
+     * Returns the ids of the resources for which the current publish job has increased the resource version.<p>
+     *
+     * The ids are kept in the database context, so publish jobs running at the same time do not share them.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @return the ids of the resources for which the resource version has been increased
+     */
+    @SuppressWarnings("unchecked")
+    private Set<CmsUUID> getResourceOperations(CmsDbContext dbc) {
+
+        Set<CmsUUID> resourceOperations = (Set<CmsUUID>)dbc.getAttribute(DBC_ATTR_RESOURCE_OPERATIONS);
+        if (resourceOperations == null) {
+            resourceOperations = new HashSet<CmsUUID>();
+            dbc.setAttribute(DBC_ATTR_RESOURCE_OPERATIONS, resourceOperations);
+        }
+        return resourceOperations;
+    }
+
     /**
      * Replaces the %(PROJECT) macro inside a query with either Online or Offline, depending on the value
      * of a flag.<p>
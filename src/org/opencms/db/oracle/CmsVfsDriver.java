@@ -194,6 +194,7 @@ public class CmsVfsDriver extends org.opencms.db.generic.CmsVfsDriver {
         PreparedStatement commit = null;
         Connection conn = null;
         ResultSet res = null;
+        byte[] value = storeContent(contents);
 
         boolean wasInTransaction = false;
         try {
@@ -220,9 +221,9 @@ public class CmsVfsDriver extends org.opencms.db.generic.CmsVfsDriver {
                 throw new CmsDbEntryNotFoundException(
                     Messages.get().container(Messages.LOG_READING_RESOURCE_1, resourceId));
             }
-            // write file content
+            // write file content, or the reference to the blob store
             OutputStream output = CmsUserDriver.getOutputStreamFromBlob(res, "FILE_CONTENT");
-            output.write(contents, 0, contents.length);
+            output.write(value, 0, value.length);
             output.close();
 
             if (!wasInTransaction) {
@@ -67,7 +67,10 @@ import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 import org.opencms.xml.content.CmsNumberSuffixNameSequence;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -1087,6 +1090,21 @@ public final class CmsObject {
         m_securityManager.deleteStaticExportPublishedResource(m_context, resourceName, linkType, linkParameter);
     }
 
+    /**
+     * Deletes all blobs from the blob store that are no longer referenced by any offline, online
+     * or historical file content.<p>
+     *
+     * @param dateLastUsed only blobs which have not been used after this date are deleted
+     *
+     * @return the number of deleted blobs, or 0 if no blob store is configured
+     *
+     * @throws CmsException if operation was not successful
+     */
+    public int deleteUnreferencedBlobs(long dateLastUsed) throws CmsException {
+
+        return m_securityManager.deleteUnreferencedBlobs(m_context, dateLastUsed);
+    }
+
     /**
      * Deletes a user.<p>
      *
@@ -2367,6 +2385,36 @@ public final class CmsObject {
         return m_securityManager.readBestUrlName(m_context, id, locale, defaultLocales);
     }
 
+    /**
+     * Reads the binary content of a file resource as a stream.<p>
+     *
+     * In contrast to {@link #readFile(CmsResource)}, the content is not read into memory completely,
+     * so this should be used if the content is only copied, e.g. to a response or a file in the RFS.
+     * The returned stream must always be closed after use, since it may hold database resources.<p>
+     *
+     * No resource filter is applied when reading the content, since we already have
+     * a full resource instance and assume we just want the content for that instance.<p>
+     *
+     * @param resource the file resource to read the content of
+     *
+     * @return the content of the file resource
+     *
+     * @throws CmsException if the content could not be read for any reason
+     *
+     * @see #readFile(CmsResource)
+     */
+    public InputStream readContentStream(CmsResource resource) throws CmsException {
+
+        if (resource instanceof CmsFile) {
+            CmsFile file = (CmsFile)resource;
+            if ((file.getContents() != null) && (file.getContents().length > 0)) {
+                // file has the contents already available
+                return new ByteArrayInputStream(file.getContents());
+            }
+        }
+        return m_securityManager.readContentStream(m_context, resource);
+    }
+
     /**
      * Returns the default resource for the given folder.<p>
      * <ol>
@@ -3001,6 +3049,27 @@ public final class CmsObject {
         return m_securityManager.readPropertyObjects(m_context, resource, search);
     }
 
+    /**
+     * Reads all property objects directly attached to the given resources.<p>
+     *
+     * This is more efficient than calling <code>{@link CmsObject#readPropertyObjects(CmsResource, boolean)}</code>
+     * for each of the resources, e.g. for all resources in a folder, since the properties are read
+     * with as few database queries as possible.<p>
+     *
+     * All properties in the result lists will be in frozen (read only) state, so you can't change the values.
+     * The result contains a list for each of the given resources, which is empty if no properties are found.<p>
+     *
+     * @param resources the resources to read the properties for
+     *
+     * @return the lists of <code>{@link CmsProperty}</code> objects, by structure id of the resource
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(List<CmsResource> resources) throws CmsException {
+
+        return m_securityManager.readPropertyObjects(m_context, resources);
+    }
+
     /**
      * Reads all property objects from a resource.<p>
      *
@@ -3275,6 +3344,56 @@ public final class CmsObject {
         return m_securityManager.readResources(m_context, resource, filter, readTree);
     }
 
+    /**
+     * Reads the resources with the given structure ids, using the specified resource filter.<p>
+     *
+     * This is more efficient than calling <code>{@link #readResource(CmsUUID, CmsResourceFilter)}</code>
+     * for each of the structure ids, since the resources are read with as few database queries as possible.<p>
+     *
+     * In contrast to reading a single resource, no exception is thrown if a resource does not exist,
+     * does not match the filter or can not be read by the current user, the resource is just not
+     * contained in the result.<p>
+     *
+     * @param structureIds the structure ids of the resources to read
+     * @param filter the resource filter to use while reading
+     *
+     * @return the resources that were read, in the order of the given structure ids
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public List<CmsResource> readResources(Collection<CmsUUID> structureIds, CmsResourceFilter filter)
+    throws CmsException {
+
+        return m_securityManager.readResources(m_context, structureIds, filter);
+    }
+
+    /**
+     * Reads the resources with the given paths, using the specified resource filter.<p>
+     *
+     * This is more efficient than calling <code>{@link #readResource(String, CmsResourceFilter)}</code>
+     * for each of the paths, since the resources are read with as few database queries as possible.<p>
+     *
+     * In contrast to reading a single resource, no exception is thrown if a resource does not exist,
+     * does not match the filter or can not be read by the current user, the resource is just not
+     * contained in the result.<p>
+     *
+     * @param resourcenames the names of the resources to read (full current site relative paths)
+     * @param filter the resource filter to use while reading
+     *
+     * @return the resources that were read, in the order of the given paths
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public List<CmsResource> readResourcesForPaths(Collection<String> resourcenames, CmsResourceFilter filter)
+    throws CmsException {
+
+        List<String> rootPaths = new ArrayList<String>(resourcenames.size());
+        for (String resourcename : resourcenames) {
+            rootPaths.add(addSiteRoot(resourcename));
+        }
+        return m_securityManager.readResourcesForPaths(m_context, rootPaths, filter);
+    }
+
     /**
      * Reads all resources that have a value set for the specified property.<p>
      *
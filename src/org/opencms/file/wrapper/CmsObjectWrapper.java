@@ -37,6 +37,8 @@ import org.opencms.file.CmsResource.CmsResourceDeleteMode;
 import org.opencms.file.CmsResourceFilter;
 import org.opencms.file.CmsUser;
 import org.opencms.file.I_CmsResource;
+import org.opencms.file.types.CmsResourceTypeBinary;
+import org.opencms.file.types.CmsResourceTypeImage;
 import org.opencms.file.types.CmsResourceTypeJsp;
 import org.opencms.file.types.CmsResourceTypePlain;
 import org.opencms.file.types.CmsResourceTypeXmlContent;
@@ -52,6 +54,8 @@ import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
 import org.opencms.util.CmsUUID;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -526,6 +530,36 @@ public class CmsObjectWrapper {
         }
     }
 
+    /**
+     * Reads the content of a file resource as a stream.<p>
+     *
+     * The content of binary files and images that are not handled by a resource wrapper is streamed
+     * from the VFS, without reading it into memory completely. For all other files, the content
+     * is read with {@link #readFile(String, CmsResourceFilter)}, so that the resource wrappers
+     * and the UTF-8 marker are applied.<p>
+     *
+     * The returned stream must always be closed after use.<p>
+     *
+     * @see CmsObject#readContentStream(CmsResource)
+     *
+     * @param resource the file resource to read the content of
+     * @param filter the resource filter to use if the file has to be read completely
+     *
+     * @return the content of the file resource
+     *
+     * @throws CmsException if the content could not be read for any reason
+     */
+    public InputStream readContentStream(CmsResource resource, CmsResourceFilter filter) throws CmsException {
+
+        if ((getResourceTypeWrapper(resource) == null) && !needUtf8Marker(resource)) {
+            I_CmsResourceType resType = OpenCms.getResourceManager().getResourceType(resource);
+            if ((resType instanceof CmsResourceTypeBinary) || (resType instanceof CmsResourceTypeImage)) {
+                return m_cms.readContentStream(resource);
+            }
+        }
+        return new ByteArrayInputStream(readFile(getSitePath(resource), filter).getContents());
+    }
+
     /**
      * Reads a file resource (including it's binary content) from the VFS,
      * using the specified resource filter.<p>
@@ -27,24 +27,43 @@
 
 package org.opencms.flex;
 
+import org.opencms.cache.CmsClockCache;
 import org.opencms.cache.CmsLruCache;
 import org.opencms.cache.I_CmsLruCacheObject;
+import org.opencms.db.CmsPublishedResource;
 import org.opencms.file.CmsObject;
 import org.opencms.loader.CmsJspLoader;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsCacheStatistics;
+import org.opencms.publish.CmsPublishJobFinished;
 import org.opencms.security.CmsRole;
 import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsStringUtil;
-
+import org.opencms.util.CmsUUID;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.collections.map.LRUMap;
 import org.apache.commons.logging.Log;
@@ -89,6 +108,25 @@ import org.apache.commons.logging.Log;
  * The cache is fully flushed if an event {@link I_CmsEventListener#EVENT_PUBLISH_PROJECT}
  * or {@link I_CmsEventListener#EVENT_CLEAR_CACHES} is caught.<p>
  *
+ * If the selective publish invalidation is configured, only the entries that depend on
+ * the published resources are removed from the cache after a publish. The dependencies of the entries
+ * are kept in a {@link CmsFlexCacheDependencyIndex}. The complete cache is still cleared if
+ * a published resource is located below one of the configured "clear all" paths,
+ * e.g. because it is a template or a formatter.<p>
+ *
+ * Entries of resources with the <code>stale</code> cache directive are not removed after a publish,
+ * but marked as stale. A stale entry is still served to all requests except for the first one,
+ * which renders the resource again and replaces the stale entry with the result. This avoids that
+ * all concurrent requests have to wait for the render. The stale entry is removed once the number of
+ * seconds given in the directive has passed.<p>
+ *
+ * If gzip compression is configured, a gzip compressed copy of the output of top level entries
+ * without includes is stored, which is sent to clients accepting gzip instead of the output.<p>
+ *
+ * If the snapshot is configured, the online entries are written to a file on shutdown and are
+ * restored on the next startup. Entries that depend on resources published in the meantime
+ * are not restored, see {@link CmsFlexCacheSnapshot}.<p>
+ *
  * @since 6.0.0
  *
  * @see org.opencms.flex.CmsFlexCacheKey
@@ -121,6 +159,34 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Latch for a cache entry variation that is currently rendered, remembers the rendering thread.<p>
+     */
+    private static class CmsFlexRenderLatch extends CountDownLatch {
+
+        /** The thread that renders the cache entry. */
+        private Thread m_owner;
+
+        /**
+         * Creates a new latch owned by the current thread.<p>
+         */
+        CmsFlexRenderLatch() {
+
+            super(1);
+            m_owner = Thread.currentThread();
+        }
+
+        /**
+         * Checks if the current thread is the thread rendering the cache entry.<p>
+         *
+         * @return <code>true</code> if the current thread is the thread rendering the cache entry
+         */
+        boolean isOwnedByCurrentThread() {
+
+            return m_owner == Thread.currentThread();
+        }
+    }
+
     /**
      * Extended LRUMap that handles the variations in case a key is removed.<p>
      */
@@ -152,23 +218,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         @Override
         protected boolean removeLRU(LinkEntry entry) {
 
-            CmsFlexCacheVariation v = (CmsFlexCacheVariation)entry.getValue();
-            if (v == null) {
-                return true;
-            }
-            Map<String, I_CmsLruCacheObject> m = v.m_map;
-            if ((m == null) || (m.size() == 0)) {
-                return true;
-            }
-            Collection<I_CmsLruCacheObject> entries = m.values();
-            synchronized (m_variationCache) {
-                for (I_CmsLruCacheObject e : entries) {
-                    m_variationCache.remove(e);
-                }
-                v.m_map.clear();
-                v.m_map = null;
-                v.m_key = null;
-            }
+            releaseVariation((CmsFlexCacheVariation)entry.getValue());
             return true;
         }
     }
@@ -179,6 +229,9 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     /** Suffix to append to online cache entries. */
     public static final String CACHE_ONLINESUFFIX = " [online]";
 
+    /** The name of the Flex cache statistics. */
+    public static final String CACHE_STATISTICS_NAME = "FLEX";
+
     /** Trigger for clearcache event: Clear complete cache. */
     public static final int CLEAR_ALL = 0;
 
@@ -215,18 +268,69 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     /** The LRU cache to organize the cached entries. */
     protected CmsLruCache m_variationCache;
 
+    /** The admin CmsObject used to read the publish history. */
+    private CmsObject m_adminCms;
+
     /** Indicates if offline resources should be cached or not. */
     private boolean m_cacheOffline;
 
+    /** The root path prefixes of published resources that require the complete cache to be cleared. */
+    private List<String> m_clearAllPaths;
+
+    /** The number of requests that used the result of a concurrent render instead of rendering themselves. */
+    private AtomicLong m_coalescedRenders;
+
+    /** The index of the resources the cached entries depend on. */
+    private CmsFlexCacheDependencyIndex m_dependencyIndex;
+
     /** Indicates if the cache is enabled or not. */
     private boolean m_enabled;
 
+    /** Indicates if a gzip compressed copy of the output of top level entries is stored. */
+    private boolean m_gzip;
+
+    /** The min. size of the output of an entry for storing a gzip compressed copy. */
+    private int m_gzipMinBytes;
+
     /** Map to store the entries for fast lookup. */
     private Map<String, CmsFlexCacheVariation> m_keyCache;
 
+    /** The max. number of keys in the concurrent key map, 0 if the key map limits itself. */
+    private int m_maxKeys;
+
+    /** The store for the output of the cache entries outside of the heap, <code>null</code> if the output is kept on the heap. */
+    private CmsFlexCacheOffHeapStore m_offHeapStore;
+
+    /** The latches of the cache entry variations that are currently rendered. */
+    private ConcurrentHashMap<String, CmsFlexRenderLatch> m_renderLatches;
+
+    /** Indicates if only the entries depending on the published resources are removed after a publish. */
+    private boolean m_selectiveInvalidation;
+
+    /** Indicates if concurrent renders of the same cache entry variation are coalesced. */
+    private boolean m_singleFlight;
+
+    /** The time in milliseconds a request waits for a concurrent render of the same cache entry variation. */
+    private long m_singleFlightTimeout;
+
+    /** The number of requests that waited in vain for a concurrent render. */
+    private AtomicLong m_singleFlightTimeouts;
+
     /** Counter for the size. */
     private int m_size;
 
+    /** The absolute path of the snapshot file, <code>null</code> if the snapshot is not enabled. */
+    private String m_snapshotFile;
+
+    /** The number of requests that were served with a stale entry. */
+    private AtomicLong m_staleHits;
+
+    /** The hit, miss, put and eviction statistics of this cache. */
+    private CmsCacheStatistics m_statistics;
+
+    /** Indicates if cache hits are reported to the entry cache, only done if this does not require a lock. */
+    private boolean m_touchOnHit;
+
     /**
      * Constructor for class CmsFlexCache.<p>
      *
@@ -242,20 +346,81 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
 
         m_enabled = configuration.isCacheEnabled();
         m_cacheOffline = configuration.isCacheOffline();
+        m_selectiveInvalidation = configuration.isSelectiveInvalidation();
+        m_clearAllPaths = configuration.getClearAllPaths();
+        m_gzip = configuration.isGzip();
+        m_gzipMinBytes = configuration.getGzipMinBytes();
+        m_dependencyIndex = new CmsFlexCacheDependencyIndex();
+        m_singleFlight = configuration.isSingleFlight();
+        m_singleFlightTimeout = configuration.getSingleFlightTimeout();
+        m_renderLatches = new ConcurrentHashMap<String, CmsFlexRenderLatch>();
+        m_coalescedRenders = new AtomicLong();
+        m_singleFlightTimeouts = new AtomicLong();
+        m_staleHits = new AtomicLong();
 
         long maxCacheBytes = configuration.getMaxCacheBytes();
         long avgCacheBytes = configuration.getAvgCacheBytes();
         int maxEntryBytes = configuration.getMaxEntryBytes();
         int maxKeys = configuration.getMaxKeys();
 
-        m_variationCache = new CmsLruCache(maxCacheBytes, avgCacheBytes, maxEntryBytes);
-        OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_entryLruCache", m_variationCache);
+        m_variationCache = createEntryLruCache(
+            configuration.getEntryCacheClass(),
+            maxCacheBytes,
+            avgCacheBytes,
+            maxEntryBytes);
+        m_touchOnHit = m_variationCache instanceof CmsClockCache;
+        if (m_enabled && configuration.isOffHeap()) {
+            // the LRU cache limits the costs of all entries, so the off-heap store never needs more
+            m_offHeapStore = new CmsFlexCacheOffHeapStore(maxCacheBytes, configuration.getOffHeapBlockSize());
+        }
+        if (m_enabled && configuration.isSnapshot()) {
+            m_snapshotFile = OpenCms.getSystemInfo().getAbsoluteRfsPathRelativeToWebInf(
+                configuration.getSnapshotFile());
+        }
+        if (OpenCms.getMemoryMonitor() != null) {
+            // the memory monitor is not available if the cache is used outside of a running system
+            OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_entryLruCache", m_variationCache);
+        }
+        m_statistics = new CmsCacheStatistics(CACHE_STATISTICS_NAME) {
+
+            /**
+             * @see org.opencms.monitor.CmsCacheStatistics#getEvictions()
+             */
+            @Override
+            public long getEvictions() {
+
+                return m_variationCache.getEvictionCount();
+            }
+
+            /**
+             * @see org.opencms.monitor.CmsCacheStatistics#getSize()
+             */
+            @Override
+            public long getSize() {
+
+                return m_variationCache.size();
+            }
+        };
+        if (OpenCms.getMemoryMonitor() != null) {
+            OpenCms.getMemoryMonitor().registerCacheStatistics(m_statistics);
+        }
 
         if (m_enabled) {
-            CmsFlexKeyMap flexKeyMap = new CmsFlexKeyMap(maxKeys);
-            m_keyCache = Collections.synchronizedMap(
-                CmsCollectionsGenericWrapper.<String, CmsFlexCacheVariation> map(flexKeyMap));
-            OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_resourceMap", flexKeyMap);
+            Object keyMap;
+            if (m_touchOnHit) {
+                // the clock cache needs no lock on a hit, so the key lookup must not take one either
+                m_maxKeys = maxKeys;
+                m_keyCache = new ConcurrentHashMap<String, CmsFlexCacheVariation>();
+                keyMap = m_keyCache;
+            } else {
+                CmsFlexKeyMap flexKeyMap = new CmsFlexKeyMap(maxKeys);
+                m_keyCache = Collections.synchronizedMap(
+                    CmsCollectionsGenericWrapper.<String, CmsFlexCacheVariation> map(flexKeyMap));
+                keyMap = flexKeyMap;
+            }
+            if (OpenCms.getMemoryMonitor() != null) {
+                OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_resourceMap", keyMap);
+            }
 
             OpenCms.addCmsEventListener(
                 this,
@@ -265,7 +430,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                     I_CmsEventListener.EVENT_FLEX_PURGE_JSP_REPOSITORY,
                     I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR});
         }
-        
+
         if (LOG.isInfoEnabled()) {
             LOG.info(
                 Messages.get().getBundle().key(
@@ -299,6 +464,15 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
 
         switch (event.getType()) {
             case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
+                if (m_selectiveInvalidation) {
+                    removeEntriesForPublish(event);
+                    break;
+                }
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_RECEIVED_EVENT_CLEAR_CACHE_0));
+                }
+                clearForPublish();
+                break;
             case I_CmsEventListener.EVENT_CLEAR_CACHES:
                 if (LOG.isDebugEnabled()) {
                     LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_RECEIVED_EVENT_CLEAR_CACHE_0));
@@ -430,6 +604,27 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         return null;
     }
 
+    /**
+     * Returns the number of requests that used the result of a concurrent render
+     * of the same cache entry variation instead of rendering the resource themselves.<p>
+     *
+     * @return the number of coalesced renders
+     */
+    public long getCoalescedRenderCount() {
+
+        return m_coalescedRenders.get();
+    }
+
+    /**
+     * Returns the index of the resources the cached entries depend on.<p>
+     *
+     * @return the index of the resources the cached entries depend on
+     */
+    public CmsFlexCacheDependencyIndex getDependencyIndex() {
+
+        return m_dependencyIndex;
+    }
+
     /**
      * Returns the LRU cache where the CacheEntries are cached.<p>
      *
@@ -440,6 +635,94 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         return m_variationCache;
     }
 
+    /**
+     * Returns the min. size of the output of an entry for storing a gzip compressed copy.<p>
+     *
+     * @return the min. size of the output of an entry for storing a gzip compressed copy
+     */
+    public int getGzipMinBytes() {
+
+        return m_gzipMinBytes;
+    }
+
+    /**
+     * Returns the store for the output of the cache entries outside of the heap.<p>
+     *
+     * @return the off-heap store, or <code>null</code> if the output of the cache entries is kept on the heap
+     */
+    public CmsFlexCacheOffHeapStore getOffHeapStore() {
+
+        return m_offHeapStore;
+    }
+
+    /**
+     * Returns the number of requests that waited for a concurrent render
+     * of the same cache entry variation until the timeout was reached.<p>
+     *
+     * @return the number of single-flight wait timeouts
+     */
+    public long getSingleFlightTimeoutCount() {
+
+        return m_singleFlightTimeouts.get();
+    }
+
+    /**
+     * Returns the number of requests that were served with a stale entry
+     * while the entry was rendered again by another request.<p>
+     *
+     * @return the number of stale hits
+     */
+    public long getStaleHitCount() {
+
+        return m_staleHits.get();
+    }
+
+    /**
+     * Returns the hit, miss, put and eviction statistics of this cache.<p>
+     *
+     * The evictions are counted by the LRU cache of the entries, they are not reset by
+     * {@link CmsCacheStatistics#reset()}.<p>
+     *
+     * @return the statistics of this cache
+     */
+    public CmsCacheStatistics getStatistics() {
+
+        return m_statistics;
+    }
+
+    /**
+     * Initializes the Flex cache after the publish manager has been initialized.<p>
+     *
+     * If the snapshot is enabled, the entries of the snapshot written on the last shutdown are restored,
+     * except for the entries that depend on resources which have been published in the meantime.
+     * The snapshot file is deleted afterwards, so that it is never restored twice.<p>
+     *
+     * @param adminCms a CmsObject with administrator permissions
+     */
+    public void initialize(CmsObject adminCms) {
+
+        m_adminCms = adminCms;
+        if (!isEnabled() || (m_snapshotFile == null)) {
+            return;
+        }
+        File file = new File(m_snapshotFile);
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            CmsFlexCacheSnapshot snapshot;
+            try (InputStream in = new FileInputStream(file)) {
+                snapshot = CmsFlexCacheSnapshot.read(in);
+            }
+            restoreSnapshot(snapshot);
+        } catch (Exception e) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_SNAPSHOT_READ_FAILED_1, m_snapshotFile), e);
+            clear();
+        } finally {
+            file.delete();
+        }
+    }
+
     /**
      * Indicates if the cache is enabled (i.e. actually
      * caching entries) or not.<p>
@@ -451,6 +734,37 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         return m_enabled;
     }
 
+    /**
+     * Checks if a gzip compressed copy of the output of top level entries is stored.<p>
+     *
+     * @return <code>true</code> if a gzip compressed copy of the output of top level entries is stored
+     */
+    public boolean isGzip() {
+
+        return m_gzip;
+    }
+
+    /**
+     * Indicates if only the entries depending on the published resources are removed after a publish.<p>
+     *
+     * @return <code>true</code> if the selective publish invalidation is enabled
+     */
+    public boolean isSelectiveInvalidation() {
+
+        return m_selectiveInvalidation;
+    }
+
+    /**
+     * Indicates if concurrent renders of the same cache entry variation are coalesced,
+     * so that only the first request renders the resource and the others wait for the result.<p>
+     *
+     * @return <code>true</code> if the single-flight rendering is enabled
+     */
+    public boolean isSingleFlight() {
+
+        return m_enabled && m_singleFlight;
+    }
+
     /**
      * Returns the total number of cached resource keys.
      *
@@ -464,6 +778,56 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         return m_keyCache.size();
     }
 
+    /**
+     * Shuts down the Flex cache.<p>
+     *
+     * If the snapshot is enabled, the online entries are written to the snapshot file,
+     * together with the next publish tag.<p>
+     */
+    public void shutDown() {
+
+        if (!isEnabled() || (m_snapshotFile == null) || (m_adminCms == null)) {
+            return;
+        }
+        CmsFlexCacheSnapshot snapshot = new CmsFlexCacheSnapshot(
+            OpenCms.getPublishManager().getNextPublishTag(m_adminCms),
+            System.currentTimeMillis());
+        List<CmsFlexCacheVariation> variations;
+        synchronized (m_keyCache) {
+            variations = new ArrayList<CmsFlexCacheVariation>(m_keyCache.values());
+        }
+        for (CmsFlexCacheVariation v : variations) {
+            CmsFlexCacheKey key = v.m_key;
+            Map<String, I_CmsLruCacheObject> map = v.m_map;
+            if ((key == null) || (map == null)) {
+                // the variation has been removed in the meantime
+                continue;
+            }
+            CmsFlexCacheVariation copy = new CmsFlexCacheVariation(key);
+            synchronized (map) {
+                copy.m_map.putAll(map);
+            }
+            snapshot.addVariation(copy);
+        }
+        File file = new File(m_snapshotFile);
+        file.getParentFile().mkdirs();
+        try (OutputStream out = new FileOutputStream(file)) {
+            int count = snapshot.write(out);
+            if (LOG.isInfoEnabled()) {
+                LOG.info(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_FLEXCACHE_SNAPSHOT_WRITTEN_2,
+                        new Integer(count),
+                        m_snapshotFile));
+            }
+        } catch (IOException e) {
+            LOG.error(
+                Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_SNAPSHOT_WRITE_FAILED_1, m_snapshotFile),
+                e);
+            file.delete();
+        }
+    }
+
     /**
      * Returns the total number of entries in the cache.<p>
      *
@@ -474,12 +838,29 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         return m_variationCache.size();
     }
 
+    /**
+     * Marks the render of a cache entry variation as finished and releases all requests waiting for it.<p>
+     *
+     * Must be called by the request that successfully called {@link #startRender(String)},
+     * even if the render failed.<p>
+     *
+     * @param renderKey the render key, as returned by {@link #getRenderKey(CmsFlexCacheKey, String)}
+     */
+    void finishRender(String renderKey) {
+
+        CountDownLatch latch = m_renderLatches.remove(renderKey);
+        if (latch != null) {
+            latch.countDown();
+        }
+    }
+
     /**
      * Looks up a specific entry in the cache.<p>
      *
      * In case a found entry has a timeout set, it will be checked upon lookup.
      * In case the timeout of the entry has been reached, it will be removed from
-     * the cache (and null will be returned in this case).<p>
+     * the cache (and null will be returned in this case). The same applies to stale
+     * entries that have been served longer than allowed.<p>
      *
      * @param key The key to look for in the cache
      * @return the entry found for the key, or null if key is not in the cache
@@ -500,19 +881,9 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                 // requested resource is not cacheable
                 return null;
             }
-            CmsFlexCacheEntry entry = (CmsFlexCacheEntry)v.m_map.get(variation);
-            if (entry == null) {
-                // no cache entry available for variation
-                return null;
-            }
-            if (entry.getDateExpires() < System.currentTimeMillis()) {
-                // cache entry avaiable but expired, remove entry
-                m_variationCache.remove(entry);
-                return null;
-            }
-            // return the found cache entry
-            return entry;
+            return getEntry(v, variation);
         } else {
+            m_statistics.recordMiss();
             return null;
         }
     }
@@ -542,6 +913,19 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Returns the key that identifies the render of a cache entry variation for the single-flight rendering.<p>
+     *
+     * @param key the cache key of the resource
+     * @param variation the variation of the request
+     *
+     * @return the render key
+     */
+    String getRenderKey(CmsFlexCacheKey key, String variation) {
+
+        return key.getResource() + " " + variation;
+    }
+
     /**
      * Checks if the cache is empty or if at last one element is contained.<p>
      *
@@ -614,7 +998,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         if (o == null) {
             // No variation map for this resource yet, so create one
             CmsFlexCacheVariation variationMap = new CmsFlexCacheVariation(key);
-            m_keyCache.put(key.getResource(), variationMap);
+            putVariation(key.getResource(), variationMap);
             if (LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_ADD_KEY_1, key.getResource()));
             }
@@ -641,6 +1025,165 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Removes all entries from the cache that depend on at least one of the given published resources.<p>
+     *
+     * In case one of the published resources is located below a configured "clear all" path,
+     * the complete cache is cleared. Entries that may be served while they are stale
+     * are marked as stale instead of being removed.<p>
+     *
+     * @param publishedResources the published resources
+     *
+     * @return the number of removed or stale entries
+     */
+    int removeDependentEntries(Collection<CmsPublishedResource> publishedResources) {
+
+        if (!isEnabled()) {
+            return 0;
+        }
+        for (CmsPublishedResource pubRes : publishedResources) {
+            for (String path : m_clearAllPaths) {
+                if (pubRes.getRootPath().startsWith(path)) {
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug(
+                            Messages.get().getBundle().key(
+                                Messages.LOG_FLEXCACHE_CLEAR_FOR_PUBLISHED_RESOURCE_1,
+                                pubRes.getRootPath()));
+                    }
+                    int size = size();
+                    clearForPublish();
+                    return size;
+                }
+            }
+        }
+        // the dependency index must not be locked while the entries are removed from the LRU cache
+        Set<CmsFlexCacheEntry> entries = m_dependencyIndex.getDependentEntries(publishedResources);
+        int staleCount = 0;
+        for (CmsFlexCacheEntry entry : entries) {
+            if (entry.markStale()) {
+                staleCount++;
+            } else {
+                m_variationCache.remove(entry);
+            }
+        }
+        if ((staleCount > 0) && LOG.isInfoEnabled()) {
+            LOG.info(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_STALE_ENTRIES_1, new Integer(staleCount)));
+        }
+        if (LOG.isInfoEnabled()) {
+            LOG.info(
+                Messages.get().getBundle().key(
+                    Messages.LOG_FLEXCACHE_REMOVED_DEPENDENT_ENTRIES_2,
+                    new Integer(entries.size()),
+                    new Integer(publishedResources.size())));
+        }
+        return entries.size();
+    }
+
+    /**
+     * Tries to register the current request as the one that renders the given stale entry again.<p>
+     *
+     * If this returns a render key, the caller must render the resource and call
+     * {@link #finishRender(String)} once the render is done. Otherwise another request is
+     * already rendering the resource, and the caller should serve the stale entry.<p>
+     *
+     * @param requestKey the key of the request the stale entry was found for
+     * @param entry the stale entry
+     *
+     * @return the render key if the current request has to render the entry again, otherwise <code>null</code>
+     */
+    String startRefresh(CmsFlexRequestKey requestKey, CmsFlexCacheEntry entry) {
+
+        String renderKey = requestKey.getResource() + " " + entry.getVariationKey();
+        if (startRender(renderKey)) {
+            return renderKey;
+        }
+        m_staleHits.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Tries to register the current request as the one that renders the given cache entry variation.<p>
+     *
+     * If this returns <code>true</code>, the caller must call {@link #finishRender(String)} once the
+     * render is done. Otherwise another request is already rendering the variation, and the caller should
+     * use {@link #waitForRender(CmsFlexCacheKey, String)} to get the result.<p>
+     *
+     * @param renderKey the render key, as returned by {@link #getRenderKey(CmsFlexCacheKey, String)}
+     *
+     * @return <code>true</code> if the current request has to render the cache entry variation
+     */
+    boolean startRender(String renderKey) {
+
+        return m_renderLatches.putIfAbsent(renderKey, new CmsFlexRenderLatch()) == null;
+    }
+
+    /**
+     * Adds a key to the cache, or replaces the key of the resource if it is already in the cache.<p>
+     *
+     * This is used when a stale entry is rendered again, since the cache directives
+     * of the resource may have been changed by the publish.<p>
+     *
+     * @param key the key to add to the cache
+     */
+    void updateKey(CmsFlexCacheKey key) {
+
+        if (!isEnabled()) {
+            return;
+        }
+        CmsFlexCacheVariation o = m_keyCache.get(key.getResource());
+        if (o != null) {
+            o.m_key = key;
+        } else {
+            putKey(key);
+        }
+    }
+
+    /**
+     * Waits until the concurrent render of a cache entry variation is finished and returns the cached result.<p>
+     *
+     * Returns <code>null</code> if the wait timed out, if the current thread is interrupted,
+     * if the render is done by the current thread itself (in case of a nested include),
+     * or if the result of the render could not be cached. In all these cases the caller has to
+     * render the resource on its own.<p>
+     *
+     * @param key the cache key of the resource
+     * @param variation the variation key of the request
+     *
+     * @return the cached result of the concurrent render, or <code>null</code>
+     */
+    CmsFlexCacheEntry waitForRender(CmsFlexCacheKey key, String variation) {
+
+        String renderKey = getRenderKey(key, variation);
+        CmsFlexRenderLatch latch = m_renderLatches.get(renderKey);
+        if (latch != null) {
+            if (latch.isOwnedByCurrentThread()) {
+                return null;
+            }
+            try {
+                if (!latch.await(m_singleFlightTimeout, TimeUnit.MILLISECONDS)) {
+                    m_singleFlightTimeouts.incrementAndGet();
+                    if (LOG.isInfoEnabled()) {
+                        LOG.info(
+                            Messages.get().getBundle().key(
+                                Messages.LOG_FLEXCACHE_SINGLE_FLIGHT_TIMEOUT_2,
+                                renderKey,
+                                new Long(m_singleFlightTimeout)));
+                    }
+                    return null;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        CmsFlexCacheVariation v = m_keyCache.get(key.getResource());
+        CmsFlexCacheEntry entry = (v != null) ? getEntry(v, variation) : null;
+        if (entry != null) {
+            m_coalescedRenders.incrementAndGet();
+        }
+        return entry;
+    }
+
     /**
      * Empties the cache completely.<p>
      */
@@ -653,6 +1196,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         m_size = 0;
 
         m_variationCache.clear();
+        m_dependencyIndex.clear();
 
         if (LOG.isInfoEnabled()) {
             LOG.info(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_CLEAR_0));
@@ -746,6 +1290,44 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         m_size = 0;
     }
 
+    /**
+     * Empties the cache after a publish, except for the entries that may be served while they are stale.<p>
+     *
+     * These entries are marked as stale, and the keys of their resources are kept.<p>
+     */
+    private synchronized void clearForPublish() {
+
+        if (!isEnabled()) {
+            return;
+        }
+        int staleCount = 0;
+        // create new set to avoid ConcurrentModificationExceptions
+        Set<String> cacheKeys = new HashSet<String>(m_keyCache.keySet());
+        for (String cacheKey : cacheKeys) {
+            CmsFlexCacheVariation v = m_keyCache.get(cacheKey);
+            // removing an entry from the LRU cache also removes it from the variation map
+            List<I_CmsLruCacheObject> entries = new ArrayList<I_CmsLruCacheObject>(v.m_map.values());
+            for (I_CmsLruCacheObject entry : entries) {
+                if (((CmsFlexCacheEntry)entry).markStale()) {
+                    staleCount++;
+                } else {
+                    m_variationCache.remove(entry);
+                }
+            }
+            if (v.m_map.isEmpty()) {
+                m_keyCache.remove(cacheKey);
+            }
+        }
+        if (staleCount == 0) {
+            // remove everything else, e.g. the keys of resources that are not cacheable
+            clear();
+            return;
+        }
+        if (LOG.isInfoEnabled()) {
+            LOG.info(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_STALE_ENTRIES_1, new Integer(staleCount)));
+        }
+    }
+
     /**
      * Clears all entries and all keys from offline projects in the cache.<p>
      *
@@ -824,6 +1406,72 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         clearAccordingToSuffix(CACHE_ONLINESUFFIX, true);
     }
 
+    /**
+     * Creates the LRU cache for the cache entries.<p>
+     *
+     * If a class name is given, the class must extend {@link CmsLruCache} and provide
+     * the same constructor. In case the class can not be instantiated, the default
+     * {@link CmsLruCache} is used.<p>
+     *
+     * @param className the class name of the cache implementation, may be <code>null</code>
+     * @param maxCacheBytes the max. bytes of all cached entries
+     * @param avgCacheBytes the avg. bytes of all cached entries
+     * @param maxEntryBytes the max. bytes of a single cache entry
+     *
+     * @return the LRU cache for the cache entries
+     */
+    private CmsLruCache createEntryLruCache(
+        String className,
+        long maxCacheBytes,
+        long avgCacheBytes,
+        int maxEntryBytes) {
+
+        if (className != null) {
+            try {
+                Class<? extends CmsLruCache> cacheClass = Class.forName(className).asSubclass(CmsLruCache.class);
+                return cacheClass.getConstructor(Long.TYPE, Long.TYPE, Integer.TYPE).newInstance(
+                    new Long(maxCacheBytes),
+                    new Long(avgCacheBytes),
+                    new Integer(maxEntryBytes));
+            } catch (Exception e) {
+                LOG.error(Messages.get().getBundle().key(Messages.LOG_CLASS_INIT_FAILURE_1, className), e);
+            }
+        }
+        return new CmsLruCache(maxCacheBytes, avgCacheBytes, maxEntryBytes);
+    }
+
+    /**
+     * Returns the entry for a variation of a resource, removes the entry if it is expired.<p>
+     *
+     * @param v the cached variations of the resource
+     * @param variation the variation key
+     *
+     * @return the entry, or <code>null</code> if no valid entry is cached for the variation
+     */
+    private CmsFlexCacheEntry getEntry(CmsFlexCacheVariation v, String variation) {
+
+        Map<String, I_CmsLruCacheObject> m = v.m_map;
+        CmsFlexCacheEntry entry = m != null ? (CmsFlexCacheEntry)m.get(variation) : null;
+        if (entry == null) {
+            // no cache entry available for variation
+            m_statistics.recordMiss();
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if ((entry.getDateExpires() < now) || (entry.getDateStaleExpires() < now)) {
+            // cache entry avaiable but expired, remove entry
+            m_variationCache.remove(entry);
+            m_statistics.recordMiss();
+            return null;
+        }
+        if (m_touchOnHit) {
+            m_variationCache.touch(entry);
+        }
+        // return the found cache entry
+        m_statistics.recordHit();
+        return entry;
+    }
+
     /**
      * This method purges the JSP repository dirs,
      * i.e. it deletes all JSP files that OpenCms has written to the
@@ -858,13 +1506,31 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     private void put(CmsFlexCacheKey key, CmsFlexCacheEntry theCacheEntry) {
 
         CmsFlexCacheVariation o = m_keyCache.get(key.getResource());
+        if ((o != null) && (o.m_map == null)) {
+            // the variations have been released in the meantime
+            o = null;
+        }
         if (key.getTimeout() > 0) {
             theCacheEntry.setDateExpiresToNextTimeout(key.getTimeout());
         }
+        if (key.getStale() > 0) {
+            theCacheEntry.setStaleTimeout(key.getStale() * 1000L);
+        }
+        if (m_offHeapStore != null) {
+            theCacheEntry.moveToOffHeap(m_offHeapStore);
+        }
+        // register the dependencies first, so that they are released if the entry is removed from the LRU cache
+        theCacheEntry.setDependencyIndex(m_dependencyIndex);
+        m_dependencyIndex.add(theCacheEntry);
+        boolean wasAdded;
         if (o != null) {
             // We already have a variation map for this resource
             Map<String, I_CmsLruCacheObject> m = o.m_map;
-            boolean wasAdded = true;
+            I_CmsLruCacheObject old = m.get(key.getVariation());
+            if ((old != null) && (old != theCacheEntry) && ((CmsFlexCacheEntry)old).isStale()) {
+                // replace the stale entry, removing it from the LRU cache also removes it from the variation map
+                m_variationCache.remove(old);
+            }
             if (!m.containsKey(key.getVariation())) {
                 wasAdded = m_variationCache.add(theCacheEntry);
             } else {
@@ -879,14 +1545,21 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             // No variation map for this resource yet, so create one
             CmsFlexCacheVariation list = new CmsFlexCacheVariation(key);
 
-            boolean wasAdded = m_variationCache.add(theCacheEntry);
+            wasAdded = m_variationCache.add(theCacheEntry);
 
             if (wasAdded) {
                 theCacheEntry.setVariationData(key.getVariation(), list.m_map);
                 list.m_map.put(key.getVariation(), theCacheEntry);
-                m_keyCache.put(key.getResource(), list);
+                putVariation(key.getResource(), list);
             }
         }
+        if (wasAdded) {
+            m_statistics.recordPut(key);
+        } else {
+            m_dependencyIndex.remove(theCacheEntry);
+            theCacheEntry.setDependencyIndex(null);
+            theCacheEntry.releaseOffHeap();
+        }
 
         if (LOG.isDebugEnabled()) {
             LOG.debug(
@@ -898,4 +1571,197 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_ADDED_ENTRY_1, theCacheEntry.toString()));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Adds the variations of a resource to the key map.<p>
+     *
+     * If the concurrent key map exceeds the max. number of keys, other keys are released.<p>
+     *
+     * @param resource the resource name
+     * @param variation the variations of the resource
+     */
+    private void putVariation(String resource, CmsFlexCacheVariation variation) {
+
+        m_keyCache.put(resource, variation);
+        if ((m_maxKeys > 0) && (m_keyCache.size() > m_maxKeys)) {
+            trimKeys(resource);
+        }
+    }
+
+    /**
+     * Reads the resources that have been published since the given snapshot has been written.<p>
+     *
+     * Returns <code>null</code> if the snapshot has to be discarded, i.e. if the selective publish
+     * invalidation is not configured, if the publish history does not contain all publish jobs
+     * since the snapshot has been written, or if a resource below a "clear all" path has been published.<p>
+     *
+     * @param snapshot the snapshot
+     * @param publishTag the current next publish tag
+     *
+     * @return the resources published since the snapshot has been written, or <code>null</code>
+     *
+     * @throws CmsException in case reading the published resources fails
+     */
+    private List<CmsPublishedResource> readPublishedResources(CmsFlexCacheSnapshot snapshot, int publishTag)
+    throws CmsException {
+
+        if (!m_selectiveInvalidation) {
+            return null;
+        }
+        List<CmsPublishedResource> result = new ArrayList<CmsPublishedResource>();
+        int jobCount = 0;
+        for (CmsPublishJobFinished job : OpenCms.getPublishManager().getPublishHistory()) {
+            if (job.getFinishTime() >= snapshot.getDateCreated()) {
+                jobCount++;
+                result.addAll(m_adminCms.readPublishedResources(job.getPublishHistoryId()));
+            }
+        }
+        if (jobCount < (publishTag - snapshot.getPublishTag())) {
+            // every publish job uses a new tag, so some of the publish jobs are missing in the history
+            return null;
+        }
+        for (CmsPublishedResource pubRes : result) {
+            for (String path : m_clearAllPaths) {
+                if (pubRes.getRootPath().startsWith(path)) {
+                    return null;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Releases all cache entries of the given variations.<p>
+     *
+     * @param variation the variations to release, may be <code>null</code>
+     */
+    private void releaseVariation(CmsFlexCacheVariation variation) {
+
+        if (variation == null) {
+            return;
+        }
+        Map<String, I_CmsLruCacheObject> m = variation.m_map;
+        if ((m == null) || (m.size() == 0)) {
+            return;
+        }
+        // removing an entry from the LRU cache also removes it from the variation map, so copy the entries first
+        List<I_CmsLruCacheObject> entries = new ArrayList<I_CmsLruCacheObject>(m.values());
+        synchronized (m_variationCache) {
+            for (I_CmsLruCacheObject e : entries) {
+                m_variationCache.remove(e);
+            }
+            m.clear();
+            variation.m_map = null;
+            variation.m_key = null;
+        }
+    }
+
+    /**
+     * Removes the entries that depend on the resources published with the given event.<p>
+     *
+     * If the published resources can not be read, the complete cache is cleared.<p>
+     *
+     * @param event the publish event
+     */
+    private void removeEntriesForPublish(CmsEvent event) {
+
+        List<CmsPublishedResource> publishedResources = null;
+        try {
+            String publishHistoryId = (String)event.getData().get(I_CmsEventListener.KEY_PUBLISHID);
+            CmsObject cms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserGuest());
+            publishedResources = cms.readPublishedResources(new CmsUUID(publishHistoryId));
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+        } catch (RuntimeException e) {
+            // no or invalid publish history id in the event data
+            LOG.error(e.getLocalizedMessage(), e);
+        }
+        if (publishedResources == null) {
+            clear();
+            return;
+        }
+        removeDependentEntries(publishedResources);
+    }
+
+    /**
+     * Adds the entries of the given snapshot to the cache.<p>
+     *
+     * If something has been published since the snapshot has been written, the entries that depend on
+     * the published resources are removed again. If the published resources can not be determined,
+     * the snapshot is discarded.<p>
+     *
+     * @param snapshot the snapshot to restore
+     *
+     * @throws CmsException in case reading the published resources fails
+     */
+    private void restoreSnapshot(CmsFlexCacheSnapshot snapshot) throws CmsException {
+
+        List<CmsPublishedResource> publishedResources = Collections.emptyList();
+        int publishTag = OpenCms.getPublishManager().getNextPublishTag(m_adminCms);
+        if (publishTag != snapshot.getPublishTag()) {
+            publishedResources = readPublishedResources(snapshot, publishTag);
+            if (publishedResources == null) {
+                if (LOG.isInfoEnabled()) {
+                    LOG.info(
+                        Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_SNAPSHOT_DISCARDED_1, m_snapshotFile));
+                }
+                return;
+            }
+        }
+        long now = System.currentTimeMillis();
+        for (CmsFlexCacheVariation variation : snapshot.getVariations()) {
+            putKey(variation.m_key);
+            for (Map.Entry<String, I_CmsLruCacheObject> mapEntry : variation.m_map.entrySet()) {
+                CmsFlexCacheEntry entry = (CmsFlexCacheEntry)mapEntry.getValue();
+                if (entry.getDateExpires() >= now) {
+                    put(variation.m_key, entry, mapEntry.getKey());
+                }
+            }
+        }
+        int removed = 0;
+        if (!publishedResources.isEmpty()) {
+            // the dependency index must not be locked while the entries are removed from the LRU cache
+            Set<CmsFlexCacheEntry> entries = m_dependencyIndex.getDependentEntries(publishedResources);
+            for (CmsFlexCacheEntry entry : entries) {
+                m_variationCache.remove(entry);
+            }
+            removed = entries.size();
+        }
+        if (LOG.isInfoEnabled()) {
+            LOG.info(
+                Messages.get().getBundle().key(
+                    Messages.LOG_FLEXCACHE_SNAPSHOT_RESTORED_3,
+                    new Integer(size()),
+                    new Integer(removed),
+                    m_snapshotFile));
+        }
+    }
+
+    /**
+     * Removes keys from the concurrent key map until it no longer exceeds the max. number of keys.<p>
+     *
+     * Keys without cached variations are removed first. The map has no access order,
+     * so the other keys are removed in the iteration order of the map.<p>
+     *
+     * @param keep the resource name of the key that has just been added, which is not removed
+     */
+    private void trimKeys(String keep) {
+
+        // only the clock cache uses a limited concurrent key map
+        ConcurrentHashMap<String, CmsFlexCacheVariation> keys;
+        keys = (ConcurrentHashMap<String, CmsFlexCacheVariation>)m_keyCache;
+        for (int pass = 0; pass < 2; pass++) {
+            Iterator<Map.Entry<String, CmsFlexCacheVariation>> i = keys.entrySet().iterator();
+            while ((keys.size() > m_maxKeys) && i.hasNext()) {
+                Map.Entry<String, CmsFlexCacheVariation> entry = i.next();
+                CmsFlexCacheVariation v = entry.getValue();
+                boolean unused = (v.m_map == null) || v.m_map.isEmpty();
+                if ((unused || (pass > 0))
+                    && !keep.equals(entry.getKey())
+                    && keys.remove(entry.getKey(), v)) {
+                    releaseVariation(v);
+                }
+            }
+        }
+    }
+}
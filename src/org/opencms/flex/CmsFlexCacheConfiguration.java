@@ -30,6 +30,11 @@ package org.opencms.flex;
 import org.opencms.jsp.util.CmsJspDeviceSelectorDesktopMobileTablet;
 import org.opencms.jsp.util.I_CmsJspDeviceSelector;
 import org.opencms.main.CmsLog;
+import org.opencms.util.CmsStringUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import org.apache.commons.logging.Log;
 
@@ -40,6 +45,24 @@ import org.apache.commons.logging.Log;
  */
 public class CmsFlexCacheConfiguration {
 
+    /** The default path prefix for published resources that require the complete cache to be cleared. */
+    public static final String DEFAULT_CLEAR_ALL_PATH = "/system/";
+
+    /** The default min. size of the output of a cache entry for storing a gzip compressed copy. */
+    public static final int DEFAULT_GZIP_MIN_BYTES = 512;
+
+    /** The default time in milliseconds a request waits for a concurrent render of the same cache entry. */
+    public static final long DEFAULT_SINGLE_FLIGHT_TIMEOUT = 10000;
+
+    /** The default snapshot file, relative to the WEB-INF folder. */
+    public static final String DEFAULT_SNAPSHOT_FILE = "flexcache/online.snapshot";
+
+    /** Publish invalidation mode: clear the complete cache after each publish. */
+    public static final String PUBLISH_INVALIDATION_ALL = "all";
+
+    /** Publish invalidation mode: only remove the entries that depend on the published resources. */
+    public static final String PUBLISH_INVALIDATION_SELECTIVE = "selective";
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsFlexCacheConfiguration.class);
 
@@ -52,12 +75,24 @@ public class CmsFlexCacheConfiguration {
     /** Indicates if offline resources should be cached or not. */
     private boolean m_cacheOffline;
 
+    /** The root path prefixes of published resources that require the complete cache to be cleared. */
+    private List<String> m_clearAllPaths = new ArrayList<String>();
+
     /** The device selector. */
     private I_CmsJspDeviceSelector m_deviceSelector;
 
     /** The device selector configuration. */
     private String m_deviceSelectorConfiguration;
 
+    /** The class name of the cache implementation for the cache entries. */
+    private String m_entryCacheClass;
+
+    /** Indicates if a gzip compressed copy of the output of top level cache entries is stored. */
+    private boolean m_gzip;
+
+    /** The min. size of the output of a cache entry for storing a gzip compressed copy. */
+    private int m_gzipMinBytes = DEFAULT_GZIP_MIN_BYTES;
+
     /**
      * Sizing parameters for the cached "entries" (ie. pages) in the FlexCache.<p>
      *
@@ -74,6 +109,27 @@ public class CmsFlexCacheConfiguration {
     /** The maximum key. */
     private int m_maxKeys;
 
+    /** Indicates if the output of the cache entries is stored outside of the heap. */
+    private boolean m_offHeap;
+
+    /** The block size of the off-heap store. */
+    private int m_offHeapBlockSize = CmsFlexCacheOffHeapStore.DEFAULT_BLOCK_SIZE;
+
+    /** The publish invalidation mode. */
+    private String m_publishInvalidation = PUBLISH_INVALIDATION_ALL;
+
+    /** Indicates if concurrent renders of the same cache entry are coalesced. */
+    private boolean m_singleFlight;
+
+    /** The time in milliseconds a request waits for a concurrent render of the same cache entry. */
+    private long m_singleFlightTimeout = DEFAULT_SINGLE_FLIGHT_TIMEOUT;
+
+    /** Indicates if the online entries are written to a snapshot on shutdown and restored on startup. */
+    private boolean m_snapshot;
+
+    /** The snapshot file, relative to the WEB-INF folder. */
+    private String m_snapshotFile = DEFAULT_SNAPSHOT_FILE;
+
     /**
      * Empty public constructor for the digester.
      */
@@ -82,6 +138,17 @@ public class CmsFlexCacheConfiguration {
         // empty public constructor for digester
     }
 
+    /**
+     * Adds a root path prefix for published resources that require the complete cache to be cleared,
+     * even if the selective publish invalidation is enabled.<p>
+     *
+     * @param path the root path prefix to add
+     */
+    public void addClearAllPath(String path) {
+
+        m_clearAllPaths.add(path);
+    }
+
     /**
      * Returns the average cache bytes.<p>
      *
@@ -92,6 +159,32 @@ public class CmsFlexCacheConfiguration {
         return m_avgCacheBytes;
     }
 
+    /**
+     * Returns the root path prefixes of published resources that require the complete cache to be cleared.<p>
+     *
+     * If nothing is configured, the default {@link #DEFAULT_CLEAR_ALL_PATH} is used,
+     * since templates, formatters and schemas are usually located there.<p>
+     *
+     * @return the root path prefixes of published resources that require the complete cache to be cleared
+     */
+    public List<String> getClearAllPaths() {
+
+        if (m_clearAllPaths.isEmpty()) {
+            return Collections.singletonList(DEFAULT_CLEAR_ALL_PATH);
+        }
+        return Collections.unmodifiableList(m_clearAllPaths);
+    }
+
+    /**
+     * Returns the configured root path prefixes of published resources that require the complete cache to be cleared.<p>
+     *
+     * @return the configured root path prefixes, without the default
+     */
+    public List<String> getConfiguredClearAllPaths() {
+
+        return Collections.unmodifiableList(m_clearAllPaths);
+    }
+
     /**
      * Returns the deviceSelector.<p>
      *
@@ -115,6 +208,26 @@ public class CmsFlexCacheConfiguration {
         return m_deviceSelectorConfiguration;
     }
 
+    /**
+     * Returns the class name of the cache implementation for the cache entries.<p>
+     *
+     * @return the class name of the cache implementation, or <code>null</code> if the default {@link org.opencms.cache.CmsLruCache} is used
+     */
+    public String getEntryCacheClass() {
+
+        return m_entryCacheClass;
+    }
+
+    /**
+     * Returns the min. size of the output of a cache entry for storing a gzip compressed copy.<p>
+     *
+     * @return the min. size of the output of a cache entry for storing a gzip compressed copy
+     */
+    public int getGzipMinBytes() {
+
+        return m_gzipMinBytes;
+    }
+
     /**
      * Returns the maxCacheBytes.<p>
      *
@@ -145,6 +258,46 @@ public class CmsFlexCacheConfiguration {
         return m_maxKeys;
     }
 
+    /**
+     * Returns the block size of the off-heap store.<p>
+     *
+     * @return the block size of the off-heap store
+     */
+    public int getOffHeapBlockSize() {
+
+        return m_offHeapBlockSize;
+    }
+
+    /**
+     * Returns the publish invalidation mode.<p>
+     *
+     * @return the publish invalidation mode, either {@link #PUBLISH_INVALIDATION_ALL} or {@link #PUBLISH_INVALIDATION_SELECTIVE}
+     */
+    public String getPublishInvalidation() {
+
+        return m_publishInvalidation;
+    }
+
+    /**
+     * Returns the time in milliseconds a request waits for a concurrent render of the same cache entry.<p>
+     *
+     * @return the time in milliseconds a request waits for a concurrent render of the same cache entry
+     */
+    public long getSingleFlightTimeout() {
+
+        return m_singleFlightTimeout;
+    }
+
+    /**
+     * Returns the snapshot file, relative to the WEB-INF folder.<p>
+     *
+     * @return the snapshot file, relative to the WEB-INF folder
+     */
+    public String getSnapshotFile() {
+
+        return m_snapshotFile;
+    }
+
     /**
      * Initializes the flex cache configuration with required parameters.<p>
      *
@@ -191,6 +344,56 @@ public class CmsFlexCacheConfiguration {
         return m_cacheOffline;
     }
 
+    /**
+     * Checks if a gzip compressed copy of the output of top level cache entries is stored.<p>
+     *
+     * @return <code>true</code> if the gzip compressed copy is enabled
+     */
+    public boolean isGzip() {
+
+        return m_gzip;
+    }
+
+    /**
+     * Checks if the output of the cache entries is stored outside of the heap.<p>
+     *
+     * @return <code>true</code> if the output of the cache entries is stored outside of the heap
+     */
+    public boolean isOffHeap() {
+
+        return m_offHeap;
+    }
+
+    /**
+     * Checks if only the cache entries depending on the published resources are removed after a publish.<p>
+     *
+     * @return <code>true</code> if the selective publish invalidation is enabled
+     */
+    public boolean isSelectiveInvalidation() {
+
+        return PUBLISH_INVALIDATION_SELECTIVE.equals(m_publishInvalidation);
+    }
+
+    /**
+     * Checks if concurrent renders of the same cache entry variation are coalesced.<p>
+     *
+     * @return <code>true</code> if the single-flight rendering is enabled
+     */
+    public boolean isSingleFlight() {
+
+        return m_singleFlight;
+    }
+
+    /**
+     * Checks if the online entries are written to a snapshot on shutdown and restored on startup.<p>
+     *
+     * @return <code>true</code> if the snapshot is enabled
+     */
+    public boolean isSnapshot() {
+
+        return m_snapshot;
+    }
+
     /**
      * Sets the avgCacheBytes.<p>
      *
@@ -258,6 +461,40 @@ public class CmsFlexCacheConfiguration {
         }
     }
 
+    /**
+     * Sets the class name of the cache implementation for the cache entries.<p>
+     *
+     * The class must extend {@link org.opencms.cache.CmsLruCache} and provide the same public constructor,
+     * e.g. {@link org.opencms.cache.CmsClockCache}.<p>
+     *
+     * @param entryCacheClass the class name of the cache implementation
+     */
+    public void setEntryCacheClass(String entryCacheClass) {
+
+        m_entryCacheClass = entryCacheClass;
+    }
+
+    /**
+     * Enables or disables storing a gzip compressed copy of the output of top level cache entries.<p>
+     *
+     * The compressed copy is sent to clients accepting gzip, instead of compressing the output again on every hit.<p>
+     *
+     * @param enabled if the gzip compressed copy is enabled, <code>null</code> means enabled
+     * @param minBytes the min. size of the output for storing a compressed copy,
+     *      if <code>null</code> the default is used
+     */
+    public void setGzip(String enabled, String minBytes) {
+
+        m_gzip = (enabled == null) || Boolean.valueOf(enabled).booleanValue();
+        if (minBytes != null) {
+            try {
+                m_gzipMinBytes = Math.max(0, Integer.parseInt(minBytes.trim()));
+            } catch (NumberFormatException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+        }
+    }
+
     /**
      * Sets the maxCacheBytes.<p>
      *
@@ -287,4 +524,79 @@ public class CmsFlexCacheConfiguration {
 
         m_maxKeys = maxKeys;
     }
+
+    /**
+     * Enables or disables the storage of the cache entry output outside of the heap.<p>
+     *
+     * @param enabled if the off-heap storage is enabled, <code>null</code> means enabled
+     * @param blockSize the block size in bytes, if <code>null</code> the default block size is used
+     */
+    public void setOffHeap(String enabled, String blockSize) {
+
+        m_offHeap = (enabled == null) || Boolean.valueOf(enabled).booleanValue();
+        if (blockSize != null) {
+            try {
+                int size = Integer.parseInt(blockSize.trim());
+                if ((size > 0) && (size <= CmsFlexCacheOffHeapStore.SLAB_SIZE)) {
+                    m_offHeapBlockSize = size;
+                }
+            } catch (NumberFormatException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Sets the publish invalidation mode.<p>
+     *
+     * Unknown values are ignored and the complete cache is cleared after each publish.<p>
+     *
+     * @param publishInvalidation the publish invalidation mode to set
+     */
+    public void setPublishInvalidation(String publishInvalidation) {
+
+        if (PUBLISH_INVALIDATION_SELECTIVE.equalsIgnoreCase(publishInvalidation)) {
+            m_publishInvalidation = PUBLISH_INVALIDATION_SELECTIVE;
+        } else {
+            m_publishInvalidation = PUBLISH_INVALIDATION_ALL;
+        }
+    }
+
+    /**
+     * Enables or disables the single-flight rendering of cache misses.<p>
+     *
+     * If enabled, only the first of several concurrent requests for the same cache entry variation
+     * renders the resource, the other requests wait for the result up to the given timeout.<p>
+     *
+     * @param enabled if the single-flight rendering is enabled, <code>null</code> means enabled
+     * @param timeout the wait timeout in milliseconds, if <code>null</code> the default timeout is used
+     */
+    public void setSingleFlight(String enabled, String timeout) {
+
+        m_singleFlight = (enabled == null) || Boolean.valueOf(enabled).booleanValue();
+        if (timeout != null) {
+            try {
+                m_singleFlightTimeout = Long.parseLong(timeout.trim());
+            } catch (NumberFormatException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Enables or disables the snapshot of the online entries.<p>
+     *
+     * If enabled, the online entries are written to the snapshot file on shutdown,
+     * and are restored on the next startup unless the resources they depend on have been published.<p>
+     *
+     * @param enabled if the snapshot is enabled, <code>null</code> means enabled
+     * @param file the snapshot file relative to the WEB-INF folder, if <code>null</code> the default file is used
+     */
+    public void setSnapshot(String enabled, String file) {
+
+        m_snapshot = (enabled == null) || Boolean.valueOf(enabled).booleanValue();
+        if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(file)) {
+            m_snapshotFile = file.trim();
+        }
+    }
 }
@@ -0,0 +1,231 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsUUID;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Reverse index from VFS resources to the Flex cache entries that depend on them.<p>
+ *
+ * Every entry stored in the Flex cache is registered here with the structure ids and root paths
+ * of the resources that have been read while the entry was generated, and with the folders whose
+ * contents have been listed. After a publish, the published resources are looked up in this index,
+ * so that only the dependent entries have to be removed from the cache.<p>
+ *
+ * Entries without any recorded dependency can not be tracked, these are always reported as
+ * dependent on every published resource.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsFlexCacheDependencyIndex {
+
+    /** The entries by the root paths of the folders whose contents they have read. */
+    private Map<String, Set<CmsFlexCacheEntry>> m_entriesByFolder;
+
+    /** The entries by the structure ids of the resources they have read. */
+    private Map<CmsUUID, Set<CmsFlexCacheEntry>> m_entriesById;
+
+    /** The entries by the root paths of the resources they have read, sorted for sub-tree lookups. */
+    private SortedMap<String, Set<CmsFlexCacheEntry>> m_entriesByPath;
+
+    /** The entries that have no dependencies recorded. */
+    private Set<CmsFlexCacheEntry> m_untrackedEntries;
+
+    /**
+     * Creates a new, empty dependency index.<p>
+     */
+    public CmsFlexCacheDependencyIndex() {
+
+        m_entriesByFolder = new HashMap<String, Set<CmsFlexCacheEntry>>();
+        m_entriesById = new HashMap<CmsUUID, Set<CmsFlexCacheEntry>>();
+        m_entriesByPath = new TreeMap<String, Set<CmsFlexCacheEntry>>();
+        m_untrackedEntries = new HashSet<CmsFlexCacheEntry>();
+    }
+
+    /**
+     * Adds a cache entry with its dependencies to this index.<p>
+     *
+     * @param entry the cache entry to add
+     */
+    public synchronized void add(CmsFlexCacheEntry entry) {
+
+        if (!entry.hasDependencies()) {
+            m_untrackedEntries.add(entry);
+            return;
+        }
+        for (CmsUUID id : entry.getIdDependencies()) {
+            addToIndex(m_entriesById, id, entry);
+        }
+        for (String path : entry.getPathDependencies()) {
+            addToIndex(m_entriesByPath, path, entry);
+        }
+        for (String folder : entry.getFolderDependencies()) {
+            addToIndex(m_entriesByFolder, folder, entry);
+        }
+    }
+
+    /**
+     * Removes all entries from this index.<p>
+     */
+    public synchronized void clear() {
+
+        m_entriesByFolder.clear();
+        m_entriesById.clear();
+        m_entriesByPath.clear();
+        m_untrackedEntries.clear();
+    }
+
+    /**
+     * Returns all cache entries that depend on at least one of the given published resources.<p>
+     *
+     * A cache entry depends on a published resource if it has read the resource itself, identified
+     * either by structure id or by root path, if it has listed the contents of one of the parent folders
+     * of the resource, or if the resource is a folder and the entry has read a resource below this folder
+     * (e.g. because of inherited properties).<p>
+     *
+     * @param publishedResources the published resources
+     *
+     * @return all cache entries that depend on the given published resources
+     */
+    public synchronized Set<CmsFlexCacheEntry> getDependentEntries(Collection<CmsPublishedResource> publishedResources) {
+
+        Set<CmsFlexCacheEntry> result = new HashSet<CmsFlexCacheEntry>(m_untrackedEntries);
+        for (CmsPublishedResource pubRes : publishedResources) {
+            addAll(result, m_entriesById.get(pubRes.getStructureId()));
+            String rootPath = pubRes.getRootPath();
+            if (pubRes.isFolder()) {
+                // the folder itself and all resources below the folder
+                String folderPath = CmsResource.isFolder(rootPath) ? rootPath : rootPath + "/";
+                for (Set<CmsFlexCacheEntry> entries : m_entriesByPath.subMap(
+                    folderPath,
+                    folderPath + Character.MAX_VALUE).values()) {
+                    addAll(result, entries);
+                }
+            } else {
+                addAll(result, m_entriesByPath.get(rootPath));
+            }
+            // all listings of one of the parent folders
+            String parentFolder = CmsResource.getParentFolder(rootPath);
+            while (parentFolder != null) {
+                addAll(result, m_entriesByFolder.get(parentFolder));
+                parentFolder = CmsResource.getParentFolder(parentFolder);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes a cache entry from this index.<p>
+     *
+     * @param entry the cache entry to remove
+     */
+    public synchronized void remove(CmsFlexCacheEntry entry) {
+
+        if (!entry.hasDependencies()) {
+            m_untrackedEntries.remove(entry);
+            return;
+        }
+        for (CmsUUID id : entry.getIdDependencies()) {
+            removeFromIndex(m_entriesById, id, entry);
+        }
+        for (String path : entry.getPathDependencies()) {
+            removeFromIndex(m_entriesByPath, path, entry);
+        }
+        for (String folder : entry.getFolderDependencies()) {
+            removeFromIndex(m_entriesByFolder, folder, entry);
+        }
+    }
+
+    /**
+     * Returns the number of resources and folders that are tracked in this index.<p>
+     *
+     * @return the number of resources and folders that are tracked in this index
+     */
+    public synchronized int size() {
+
+        return m_entriesById.size() + m_entriesByPath.size() + m_entriesByFolder.size();
+    }
+
+    /**
+     * Adds all given entries to the result set, if not <code>null</code>.<p>
+     *
+     * @param result the result set
+     * @param entries the entries to add, may be <code>null</code>
+     */
+    private void addAll(Set<CmsFlexCacheEntry> result, Set<CmsFlexCacheEntry> entries) {
+
+        if (entries != null) {
+            result.addAll(entries);
+        }
+    }
+
+    /**
+     * Adds an entry to the given index map.<p>
+     *
+     * @param index the index map
+     * @param key the key to add the entry for
+     * @param entry the entry to add
+     */
+    private <K> void addToIndex(Map<K, Set<CmsFlexCacheEntry>> index, K key, CmsFlexCacheEntry entry) {
+
+        Set<CmsFlexCacheEntry> entries = index.get(key);
+        if (entries == null) {
+            entries = new HashSet<CmsFlexCacheEntry>();
+            index.put(key, entries);
+        }
+        entries.add(entry);
+    }
+
+    /**
+     * Removes an entry from the given index map, also removes the key if no entries are left.<p>
+     *
+     * @param index the index map
+     * @param key the key to remove the entry for
+     * @param entry the entry to remove
+     */
+    private <K> void removeFromIndex(Map<K, Set<CmsFlexCacheEntry>> index, K key, CmsFlexCacheEntry entry) {
+
+        Set<CmsFlexCacheEntry> entries = index.get(key);
+        if (entries != null) {
+            entries.remove(entry);
+            if (entries.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+}
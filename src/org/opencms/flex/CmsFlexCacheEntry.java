@@ -35,15 +35,23 @@ import org.opencms.main.CmsLog;
 import org.opencms.monitor.CmsMemoryMonitor;
 import org.opencms.monitor.I_CmsMemoryMonitorable;
 import org.opencms.util.CmsCollectionsGenericWrapper;
+import org.opencms.util.CmsUUID;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
 
 import javax.servlet.ServletException;
 
@@ -61,6 +69,8 @@ import org.apache.commons.logging.Log;
  * nothing else will be cached.<p>
  *
  * The pre-generated output is saved in <code>byte[]</code> arrays.
+ * If the Flex cache stores the output off-heap, the arrays are replaced by
+ * {@link CmsFlexCacheOffHeapSegment} objects when the entry is added to the cache.
  * The include() calls are saved as Strings of the included resource name,
  * the parameters for the calls are saved in a HashMap.
  * The headers are saved in a HashMap.
@@ -69,6 +79,9 @@ import org.apache.commons.logging.Log;
  * The CmsFlexCacheEntry can also have an expire date value, which indicates the time
  * that his entry will become invalid and should thus be cleared from the cache.<p>
  *
+ * The VFS resources read while the entry was generated are stored as dependencies,
+ * these are used to remove the entry from the cache selectively after a publish.<p>
+ *
  * @since 6.0.0
  *
  * @see org.opencms.cache.I_CmsLruCacheObject
@@ -81,27 +94,57 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsFlexCacheEntry.class);
 
+    /** Snapshot element type for output bytes. */
+    private static final byte SNAPSHOT_BYTES = 0;
+
+    /** Snapshot element type for an include call. */
+    private static final byte SNAPSHOT_INCLUDE = 1;
+
     /** The CacheEntry's size in bytes. */
     private int m_byteSize;
 
     /** Indicates if this cache entry is completed. */
     private boolean m_completed;
 
+    /** The gzip compressed copy of the output, <code>null</code> if no compressed copy is stored. */
+    private byte[] m_compressedOutput;
+
     /** The "expires" date for this Flex cache entry. */
     private long m_dateExpires;
 
     /** The "last modified" date for this Flex cache entry. */
     private long m_dateLastModified;
 
+    /** The time this entry has been marked as stale, or 0 if the entry is not stale. */
+    private volatile long m_dateStale;
+
+    /** The dependency index this entry is registered in. */
+    private CmsFlexCacheDependencyIndex m_dependencyIndex;
+
     /** The list of items for this resource. */
     private List<Object> m_elements;
 
+    /** The root paths of the folders whose contents have been read to generate this entry. */
+    private Set<String> m_folderDependencies;
+
     /** A Map of cached headers for this resource. */
     private Map<String, List<String>> m_headers;
 
+    /** The structure ids of the resources read to generate this entry. */
+    private Set<CmsUUID> m_idDependencies;
+
     /** Pointer to the next cache entry in the LRU cache. */
     private I_CmsLruCacheObject m_next;
 
+    /** The off-heap store holding the output segments of this entry, or <code>null</code> if stored on the heap. */
+    private CmsFlexCacheOffHeapStore m_offHeapStore;
+
+    /** The number of users of the off-heap segments, the cache itself counts as one user. */
+    private AtomicInteger m_offHeapUsers;
+
+    /** The root paths of the resources read to generate this entry. */
+    private Set<String> m_pathDependencies;
+
     /** Pointer to the previous cache entry in the LRU cache. */
     private I_CmsLruCacheObject m_previous;
 
@@ -111,6 +154,9 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
     /** A redirection target (if redirection is set). */
     private String m_redirectTarget;
 
+    /** The time in milliseconds this entry may still be served after it has been marked as stale. */
+    private long m_staleTimeout;
+
     /** The key under which this cache entry is stored in the variation map. */
     private String m_variationKey;
 
@@ -128,6 +174,9 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         m_elements = new ArrayList<Object>(INITIAL_CAPACITY_LISTS);
         m_dateExpires = CmsResource.DATE_EXPIRED_DEFAULT;
         m_dateLastModified = -1;
+        m_folderDependencies = new HashSet<String>();
+        m_idDependencies = new HashSet<CmsUUID>();
+        m_pathDependencies = new HashSet<String>();
         // base memory footprint of this object with all referenced objects
         m_byteSize = 1024;
 
@@ -135,6 +184,118 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         setPreviousLruObject(null);
     }
 
+    /**
+     * Reads a completed cache entry from a snapshot written with {@link #writeSnapshot(DataOutputStream)}.<p>
+     *
+     * @param in the stream to read the entry from
+     *
+     * @return the completed cache entry
+     *
+     * @throws IOException in case reading from the stream fails
+     */
+    static CmsFlexCacheEntry readSnapshot(DataInputStream in) throws IOException {
+
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        long dateExpires = in.readLong();
+        long dateLastModified = in.readLong();
+        long staleTimeout = in.readLong();
+        if (in.readBoolean()) {
+            String target = in.readUTF();
+            entry.setRedirect(target, in.readBoolean());
+        } else {
+            int headerCount = in.readInt();
+            if (headerCount >= 0) {
+                Map<String, List<String>> headers = new HashMap<String, List<String>>(headerCount);
+                for (int i = 0; i < headerCount; i++) {
+                    String name = in.readUTF();
+                    int valueCount = in.readInt();
+                    List<String> values = new ArrayList<String>(valueCount);
+                    for (int j = 0; j < valueCount; j++) {
+                        values.add(in.readUTF());
+                    }
+                    headers.put(name, values);
+                }
+                entry.addHeaders(headers);
+            }
+            int elementCount = in.readInt();
+            for (int i = 0; i < elementCount; i++) {
+                if (in.readByte() == SNAPSHOT_INCLUDE) {
+                    String resource = in.readUTF();
+                    int paramCount = in.readInt();
+                    Map<String, String[]> params = new HashMap<String, String[]>(paramCount);
+                    for (int j = 0; j < paramCount; j++) {
+                        String name = in.readUTF();
+                        String[] values = new String[in.readInt()];
+                        for (int k = 0; k < values.length; k++) {
+                            values[k] = in.readUTF();
+                        }
+                        params.put(name, values);
+                    }
+                    int attrCount = in.readInt();
+                    Map<String, Object> attrs = new HashMap<String, Object>(attrCount);
+                    for (int j = 0; j < attrCount; j++) {
+                        String name = in.readUTF();
+                        attrs.put(name, in.readUTF());
+                    }
+                    entry.add(resource, params, attrs);
+                } else {
+                    byte[] bytes = new byte[in.readInt()];
+                    in.readFully(bytes);
+                    entry.add(bytes);
+                }
+            }
+        }
+        entry.complete();
+        int idCount = in.readInt();
+        for (int i = 0; i < idCount; i++) {
+            entry.m_idDependencies.add(new CmsUUID(in.readUTF()));
+            entry.m_byteSize += 64;
+        }
+        readSnapshotPaths(in, entry, entry.m_pathDependencies);
+        readSnapshotPaths(in, entry, entry.m_folderDependencies);
+        entry.m_dateExpires = dateExpires;
+        entry.m_dateLastModified = dateLastModified;
+        entry.m_staleTimeout = staleTimeout;
+        return entry;
+    }
+
+    /**
+     * Reads a set of dependency paths from a snapshot.<p>
+     *
+     * @param in the stream to read from
+     * @param entry the entry the paths are read for
+     * @param paths the set to add the paths to
+     *
+     * @throws IOException in case reading from the stream fails
+     */
+    private static void readSnapshotPaths(DataInputStream in, CmsFlexCacheEntry entry, Set<String> paths)
+    throws IOException {
+
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String path = in.readUTF();
+            if (paths.add(path)) {
+                entry.m_byteSize += CmsMemoryMonitor.getMemorySize(path);
+            }
+        }
+    }
+
+    /**
+     * Writes a set of dependency paths to a snapshot.<p>
+     *
+     * @param out the stream to write to
+     * @param paths the paths to write
+     *
+     * @throws IOException in case writing to the stream fails
+     */
+    private static void writeSnapshotPaths(DataOutputStream out, Set<String> paths) throws IOException {
+
+        out.writeInt(paths.size());
+        for (String path : paths) {
+            out.writeUTF(path);
+        }
+    }
+
     /**
      * Adds an array of bytes to this cache entry,
      * this will usually be the result of some kind of output - stream.<p>
@@ -182,6 +343,49 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         }
     }
 
+    /**
+     * Adds the dependencies collected in the given request context info to this cache entry.<p>
+     *
+     * This must be called before the entry is put in the cache, since the cache costs are updated.<p>
+     *
+     * @param info the request context info with the dependencies to add
+     */
+    public void addDependencies(CmsFlexRequestContextInfo info) {
+
+        for (CmsUUID id : info.getIdDependencies()) {
+            if (m_idDependencies.add(id)) {
+                m_byteSize += 64;
+            }
+        }
+        for (String path : info.getPathDependencies()) {
+            if (m_pathDependencies.add(path)) {
+                m_byteSize += CmsMemoryMonitor.getMemorySize(path);
+            }
+        }
+        for (String folder : info.getFolderDependencies()) {
+            if (m_folderDependencies.add(folder)) {
+                m_byteSize += CmsMemoryMonitor.getMemorySize(folder);
+            }
+        }
+    }
+
+    /**
+     * Adds a single resource to the dependencies of this cache entry.<p>
+     *
+     * This must be called before the entry is put in the cache, since the cache costs are updated.<p>
+     *
+     * @param resource the resource to add as dependency
+     */
+    public void addDependency(CmsResource resource) {
+
+        if (m_idDependencies.add(resource.getStructureId())) {
+            m_byteSize += 64;
+        }
+        if (m_pathDependencies.add(resource.getRootPath())) {
+            m_byteSize += CmsMemoryMonitor.getMemorySize(resource.getRootPath());
+        }
+    }
+
     /**
      * Add a map of headers to this cache entry,
      * which are usually collected in the class CmsFlexResponse first.<p>
@@ -236,6 +440,48 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         }
     }
 
+    /**
+     * Stores a gzip compressed copy of the output of this entry.<p>
+     *
+     * This is only done for completed entries whose output consists of a single byte array,
+     * i.e. for entries without include calls, and only if the compressed copy is smaller than the output.
+     * The compressed copy is always kept on the heap.<p>
+     *
+     * This must be called before the entry is put in the cache, since the cache costs are updated.<p>
+     *
+     * @param minBytes the min. size of the output for storing a compressed copy
+     *
+     * @return <code>true</code> if a compressed copy has been stored
+     */
+    public boolean compress(int minBytes) {
+
+        if (!m_completed
+            || (m_redirectTarget != null)
+            || (m_compressedOutput != null)
+            || (m_elements.size() != 1)
+            || !(m_elements.get(0) instanceof byte[])) {
+            return false;
+        }
+        byte[] bytes = (byte[])m_elements.get(0);
+        if (bytes.length < minBytes) {
+            return false;
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length / 2);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(bytes);
+        } catch (IOException e) {
+            // should never happen when writing to a byte array
+            LOG.error(e.getLocalizedMessage(), e);
+            return false;
+        }
+        if (buffer.size() >= bytes.length) {
+            return false;
+        }
+        m_compressedOutput = buffer.toByteArray();
+        m_byteSize += m_compressedOutput.length;
+        return true;
+    }
+
     /**
      * Returns the list of data entries of this cache entry.<p>
      *
@@ -249,6 +495,18 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         return m_elements;
     }
 
+    /**
+     * Returns the gzip compressed copy of the output of this entry.<p>
+     *
+     * @return the gzip compressed copy of the output, or <code>null</code> if no compressed copy is stored
+     *
+     * @see #compress(int)
+     */
+    public byte[] getCompressedOutput() {
+
+        return m_compressedOutput;
+    }
+
     /**
      * Returns the expiration date of this cache entry,
      * this is set to the time when the entry becomes invalid.<p>
@@ -270,6 +528,41 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         return m_dateLastModified;
     }
 
+    /**
+     * Returns the time until this entry may be served if it has been marked as stale.<p>
+     *
+     * @return the time until this stale entry may be served,
+     *      or {@link CmsResource#DATE_EXPIRED_DEFAULT} if the entry is not stale
+     */
+    public long getDateStaleExpires() {
+
+        long dateStale = m_dateStale;
+        if (dateStale == 0) {
+            return CmsResource.DATE_EXPIRED_DEFAULT;
+        }
+        return dateStale + m_staleTimeout;
+    }
+
+    /**
+     * Returns the root paths of the folders whose contents have been read to generate this entry.<p>
+     *
+     * @return the root paths of the folders whose contents have been read to generate this entry
+     */
+    public Set<String> getFolderDependencies() {
+
+        return Collections.unmodifiableSet(m_folderDependencies);
+    }
+
+    /**
+     * Returns the structure ids of the resources read to generate this entry.<p>
+     *
+     * @return the structure ids of the resources read to generate this entry
+     */
+    public Set<CmsUUID> getIdDependencies() {
+
+        return Collections.unmodifiableSet(m_idDependencies);
+    }
+
     /**
      * @see org.opencms.cache.I_CmsLruCacheObject#getLruCacheCosts()
      */
@@ -294,6 +587,16 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         return m_next;
     }
 
+    /**
+     * Returns the root paths of the resources read to generate this entry.<p>
+     *
+     * @return the root paths of the resources read to generate this entry
+     */
+    public Set<String> getPathDependencies() {
+
+        return Collections.unmodifiableSet(m_pathDependencies);
+    }
+
     /**
      * @see org.opencms.cache.I_CmsLruCacheObject#getPreviousLruObject()
      */
@@ -310,6 +613,118 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         return m_elements;
     }
 
+    /**
+     * Returns the key under which this cache entry is stored in the variation map.<p>
+     *
+     * @return the key under which this cache entry is stored in the variation map
+     */
+    public String getVariationKey() {
+
+        return m_variationKey;
+    }
+
+    /**
+     * Returns <code>true</code> if dependencies have been recorded for this entry.<p>
+     *
+     * Entries without dependencies can not be selectively removed from the cache after a publish.<p>
+     *
+     * @return <code>true</code> if dependencies have been recorded for this entry
+     */
+    public boolean hasDependencies() {
+
+        return !m_pathDependencies.isEmpty() || !m_idDependencies.isEmpty() || !m_folderDependencies.isEmpty();
+    }
+
+    /**
+     * Returns <code>true</code> if the output of this entry is stored outside of the heap.<p>
+     *
+     * @return <code>true</code> if the output of this entry is stored outside of the heap
+     */
+    public boolean isOffHeap() {
+
+        return m_offHeapStore != null;
+    }
+
+    /**
+     * Returns <code>true</code> if this entry has been marked as stale.<p>
+     *
+     * @return <code>true</code> if this entry has been marked as stale
+     *
+     * @see #markStale()
+     */
+    public boolean isStale() {
+
+        return m_dateStale != 0;
+    }
+
+    /**
+     * Marks this entry as stale, if it may be served after it has been invalidated.<p>
+     *
+     * A stale entry is still served until it has been rendered again,
+     * but not longer than the configured stale timeout.<p>
+     *
+     * @return <code>true</code> if the entry has been marked as stale,
+     *      <code>false</code> if it must be removed from the cache instead
+     *
+     * @see #setStaleTimeout(long)
+     */
+    public boolean markStale() {
+
+        if (m_staleTimeout <= 0) {
+            return false;
+        }
+        if (m_dateStale == 0) {
+            m_dateStale = System.currentTimeMillis();
+        }
+        return true;
+    }
+
+    /**
+     * Moves the output of this completed entry to the given off-heap store.<p>
+     *
+     * Output that does not fit into the store anymore is kept on the heap.
+     * This must be called before the entry is put in the cache.<p>
+     *
+     * @param store the off-heap store
+     */
+    public void moveToOffHeap(CmsFlexCacheOffHeapStore store) {
+
+        if (!m_completed || (m_elements == null) || (m_offHeapStore != null)) {
+            return;
+        }
+        List<Object> elements = new ArrayList<Object>(m_elements.size());
+        boolean moved = false;
+        for (Object o : m_elements) {
+            if ((o instanceof byte[]) && (((byte[])o).length > 0)) {
+                CmsFlexCacheOffHeapSegment segment = store.allocate((byte[])o);
+                if (segment != null) {
+                    elements.add(segment);
+                    moved = true;
+                    continue;
+                }
+            }
+            elements.add(o);
+        }
+        if (moved) {
+            m_elements = Collections.unmodifiableList(elements);
+            m_offHeapUsers = new AtomicInteger(1);
+            m_offHeapStore = store;
+        }
+    }
+
+    /**
+     * Releases the off-heap output of this entry once the entry is not used anymore.<p>
+     *
+     * Called when the entry is removed from the cache. Requests currently serving this entry
+     * can finish, afterwards the off-heap blocks are returned to the store.<p>
+     */
+    public void releaseOffHeap() {
+
+        if (m_offHeapStore != null) {
+            releaseOffHeapUser();
+        }
+    }
+
     /**
      * @see org.opencms.cache.I_CmsLruCacheObject#removeFromLruCache()
      */
@@ -318,6 +733,11 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         if ((m_variationMap != null) && (m_variationKey != null)) {
             m_variationMap.remove(m_variationKey);
         }
+        if (m_dependencyIndex != null) {
+            m_dependencyIndex.remove(this);
+            m_dependencyIndex = null;
+        }
+        releaseOffHeap();
         if (LOG.isDebugEnabled()) {
             LOG.debug(
                 Messages.get().getBundle().key(
@@ -333,78 +753,49 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
      * the cached entry to the given request / response.
      * This includes calls to all included resources.<p>
      *
+     * If the output of this entry is stored off-heap and the entry has been removed from the cache
+     * in the meantime, nothing is written and <code>false</code> is returned. In this case the caller
+     * has to generate the output itself.<p>
+     *
      * @param req the request from the client
      * @param res the server response
      *
+     * @return <code>false</code> if the output of this entry is not available anymore
+     *
      * @throws CmsFlexCacheException is thrown when problems writing to the response output-stream occur
      * @throws ServletException might be thrown from call to RequestDispatcher.include()
      * @throws IOException might be thrown from call to RequestDispatcher.include() or from Response.sendRedirect()
      */
-    public void service(CmsFlexRequest req, CmsFlexResponse res)
+    public boolean service(CmsFlexRequest req, CmsFlexResponse res)
     throws CmsFlexCacheException, ServletException, IOException {
 
         if (!m_completed) {
-            return;
+            return true;
         }
-
-        if (m_redirectTarget != null) {
-            res.setOnlyBuffering(false);
-            res.setCmsCachingRequired(false);
-            // redirect the response, no further output required
-            res.sendRedirect(m_redirectTarget, m_redirectPermanent);
-        } else {
-            // process cached headers first
-            CmsFlexResponse.processHeaders(m_headers, res);
-            // check if this cache entry is a "leaf" (i.e. no further includes)
-            boolean hasNoSubElements = (m_elements.size() == 1);
-            // write output to stream and process all included elements
-            for (int i = 0; i < m_elements.size(); i++) {
-                Object o = m_elements.get(i);
-                if (o instanceof String) {
-                    // handle cached parameters
-                    i++;
-                    Map<String, String[]> paramMap = CmsCollectionsGenericWrapper.map(m_elements.get(i));
-                    Map<String, String[]> oldParamMap = null;
-                    if (paramMap.size() > 0) {
-                        oldParamMap = req.getParameterMap();
-                        req.addParameterMap(paramMap);
-                    }
-                    // handle cached attributes
-                    i++;
-                    Map<String, Object> attrMap = CmsCollectionsGenericWrapper.map(m_elements.get(i));
-                    Map<String, Object> oldAttrMap = null;
-                    if (attrMap.size() > 0) {
-                        oldAttrMap = req.getAttributeMap();
-                        // to avoid issues with multi threading, try to clone the attribute instances
-                        req.addAttributeMap(cloneAttributes(attrMap));
-                        //req.addAttributeMap(attrMap);
-                    }
-                    // do the include call
-                    req.getRequestDispatcher((String)o).include(req, res);
-                    // reset parameters if necessary
-                    if (oldParamMap != null) {
-                        req.setParameterMap(oldParamMap);
-                    }
-                    // reset attributes if necessary
-                    if (oldAttrMap != null) {
-                        req.setAttributeMap(oldAttrMap);
-                    }
-                } else {
-                    try {
-                        res.writeToOutputStream((byte[])o, hasNoSubElements);
-                    } catch (IOException e) {
-                        CmsMessageContainer message = Messages.get().container(
-                            Messages.LOG_FLEXCACHEKEY_NOT_FOUND_1,
-                            getClass().getName());
-                        if (LOG.isDebugEnabled()) {
-                            LOG.debug(message.key());
-                        }
-
-                        throw new CmsFlexCacheException(message, e);
-                    }
-                }
+        if ((m_offHeapStore != null) && !acquireOffHeapUser()) {
+            // the entry has been removed from the cache and the off-heap blocks have been freed
+            return false;
+        }
+        try {
+            serviceElements(req, res);
+        } finally {
+            if (m_offHeapStore != null) {
+                releaseOffHeapUser();
             }
         }
+        return true;
+    }
+
+    /**
+     * Stores a backward reference to the dependency index this cache entry is registered in.<p>
+     *
+     * This is required for the FlexCache.<p>
+     *
+     * @param dependencyIndex the dependency index
+     */
+    public void setDependencyIndex(CmsFlexCacheDependencyIndex dependencyIndex) {
+
+        m_dependencyIndex = dependencyIndex;
     }
 
     /**
@@ -518,6 +909,16 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         m_headers = null;
     }
 
+    /**
+     * Sets the time in milliseconds this entry may still be served after it has been marked as stale.<p>
+     *
+     * @param staleTimeout the time in milliseconds this entry may still be served after it has been marked as stale
+     */
+    public void setStaleTimeout(long staleTimeout) {
+
+        m_staleTimeout = staleTimeout;
+    }
+
     /**
      * Stores a backward reference to the map and key where this cache entry is stored.<p>
      *
@@ -543,17 +944,32 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         String str = null;
         if (m_redirectTarget == null) {
             str = "CmsFlexCacheEntry [" + m_elements.size() + " Elements/" + getLruCacheCosts() + " bytes]\n";
-            Iterator<Object> i = m_elements.iterator();
-            int count = 0;
-            while (i.hasNext()) {
-                count++;
-                Object o = i.next();
-                if (o instanceof String) {
-                    str += "" + count + " - <cms:include target=" + o + ">\n";
-                } else if (o instanceof byte[]) {
-                    str += "" + count + " - <![CDATA[" + new String((byte[])o) + "]]>\n";
-                } else {
-                    str += "<!--[" + o.toString() + "]-->";
+            // the off-heap output must not be freed while it is read, it is skipped if it has already been freed
+            boolean offHeap = (m_offHeapStore != null) && acquireOffHeapUser();
+            try {
+                Iterator<Object> i = m_elements.iterator();
+                int count = 0;
+                while (i.hasNext()) {
+                    count++;
+                    Object o = i.next();
+                    if (o instanceof String) {
+                        str += "" + count + " - <cms:include target=" + o + ">\n";
+                    } else if (o instanceof byte[]) {
+                        str += "" + count + " - <![CDATA[" + new String((byte[])o) + "]]>\n";
+                    } else if (o instanceof CmsFlexCacheOffHeapSegment) {
+                        if (offHeap) {
+                            byte[] bytes = ((CmsFlexCacheOffHeapSegment)o).getBytes();
+                            str += "" + count + " - <![CDATA[" + new String(bytes) + "]]>\n";
+                        } else {
+                            str += "" + count + " - <!--[released off-heap output]-->\n";
+                        }
+                    } else {
+                        str += "<!--[" + o.toString() + "]-->";
+                    }
+                }
+            } finally {
+                if (offHeap) {
+                    releaseOffHeapUser();
                 }
             }
         } else {
@@ -562,6 +978,133 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         return str;
     }
 
+    /**
+     * Writes this entry to a snapshot, so that it can be restored with {@link #readSnapshot(DataInputStream)}.<p>
+     *
+     * Entries that are not completed or stale, and entries with include calls that use request attributes
+     * other than Strings, can not be written. In this case nothing is written and <code>false</code> is returned.<p>
+     *
+     * @param out the stream to write the entry to
+     *
+     * @return <code>true</code> if the entry has been written
+     *
+     * @throws IOException in case writing to the stream fails
+     */
+    boolean writeSnapshot(DataOutputStream out) throws IOException {
+
+        if (!m_completed || isStale()) {
+            return false;
+        }
+        if (m_elements != null) {
+            for (int i = 0; i < m_elements.size(); i++) {
+                if (m_elements.get(i) instanceof String) {
+                    // skip the parameters and check the attributes of the include call
+                    i += 2;
+                    Map<String, Object> attrs = CmsCollectionsGenericWrapper.map(m_elements.get(i));
+                    for (Object value : attrs.values()) {
+                        if (!(value instanceof String)) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+        if ((m_offHeapStore != null) && !acquireOffHeapUser()) {
+            // the entry has been removed from the cache and the off-heap blocks have been freed
+            return false;
+        }
+        try {
+            out.writeLong(m_dateExpires);
+            out.writeLong(m_dateLastModified);
+            out.writeLong(m_staleTimeout);
+            out.writeBoolean(m_redirectTarget != null);
+            if (m_redirectTarget != null) {
+                out.writeUTF(m_redirectTarget);
+                out.writeBoolean(m_redirectPermanent);
+            } else {
+                if (m_headers == null) {
+                    out.writeInt(-1);
+                } else {
+                    out.writeInt(m_headers.size());
+                    for (Map.Entry<String, List<String>> header : m_headers.entrySet()) {
+                        out.writeUTF(header.getKey());
+                        out.writeInt(header.getValue().size());
+                        for (String value : header.getValue()) {
+                            out.writeUTF(value);
+                        }
+                    }
+                }
+                int elementCount = 0;
+                for (Object o : m_elements) {
+                    if (!(o instanceof Map)) {
+                        elementCount++;
+                    }
+                }
+                out.writeInt(elementCount);
+                for (int i = 0; i < m_elements.size(); i++) {
+                    Object o = m_elements.get(i);
+                    if (o instanceof String) {
+                        out.writeByte(SNAPSHOT_INCLUDE);
+                        out.writeUTF((String)o);
+                        i++;
+                        Map<String, String[]> params = CmsCollectionsGenericWrapper.map(m_elements.get(i));
+                        out.writeInt(params.size());
+                        for (Map.Entry<String, String[]> param : params.entrySet()) {
+                            out.writeUTF(param.getKey());
+                            out.writeInt(param.getValue().length);
+                            for (String value : param.getValue()) {
+                                out.writeUTF(value);
+                            }
+                        }
+                        i++;
+                        Map<String, Object> attrs = CmsCollectionsGenericWrapper.map(m_elements.get(i));
+                        out.writeInt(attrs.size());
+                        for (Map.Entry<String, Object> attr : attrs.entrySet()) {
+                            out.writeUTF(attr.getKey());
+                            out.writeUTF((String)attr.getValue());
+                        }
+                    } else {
+                        byte[] bytes = (o instanceof CmsFlexCacheOffHeapSegment)
+                        ? ((CmsFlexCacheOffHeapSegment)o).getBytes()
+                        : (byte[])o;
+                        out.writeByte(SNAPSHOT_BYTES);
+                        out.writeInt(bytes.length);
+                        out.write(bytes);
+                    }
+                }
+            }
+            out.writeInt(m_idDependencies.size());
+            for (CmsUUID id : m_idDependencies) {
+                out.writeUTF(id.toString());
+            }
+            writeSnapshotPaths(out, m_pathDependencies);
+            writeSnapshotPaths(out, m_folderDependencies);
+        } finally {
+            if (m_offHeapStore != null) {
+                releaseOffHeapUser();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Registers a new user of the off-heap output of this entry.<p>
+     *
+     * @return <code>false</code> if the off-heap output has already been freed
+     */
+    private boolean acquireOffHeapUser() {
+
+        while (true) {
+            int users = m_offHeapUsers.get();
+            if (users <= 0) {
+                return false;
+            }
+            if (m_offHeapUsers.compareAndSet(users, users + 1)) {
+                return true;
+            }
+        }
+    }
+
     /**
      * Clones the attribute instances if possible.<p>
      *
@@ -592,4 +1135,102 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
 
         return result;
     }
+
+    /**
+     * Unregisters a user of the off-heap output of this entry, frees the output if it was the last user.<p>
+     */
+    private void releaseOffHeapUser() {
+
+        if (m_offHeapUsers.decrementAndGet() == 0) {
+            for (Object o : m_elements) {
+                if (o instanceof CmsFlexCacheOffHeapSegment) {
+                    m_offHeapStore.free((CmsFlexCacheOffHeapSegment)o);
+                }
+            }
+        }
+    }
+
+    /**
+     * Delivers the contents of this cached entry to the given request / response.<p>
+     *
+     * @param req the request from the client
+     * @param res the server response
+     *
+     * @throws CmsFlexCacheException is thrown when problems writing to the response output-stream occur
+     * @throws ServletException might be thrown from call to RequestDispatcher.include()
+     * @throws IOException might be thrown from call to RequestDispatcher.include() or from Response.sendRedirect()
+     */
+    private void serviceElements(CmsFlexRequest req, CmsFlexResponse res)
+    throws CmsFlexCacheException, ServletException, IOException {
+
+        if (m_redirectTarget != null) {
+            res.setOnlyBuffering(false);
+            res.setCmsCachingRequired(false);
+            // redirect the response, no further output required
+            res.sendRedirect(m_redirectTarget, m_redirectPermanent);
+        } else {
+            // process cached headers first
+            CmsFlexResponse.processHeaders(m_headers, res);
+            // check if this cache entry is a "leaf" (i.e. no further includes)
+            boolean hasNoSubElements = (m_elements.size() == 1);
+            // write output to stream and process all included elements
+            for (int i = 0; i < m_elements.size(); i++) {
+                Object o = m_elements.get(i);
+                if (o instanceof String) {
+                    // handle cached parameters
+                    i++;
+                    Map<String, String[]> paramMap = CmsCollectionsGenericWrapper.map(m_elements.get(i));
+                    Map<String, String[]> oldParamMap = null;
+                    if (paramMap.size() > 0) {
+                        oldParamMap = req.getParameterMap();
+                        req.addParameterMap(paramMap);
+                    }
+                    // handle cached attributes
+                    i++;
+                    Map<String, Object> attrMap = CmsCollectionsGenericWrapper.map(m_elements.get(i));
+                    Map<String, Object> oldAttrMap = null;
+                    if (attrMap.size() > 0) {
+                        oldAttrMap = req.getAttributeMap();
+                        // to avoid issues with multi threading, try to clone the attribute instances
+                        req.addAttributeMap(cloneAttributes(attrMap));
+                        //req.addAttributeMap(attrMap);
+                    }
+                    // do the include call
+                    req.getRequestDispatcher((String)o).include(req, res);
+                    // reset parameters if necessary
+                    if (oldParamMap != null) {
+                        req.setParameterMap(oldParamMap);
+                    }
+                    // reset attributes if necessary
+                    if (oldAttrMap != null) {
+                        req.setAttributeMap(oldAttrMap);
+                    }
+                } else {
+                    try {
+                        int length;
+                        if (o instanceof CmsFlexCacheOffHeapSegment) {
+                            res.writeToOutputStream((CmsFlexCacheOffHeapSegment)o, hasNoSubElements);
+                            length = ((CmsFlexCacheOffHeapSegment)o).getLength();
+                        } else {
+                            res.writeToOutputStream((byte[])o, hasNoSubElements);
+                            length = ((byte[])o).length;
+                        }
+                        if (m_compressedOutput != null) {
+                            // the compressed copy may be sent to the client instead of the written output
+                            CmsFlexController.getController(req).setCompressedOutput(m_compressedOutput, length);
+                        }
+                    } catch (IOException e) {
+                        CmsMessageContainer message = Messages.get().container(
+                            Messages.LOG_FLEXCACHEKEY_NOT_FOUND_1,
+                            getClass().getName());
+                        if (LOG.isDebugEnabled()) {
+                            LOG.debug(message.key());
+                        }
+
+                        throw new CmsFlexCacheException(message, e);
+                    }
+                }
+            }
+        }
+    }
 }
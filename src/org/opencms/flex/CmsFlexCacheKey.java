@@ -119,6 +119,9 @@ public class CmsFlexCacheKey {
     /** Flex cache keyword: container-element. */
     private static final String CACHE_21_CONTAINER_ELEMENT = "container-element";
 
+    /** Flex cache keyword: stale. */
+    private static final String CACHE_22_STALE = "stale";
+
     /** The list of keywords of the Flex cache language. */
     private static final List<String> CACHE_COMMANDS = Arrays.asList(
         new String[] {
@@ -143,7 +146,8 @@ public class CmsFlexCacheKey {
             CACHE_18_ATTRS,
             CACHE_19_NO_ATTRS,
             CACHE_20_DEVICE,
-            CACHE_21_CONTAINER_ELEMENT});
+            CACHE_21_CONTAINER_ELEMENT,
+            CACHE_22_STALE});
 
     /** Marker to identify use of certain String key members (uri, ip etc.). */
     private static final String IS_USED = "/ /";
@@ -157,6 +161,9 @@ public class CmsFlexCacheKey {
     /** Cache key variable: List of attributes. */
     private Set<String> m_attrs;
 
+    /** The cache directives this key has been created from. */
+    private String m_cacheDirectives;
+
     /** Cache key variable: The current container element. */
     private String m_containerElement;
 
@@ -202,6 +209,9 @@ public class CmsFlexCacheKey {
     /** Cache key variable: The current site root. */
     private String m_site;
 
+    /** Cache key variable: Number of seconds an invalidated entry of the resource may still be served. */
+    private long m_stale;
+
     /** Cache key variable: Timeout of the resource. */
     private long m_timeout;
 
@@ -233,9 +243,11 @@ public class CmsFlexCacheKey {
     public CmsFlexCacheKey(String resourcename, String cacheDirectives, boolean online) {
 
         m_resource = getKeyName(resourcename, online);
+        m_cacheDirectives = cacheDirectives;
         m_variation = "never";
         m_always = -1;
         m_timeout = -1;
+        m_stale = -1;
         if (cacheDirectives != null) {
             parseFlexKey(cacheDirectives);
         }
@@ -686,6 +698,13 @@ public class CmsFlexCacheKey {
             str.append(m_timeout);
             str.append(");");
         }
+        if (m_stale >= 0) {
+            // add stale
+            str.append(CACHE_22_STALE);
+            str.append("=(");
+            str.append(m_stale);
+            str.append(");");
+        }
         if (m_schemes != null) {
             // add schemes
             str.append(CACHE_08_SCHEMES);
@@ -727,6 +746,16 @@ public class CmsFlexCacheKey {
         return str.toString();
     }
 
+    /**
+     * Returns the cache directives this key has been created from.<p>
+     *
+     * @return the cache directives this key has been created from, may be <code>null</code>
+     */
+    protected String getCacheDirectives() {
+
+        return m_cacheDirectives;
+    }
+
     /**
      * Returns the resource.<p>
      *
@@ -737,6 +766,17 @@ public class CmsFlexCacheKey {
         return m_resource;
     }
 
+    /**
+     * Returns the number of seconds an invalidated entry of the resource may still be served
+     * while it is rendered again.<p>
+     *
+     * @return the number of seconds an invalidated entry may still be served, or -1 if not set
+     */
+    protected long getStale() {
+
+        return m_stale;
+    }
+
     /**
      * Returns the timeout.<p>
      *
@@ -900,6 +940,9 @@ public class CmsFlexCacheKey {
                     case 21: // container element
                         m_containerElement = IS_USED;
                         break;
+                    case 22: // stale
+                        m_stale = Integer.parseInt(v);
+                        break;
                     default: // unknown directive, throw error
                         m_parseError = true;
                 }
@@ -0,0 +1,128 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A segment of cached output that is stored outside of the Java heap.<p>
+ *
+ * The bytes are stored in fixed size blocks allocated by a {@link CmsFlexCacheOffHeapStore}.
+ * A segment is immutable, it can be written concurrently by any number of threads
+ * until it is released with {@link CmsFlexCacheOffHeapStore#free(CmsFlexCacheOffHeapSegment)}.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsFlexCacheOffHeapSegment {
+
+    /** The blocks holding the bytes of this segment. */
+    private ByteBuffer[] m_blocks;
+
+    /** The number of bytes in this segment. */
+    private int m_length;
+
+    /**
+     * Creates a new segment.<p>
+     *
+     * @param blocks the blocks holding the bytes, the bytes must already have been written to the blocks
+     * @param length the number of bytes
+     */
+    CmsFlexCacheOffHeapSegment(ByteBuffer[] blocks, int length) {
+
+        m_blocks = blocks;
+        m_length = length;
+    }
+
+    /**
+     * Returns a copy of the bytes of this segment on the heap.<p>
+     *
+     * @return a copy of the bytes of this segment
+     */
+    public byte[] getBytes() {
+
+        byte[] result = new byte[m_length];
+        int offset = 0;
+        for (ByteBuffer block : m_blocks) {
+            int count = Math.min(block.capacity(), m_length - offset);
+            // use a duplicate, since the position of the shared block must not be changed
+            ByteBuffer source = block.duplicate();
+            source.clear();
+            source.get(result, offset, count);
+            offset += count;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of bytes in this segment.<p>
+     *
+     * @return the number of bytes in this segment
+     */
+    public int getLength() {
+
+        return m_length;
+    }
+
+    /**
+     * Writes the bytes of this segment to the given output stream.<p>
+     *
+     * The bytes are copied block by block, so only a buffer of the block size is required on the heap.<p>
+     *
+     * @param out the output stream to write to
+     *
+     * @throws IOException in case writing to the stream fails
+     */
+    public void writeTo(OutputStream out) throws IOException {
+
+        if (m_blocks.length == 0) {
+            return;
+        }
+        byte[] buffer = new byte[Math.min(m_blocks[0].capacity(), m_length)];
+        int offset = 0;
+        for (ByteBuffer block : m_blocks) {
+            int count = Math.min(block.capacity(), m_length - offset);
+            ByteBuffer source = block.duplicate();
+            source.clear();
+            source.get(buffer, 0, count);
+            out.write(buffer, 0, count);
+            offset += count;
+        }
+    }
+
+    /**
+     * Returns the blocks holding the bytes of this segment.<p>
+     *
+     * @return the blocks holding the bytes of this segment
+     */
+    ByteBuffer[] getBlocks() {
+
+        return m_blocks;
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.main.CmsLog;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Stores the output of Flex cache entries outside of the Java heap.<p>
+ *
+ * The memory is allocated as direct byte buffer slabs of 1 MB, which are split into blocks
+ * of a fixed size. Each cached output segment occupies as many blocks as required for its bytes,
+ * freed blocks are reused for new segments. Slabs are only allocated on demand, up to the configured
+ * capacity, and are never returned to the system.<p>
+ *
+ * If no more blocks are available, {@link #allocate(byte[])} returns <code>null</code>
+ * and the output has to be kept on the heap.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsFlexCacheOffHeapStore {
+
+    /** The default block size in bytes. */
+    public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    /** The size of a slab in bytes. */
+    public static final int SLAB_SIZE = 1024 * 1024;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsFlexCacheOffHeapStore.class);
+
+    /** The total size of all allocated slabs. */
+    private long m_allocatedBytes;
+
+    /** The size of a block in bytes. */
+    private int m_blockSize;
+
+    /** The max. size of all slabs. */
+    private long m_capacity;
+
+    /** The free blocks. */
+    private ConcurrentLinkedQueue<ByteBuffer> m_freeBlocks;
+
+    /** The lock for allocating new slabs. */
+    private Object m_slabLock;
+
+    /** The number of blocks that are currently in use. */
+    private AtomicLong m_usedBlocks;
+
+    /**
+     * Creates a new off-heap store.<p>
+     *
+     * @param capacity the max. number of bytes allocated outside of the heap
+     * @param blockSize the size of a block in bytes, must be between 1 and {@link #SLAB_SIZE}
+     */
+    public CmsFlexCacheOffHeapStore(long capacity, int blockSize) {
+
+        if ((blockSize < 1) || (blockSize > SLAB_SIZE)) {
+            throw new IllegalArgumentException(String.valueOf(blockSize));
+        }
+        m_capacity = capacity;
+        m_blockSize = blockSize;
+        m_freeBlocks = new ConcurrentLinkedQueue<ByteBuffer>();
+        m_slabLock = new Object();
+        m_usedBlocks = new AtomicLong();
+    }
+
+    /**
+     * Copies the given bytes to a new off-heap segment.<p>
+     *
+     * @param bytes the bytes to store
+     *
+     * @return the segment holding the bytes, or <code>null</code> if not enough blocks are available
+     */
+    public CmsFlexCacheOffHeapSegment allocate(byte[] bytes) {
+
+        int count = (bytes.length + m_blockSize - 1) / m_blockSize;
+        ByteBuffer[] blocks = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            ByteBuffer block = takeBlock();
+            if (block == null) {
+                // not enough blocks, return the blocks taken so far
+                for (int j = 0; j < i; j++) {
+                    m_freeBlocks.offer(blocks[j]);
+                }
+                return null;
+            }
+            blocks[i] = block;
+        }
+        m_usedBlocks.addAndGet(count);
+        int offset = 0;
+        for (ByteBuffer block : blocks) {
+            int length = Math.min(m_blockSize, bytes.length - offset);
+            ByteBuffer target = block.duplicate();
+            target.clear();
+            target.put(bytes, offset, length);
+            offset += length;
+        }
+        return new CmsFlexCacheOffHeapSegment(blocks, bytes.length);
+    }
+
+    /**
+     * Returns the blocks of the given segment to this store.<p>
+     *
+     * The segment must not be used anymore after it has been freed.<p>
+     *
+     * @param segment the segment to free
+     */
+    public void free(CmsFlexCacheOffHeapSegment segment) {
+
+        ByteBuffer[] blocks = segment.getBlocks();
+        for (ByteBuffer block : blocks) {
+            m_freeBlocks.offer(block);
+        }
+        m_usedBlocks.addAndGet(-blocks.length);
+    }
+
+    /**
+     * Returns the total size of all slabs allocated so far.<p>
+     *
+     * @return the total size of all slabs allocated so far
+     */
+    public long getAllocatedBytes() {
+
+        synchronized (m_slabLock) {
+            return m_allocatedBytes;
+        }
+    }
+
+    /**
+     * Returns the size of a block in bytes.<p>
+     *
+     * @return the size of a block in bytes
+     */
+    public int getBlockSize() {
+
+        return m_blockSize;
+    }
+
+    /**
+     * Returns the max. number of bytes allocated outside of the heap.<p>
+     *
+     * @return the max. number of bytes allocated outside of the heap
+     */
+    public long getCapacity() {
+
+        synchronized (m_slabLock) {
+            return m_capacity;
+        }
+    }
+
+    /**
+     * Returns the size of all blocks that are currently used by segments.<p>
+     *
+     * @return the size of all blocks that are currently used by segments
+     */
+    public long getUsedBytes() {
+
+        return m_usedBlocks.get() * m_blockSize;
+    }
+
+    /**
+     * Takes a free block, allocates a new slab if required and possible.<p>
+     *
+     * @return the block, or <code>null</code> if no block is available
+     */
+    private ByteBuffer takeBlock() {
+
+        ByteBuffer block = m_freeBlocks.poll();
+        if (block != null) {
+            return block;
+        }
+        synchronized (m_slabLock) {
+            // another thread might have allocated a slab in the meantime
+            block = m_freeBlocks.poll();
+            if (block != null) {
+                return block;
+            }
+            int blocksPerSlab = SLAB_SIZE / m_blockSize;
+            int slabSize = blocksPerSlab * m_blockSize;
+            if ((m_allocatedBytes + slabSize) > m_capacity) {
+                return null;
+            }
+            ByteBuffer slab;
+            try {
+                slab = ByteBuffer.allocateDirect(slabSize);
+            } catch (OutOfMemoryError e) {
+                // the direct memory of the JVM is exhausted, do not try again
+                LOG.error(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_FLEXCACHE_OFFHEAP_ALLOCATION_FAILED_1,
+                        new Long(m_allocatedBytes)),
+                    e);
+                m_capacity = m_allocatedBytes;
+                return null;
+            }
+            m_allocatedBytes += slabSize;
+            for (int i = 1; i < blocksPerSlab; i++) {
+                slab.limit((i + 1) * m_blockSize);
+                slab.position(i * m_blockSize);
+                m_freeBlocks.offer(slab.slice());
+            }
+            slab.limit(m_blockSize);
+            slab.position(0);
+            return slab.slice();
+        }
+    }
+}
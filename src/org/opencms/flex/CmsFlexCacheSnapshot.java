@@ -0,0 +1,228 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.cache.I_CmsLruCacheObject;
+import org.opencms.flex.CmsFlexCache.CmsFlexCacheVariation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A snapshot of the online entries of the Flex cache, used to restore the cache after a restart.<p>
+ *
+ * For every cached resource, the snapshot contains the cache directives and the cached variations
+ * with their output, include calls, headers, expiration dates and dependencies.<p>
+ *
+ * The snapshot also records the next publish tag at the time it was created, so that the restored entries
+ * can be checked against the resources that have been published in the meantime.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsFlexCacheSnapshot {
+
+    /** The header that identifies a snapshot. */
+    private static final String SNAPSHOT_HEADER = "OpenCms Flex cache snapshot";
+
+    /** The version of the snapshot format. */
+    private static final int SNAPSHOT_VERSION = 1;
+
+    /** The time the snapshot has been created. */
+    private long m_dateCreated;
+
+    /** The next publish tag at the time the snapshot has been created. */
+    private int m_publishTag;
+
+    /** The cached variations of the resources. */
+    private List<CmsFlexCacheVariation> m_variations;
+
+    /**
+     * Creates a new, empty snapshot.<p>
+     *
+     * @param publishTag the next publish tag at the time the snapshot is created
+     * @param dateCreated the time the snapshot is created
+     */
+    public CmsFlexCacheSnapshot(int publishTag, long dateCreated) {
+
+        m_publishTag = publishTag;
+        m_dateCreated = dateCreated;
+        m_variations = new ArrayList<CmsFlexCacheVariation>();
+    }
+
+    /**
+     * Reads a snapshot from the given stream.<p>
+     *
+     * @param in the stream to read the snapshot from
+     *
+     * @return the snapshot
+     *
+     * @throws IOException in case reading from the stream fails or the snapshot format is invalid
+     */
+    public static CmsFlexCacheSnapshot read(InputStream in) throws IOException {
+
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (!SNAPSHOT_HEADER.equals(data.readUTF()) || (data.readInt() != SNAPSHOT_VERSION)) {
+            throw new IOException(Messages.get().getBundle().key(Messages.ERR_FLEXCACHE_SNAPSHOT_INVALID_0));
+        }
+        CmsFlexCacheSnapshot snapshot = new CmsFlexCacheSnapshot(data.readInt(), data.readLong());
+        while (data.readBoolean()) {
+            String resourceName = data.readUTF();
+            String cacheDirectives = data.readUTF();
+            CmsFlexCacheVariation variation = new CmsFlexCacheVariation(
+                new CmsFlexCacheKey(resourceName, cacheDirectives, true));
+            int entryCount = data.readInt();
+            for (int i = 0; i < entryCount; i++) {
+                byte[] bytes = new byte[data.readInt()];
+                data.readFully(bytes);
+                DataInputStream entryData = new DataInputStream(new ByteArrayInputStream(bytes));
+                String variationKey = entryData.readUTF();
+                variation.m_map.put(variationKey, CmsFlexCacheEntry.readSnapshot(entryData));
+            }
+            snapshot.m_variations.add(variation);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Adds the cached variations of a resource to this snapshot.<p>
+     *
+     * Only the entries of online resources are written to the snapshot.<p>
+     *
+     * @param variation the cached variations of a resource
+     */
+    public void addVariation(CmsFlexCacheVariation variation) {
+
+        m_variations.add(variation);
+    }
+
+    /**
+     * Returns the time the snapshot has been created.<p>
+     *
+     * @return the time the snapshot has been created
+     */
+    public long getDateCreated() {
+
+        return m_dateCreated;
+    }
+
+    /**
+     * Returns the next publish tag at the time the snapshot has been created.<p>
+     *
+     * @return the next publish tag at the time the snapshot has been created
+     */
+    public int getPublishTag() {
+
+        return m_publishTag;
+    }
+
+    /**
+     * Returns the cached variations of the resources.<p>
+     *
+     * @return the cached variations of the resources
+     */
+    public List<CmsFlexCacheVariation> getVariations() {
+
+        return Collections.unmodifiableList(m_variations);
+    }
+
+    /**
+     * Writes this snapshot to the given stream.<p>
+     *
+     * Offline entries, expired entries and entries that do not support snapshots are skipped.<p>
+     *
+     * @param out the stream to write the snapshot to
+     *
+     * @return the number of entries written
+     *
+     * @throws IOException in case writing to the stream fails
+     */
+    public int write(OutputStream out) throws IOException {
+
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeUTF(SNAPSHOT_HEADER);
+        data.writeInt(SNAPSHOT_VERSION);
+        data.writeInt(m_publishTag);
+        data.writeLong(m_dateCreated);
+        long now = System.currentTimeMillis();
+        int result = 0;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        for (CmsFlexCacheVariation variation : m_variations) {
+            String resource = variation.m_key.getResource();
+            String cacheDirectives = variation.m_key.getCacheDirectives();
+            if (!resource.endsWith(CmsFlexCache.CACHE_ONLINESUFFIX) || (cacheDirectives == null)) {
+                continue;
+            }
+            // each entry is written to a buffer first, so that failures only skip the entry
+            List<byte[]> entries = new ArrayList<byte[]>();
+            for (Map.Entry<String, I_CmsLruCacheObject> mapEntry : variation.m_map.entrySet()) {
+                CmsFlexCacheEntry entry = (CmsFlexCacheEntry)mapEntry.getValue();
+                if (entry.getDateExpires() < now) {
+                    continue;
+                }
+                buffer.reset();
+                try {
+                    DataOutputStream entryData = new DataOutputStream(buffer);
+                    entryData.writeUTF(mapEntry.getKey());
+                    if (!entry.writeSnapshot(entryData)) {
+                        continue;
+                    }
+                } catch (IOException e) {
+                    // the entry can not be written, e.g. because a String is too long
+                    continue;
+                }
+                entries.add(buffer.toByteArray());
+            }
+            if (entries.isEmpty()) {
+                continue;
+            }
+            data.writeBoolean(true);
+            data.writeUTF(resource.substring(0, resource.length() - CmsFlexCache.CACHE_ONLINESUFFIX.length()));
+            data.writeUTF(cacheDirectives);
+            data.writeInt(entries.size());
+            for (byte[] entry : entries) {
+                data.writeInt(entry.length);
+                data.write(entry);
+            }
+            result += entries.size();
+        }
+        data.writeBoolean(false);
+        data.flush();
+        return result;
+    }
+}
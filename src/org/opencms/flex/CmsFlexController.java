@@ -68,6 +68,12 @@ public class CmsFlexController {
     /** The wrapped CmsObject provides JSP with access to the core system. */
     private CmsObject m_cmsObject;
 
+    /** The gzip compressed copy of the output of the top level include, if it was served from the Flex cache. */
+    private byte[] m_compressedOutput;
+
+    /** The length of the uncompressed output of the top level include. */
+    private int m_compressedOutputLength;
+
     /** List of wrapped RequestContext info object. */
     private List<CmsFlexRequestContextInfo> m_flexContextInfoList;
 
@@ -401,6 +407,7 @@ public class CmsFlexController {
         m_resource = null;
         m_cache = null;
         m_throwable = null;
+        m_compressedOutput = null;
     }
 
     /**
@@ -439,6 +446,43 @@ public class CmsFlexController {
         return m_resource;
     }
 
+    /**
+     * Returns the gzip compressed copy of the given top level output, if available.<p>
+     *
+     * A compressed copy is only available if the top level include was served from a Flex cache entry
+     * storing a compressed copy, and if the client accepts gzip compressed content.<p>
+     *
+     * @param output the uncompressed top level output
+     *
+     * @return the gzip compressed copy of the given output, or <code>null</code> if not available
+     */
+    public byte[] getCompressedOutput(byte[] output) {
+
+        if ((m_compressedOutput == null) || (output == null) || (output.length != m_compressedOutputLength)) {
+            return null;
+        }
+        String acceptEncoding = m_req.getHeader(CmsRequestUtil.HEADER_ACCEPT_ENCODING);
+        if ((acceptEncoding == null) || !acceptEncoding.contains(CmsRequestUtil.HEADER_VALUE_GZIP)) {
+            return null;
+        }
+        return m_compressedOutput;
+    }
+
+    /**
+     * Returns the context info for the currently processed include level, this contains the dates
+     * and the dependencies of all resources read on this level.<p>
+     *
+     * @return the context info for the currently processed include level, or <code>null</code> if not available
+     */
+    public CmsFlexRequestContextInfo getCurrentContextInfo() {
+
+        int pos = m_flexContextInfoList.size() - 1;
+        if (pos < 0) {
+            return null;
+        }
+        return m_flexContextInfoList.get(pos);
+    }
+
     /**
      * Returns the current flex request.<p>
      *
@@ -711,6 +755,24 @@ public class CmsFlexController {
         (m_flexContextInfoList.get(pos)).updateDates(dateLastModified, dateExpires);
     }
 
+    /**
+     * Remembers the gzip compressed copy of the output of a Flex cache entry.<p>
+     *
+     * This is ignored unless the cache entry is the top level include of a response that is not streamed,
+     * since only then the output of the cache entry is the complete output sent to the client.<p>
+     *
+     * @param compressedOutput the gzip compressed copy of the output
+     * @param length the length of the uncompressed output
+     */
+    void setCompressedOutput(byte[] compressedOutput, int length) {
+
+        if (m_streaming || (getResponseStackSize() != 2)) {
+            return;
+        }
+        m_compressedOutput = compressedOutput;
+        m_compressedOutputLength = length;
+    }
+
     /**
      * Updates the context info of the request context.<p>
      */
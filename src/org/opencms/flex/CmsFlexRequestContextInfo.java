@@ -28,6 +28,11 @@
 package org.opencms.flex;
 
 import org.opencms.file.CmsResource;
+import org.opencms.util.CmsUUID;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * Contains information about the OpenCms request context required by the
@@ -38,6 +43,10 @@ import org.opencms.file.CmsResource;
  * Information about the "last modified" and "expire" times of VFS resources are
  * stored in this Object.<p>
  *
+ * In addition, the structure ids and root paths of all VFS resources read during the request
+ * are collected here, as well as the root paths of all folders whose contents have been listed.
+ * These are the dependencies used by the Flex cache for selective invalidation after a publish.<p>
+ *
  * @since 6.0.0
  */
 public class CmsFlexRequestContextInfo {
@@ -48,6 +57,15 @@ public class CmsFlexRequestContextInfo {
     /** The currently calculated "last modified" date for this request context.  */
     private long m_dateLastModified;
 
+    /** The root paths of the folders whose contents have been read during this request context. */
+    private Set<String> m_folderDependencies;
+
+    /** The structure ids of the resources read during this request context. */
+    private Set<CmsUUID> m_idDependencies;
+
+    /** The root paths of the resources read during this request context. */
+    private Set<String> m_pathDependencies;
+
     /**
      * Public constructor.<p>
      */
@@ -55,6 +73,20 @@ public class CmsFlexRequestContextInfo {
 
         // by default the expiration date is the max long value
         m_dateExpires = CmsResource.DATE_EXPIRED_DEFAULT;
+        m_folderDependencies = new HashSet<String>();
+        m_idDependencies = new HashSet<CmsUUID>();
+        m_pathDependencies = new HashSet<String>();
+    }
+
+    /**
+     * Adds a folder to the dependencies of this context,
+     * this indicates that the contents of the folder have been read.<p>
+     *
+     * @param folderRootPath the root path of the folder whose contents have been read
+     */
+    public void addFolderDependency(String folderRootPath) {
+
+        m_folderDependencies.add(folderRootPath);
     }
 
     /**
@@ -77,6 +109,36 @@ public class CmsFlexRequestContextInfo {
         return m_dateLastModified;
     }
 
+    /**
+     * Returns the root paths of the folders whose contents have been read in this context.<p>
+     *
+     * @return the root paths of the folders whose contents have been read in this context
+     */
+    public Set<String> getFolderDependencies() {
+
+        return Collections.unmodifiableSet(m_folderDependencies);
+    }
+
+    /**
+     * Returns the structure ids of the resources read in this context.<p>
+     *
+     * @return the structure ids of the resources read in this context
+     */
+    public Set<CmsUUID> getIdDependencies() {
+
+        return Collections.unmodifiableSet(m_idDependencies);
+    }
+
+    /**
+     * Returns the root paths of the resources read in this context.<p>
+     *
+     * @return the root paths of the resources read in this context
+     */
+    public Set<String> getPathDependencies() {
+
+        return Collections.unmodifiableSet(m_pathDependencies);
+    }
+
     /**
      * Merges this context info with the values from the other context info.<p>
      *
@@ -86,6 +148,9 @@ public class CmsFlexRequestContextInfo {
 
         updateDateLastModified(other.getDateLastModified());
         updateDateExpires(other.getDateExpires());
+        m_folderDependencies.addAll(other.m_folderDependencies);
+        m_idDependencies.addAll(other.m_idDependencies);
+        m_pathDependencies.addAll(other.m_pathDependencies);
     }
 
     /**
@@ -141,10 +206,15 @@ public class CmsFlexRequestContextInfo {
      * The "expires" date is the calculated from the given date values
      * of resource release and expiration and also the current time.<p>
      *
+     * The resource is also added to the dependencies of this context.<p>
+     *
      * @param resource the resource to use for updating the context values
      */
     public void updateFromResource(CmsResource resource) {
 
+        // remember the resource as dependency for the Flex cache
+        m_idDependencies.add(resource.getStructureId());
+        m_pathDependencies.add(resource.getRootPath());
         // first set the last modification date
         updateDateLastModified(resource.getDateLastModified());
         // now use both release and expiration date from the resource to update the expires info
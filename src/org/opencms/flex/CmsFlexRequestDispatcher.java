@@ -298,6 +298,9 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
         // push req/res to controller stack
         controller.push(w_req, w_res);
 
+        // the key of the cache entry variation rendered by this request, in single-flight mode or for a stale entry
+        String renderKey = null;
+
         // now that the req/res are on the stack, we need to make sure that they are removed later
         // that's why we have this try { ... } finally { ... } clause here
         try {
@@ -305,34 +308,24 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
             if (f_req.isCacheable()) {
                 // caching is on, check if requested resource is already in cache
                 entry = cache.get(w_req.getCmsCacheKey());
-                if (entry != null) {
-                    // the target is already in the cache
-                    try {
-                        if (LOG.isDebugEnabled()) {
-                            LOG.debug(
-                                Messages.get().getBundle().key(
-                                    Messages.LOG_FLEXREQUESTDISPATCHER_LOADING_RESOURCE_FROM_CACHE_1,
-                                    m_vfsTarget));
-                        }
-                        controller.updateDates(entry.getDateLastModified(), entry.getDateExpires());
-                        entry.service(w_req, w_res);
-                    } catch (CmsException e) {
-                        Throwable t;
-                        if (e.getCause() != null) {
-                            t = e.getCause();
-                        } else {
-                            t = e;
-                        }
-                        t = controller.setThrowable(e, m_vfsTarget);
-                        throw new ServletException(
-                            Messages.get().getBundle().key(
-                                Messages.ERR_FLEXREQUESTDISPATCHER_ERROR_LOADING_RESOURCE_FROM_CACHE_1,
-                                m_vfsTarget),
-                            t);
+                if ((entry != null) && entry.isStale()) {
+                    // serve the stale entry, unless this request is the first one that has to render it again
+                    renderKey = cache.startRefresh(w_req.getCmsCacheKey(), entry);
+                    if (renderKey != null) {
+                        entry = null;
                     }
-                } else {
+                }
+                if ((entry != null) && !serviceCacheEntry(controller, entry, w_req, w_res)) {
+                    // the entry has been removed from the cache while it was about to be used
+                    entry = null;
+                }
+                if (entry == null) {
                     // cache is on and resource is not yet cached, so we need to read the cache key for the response
-                    CmsFlexCacheKey res_key = cache.getKey(CmsFlexCacheKey.getKeyName(m_vfsTarget, w_req.isOnline()));
+                    CmsFlexCacheKey res_key = null;
+                    if (renderKey == null) {
+                        // a stale entry is rendered again with the current cache directives
+                        res_key = cache.getKey(CmsFlexCacheKey.getKeyName(m_vfsTarget, w_req.isOnline()));
+                    }
                     if (res_key != null) {
                         // key already in cache, reuse it
                         w_res.setCmsCacheKey(res_key);
@@ -353,11 +346,15 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
                                 cacheProperty = OpenCms.getResourceManager().getResourceType(
                                     resource.getTypeId()).getCachePropertyDefault();
                             }
-                            cache.putKey(
-                                w_res.setCmsCacheKey(
-                                    cms.getRequestContext().addSiteRoot(m_vfsTarget),
-                                    cacheProperty,
-                                    f_req.isOnline()));
+                            CmsFlexCacheKey key = w_res.setCmsCacheKey(
+                                cms.getRequestContext().addSiteRoot(m_vfsTarget),
+                                cacheProperty,
+                                f_req.isOnline());
+                            if (renderKey != null) {
+                                cache.updateKey(key);
+                            } else {
+                                cache.putKey(key);
+                            }
                         } catch (CmsFlexCacheException e) {
 
                             // invalid key is ignored but logged, used key is cache=never
@@ -391,15 +388,34 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
                 }
             }
 
+            String variation = null;
             if (entry == null) {
-                // the target is not cached (or caching off), so load it with the internal resource loader
-                I_CmsResourceLoader loader = null;
-
-                String variation = null;
                 // check cache keys to see if the result can be cached
                 if (w_req.isCacheable()) {
                     variation = w_res.getCmsCacheKey().matchRequestKey(w_req.getCmsCacheKey());
                 }
+                if ((variation != null)
+                    && (renderKey == null)
+                    && !controller.isForwardMode()
+                    && cache.isSingleFlight()) {
+                    // make sure concurrent requests for the same variation render the resource only once
+                    String key = cache.getRenderKey(w_res.getCmsCacheKey(), variation);
+                    if (cache.startRender(key)) {
+                        renderKey = key;
+                    } else {
+                        entry = cache.waitForRender(w_res.getCmsCacheKey(), variation);
+                        if ((entry != null) && !serviceCacheEntry(controller, entry, w_req, w_res)) {
+                            // the entry rendered by another request has already been removed from the cache
+                            entry = null;
+                        }
+                    }
+                }
+            }
+
+            if (entry == null) {
+                // the target is not cached (or caching off), so load it with the internal resource loader
+                I_CmsResourceLoader loader = null;
+
                 // indicate to the response if caching is not required
                 w_res.setCmsCachingRequired(!controller.isForwardMode() && (variation != null));
 
@@ -437,6 +453,7 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
                             Messages.LOG_FLEXREQUESTDISPATCHER_INCLUDE_RESOURCE_1,
                             m_vfsTarget));
                 }
+                long renderStart = System.nanoTime();
                 try {
                     loader.service(cms, resource, w_req, w_res);
                 } catch (CmsException e) {
@@ -458,6 +475,17 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
                         entry.setDateLastModified(controller.getDateLastModified());
                         entry.setDateExpires(controller.getDateExpires());
                     }
+                    // remember the resources read while generating the entry for the publish invalidation
+                    entry.addDependency(resource);
+                    CmsFlexRequestContextInfo info = controller.getCurrentContextInfo();
+                    if (info != null) {
+                        entry.addDependencies(info);
+                    }
+                    if (cache.isGzip() && (controller.getResponseStackSize() == 2) && !controller.isStreaming()) {
+                        // the output of top level entries is sent to the client as it is, so keep a compressed copy
+                        entry.compress(cache.getGzipMinBytes());
+                    }
+                    cache.getStatistics().recordLoadTime(System.nanoTime() - renderStart);
                     cache.put(w_res.getCmsCacheKey(), entry, variation);
                 } else {
                     // result can not be cached, do not use "last modified" optimization
@@ -480,6 +508,10 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
                 result = null;
             }
         } finally {
+            if (renderKey != null) {
+                // release the requests waiting for this render
+                cache.finishRender(renderKey);
+            }
             // indicate to response that include is finished
             f_res.setCmsIncludeMode(false);
             f_req.removeIncludeCall(m_vfsTarget);
@@ -488,4 +520,51 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
             controller.pop();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Writes the given cache entry to the response.<p>
+     *
+     * @param controller the Flex controller
+     * @param entry the cache entry to write
+     * @param w_req the request wrapper of the include
+     * @param w_res the response wrapper of the include
+     *
+     * @return <code>false</code> if the output of the entry was not available anymore, nothing is written in this case
+     *
+     * @throws ServletException in case something goes wrong
+     * @throws IOException in case something goes wrong
+     */
+    private boolean serviceCacheEntry(
+        CmsFlexController controller,
+        CmsFlexCacheEntry entry,
+        CmsFlexRequest w_req,
+        CmsFlexResponse w_res) throws ServletException, IOException {
+
+        try {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_FLEXREQUESTDISPATCHER_LOADING_RESOURCE_FROM_CACHE_1,
+                        m_vfsTarget));
+            }
+            controller.updateDates(entry.getDateLastModified(), entry.getDateExpires());
+            if (!entry.service(w_req, w_res)) {
+                return false;
+            }
+        } catch (CmsException e) {
+            Throwable t;
+            if (e.getCause() != null) {
+                t = e.getCause();
+            } else {
+                t = e;
+            }
+            t = controller.setThrowable(e, m_vfsTarget);
+            throw new ServletException(
+                Messages.get().getBundle().key(
+                    Messages.ERR_FLEXREQUESTDISPATCHER_ERROR_LOADING_RESOURCE_FROM_CACHE_1,
+                    m_vfsTarget),
+                t);
+        }
+        return true;
+    }
+}
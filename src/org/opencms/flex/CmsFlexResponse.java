@@ -1039,6 +1039,37 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
         }
     }
 
+    /**
+     * Writes an off-heap output segment to the current output stream,
+     * this method should be called from CmsFlexCacheEntry.service() only.<p>
+     *
+     * @param segment the off-heap output segment
+     * @param useArray indicates that the bytes of the segment should be used directly, this requires a heap copy
+     *
+     * @throws IOException in case something goes wrong while writing to the stream
+     */
+    void writeToOutputStream(CmsFlexCacheOffHeapSegment segment, boolean useArray) throws IOException {
+
+        if (isSuspended()) {
+            return;
+        }
+        if (m_writeOnlyToBuffer) {
+            if (useArray) {
+                // the cached entry is a "leaf", but the off-heap bytes can not be shared
+                m_cacheBytes = segment.getBytes();
+            } else {
+                if (m_out == null) {
+                    initStream();
+                }
+                segment.writeTo(m_out);
+            }
+        } else {
+            // the request is not buffered, so copy the blocks directly to the parents output stream
+            segment.writeTo(m_res.getOutputStream());
+            m_res.getOutputStream().flush();
+        }
+    }
+
     /**
      * Helper method to add a value in the internal header list.<p>
      *
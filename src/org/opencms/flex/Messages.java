@@ -40,6 +40,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_ADD_COOKIE_0 = "ERR_ADD_COOKIE_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_FLEXCACHE_SNAPSHOT_INVALID_0 = "ERR_FLEXCACHE_SNAPSHOT_INVALID_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_FLEXREQUESTDISPATCHER_CLASSCAST_EXCEPTION_1 = "ERR_FLEXREQUESTDISPATCHER_CLASSCAST_EXCEPTION_1";
 
@@ -97,6 +100,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_FLEXCACHE_CLEAR_ALL_0 = "LOG_FLEXCACHE_CLEAR_ALL_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXCACHE_CLEAR_FOR_PUBLISHED_RESOURCE_1 = "LOG_FLEXCACHE_CLEAR_FOR_PUBLISHED_RESOURCE_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_FLEXCACHE_CLEAR_HALF_2 = "LOG_FLEXCACHE_CLEAR_HALF_2";
 
@@ -112,6 +118,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_FLEXCACHE_CLEAR_ONLINE_KEYS_AND_ENTRIES_0 = "LOG_FLEXCACHE_CLEAR_ONLINE_KEYS_AND_ENTRIES_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXCACHE_OFFHEAP_ALLOCATION_FAILED_1 = "LOG_FLEXCACHE_OFFHEAP_ALLOCATION_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_FLEXCACHE_PURGED_JSP_REPOSITORY_0 = "LOG_FLEXCACHE_PURGED_JSP_REPOSITORY_0";
 
@@ -124,9 +133,33 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_FLEXCACHE_RECEIVED_EVENT_PURGE_REPOSITORY_0 = "LOG_FLEXCACHE_RECEIVED_EVENT_PURGE_REPOSITORY_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXCACHE_REMOVED_DEPENDENT_ENTRIES_2 = "LOG_FLEXCACHE_REMOVED_DEPENDENT_ENTRIES_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_FLEXCACHE_RESOURCE_NOT_CACHEABLE_0 = "LOG_FLEXCACHE_RESOURCE_NOT_CACHEABLE_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXCACHE_SINGLE_FLIGHT_TIMEOUT_2 = "LOG_FLEXCACHE_SINGLE_FLIGHT_TIMEOUT_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXCACHE_SNAPSHOT_DISCARDED_1 = "LOG_FLEXCACHE_SNAPSHOT_DISCARDED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXCACHE_SNAPSHOT_READ_FAILED_1 = "LOG_FLEXCACHE_SNAPSHOT_READ_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXCACHE_SNAPSHOT_RESTORED_3 = "LOG_FLEXCACHE_SNAPSHOT_RESTORED_3";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXCACHE_SNAPSHOT_WRITE_FAILED_1 = "LOG_FLEXCACHE_SNAPSHOT_WRITE_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXCACHE_SNAPSHOT_WRITTEN_2 = "LOG_FLEXCACHE_SNAPSHOT_WRITTEN_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXCACHE_STALE_ENTRIES_1 = "LOG_FLEXCACHE_STALE_ENTRIES_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_FLEXCACHE_WILL_PURGE_JSP_REPOSITORY_0 = "LOG_FLEXCACHE_WILL_PURGE_JSP_REPOSITORY_0";
 
@@ -38,6 +38,7 @@ import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
 import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsUUID;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -480,8 +481,13 @@ public class CmsJspNavBuilder {
         }
         boolean includeAll = visibility == Visibility.all;
         boolean includeHidden = visibility == Visibility.includeHidden;
+        Map<CmsUUID, List<CmsProperty>> properties = readPropertyObjects(resources);
         for (CmsResource r : resources) {
-            CmsJspNavElement element = getNavigationForResource(m_cms.getSitePath(r), resourceFilter);
+            CmsJspNavElement element = getNavigationForResource(
+                m_cms.getSitePath(r),
+                resourceFilter,
+                false,
+                properties);
             if ((element != null)
                 && (includeAll
                     || (element.isInNavigation() && (includeHidden || !element.isHiddenNavigationEntry())))) {
@@ -512,7 +518,7 @@ public class CmsJspNavBuilder {
      */
     public CmsJspNavElement getNavigationForResource(String sitePath) {
 
-        return getNavigationForResource(sitePath, CmsResourceFilter.DEFAULT, false);
+        return getNavigationForResource(sitePath, CmsResourceFilter.DEFAULT, false, null);
     }
 
     /**
@@ -526,7 +532,7 @@ public class CmsJspNavBuilder {
      */
     public CmsJspNavElement getNavigationForResource(String sitePath, CmsResourceFilter reourceFilter) {
 
-        return getNavigationForResource(sitePath, reourceFilter, false);
+        return getNavigationForResource(sitePath, reourceFilter, false, null);
     }
 
     /**
@@ -700,8 +706,13 @@ public class CmsJspNavBuilder {
             return Collections.<CmsJspNavElement> emptyList();
         }
 
+        Map<CmsUUID, List<CmsProperty>> properties = readPropertyObjects(resources);
         for (CmsResource r : resources) {
-            CmsJspNavElement element = getNavigationForResource(m_cms.getSitePath(r), resourceFilter, shallow);
+            CmsJspNavElement element = getNavigationForResource(
+                m_cms.getSitePath(r),
+                resourceFilter,
+                shallow,
+                properties);
             if ((element != null) && (includeInvisible || element.isInNavigation())) {
                 result.add(element);
             }
@@ -717,13 +728,15 @@ public class CmsJspNavBuilder {
      *              must be a full path name, e.g. "/docs/index.html"
      * @param resourceFilter the filter to use reading the resources
      * @param shallow <code>true</code> for a shallow look up, not regarding next level resources
+     * @param properties the already read properties by structure id, or <code>null</code>
      *
      * @return a navigation element for the given resource
      */
     private CmsJspNavElement getNavigationForResource(
         String sitePath,
         CmsResourceFilter resourceFilter,
-        boolean shallow) {
+        boolean shallow,
+        Map<CmsUUID, List<CmsProperty>> properties) {
 
         CmsResource resource;
         Map<String, String> propertiesMap;
@@ -733,8 +746,13 @@ public class CmsJspNavBuilder {
         }
         try {
             resource = m_cms.readResource(sitePath, resourceFilter);
-            List<CmsProperty> properties = m_cms.readPropertyObjects(resource, false);
-            propertiesMap = CmsProperty.toMap(properties);
+            List<CmsProperty> resourceProperties = (properties != null)
+            ? properties.get(resource.getStructureId())
+            : null;
+            if (resourceProperties == null) {
+                resourceProperties = m_cms.readPropertyObjects(resource, false);
+            }
+            propertiesMap = CmsProperty.toMap(resourceProperties);
             if (resource.isFolder()) {
                 if (resourceFilter.equals(CmsResourceFilter.DEFAULT)
                     && !NAVIGATION_LEVEL_FOLDER.equals(
@@ -760,7 +778,11 @@ public class CmsJspNavBuilder {
                     List<CmsJspNavElement> subElements = getNavigationForFolder(sitePath, false, resourceFilter, true);
                     if (!subElements.isEmpty()) {
                         CmsJspNavElement subElement = subElements.get(0);
-                        subElement = getNavigationForResource(subElement.getSitePath(), resourceFilter, false);
+                        subElement = getNavigationForResource(
+                            subElement.getSitePath(),
+                            resourceFilter,
+                            false,
+                            null);
                         sitePath = subElement.getSitePath();
                     }
                 }
@@ -773,4 +795,22 @@ public class CmsJspNavBuilder {
 
         return new CmsJspNavElement(sitePath, resource, propertiesMap, level, m_locale);
     }
+
+    /**
+     * Reads the properties of all given resources at once.<p>
+     *
+     * @param resources the resources
+     *
+     * @return the properties by structure id, or <code>null</code> if reading the properties failed
+     */
+    private Map<CmsUUID, List<CmsProperty>> readPropertyObjects(List<CmsResource> resources) {
+
+        try {
+            return m_cms.readPropertyObjects(resources);
+        } catch (CmsException e) {
+            // the properties will be read for each resource
+            LOG.warn(e.getLocalizedMessage(), e);
+            return null;
+        }
+    }
 }
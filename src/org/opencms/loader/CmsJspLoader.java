@@ -1030,8 +1030,10 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
                             CmsRequestUtil.HEADER_OPENCMS_EXPORT,
                             new Long(controller.getDateLastModified()));
                     } else if (controller.isTop()) {
+                        // use the compressed copy of a Flex cache entry if available, instead of compressing again
+                        byte[] compressed = controller.getCompressedOutput(result);
                         // process headers and write output if this is the "top" request/response
-                        res.setContentLength(result.length);
+                        res.setContentLength(compressed != null ? compressed.length : result.length);
                         // check for preset error code
                         Integer errorCode = (Integer)req.getAttribute(CmsRequestUtil.ATTRIBUTE_ERRORCODE);
                         if (errorCode == null) {
@@ -1061,7 +1063,13 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
                         }
                         // process the headers
                         CmsFlexResponse.processHeaders(f_res.getHeaders(), res);
-                        res.getOutputStream().write(result);
+                        if (compressed != null) {
+                            res.setHeader(CmsRequestUtil.HEADER_CONTENT_ENCODING, CmsRequestUtil.HEADER_VALUE_GZIP);
+                            res.addHeader(CmsRequestUtil.HEADER_VARY, CmsRequestUtil.HEADER_ACCEPT_ENCODING);
+                            res.getOutputStream().write(compressed);
+                        } else {
+                            res.getOutputStream().write(result);
+                        }
                         res.getOutputStream().flush();
                     }
                 }
@@ -38,6 +38,7 @@ import org.opencms.file.I_CmsResource;
 import org.opencms.i18n.CmsMessageContainer;
 import org.opencms.main.CmsException;
 import org.opencms.main.OpenCms;
+import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsUUID;
 
 import java.util.ArrayList;
@@ -46,6 +47,8 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The CmsLockManager is used by the Cms application to detect
@@ -62,11 +65,17 @@ import java.util.Map;
  */
 public final class CmsLockManager {
 
+    /** The interval in milliseconds after which all locks are written to the db, instead of the changes only. */
+    private static final long WRITE_ALL_INTERVAL = 60 * 60 * 1000L;
+
+    /** The root paths of the resources whose locks have changed since the locks were written to the db. */
+    private Set<String> m_changedPaths;
+
     /** The driver manager instance. */
     private CmsDriverManager m_driverManager;
 
-    /** The flag to indicate if the locks should be written to the db. */
-    private boolean m_isDirty;
+    /** The time all locks have been written to the db the last time. */
+    private long m_lastWriteAll;
 
     /** The flag to indicate if the lock manager has been started in run level 4. */
     private boolean m_runningInServlet;
@@ -79,6 +88,7 @@ public final class CmsLockManager {
     public CmsLockManager(CmsDriverManager driverManager) {
 
         m_driverManager = driverManager;
+        m_changedPaths = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
     }
 
     /**
@@ -126,7 +136,7 @@ public final class CmsLockManager {
         // handle collisions with exclusive locked sub-resources in case of a folder
         if (resource.isFolder() && newLock.getSystemLock().isUnlocked()) {
             String resourceName = resource.getRootPath();
-            Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+            Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getCachedLocks(resourceName).iterator();
             while (itLocks.hasNext()) {
                 CmsLock lock = itLocks.next();
                 String lockedPath = lock.getResourceName();
@@ -231,7 +241,7 @@ public final class CmsLockManager {
     throws CmsException {
 
         List<CmsResource> lockedResources = new ArrayList<CmsResource>();
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = getCandidateLocks(resource.getRootPath(), filter).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
             CmsResource lockedResource;
@@ -243,7 +253,7 @@ public final class CmsLockManager {
             try {
                 lockedResource = m_driverManager.readResource(dbc, lock.getResourceName(), CmsResourceFilter.ALL);
             } catch (CmsVfsResourceNotFoundException e) {
-                OpenCms.getMemoryMonitor().uncacheLock(lock.getResourceName());
+                uncacheLock(lock.getResourceName());
                 continue;
             }
             if (filter.isSharedExclusive() && (lockedResource.getSiblingCount() > 1)) {
@@ -283,7 +293,7 @@ public final class CmsLockManager {
         Map<String, CmsResource> cache) throws CmsException {
 
         List<CmsResource> lockedResources = new ArrayList<CmsResource>();
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = getCandidateLocks(resource.getRootPath(), filter).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
             CmsResource lockedResource;
@@ -298,7 +308,7 @@ public final class CmsLockManager {
                     lockedResource = m_driverManager.readResource(dbc, lock.getResourceName(), CmsResourceFilter.ALL);
                     cache.put(lock.getResourceName(), lockedResource);
                 } catch (CmsVfsResourceNotFoundException e) {
-                    OpenCms.getMemoryMonitor().uncacheLock(lock.getResourceName());
+                    uncacheLock(lock.getResourceName());
                     // we put a dummy resource object in the map so we won't need to read the nonexistent resource again
                     CmsResource dummy = new CmsResource(
                         null,
@@ -358,7 +368,7 @@ public final class CmsLockManager {
     public List<CmsLock> getLocks(CmsDbContext dbc, String resourceName, CmsLockFilter filter) throws CmsException {
 
         List<CmsLock> locks = new ArrayList<CmsLock>();
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = getCandidateLocks(resourceName, filter).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
             if (filter.isSharedExclusive()) {
@@ -366,7 +376,7 @@ public final class CmsLockManager {
                 try {
                     resource = m_driverManager.readResource(dbc, lock.getResourceName(), CmsResourceFilter.ALL);
                 } catch (CmsVfsResourceNotFoundException e) {
-                    OpenCms.getMemoryMonitor().uncacheLock(lock.getResourceName());
+                    uncacheLock(lock.getResourceName());
                     continue;
                 }
                 if (resource.getSiblingCount() > 1) {
@@ -404,40 +414,11 @@ public final class CmsLockManager {
         if (resource == null) {
             return false;
         }
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getCachedLocks(resource.getRootPath()).iterator();
         while (itLocks.hasNext()) {
             CmsLock lock = itLocks.next();
-            if (lock.getSystemLock().isUnlocked()) {
-                // only system locks matter here
-                continue;
-            }
-            if (lock.getResourceName().startsWith(resource.getRootPath())) {
-                if (lock.getResourceName().startsWith(resource.getRootPath())) {
-                    return true;
-                }
-                try {
-                    resource = m_driverManager.readResource(dbc, lock.getResourceName(), CmsResourceFilter.ALL);
-                } catch (CmsVfsResourceNotFoundException e) {
-                    OpenCms.getMemoryMonitor().uncacheLock(lock.getResourceName());
-                    continue;
-                }
-                CmsResource lockedResource;
-                try {
-                    lockedResource = m_driverManager.readResource(dbc, lock.getResourceName(), CmsResourceFilter.ALL);
-                } catch (CmsVfsResourceNotFoundException e) {
-                    OpenCms.getMemoryMonitor().uncacheLock(lock.getResourceName());
-                    continue;
-                }
-                if (lockedResource.getSiblingCount() > 1) {
-                    Iterator<CmsResource> itSiblings = internalReadSiblings(dbc, lockedResource).iterator();
-                    while (itSiblings.hasNext()) {
-                        CmsResource sibling = itSiblings.next();
-                        CmsLock siblingLock = internalSiblingLock(lock, sibling.getRootPath());
-                        if (siblingLock.getResourceName().startsWith(resource.getRootPath())) {
-                            return true;
-                        }
-                    }
-                }
+            if (!lock.getSystemLock().isUnlocked()) {
+                return true;
             }
         }
         return false;
@@ -453,17 +434,39 @@ public final class CmsLockManager {
 
         CmsLock lock = OpenCms.getMemoryMonitor().getCachedLock(source);
         if (lock != null) {
-            OpenCms.getMemoryMonitor().uncacheLock(lock.getResourceName());
+            uncacheLock(lock.getResourceName());
             CmsLock newLock = new CmsLock(destination, lock.getUserId(), lock.getProject(), lock.getType());
             lock = lock.getRelatedLock();
             if ((lock != null) && !lock.isNullLock()) {
                 CmsLock relatedLock = new CmsLock(destination, lock.getUserId(), lock.getProject(), lock.getType());
                 newLock.setRelatedLock(relatedLock);
             }
+            markChanged(destination);
             OpenCms.getMemoryMonitor().cacheLock(newLock);
         }
     }
 
+    /**
+     * Moves the locks of all resources below a folder during the move resource operation.<p>
+     *
+     * The lock of the folder itself is moved with {@link #moveResource(String, String)}.<p>
+     *
+     * @param source the root path of the source folder
+     * @param destination the root path of the destination folder
+     */
+    public void moveResourceTree(String source, String destination) {
+
+        String sourceFolder = CmsFileUtil.addTrailingSeparator(source);
+        String destinationFolder = CmsFileUtil.addTrailingSeparator(destination);
+        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getCachedLocks(sourceFolder).iterator();
+        while (itLocks.hasNext()) {
+            String lockedPath = itLocks.next().getResourceName();
+            if (!lockedPath.equals(sourceFolder)) {
+                moveResource(lockedPath, destinationFolder + lockedPath.substring(sourceFolder.length()));
+            }
+        }
+    }
+
     /**
      * Reads the latest saved locks from the database and installs them to
      * this lock manager.<p>
@@ -484,6 +487,9 @@ public final class CmsLockManager {
                 internalLockResource(lock, lockCache);
             }
             OpenCms.getMemoryMonitor().flushLocks(lockCache);
+            // locks that could not be restored are only removed from the db when all locks are written
+            m_changedPaths.clear();
+            m_lastWriteAll = 0;
             m_runningInServlet = true;
         }
     }
@@ -576,10 +582,10 @@ public final class CmsLockManager {
             if (resource.isFolder()) {
                 // in case of a folder, remove any exclusive locks on sub-resources that probably have
                 // been upgraded from an inherited lock when the user edited a resource
-                Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+                Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getCachedLocks(resourcename).iterator();
                 while (itLocks.hasNext()) {
                     String lockedPath = (itLocks.next()).getResourceName();
-                    if (lockedPath.startsWith(resourcename) && !lockedPath.equals(resourcename)) {
+                    if (!lockedPath.equals(resourcename)) {
                         // remove the exclusive locked sub-resource
                         unlockResource(lockedPath, false);
                     }
@@ -593,13 +599,12 @@ public final class CmsLockManager {
         }
 
         if (lock.getType().isSharedExclusive()) {
-            List<String> locks = OpenCms.getMemoryMonitor().getAllCachedLockPaths();
             // when a resource with a shared lock gets unlocked, fetch all siblings of the resource
             // to the same content record to identify the exclusive locked sibling
             List<CmsResource> siblings = internalReadSiblings(dbc, resource);
             for (int i = 0; i < siblings.size(); i++) {
                 CmsResource sibling = siblings.get(i);
-                if (locks.contains(sibling.getRootPath())) {
+                if (OpenCms.getMemoryMonitor().getCachedLock(sibling.getRootPath()) != null) {
                     // remove the exclusive locked sibling
                     if (removeSystemLock) {
                         unlockResource(sibling.getRootPath(), true);
@@ -681,21 +686,46 @@ public final class CmsLockManager {
      * Writes the locks that are currently stored in-memory to the database to allow restoring them in
      * later startups.<p>
      *
-     * This overwrites the locks previously stored in the underlying database table.<p>
+     * Only the locks of the resources whose locks have changed since the last call are written.
+     * Once in an hour, and the first time after the locks have been read, all locks are written instead,
+     * which overwrites the locks previously stored in the underlying database table. This also removes
+     * stored locks that could not be restored, or that have been removed from the lock cache directly.<p>
      *
      *  @param dbc the current database context
      *
      *  @throws CmsException if something goes wrong
      */
-    public void writeLocks(CmsDbContext dbc) throws CmsException {
+    public synchronized void writeLocks(CmsDbContext dbc) throws CmsException {
 
-        if (m_isDirty // only if something changed
+        if (!m_changedPaths.isEmpty() // only if something changed
             && m_runningInServlet // only if started in run level 4
             && OpenCms.getMemoryMonitor().requiresPersistency()) { // only if persistency is required
 
-            List<CmsLock> locks = OpenCms.getMemoryMonitor().getAllCachedLocks();
-            m_driverManager.getProjectDriver(dbc).writeLocks(dbc, locks);
-            m_isDirty = false;
+            long now = System.currentTimeMillis();
+            if ((now - m_lastWriteAll) >= WRITE_ALL_INTERVAL) {
+                m_changedPaths.clear();
+                List<CmsLock> locks = OpenCms.getMemoryMonitor().getAllCachedLocks();
+                m_driverManager.getProjectDriver(dbc).writeLocks(dbc, locks);
+                m_lastWriteAll = now;
+                return;
+            }
+            // paths changed again after this point are written the next time
+            List<String> changedPaths = new ArrayList<String>(m_changedPaths);
+            m_changedPaths.removeAll(changedPaths);
+            List<CmsLock> locks = new ArrayList<CmsLock>(changedPaths.size());
+            for (String changedPath : changedPaths) {
+                CmsLock lock = OpenCms.getMemoryMonitor().getCachedLock(changedPath);
+                if (lock != null) {
+                    locks.add(lock);
+                }
+            }
+            try {
+                m_driverManager.getProjectDriver(dbc).writeLockChanges(dbc, changedPaths, locks);
+            } catch (CmsException e) {
+                // write the changes again the next time
+                m_changedPaths.addAll(changedPaths);
+                throw e;
+            }
         }
     }
 
@@ -745,6 +775,41 @@ public final class CmsLockManager {
         }
     }
 
+    /**
+     * Returns the cached locks that may match the given filter for the given root path.<p>
+     *
+     * Only the locks of the parent folders and of the subtree of the root path are returned, as required
+     * by the filter. If the filter also matches the siblings of locked resources, all cached locks are returned,
+     * since the siblings may be located anywhere.<p>
+     *
+     * @param rootPath the root path to match the locks against
+     * @param filter the lock filter
+     *
+     * @return the cached locks that may match the given filter
+     */
+    private List<CmsLock> getCandidateLocks(String rootPath, CmsLockFilter filter) {
+
+        if (filter.isSharedExclusive()) {
+            return OpenCms.getMemoryMonitor().getAllCachedLocks();
+        }
+        List<CmsLock> locks = new ArrayList<CmsLock>();
+        if (filter.isIncludeChildren()) {
+            // this includes the lock of the root path itself
+            locks.addAll(OpenCms.getMemoryMonitor().getCachedLocks(rootPath));
+        }
+        if (filter.isIncludeParent()) {
+            locks.addAll(OpenCms.getMemoryMonitor().getCachedParentLocks(rootPath));
+            if (!filter.isIncludeChildren() && CmsResource.isFolder(rootPath)) {
+                // a folder also matches its own lock
+                CmsLock lock = OpenCms.getMemoryMonitor().getCachedLock(rootPath);
+                if (lock != null) {
+                    locks.add(lock);
+                }
+            }
+        }
+        return locks;
+    }
+
     /**
      * Returns the direct lock of a resource.<p>
      *
@@ -766,18 +831,13 @@ public final class CmsLockManager {
      */
     private CmsLock getParentFolderLock(String resourceName) {
 
-        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getAllCachedLocks().iterator();
+        Iterator<CmsLock> itLocks = OpenCms.getMemoryMonitor().getCachedParentLocks(resourceName).iterator();
         while (itLocks.hasNext()) {
-            CmsLock lock = itLocks.next();
-            if (lock.getResourceName().endsWith("/")
-                && resourceName.startsWith(lock.getResourceName())
-                && !resourceName.equals(lock.getResourceName())) {
-                // system locks does not get inherited
-                lock = lock.getEditionLock();
-                // check the lock
-                if (!lock.isUnlocked()) {
-                    return lock;
-                }
+            // system locks does not get inherited
+            CmsLock lock = itLocks.next().getEditionLock();
+            // check the lock
+            if (!lock.isUnlocked()) {
+                return lock;
             }
         }
         return CmsLock.getNullLock();
@@ -941,10 +1001,34 @@ public final class CmsLockManager {
      */
     private void lockResource(CmsLock lock) throws CmsLockException {
 
-        m_isDirty = true;
+        markChanged(lock.getResourceName());
         internalLockResource(lock, null);
     }
 
+    /**
+     * Records that the lock of the given resource has changed and has to be written to the db.<p>
+     *
+     * @param rootPath the root path of the resource
+     */
+    private void markChanged(String rootPath) {
+
+        if (m_runningInServlet) {
+            // before, the locks are not written at all
+            m_changedPaths.add(rootPath);
+        }
+    }
+
+    /**
+     * Removes the lock of the given resource from the lock cache.<p>
+     *
+     * @param rootPath the root path of the resource
+     */
+    private void uncacheLock(String rootPath) {
+
+        markChanged(rootPath);
+        OpenCms.getMemoryMonitor().uncacheLock(rootPath);
+    }
+
     /**
      * Unlocks the the resource with the given name.<p>
      *
@@ -956,7 +1040,7 @@ public final class CmsLockManager {
      */
     private CmsLock unlockResource(String resourceName, boolean systemLocks) {
 
-        m_isDirty = true;
+        markChanged(resourceName);
 
         // get the current lock
         CmsLock lock = OpenCms.getMemoryMonitor().getCachedLock(resourceName);
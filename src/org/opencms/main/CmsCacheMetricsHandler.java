@@ -0,0 +1,318 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+import org.opencms.file.CmsObject;
+import org.opencms.monitor.CmsCacheStatistics;
+import org.opencms.monitor.CmsLatencyHistogram;
+import org.opencms.publish.CmsPublishPriority;
+import org.opencms.publish.CmsPublishQueueStatistics;
+import org.opencms.security.CmsRole;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Publishes the statistics of the OpenCms caches in the Prometheus text format.<p>
+ *
+ * Reachable under: "/opencms/opencms/handleCacheMetrics".<p>
+ *
+ * For every cache registered with the memory monitor, and for the Flex cache, the hits, misses, puts,
+ * evictions, the current number of cached objects, the estimated memory size and byte budget of caches
+ * with a byte budget, and a histogram of the load times are written.
+ * In addition, the number of waiting publish jobs and the wait times of the started publish jobs
+ * are written by publish job priority.
+ * The statistics are only available for requests from the local host, or for users with the root administrator role.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsCacheMetricsHandler implements I_CmsRequestHandler {
+
+    /** The content type of the Prometheus text format. */
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=UTF-8";
+
+    /** The handler name. */
+    public static final String HANDLER_NAME = "CacheMetrics";
+
+    /** The prefix of all metric names. */
+    public static final String METRIC_PREFIX = "opencms_cache_";
+
+    /** The prefix of all publish queue metric names. */
+    public static final String METRIC_PREFIX_PUBLISH_QUEUE = "opencms_publish_queue_";
+
+    /** The handler names used by this request handler. */
+    private static final String[] HANDLER_NAMES = new String[] {HANDLER_NAME};
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsCacheMetricsHandler.class);
+
+    /**
+     * @see org.opencms.main.I_CmsRequestHandler#getHandlerNames()
+     */
+    public String[] getHandlerNames() {
+
+        return HANDLER_NAMES;
+    }
+
+    /**
+     * Returns the statistics of the given caches in the Prometheus text format.<p>
+     *
+     * @param statistics the statistics of the caches
+     *
+     * @return the statistics in the Prometheus text format
+     */
+    public String getMetrics(List<CmsCacheStatistics> statistics) {
+
+        StringBuffer result = new StringBuffer(4096);
+        appendHeader(result, "hits_total", "counter", "Number of lookups that found a cached object.");
+        for (CmsCacheStatistics cache : statistics) {
+            appendValue(result, "hits_total", cache, null, String.valueOf(cache.getHits()));
+        }
+        appendHeader(result, "misses_total", "counter", "Number of lookups that did not find a cached object.");
+        for (CmsCacheStatistics cache : statistics) {
+            appendValue(result, "misses_total", cache, null, String.valueOf(cache.getMisses()));
+        }
+        appendHeader(result, "puts_total", "counter", "Number of objects added to the cache.");
+        for (CmsCacheStatistics cache : statistics) {
+            appendValue(result, "puts_total", cache, null, String.valueOf(cache.getPuts()));
+        }
+        appendHeader(result, "evictions_total", "counter", "Number of objects removed because the cache was full.");
+        for (CmsCacheStatistics cache : statistics) {
+            appendValue(result, "evictions_total", cache, null, String.valueOf(cache.getEvictions()));
+        }
+        appendHeader(result, "size", "gauge", "Number of objects currently in the cache.");
+        for (CmsCacheStatistics cache : statistics) {
+            long size = cache.getSize();
+            if (size >= 0) {
+                appendValue(result, "size", cache, null, String.valueOf(size));
+            }
+        }
+        appendHeader(result, "weight_bytes", "gauge", "Estimated memory size of the objects in a budgeted cache.");
+        for (CmsCacheStatistics cache : statistics) {
+            if (cache.getMaxWeight() > 0) {
+                appendValue(result, "weight_bytes", cache, null, String.valueOf(cache.getWeight()));
+            }
+        }
+        appendHeader(result, "budget_bytes", "gauge", "Byte budget of a cache.");
+        for (CmsCacheStatistics cache : statistics) {
+            if (cache.getMaxWeight() > 0) {
+                appendValue(result, "budget_bytes", cache, null, String.valueOf(cache.getMaxWeight()));
+            }
+        }
+        appendHeader(result, "load_seconds", "histogram", "Time to load an object that was not found in the cache.");
+        long[] bounds = CmsLatencyHistogram.getBucketBounds();
+        for (CmsCacheStatistics cache : statistics) {
+            CmsLatencyHistogram loadTimes = cache.getLoadTimes();
+            long[] counts = loadTimes.getBucketCounts();
+            for (int i = 0; i < counts.length; i++) {
+                String bound = i < bounds.length ? String.valueOf(bounds[i] / 1000.0) : "+Inf";
+                appendValue(result, "load_seconds_bucket", cache, bound, String.valueOf(counts[i]));
+            }
+            appendValue(result, "load_seconds_sum", cache, null, String.valueOf(loadTimes.getSum() / 1.0e9));
+            appendValue(result, "load_seconds_count", cache, null, String.valueOf(counts[counts.length - 1]));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns the statistics of the publish queue in the Prometheus text format.<p>
+     *
+     * @param statistics the statistics of the publish queue
+     *
+     * @return the statistics in the Prometheus text format
+     */
+    public String getPublishQueueMetrics(CmsPublishQueueStatistics statistics) {
+
+        StringBuffer result = new StringBuffer(2048);
+        appendHeader(result, METRIC_PREFIX_PUBLISH_QUEUE, "depth", "gauge", "Number of waiting publish jobs.");
+        for (CmsPublishPriority priority : CmsPublishPriority.values()) {
+            appendPublishQueueValue(result, "depth", priority, String.valueOf(statistics.getDepth(priority)));
+        }
+        appendHeader(
+            result,
+            METRIC_PREFIX_PUBLISH_QUEUE,
+            "oldest_wait_seconds",
+            "gauge",
+            "Wait time of the oldest waiting publish job.");
+        result.append(METRIC_PREFIX_PUBLISH_QUEUE).append("oldest_wait_seconds ").append(
+            statistics.getOldestWaitTime() / 1000.0).append('\n');
+        appendHeader(
+            result,
+            METRIC_PREFIX_PUBLISH_QUEUE,
+            "wait_seconds",
+            "summary",
+            "Wait time of the started publish jobs.");
+        for (CmsPublishPriority priority : CmsPublishPriority.values()) {
+            appendPublishQueueValue(
+                result,
+                "wait_seconds_sum",
+                priority,
+                String.valueOf(statistics.getWaitTime(priority) / 1000.0));
+            appendPublishQueueValue(
+                result,
+                "wait_seconds_count",
+                priority,
+                String.valueOf(statistics.getStartedJobs(priority)));
+        }
+        appendHeader(
+            result,
+            METRIC_PREFIX_PUBLISH_QUEUE,
+            "wait_seconds_max",
+            "gauge",
+            "Max. wait time of the started publish jobs.");
+        for (CmsPublishPriority priority : CmsPublishPriority.values()) {
+            appendPublishQueueValue(
+                result,
+                "wait_seconds_max",
+                priority,
+                String.valueOf(statistics.getMaxWaitTime(priority) / 1000.0));
+        }
+        return result.toString();
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsRequestHandler#handle(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, java.lang.String)
+     */
+    public void handle(HttpServletRequest req, HttpServletResponse res, String name) throws IOException {
+
+        if (!isAllowed(req)) {
+            res.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        res.setContentType(CONTENT_TYPE);
+        res.setHeader("Cache-Control", "no-cache");
+        PrintWriter writer = res.getWriter();
+        writer.write(getMetrics(OpenCms.getMemoryMonitor().getCacheStatistics()));
+        if (OpenCms.getPublishManager() != null) {
+            writer.write(getPublishQueueMetrics(OpenCms.getPublishManager().getPublishQueueStatistics()));
+        }
+        writer.flush();
+    }
+
+    /**
+     * Checks if the statistics may be read with the given request.<p>
+     *
+     * @param req the current request
+     *
+     * @return <code>true</code> if the request is sent from the local host or by a root administrator
+     */
+    protected boolean isAllowed(HttpServletRequest req) {
+
+        try {
+            if (InetAddress.getByName(req.getRemoteAddr()).isLoopbackAddress()) {
+                return true;
+            }
+        } catch (UnknownHostException e) {
+            // not an IP address, check the user
+        }
+        try {
+            CmsObject cms = OpenCmsCore.getInstance().initCmsObjectFromSession(req);
+            return (cms != null) && OpenCms.getRoleManager().hasRole(cms, CmsRole.ROOT_ADMIN);
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Appends the help and type lines of a metric.<p>
+     *
+     * @param result the buffer to append to
+     * @param metric the name of the metric without prefix
+     * @param type the type of the metric
+     * @param help the description of the metric
+     */
+    private void appendHeader(StringBuffer result, String metric, String type, String help) {
+
+        appendHeader(result, METRIC_PREFIX, metric, type, help);
+    }
+
+    /**
+     * Appends the help and type lines of a metric with the given prefix.<p>
+     *
+     * @param result the buffer to append to
+     * @param prefix the prefix of the metric name
+     * @param metric the name of the metric without prefix
+     * @param type the type of the metric
+     * @param help the description of the metric
+     */
+    private void appendHeader(StringBuffer result, String prefix, String metric, String type, String help) {
+
+        result.append("# HELP ").append(prefix).append(metric).append(' ').append(help).append('\n');
+        result.append("# TYPE ").append(prefix).append(metric).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * Appends a sample of a publish queue metric.<p>
+     *
+     * @param result the buffer to append to
+     * @param metric the name of the metric without prefix
+     * @param priority the priority of the publish jobs
+     * @param value the value of the sample
+     */
+    private void appendPublishQueueValue(
+        StringBuffer result,
+        String metric,
+        CmsPublishPriority priority,
+        String value) {
+
+        result.append(METRIC_PREFIX_PUBLISH_QUEUE).append(metric).append("{priority=\"").append(
+            priority.name().toLowerCase()).append("\"} ").append(value).append('\n');
+    }
+
+    /**
+     * Appends a sample of a metric.<p>
+     *
+     * @param result the buffer to append to
+     * @param metric the name of the metric without prefix
+     * @param cache the statistics of the cache
+     * @param bucket the upper bound of the histogram bucket, or <code>null</code>
+     * @param value the value of the sample
+     */
+    private void appendValue(
+        StringBuffer result,
+        String metric,
+        CmsCacheStatistics cache,
+        String bucket,
+        String value) {
+
+        result.append(METRIC_PREFIX).append(metric).append("{cache=\"").append(cache.getName()).append('"');
+        if (bucket != null) {
+            result.append(",le=\"").append(bucket).append('"');
+        }
+        result.append("} ").append(value).append('\n');
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.main;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * The handling of an event by a single event listener.<p>
+ *
+ * The task records the time the listener needed to handle the event, and the failure of the listener, if any.
+ * A failing listener does not affect the other listeners of the event.<p>
+ *
+ * @since 10.5.0
+ *
+ * @see CmsEventManager#fireEvent(CmsEvent, java.util.concurrent.Executor)
+ */
+public class CmsEventListenerTask implements Runnable {
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsEventListenerTask.class);
+
+    /** Indicates if the event is handled asynchronously. */
+    private final boolean m_async;
+
+    /** Counted down when the listener has handled the event. */
+    private final CountDownLatch m_done;
+
+    /** The time in milliseconds the listener needed to handle the event. */
+    private volatile long m_duration;
+
+    /** The event to handle. */
+    private final CmsEvent m_event;
+
+    /** The failure of the listener, or <code>null</code>. */
+    private volatile Throwable m_failure;
+
+    /** The listener that handles the event. */
+    private final I_CmsEventListener m_listener;
+
+    /** Indicates if the event must be handled before the operation that fired the event is completed. */
+    private final boolean m_mandatory;
+
+    /**
+     * Creates a new task.<p>
+     *
+     * @param listener the listener that handles the event
+     * @param event the event to handle
+     */
+    public CmsEventListenerTask(I_CmsEventListener listener, CmsEvent event) {
+
+        m_listener = listener;
+        m_event = event;
+        m_done = new CountDownLatch(1);
+        if (listener instanceof I_CmsAsyncEventListener) {
+            I_CmsAsyncEventListener asyncListener = (I_CmsAsyncEventListener)listener;
+            m_async = asyncListener.isAsync(event.getType());
+            m_mandatory = !m_async || asyncListener.isMandatory(event.getType());
+        } else {
+            m_async = false;
+            m_mandatory = true;
+        }
+    }
+
+    /**
+     * Returns the time in milliseconds the listener needed to handle the event.<p>
+     *
+     * @return the time in milliseconds the listener needed to handle the event
+     */
+    public long getDuration() {
+
+        return m_duration;
+    }
+
+    /**
+     * Returns the event to handle.<p>
+     *
+     * @return the event to handle
+     */
+    public CmsEvent getEvent() {
+
+        return m_event;
+    }
+
+    /**
+     * Returns the failure of the listener.<p>
+     *
+     * @return the failure of the listener, or <code>null</code> if the listener did not fail
+     */
+    public Throwable getFailure() {
+
+        return m_failure;
+    }
+
+    /**
+     * Returns the listener that handles the event.<p>
+     *
+     * @return the listener that handles the event
+     */
+    public I_CmsEventListener getListener() {
+
+        return m_listener;
+    }
+
+    /**
+     * Returns if the event is handled asynchronously.<p>
+     *
+     * @return <code>true</code> if the event is handled asynchronously
+     */
+    public boolean isAsync() {
+
+        return m_async;
+    }
+
+    /**
+     * Returns if the listener has handled the event.<p>
+     *
+     * @return <code>true</code> if the listener has handled the event
+     */
+    public boolean isDone() {
+
+        return m_done.getCount() == 0;
+    }
+
+    /**
+     * Returns if the event must be handled before the operation that fired the event is completed.<p>
+     *
+     * @return <code>true</code> if the event must be handled before the operation that fired the event is completed
+     */
+    public boolean isMandatory() {
+
+        return m_mandatory;
+    }
+
+    /**
+     * @see java.lang.Runnable#run()
+     */
+    public void run() {
+
+        long start = System.currentTimeMillis();
+        try {
+            m_listener.cmsEvent(m_event);
+        } catch (Throwable t) {
+            // catch everything, so that the other listeners are not affected
+            m_failure = t;
+            LOG.error(
+                Messages.get().getBundle().key(
+                    Messages.LOG_EVENT_LISTENER_FAILED_2,
+                    m_listener.getClass().getName(),
+                    m_event.toString()),
+                t);
+        } finally {
+            m_duration = System.currentTimeMillis() - start;
+            m_done.countDown();
+        }
+        if (LOG.isInfoEnabled()) {
+            LOG.info(
+                Messages.get().getBundle().key(
+                    Messages.LOG_EVENT_LISTENER_FINISHED_3,
+                    m_listener.getClass().getName(),
+                    m_event.toString(),
+                    new Long(m_duration)));
+        }
+    }
+
+    /**
+     * Waits until the listener has handled the event.<p>
+     *
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public void waitForCompletion() throws InterruptedException {
+
+        m_done.await();
+    }
+}
@@ -32,6 +32,8 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.commons.logging.Log;
 
@@ -118,6 +120,58 @@ public class CmsEventManager {
         fireEventHandler(m_eventListeners.get(I_CmsEventListener.LISTENERS_FOR_ALL_EVENTS), event);
     }
 
+    /**
+     * Notify all event listeners that a particular event has occurred, listeners that can handle
+     * the event asynchronously are called by the given executor.<p>
+     *
+     * All other listeners are called one after another on the current thread first, then the asynchronous
+     * listeners are started. A failing listener does not prevent the other listeners from handling the event,
+     * the failure is recorded in the returned task.<p>
+     *
+     * @param event the event that is forwarded to all listeners
+     * @param executor the executor for the listeners that handle the event asynchronously, may be <code>null</code>
+     *
+     * @return the tasks of all listeners, asynchronous tasks may not be done yet
+     *
+     * @see I_CmsAsyncEventListener
+     */
+    public List<CmsEventListenerTask> fireEvent(CmsEvent event, Executor executor) {
+
+        List<I_CmsEventListener> listeners = new ArrayList<I_CmsEventListener>();
+        synchronized (m_eventListeners) {
+            List<I_CmsEventListener> typeListeners = m_eventListeners.get(event.getTypeInteger());
+            if (typeListeners != null) {
+                listeners.addAll(typeListeners);
+            }
+            List<I_CmsEventListener> allListeners = m_eventListeners.get(
+                I_CmsEventListener.LISTENERS_FOR_ALL_EVENTS);
+            if (allListeners != null) {
+                listeners.addAll(allListeners);
+            }
+        }
+        List<CmsEventListenerTask> result = new ArrayList<CmsEventListenerTask>(listeners.size());
+        List<CmsEventListenerTask> asyncTasks = new ArrayList<CmsEventListenerTask>();
+        for (I_CmsEventListener listener : listeners) {
+            CmsEventListenerTask task = new CmsEventListenerTask(listener, event);
+            result.add(task);
+            if (task.isAsync() && (executor != null)) {
+                asyncTasks.add(task);
+            } else {
+                task.run();
+            }
+        }
+        // start the asynchronous listeners last, so they see the effects of the other listeners, e.g. flushed caches
+        for (CmsEventListenerTask task : asyncTasks) {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // the executor has been shut down, handle the event on the current thread
+                task.run();
+            }
+        }
+        return result;
+    }
+
     /**
      * Notify all event listeners that a particular event has occurred without any additional event data.<p>
      *
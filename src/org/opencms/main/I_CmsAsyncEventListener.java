@@ -0,0 +1,66 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.main;
+
+/**
+ * An event listener that declares if it can handle an event asynchronously.<p>
+ *
+ * Events fired with {@link CmsEventManager#fireEvent(CmsEvent, java.util.concurrent.Executor)}, like the
+ * {@link I_CmsEventListener#EVENT_PUBLISH_PROJECT} event, are handled by asynchronous listeners on threads of
+ * the given executor, in parallel to each other. They are started after all other listeners have been called
+ * one after another on the thread that fires the event.<p>
+ *
+ * An asynchronous listener must not use the database context from the event data,
+ * since the database context is not thread safe and may already be closed. A listener that is not mandatory
+ * must also not rely on the report from the event data, since its output may be written
+ * after the report has been completed.<p>
+ *
+ * @since 10.5.0
+ */
+public interface I_CmsAsyncEventListener extends I_CmsEventListener {
+
+    /**
+     * Returns if this listener can handle events of the given type asynchronously.<p>
+     *
+     * @param eventType the event type
+     *
+     * @return <code>true</code> if this listener can handle events of the given type asynchronously
+     */
+    boolean isAsync(int eventType);
+
+    /**
+     * Returns if the handling of events of the given type must be completed before the operation
+     * that fired the event is completed, e.g. before a publish job is finished.<p>
+     *
+     * @param eventType the event type
+     *
+     * @return <code>true</code> if the handling of events of the given type must be completed first
+     */
+    boolean isMandatory(int eventType);
+}
@@ -393,6 +393,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_ERROR_EXPORT_SHUTDOWN_1 = "LOG_ERROR_EXPORT_SHUTDOWN_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_ERROR_FLEX_CACHE_SHUTDOWN_1 = "LOG_ERROR_FLEX_CACHE_SHUTDOWN_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_ERROR_GENERIC_0 = "LOG_ERROR_GENERIC_0";
 
@@ -438,6 +441,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_ERROR_WRITING_CONFIG_1 = "LOG_ERROR_WRITING_CONFIG_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_EVENT_LISTENER_FAILED_2 = "LOG_EVENT_LISTENER_FAILED_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_EVENT_LISTENER_FINISHED_3 = "LOG_EVENT_LISTENER_FINISHED_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_INIT_CMSOBJECT_IN_HANDLER_2 = "LOG_INIT_CMSOBJECT_IN_HANDLER_2";
 
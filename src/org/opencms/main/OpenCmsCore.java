@@ -207,6 +207,9 @@ public final class OpenCmsCore {
     /** The set of configured export points. */
     private Set<CmsExportPoint> m_exportPoints;
 
+    /** The Flex cache, <code>null</code> if the Flex cache could not be initialized. */
+    private CmsFlexCache m_flexCache;
+
     /** The context objects for GWT services. */
     private Map<String, CmsGwtServiceContext> m_gwtServiceContexts;
 
@@ -1291,6 +1294,7 @@ public final class OpenCmsCore {
             getSystemInfo().setDeviceSelector(flexCacheConfiguration.getDeviceSelector());
             // pass configuration to flex cache for initialization
             flexCache = new CmsFlexCache(flexCacheConfiguration);
+            m_flexCache = flexCache;
             if (CmsLog.INIT.isInfoEnabled()) {
                 CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_FLEX_CACHE_FINISHED_0));
             }
@@ -1427,6 +1431,11 @@ public final class OpenCmsCore {
             m_publishManager.setPublishListRemoveMode(systemConfiguration.getPublishListRemoveMode());
             m_publishManager.initialize(initCmsObject(adminCms));
 
+            // initialize the Flex cache, this requires the publish manager to restore the snapshot
+            if (m_flexCache != null) {
+                m_flexCache.initialize(initCmsObject(adminCms));
+            }
+
             // initialize the search manager
             m_searchManager.initialize(initCmsObject(adminCms));
 
@@ -1841,6 +1850,16 @@ public final class OpenCmsCore {
                         Messages.get().getBundle().key(Messages.LOG_ERROR_PUBLISH_SHUTDOWN_1, e.getMessage()),
                         e);
                 }
+                try {
+                    // the Flex cache snapshot requires the publish tag, so write it before the database is closed
+                    if (m_flexCache != null) {
+                        m_flexCache.shutDown();
+                    }
+                } catch (Throwable e) {
+                    CmsLog.INIT.error(
+                        Messages.get().getBundle().key(Messages.LOG_ERROR_FLEX_CACHE_SHUTDOWN_1, e.getMessage()),
+                        e);
+                }
                 try {
                     // search manager must be shut down early since there may be background indexing still ongoing
                     if (m_searchManager != null) {
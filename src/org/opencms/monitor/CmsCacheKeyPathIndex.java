@@ -0,0 +1,168 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * An index of cache keys by the root path of the resource the cached object belongs to.<p>
+ *
+ * The index allows to remove the cached objects of a single resource, or of all resources in a subtree,
+ * without flushing the whole cache. Since the paths are kept sorted, the costs of finding the keys
+ * of a subtree depend on the size of the subtree, not on the size of the index.<p>
+ *
+ * Objects removed from the cache by eviction are not removed from the index immediately,
+ * use {@link #retainKeys(Map)} to remove the keys that are no longer cached.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsCacheKeyPathIndex {
+
+    /** The cache keys by resource root path. */
+    private TreeMap<String, Set<String>> m_keys;
+
+    /** The number of keys in the index. */
+    private int m_size;
+
+    /**
+     * Creates a new, empty index.<p>
+     */
+    public CmsCacheKeyPathIndex() {
+
+        m_keys = new TreeMap<String, Set<String>>();
+    }
+
+    /**
+     * Adds a cache key for the given resource root path.<p>
+     *
+     * @param rootPath the root path of the resource
+     * @param key the cache key
+     */
+    public synchronized void add(String rootPath, String key) {
+
+        Set<String> keys = m_keys.get(rootPath);
+        if (keys == null) {
+            keys = new HashSet<String>(4);
+            m_keys.put(rootPath, keys);
+        }
+        if (keys.add(key)) {
+            m_size++;
+        }
+    }
+
+    /**
+     * Removes all keys from the index.<p>
+     */
+    public synchronized void clear() {
+
+        m_keys.clear();
+        m_size = 0;
+    }
+
+    /**
+     * Removes the keys of the given resource root path from the index.<p>
+     *
+     * @param rootPath the root path of the resource
+     *
+     * @return the removed keys
+     */
+    public synchronized Set<String> removePath(String rootPath) {
+
+        Set<String> keys = m_keys.remove(rootPath);
+        if (keys == null) {
+            return Collections.emptySet();
+        }
+        m_size -= keys.size();
+        return keys;
+    }
+
+    /**
+     * Removes the keys of all resources below the given folder from the index.<p>
+     *
+     * The keys of the folder itself are not removed.<p>
+     *
+     * @param folderRootPath the root path of the folder, must end with a slash
+     *
+     * @return the removed keys
+     */
+    public synchronized Set<String> removeSubtree(String folderRootPath) {
+
+        // all paths below the folder are between "folder/" (exclusive) and "folder0" (exclusive), as '0' follows '/'
+        String end = folderRootPath.substring(0, folderRootPath.length() - 1) + (char)('/' + 1);
+        SortedMap<String, Set<String>> subtree = m_keys.subMap(folderRootPath, false, end, false);
+        if (subtree.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> result = new HashSet<String>();
+        for (Set<String> keys : subtree.values()) {
+            result.addAll(keys);
+            m_size -= keys.size();
+        }
+        subtree.clear();
+        return result;
+    }
+
+    /**
+     * Removes all keys from the index that are not contained in the given cache.<p>
+     *
+     * @param cache the cache
+     */
+    public synchronized void retainKeys(Map<String, ?> cache) {
+
+        Iterator<Set<String>> paths = m_keys.values().iterator();
+        while (paths.hasNext()) {
+            Set<String> keys = paths.next();
+            Iterator<String> it = keys.iterator();
+            while (it.hasNext()) {
+                if (!cache.containsKey(it.next())) {
+                    it.remove();
+                    m_size--;
+                }
+            }
+            if (keys.isEmpty()) {
+                paths.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of keys in the index.<p>
+     *
+     * @return the number of keys in the index
+     */
+    public synchronized int size() {
+
+        return m_size;
+    }
+}
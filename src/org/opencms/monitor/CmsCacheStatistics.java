@@ -0,0 +1,323 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the hit, miss, put and eviction counts of a cache, as well as a histogram of the load times.<p>
+ *
+ * The load time of an object is the time between a lookup that did not find the object and
+ * the following put of the same key by the same thread, i.e. the time the caller needed to read or
+ * calculate the object. Puts without a preceding miss, or with a miss older than {@link #MAX_LOAD_TIME},
+ * are counted, but not recorded as load time.<p>
+ *
+ * All counters are updated without locking, so the statistics can be used for heavily used caches.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsCacheStatistics implements I_CmsCacheStatistics {
+
+    /**
+     * The start of loading an object, stored per thread.<p>
+     */
+    private static class CmsLoadStart {
+
+        /** The key of the object. */
+        Object m_key;
+
+        /** The time the lookup failed, in nanoseconds. */
+        long m_start;
+
+        /**
+         * Creates a new load start.<p>
+         *
+         * @param key the key of the object
+         * @param start the time the lookup failed, in nanoseconds
+         */
+        CmsLoadStart(Object key, long start) {
+
+            m_key = key;
+            m_start = start;
+        }
+    }
+
+    /** The max. time in nanoseconds between a miss and a put that is recorded as load time. */
+    public static final long MAX_LOAD_TIME = 60L * 1000L * 1000000L;
+
+    /** The cache map, used to determine the size of the cache. */
+    private Map<?, ?> m_cache;
+
+    /** The number of evicted objects. */
+    private AtomicLong m_evictions;
+
+    /** The number of hits. */
+    private AtomicLong m_hits;
+
+    /** The histogram of the load times. */
+    private CmsLatencyHistogram m_loadTimes;
+
+    /** The start of loading an object after a miss in the current thread. */
+    private ThreadLocal<CmsLoadStart> m_loadStart;
+
+    /** The byte budget of the cache. */
+    private long m_maxWeight;
+
+    /** The number of misses. */
+    private AtomicLong m_misses;
+
+    /** The name of the cache. */
+    private String m_name;
+
+    /** The number of puts. */
+    private AtomicLong m_puts;
+
+    /** The estimated memory size of all objects in the cache. */
+    private AtomicLong m_weight;
+
+    /**
+     * Creates new statistics for a cache.<p>
+     *
+     * @param name the name of the cache
+     */
+    public CmsCacheStatistics(String name) {
+
+        m_name = name;
+        m_evictions = new AtomicLong();
+        m_hits = new AtomicLong();
+        m_loadStart = new ThreadLocal<CmsLoadStart>();
+        m_loadTimes = new CmsLatencyHistogram();
+        m_misses = new AtomicLong();
+        m_puts = new AtomicLong();
+        m_weight = new AtomicLong();
+    }
+
+    /**
+     * Adds to the estimated memory size of all objects in the cache.<p>
+     *
+     * @param bytes the bytes to add, negative if objects have been removed
+     */
+    public void addWeight(long bytes) {
+
+        m_weight.addAndGet(bytes);
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsCacheStatistics#getEvictions()
+     */
+    public long getEvictions() {
+
+        return m_evictions.get();
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsCacheStatistics#getHitRatio()
+     */
+    public double getHitRatio() {
+
+        long hits = getHits();
+        long lookups = hits + getMisses();
+        return lookups == 0 ? 0 : (double)hits / lookups;
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsCacheStatistics#getHits()
+     */
+    public long getHits() {
+
+        return m_hits.get();
+    }
+
+    /**
+     * Returns the histogram of the load times.<p>
+     *
+     * @return the histogram of the load times
+     */
+    public CmsLatencyHistogram getLoadTimes() {
+
+        return m_loadTimes;
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsCacheStatistics#getLoadTimeAverage()
+     */
+    public double getLoadTimeAverage() {
+
+        long count = m_loadTimes.getCount();
+        return count == 0 ? 0 : (m_loadTimes.getSum() / 1000000.0) / count;
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsCacheStatistics#getMaxWeight()
+     */
+    public long getMaxWeight() {
+
+        return m_maxWeight;
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsCacheStatistics#getMisses()
+     */
+    public long getMisses() {
+
+        return m_misses.get();
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsCacheStatistics#getName()
+     */
+    public String getName() {
+
+        return m_name;
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsCacheStatistics#getPuts()
+     */
+    public long getPuts() {
+
+        return m_puts.get();
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsCacheStatistics#getSize()
+     */
+    public long getSize() {
+
+        Map<?, ?> cache = m_cache;
+        return cache == null ? -1 : cache.size();
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsCacheStatistics#getWeight()
+     */
+    public long getWeight() {
+
+        return Math.max(0, m_weight.get());
+    }
+
+    /**
+     * Records that an object has been removed from the cache because the cache was full.<p>
+     */
+    public void recordEviction() {
+
+        m_evictions.incrementAndGet();
+    }
+
+    /**
+     * Records a lookup that found the object.<p>
+     */
+    public void recordHit() {
+
+        m_hits.incrementAndGet();
+    }
+
+    /**
+     * Records the time needed to load an object that was not found in the cache.<p>
+     *
+     * @param nanos the load time in nanoseconds
+     */
+    public void recordLoadTime(long nanos) {
+
+        m_loadTimes.record(nanos);
+    }
+
+    /**
+     * Records a lookup that did not find the object.<p>
+     *
+     * Use this if the load time is recorded with {@link #recordLoadTime(long)}.<p>
+     */
+    public void recordMiss() {
+
+        m_misses.incrementAndGet();
+    }
+
+    /**
+     * Records a lookup that did not find the object, and starts measuring the load time.<p>
+     *
+     * @param key the key of the object
+     */
+    public void recordMiss(Object key) {
+
+        m_misses.incrementAndGet();
+        m_loadStart.set(new CmsLoadStart(key, System.nanoTime()));
+    }
+
+    /**
+     * Records that an object has been added to the cache.<p>
+     *
+     * If the same thread had a miss for the key before, the time since the miss is recorded as load time.<p>
+     *
+     * @param key the key of the object
+     */
+    public void recordPut(Object key) {
+
+        m_puts.incrementAndGet();
+        CmsLoadStart start = m_loadStart.get();
+        if (start != null) {
+            m_loadStart.remove();
+            long time = System.nanoTime() - start.m_start;
+            if ((time < MAX_LOAD_TIME) && (key != null) && key.equals(start.m_key)) {
+                m_loadTimes.record(time);
+            }
+        }
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsCacheStatistics#reset()
+     */
+    public void reset() {
+
+        m_evictions.set(0);
+        m_hits.set(0);
+        m_loadTimes.reset();
+        m_misses.set(0);
+        m_puts.set(0);
+    }
+
+    /**
+     * Sets the cache map, used to determine the size of the cache.<p>
+     *
+     * @param cache the cache map
+     */
+    public void setCache(Map<?, ?> cache) {
+
+        m_cache = cache;
+    }
+
+    /**
+     * Sets the byte budget of the cache.<p>
+     *
+     * @param maxWeight the byte budget
+     */
+    public void setMaxWeight(long maxWeight) {
+
+        m_maxWeight = maxWeight;
+    }
+}
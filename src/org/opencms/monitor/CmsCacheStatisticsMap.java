@@ -0,0 +1,110 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import java.util.Map;
+
+import com.google.common.collect.ForwardingMap;
+
+/**
+ * A map that records the lookups and puts of a cache map in a {@link CmsCacheStatistics} instance.<p>
+ *
+ * All operations are delegated to the wrapped cache map. A lookup returning <code>null</code>
+ * is counted as miss, since the caches never contain <code>null</code> values.<p>
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ *
+ * @since 10.5.0
+ */
+public class CmsCacheStatisticsMap<K, V> extends ForwardingMap<K, V> {
+
+    /** The wrapped cache map. */
+    private Map<K, V> m_delegate;
+
+    /** The statistics of the cache. */
+    private CmsCacheStatistics m_statistics;
+
+    /**
+     * Creates a new map wrapping the given cache map.<p>
+     *
+     * @param delegate the cache map to wrap
+     * @param statistics the statistics to update
+     */
+    public CmsCacheStatisticsMap(Map<K, V> delegate, CmsCacheStatistics statistics) {
+
+        m_delegate = delegate;
+        m_statistics = statistics;
+        m_statistics.setCache(delegate);
+    }
+
+    /**
+     * @see com.google.common.collect.ForwardingMap#get(java.lang.Object)
+     */
+    @Override
+    public V get(Object key) {
+
+        V result = m_delegate.get(key);
+        if (result == null) {
+            m_statistics.recordMiss(key);
+        } else {
+            m_statistics.recordHit();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the statistics of the cache.<p>
+     *
+     * @return the statistics of the cache
+     */
+    public CmsCacheStatistics getStatistics() {
+
+        return m_statistics;
+    }
+
+    /**
+     * @see com.google.common.collect.ForwardingMap#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public V put(K key, V value) {
+
+        V result = m_delegate.put(key, value);
+        m_statistics.recordPut(key);
+        return result;
+    }
+
+    /**
+     * @see com.google.common.collect.ForwardingMap#delegate()
+     */
+    @Override
+    protected Map<K, V> delegate() {
+
+        return m_delegate;
+    }
+}
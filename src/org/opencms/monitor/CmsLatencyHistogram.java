@@ -0,0 +1,145 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies with fixed bucket boundaries.<p>
+ *
+ * The histogram is cumulative in the same way as Prometheus histograms are:
+ * the count of a bucket contains all recorded values less than or equal to the upper bound of the bucket.
+ * Recording a value is lock-free, so the histogram can be updated by any number of threads.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsLatencyHistogram {
+
+    /** The upper bounds of the buckets in milliseconds, the last bucket is unbounded. */
+    private static final long[] BUCKET_BOUNDS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000};
+
+    /** The number of values recorded in each bucket, not cumulated. */
+    private AtomicLongArray m_buckets;
+
+    /** The number of recorded values. */
+    private AtomicLong m_count;
+
+    /** The sum of all recorded values in nanoseconds. */
+    private AtomicLong m_sum;
+
+    /**
+     * Creates a new, empty histogram.<p>
+     */
+    public CmsLatencyHistogram() {
+
+        m_buckets = new AtomicLongArray(BUCKET_BOUNDS.length + 1);
+        m_count = new AtomicLong();
+        m_sum = new AtomicLong();
+    }
+
+    /**
+     * Returns the upper bounds of the buckets in milliseconds.<p>
+     *
+     * The last bucket, which has no upper bound, is not included.<p>
+     *
+     * @return the upper bounds of the buckets in milliseconds
+     */
+    public static long[] getBucketBounds() {
+
+        return BUCKET_BOUNDS.clone();
+    }
+
+    /**
+     * Returns the cumulative counts of the buckets.<p>
+     *
+     * The array contains one more element than {@link #getBucketBounds()},
+     * the last element is the count of all recorded values.<p>
+     *
+     * @return the cumulative counts of the buckets
+     */
+    public long[] getBucketCounts() {
+
+        long[] result = new long[m_buckets.length()];
+        long sum = 0;
+        for (int i = 0; i < result.length; i++) {
+            sum += m_buckets.get(i);
+            result[i] = sum;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of recorded values.<p>
+     *
+     * @return the number of recorded values
+     */
+    public long getCount() {
+
+        return m_count.get();
+    }
+
+    /**
+     * Returns the sum of all recorded values in nanoseconds.<p>
+     *
+     * @return the sum of all recorded values in nanoseconds
+     */
+    public long getSum() {
+
+        return m_sum.get();
+    }
+
+    /**
+     * Records a value.<p>
+     *
+     * @param nanos the value in nanoseconds
+     */
+    public void record(long nanos) {
+
+        int bucket = 0;
+        // a value belongs to the first bucket with an upper bound >= the value
+        while ((bucket < BUCKET_BOUNDS.length) && (nanos > (BUCKET_BOUNDS[bucket] * 1000000L))) {
+            bucket++;
+        }
+        m_buckets.incrementAndGet(bucket);
+        m_sum.addAndGet(nanos);
+        m_count.incrementAndGet();
+    }
+
+    /**
+     * Resets all buckets of this histogram.<p>
+     */
+    public void reset() {
+
+        for (int i = 0; i < m_buckets.length(); i++) {
+            m_buckets.set(i, 0);
+        }
+        m_sum.set(0);
+        m_count.set(0);
+    }
+}
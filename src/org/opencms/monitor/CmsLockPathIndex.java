@@ -0,0 +1,315 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import org.opencms.lock.CmsLock;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A concurrent index of the cached locks, organized as a trie of the path segments of the locked root paths.<p>
+ *
+ * Each path segment including its trailing slash is a node of the trie, so the lock of a folder
+ * and the locks of its parent folders are found along the path to the folder. This allows to look up
+ * the locks of all parent folders of a resource with costs depending on the depth of the path, and the locks
+ * of all resources in a subtree with costs depending on the size of the subtree.<p>
+ *
+ * Lookups do not block, modifications are synchronized. The index does not allow <code>null</code> keys
+ * or values. The entry set, key set and values returned by this map are snapshots, changes of the
+ * index are not reflected in them.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsLockPathIndex extends AbstractMap<String, CmsLock> {
+
+    /**
+     * A node of the path trie.<p>
+     */
+    private static class CmsLockPathNode {
+
+        /** The child nodes by path segment. */
+        private Map<String, CmsLockPathNode> m_children;
+
+        /** The lock of the path of this node, or <code>null</code>. */
+        private volatile CmsLock m_lock;
+
+        /** The parent node. */
+        private CmsLockPathNode m_parent;
+
+        /** The path segment of this node. */
+        private String m_segment;
+
+        /**
+         * Creates a new node.<p>
+         *
+         * @param parent the parent node, <code>null</code> for the root node
+         * @param segment the path segment of the node
+         */
+        CmsLockPathNode(CmsLockPathNode parent, String segment) {
+
+            m_parent = parent;
+            m_segment = segment;
+            m_children = new ConcurrentHashMap<String, CmsLockPathNode>(4, 0.75f, 1);
+        }
+    }
+
+    /** The root node, which represents the empty path. */
+    private CmsLockPathNode m_root;
+
+    /** The number of locks in the index. */
+    private AtomicInteger m_size;
+
+    /**
+     * Creates a new, empty index.<p>
+     */
+    public CmsLockPathIndex() {
+
+        m_root = new CmsLockPathNode(null, "");
+        m_size = new AtomicInteger();
+    }
+
+    /**
+     * @see java.util.AbstractMap#clear()
+     */
+    @Override
+    public synchronized void clear() {
+
+        m_root.m_children.clear();
+        m_root.m_lock = null;
+        m_size.set(0);
+    }
+
+    /**
+     * @see java.util.AbstractMap#containsKey(java.lang.Object)
+     */
+    @Override
+    public boolean containsKey(Object key) {
+
+        return get(key) != null;
+    }
+
+    /**
+     * @see java.util.AbstractMap#entrySet()
+     */
+    @Override
+    public Set<Map.Entry<String, CmsLock>> entrySet() {
+
+        Map<String, CmsLock> result = new HashMap<String, CmsLock>();
+        for (CmsLock lock : getLocks("")) {
+            result.put(lock.getResourceName(), lock);
+        }
+        return Collections.unmodifiableMap(result).entrySet();
+    }
+
+    /**
+     * @see java.util.AbstractMap#get(java.lang.Object)
+     */
+    @Override
+    public CmsLock get(Object key) {
+
+        if (!(key instanceof String)) {
+            return null;
+        }
+        CmsLockPathNode node = findNode((String)key, false);
+        return node == null ? null : node.m_lock;
+    }
+
+    /**
+     * Returns the locks of all resources with a root path starting with the given prefix.<p>
+     *
+     * If the prefix is a folder path ending with a slash, the result contains the lock of the folder
+     * and the locks of all resources in the folder subtree.<p>
+     *
+     * @param prefix the root path prefix
+     *
+     * @return the locks of all resources with a root path starting with the given prefix
+     */
+    public List<CmsLock> getLocks(String prefix) {
+
+        List<CmsLock> result = new ArrayList<CmsLock>();
+        CmsLockPathNode node = m_root;
+        int start = 0;
+        int end;
+        while ((end = prefix.indexOf('/', start)) >= 0) {
+            node = node.m_children.get(prefix.substring(start, end + 1));
+            if (node == null) {
+                return result;
+            }
+            start = end + 1;
+        }
+        String rest = prefix.substring(start);
+        if (rest.length() == 0) {
+            collectLocks(node, result);
+        } else {
+            // the prefix ends with a partial segment, which matches all segments starting with it
+            for (Map.Entry<String, CmsLockPathNode> entry : node.m_children.entrySet()) {
+                if (entry.getKey().startsWith(rest)) {
+                    collectLocks(entry.getValue(), result);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the locks of all parent folders of the given root path.<p>
+     *
+     * The lock of the root path itself is not contained in the result.
+     * The locks are ordered from the top level folder down to the direct parent folder.<p>
+     *
+     * @param rootPath the root path of a resource
+     *
+     * @return the locks of all parent folders of the given root path
+     */
+    public List<CmsLock> getParentLocks(String rootPath) {
+
+        List<CmsLock> result = new ArrayList<CmsLock>();
+        CmsLockPathNode node = m_root;
+        int start = 0;
+        int end;
+        // the last segment is the resource itself, so only segments followed by further characters are parents
+        while (((end = rootPath.indexOf('/', start)) >= 0) && (end < (rootPath.length() - 1))) {
+            node = node.m_children.get(rootPath.substring(start, end + 1));
+            if (node == null) {
+                break;
+            }
+            CmsLock lock = node.m_lock;
+            if (lock != null) {
+                result.add(lock);
+            }
+            start = end + 1;
+        }
+        return result;
+    }
+
+    /**
+     * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public synchronized CmsLock put(String key, CmsLock value) {
+
+        if ((key == null) || (value == null)) {
+            throw new NullPointerException();
+        }
+        CmsLockPathNode node = findNode(key, true);
+        CmsLock result = node.m_lock;
+        node.m_lock = value;
+        if (result == null) {
+            m_size.incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * @see java.util.AbstractMap#remove(java.lang.Object)
+     */
+    @Override
+    public synchronized CmsLock remove(Object key) {
+
+        if (!(key instanceof String)) {
+            return null;
+        }
+        CmsLockPathNode node = findNode((String)key, false);
+        if ((node == null) || (node.m_lock == null)) {
+            return null;
+        }
+        CmsLock result = node.m_lock;
+        node.m_lock = null;
+        m_size.decrementAndGet();
+        // remove the nodes that are not required anymore
+        while ((node.m_parent != null) && (node.m_lock == null) && node.m_children.isEmpty()) {
+            node.m_parent.m_children.remove(node.m_segment);
+            node = node.m_parent;
+        }
+        return result;
+    }
+
+    /**
+     * @see java.util.AbstractMap#size()
+     */
+    @Override
+    public int size() {
+
+        return m_size.get();
+    }
+
+    /**
+     * Adds the locks of the given node and all its descendants to the given list.<p>
+     *
+     * @param node the node
+     * @param locks the list to add the locks to
+     */
+    private void collectLocks(CmsLockPathNode node, List<CmsLock> locks) {
+
+        CmsLock lock = node.m_lock;
+        if (lock != null) {
+            locks.add(lock);
+        }
+        for (CmsLockPathNode child : node.m_children.values()) {
+            collectLocks(child, locks);
+        }
+    }
+
+    /**
+     * Returns the node for the given path.<p>
+     *
+     * @param path the path
+     * @param create if <code>true</code>, missing nodes are created, this must only be done by synchronized methods
+     *
+     * @return the node for the given path, or <code>null</code> if not found and not created
+     */
+    private CmsLockPathNode findNode(String path, boolean create) {
+
+        CmsLockPathNode node = m_root;
+        int start = 0;
+        while (start < path.length()) {
+            int end = path.indexOf('/', start);
+            end = end < 0 ? path.length() : end + 1;
+            String segment = path.substring(start, end);
+            CmsLockPathNode child = node.m_children.get(segment);
+            if (child == null) {
+                if (!create) {
+                    return null;
+                }
+                child = new CmsLockPathNode(node, segment);
+                node.m_children.put(segment, child);
+            }
+            node = child;
+            start = end;
+        }
+        return node;
+    }
+}
@@ -70,6 +70,7 @@ import org.opencms.util.PrintfFormat;
 import org.opencms.xml.CmsXmlContentDefinition;
 import org.opencms.xml.CmsXmlEntityResolver;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.ConcurrentModificationException;
@@ -79,16 +80,25 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import javax.mail.internet.InternetAddress;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
 
 import org.apache.commons.collections.Buffer;
 import org.apache.commons.collections.buffer.SynchronizedBuffer;
 import org.apache.commons.collections.map.LRUMap;
 import org.apache.commons.logging.Log;
 
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
 
 /**
  * Monitors OpenCms memory consumption.<p>
@@ -153,6 +163,12 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         XML_ENTITY_TEMP;
     }
 
+    /** The estimated memory size of a cache entry, without the key and the value. */
+    private static final int CACHE_ENTRY_OVERHEAD = 64;
+
+    /** The domain and type of the object names of the cache statistics MBeans. */
+    private static final String CACHE_STATISTICS_MBEAN_PREFIX = "org.opencms:type=CacheStatistics,name=";
+
     /** The concurrency level for the guava caches. */
     private static final int CONCURRENCY_LEVEL = 8;
 
@@ -184,7 +200,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     private Map<String, Locale> m_cacheLocale;
 
     /** Cache for the resource locks. */
-    private Map<String, CmsLock> m_cacheLock;
+    private CmsCacheStatisticsMap<String, CmsLock> m_cacheLock;
 
     /** The memory object cache map. */
     private Map<String, Object> m_cacheMemObject;
@@ -219,6 +235,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Cache for role lists. */
     private Map<String, List<CmsRole>> m_cacheRoleLists;
 
+    /** The statistics of all caches, by cache name. */
+    private Map<String, CmsCacheStatistics> m_cacheStatistics;
+
     /** Cache for user data. */
     private Map<String, CmsUser> m_cacheUser;
 
@@ -243,6 +262,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Map to keep track of disabled caches. */
     private Map<CacheType, Boolean> m_disabled = new HashMap<CacheType, Boolean>();
 
+    /** The index of the cached property lists including inherited properties, by resource root path. */
+    private CmsCacheKeyPathIndex m_inheritedPropertyListIndex;
+
     /** Interval in which emails are send. */
     private int m_intervalEmail;
 
@@ -267,6 +289,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** The time the last warning log was written. */
     private long m_lastLogWarning;
 
+    /** The path index of the cached locks, wrapped by the lock cache. */
+    private CmsLockPathIndex m_lockIndex;
+
     /** The number of times the log entry was written. */
     private int m_logCount;
 
@@ -282,6 +307,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Contains the object to be monitored. */
     private Map<String, Object> m_monitoredObjects;
 
+    /** The index of the cached property lists without inherited properties, by resource root path. */
+    private CmsCacheKeyPathIndex m_propertyListIndex;
+
     /** Buffer for publish history. */
     private Buffer m_publishHistory;
 
@@ -294,12 +322,19 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Flag for memory warning mail send. */
     private boolean m_warningSendSinceLastStatus;
 
+    /** The caches with a byte budget, by cache type. */
+    private Map<CacheType, Map<String, ?>> m_weightedCaches;
+
     /**
      * Empty constructor, required by OpenCms scheduler.<p>
      */
     public CmsMemoryMonitor() {
 
         m_monitoredObjects = new HashMap<String, Object>();
+        m_cacheStatistics = new ConcurrentSkipListMap<String, CmsCacheStatistics>();
+        m_weightedCaches = new ConcurrentHashMap<CacheType, Map<String, ?>>();
+        m_propertyListIndex = new CmsCacheKeyPathIndex();
+        m_inheritedPropertyListIndex = new CmsCacheKeyPathIndex();
     }
 
     /**
@@ -319,6 +354,99 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return (Map<T, V>)(builder.build().asMap());
     }
 
+    /**
+     * Creates a thread safe LRU cache map based on the guava cache builder,
+     * which records its hits, misses, puts and evictions in the given statistics.<p>
+     *
+     * @param capacity the cache capacity
+     * @param statistics the statistics of the cache
+     *
+     * @return the cache map
+     */
+    public static <T, V> Map<T, V> createLRUCacheMap(int capacity, final CmsCacheStatistics statistics) {
+
+        Cache<T, V> cache = CacheBuilder.newBuilder().concurrencyLevel(CONCURRENCY_LEVEL).maximumSize(
+            capacity).removalListener(new RemovalListener<T, V>() {
+
+                public void onRemoval(RemovalNotification<T, V> notification) {
+
+                    if (notification.wasEvicted()) {
+                        statistics.recordEviction();
+                    }
+                }
+            }).build();
+        return new CmsCacheStatisticsMap<T, V>(cache.asMap(), statistics);
+    }
+
+    /**
+     * Creates a thread safe cache map based on the guava cache builder, which is limited by the
+     * estimated memory size of its entries instead of the number of entries.<p>
+     *
+     * The memory size of an entry is estimated with {@link #getCacheEntrySize(Object, Object)}
+     * when the entry is added. The hits, misses, puts, evictions and the estimated memory size
+     * of all entries are recorded in the given statistics.<p>
+     *
+     * Note that guava splits the budget between the segments of the cache, so single entries
+     * should be small compared to the budget.<p>
+     *
+     * @param maxBytes the max. estimated memory size of all entries in bytes
+     * @param statistics the statistics of the cache
+     *
+     * @return the cache map
+     */
+    public static <T, V> Map<T, V> createWeightedCacheMap(long maxBytes, final CmsCacheStatistics statistics) {
+
+        statistics.setMaxWeight(maxBytes);
+        Cache<T, V> cache = CacheBuilder.newBuilder().concurrencyLevel(CONCURRENCY_LEVEL).maximumWeight(
+            maxBytes).weigher(new Weigher<T, V>() {
+
+                public int weigh(T key, V value) {
+
+                    int size = getCacheEntrySize(key, value);
+                    statistics.addWeight(size);
+                    return size;
+                }
+            }).removalListener(new RemovalListener<T, V>() {
+
+                public void onRemoval(RemovalNotification<T, V> notification) {
+
+                    statistics.addWeight(-getCacheEntrySize(notification.getKey(), notification.getValue()));
+                    if (notification.wasEvicted()) {
+                        statistics.recordEviction();
+                    }
+                }
+            }).build();
+        return new CmsCacheStatisticsMap<T, V>(cache.asMap(), statistics);
+    }
+
+    /**
+     * Returns the estimated memory size of a cache entry, including the key and the value.<p>
+     *
+     * Lists and maps are measured with {@link #getValueSize(List, int)} and {@link #getValueSize(Map, int)},
+     * all other objects with {@link #getMemorySize(Object)}.<p>
+     *
+     * @param key the key of the entry
+     * @param value the value of the entry
+     *
+     * @return the estimated memory size of the entry in bytes
+     */
+    public static int getCacheEntrySize(Object key, Object value) {
+
+        Object obj = value;
+        if (obj instanceof CmsAccessControlList) {
+            obj = ((CmsAccessControlList)obj).getPermissionMap();
+        }
+        long size = CACHE_ENTRY_OVERHEAD + getMemorySize(key);
+        if (obj instanceof Map) {
+            size += getValueSize((Map<?, ?>)obj, 1);
+        } else if (obj instanceof List) {
+            size += getValueSize((List<?>)obj, 1);
+        } else {
+            size += getMemorySize(obj);
+        }
+        return (int)Math.min(size, Integer.MAX_VALUE);
+    }
+
     /**
      * Returns the size of objects that are instances of
      * <code>byte[]</code>, <code>String</code>, <code>CmsFile</code>,<code>I_CmsLruCacheObject</code>.<p>
@@ -716,6 +844,37 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cachePropertyList.put(key, propertyList);
     }
 
+    /**
+     * Caches the given property list of a resource under the given cache key.<p>
+     *
+     * The cache key is indexed by the root path of the resource, so that the list can be removed
+     * from the cache with {@link #uncachePropertyLists(String, boolean)} if the properties change.<p>
+     *
+     * @param key the cache key
+     * @param rootPath the root path of the resource
+     * @param inherited <code>true</code> if the list contains the properties inherited from the parent folders
+     * @param propertyList the property list to cache
+     */
+    public void cachePropertyList(String key, String rootPath, boolean inherited, List<CmsProperty> propertyList) {
+
+        if (m_disabled.get(CacheType.PROPERTY_LIST) != null) {
+            return;
+        }
+        // cache first and index afterwards, so that a concurrent removal can not leave an unindexed entry
+        m_cachePropertyList.put(key, propertyList);
+        if (inherited) {
+            m_inheritedPropertyListIndex.add(rootPath, key);
+        } else {
+            m_propertyListIndex.add(rootPath, key);
+        }
+        int indexSize = m_propertyListIndex.size() + m_inheritedPropertyListIndex.size();
+        if (indexSize > ((2 * m_cachePropertyList.size()) + 1024)) {
+            // remove the keys of evicted entries from the index
+            m_propertyListIndex.retainKeys(m_cachePropertyList);
+            m_inheritedPropertyListIndex.retainKeys(m_cachePropertyList);
+        }
+    }
+
     /**
      * Caches the given published resources list under the given cache key.<p>
      *
@@ -1055,6 +1214,8 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                     break;
                 case PROPERTY_LIST:
                     m_cachePropertyList.clear();
+                    m_propertyListIndex.clear();
+                    m_inheritedPropertyListIndex.clear();
                     break;
                 case PUBLISHED_RESOURCES:
                     m_cachePublishedResources.clear();
@@ -1142,13 +1303,18 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             flushCache(CacheType.LOCK);
             return;
         }
-        // initialize new lock cache
-        Map<String, CmsLock> newLockCache = new ConcurrentHashMap<String, CmsLock>(newLocks);
+        // initialize new lock cache, keeping the statistics
+        CmsLockPathIndex newLockIndex = new CmsLockPathIndex();
+        newLockIndex.putAll(newLocks);
+        CmsCacheStatisticsMap<String, CmsLock> newLockCache = new CmsCacheStatisticsMap<String, CmsLock>(
+            newLockIndex,
+            m_cacheLock.getStatistics());
         // register it
         register(CmsLockManager.class.getName(), newLockCache);
         // save the old cache
-        Map<String, CmsLock> oldCache = m_cacheLock;
+        Map<String, CmsLock> oldCache = m_lockIndex;
         // replace the old by the new cache
+        m_lockIndex = newLockIndex;
         m_cacheLock = newLockCache;
         // clean up the old cache
         oldCache.clear();
@@ -1406,6 +1572,16 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return new ArrayList<CmsPublishJobInfoBean>(m_publishHistory);
     }
 
+    /**
+     * Returns the statistics of all caches, sorted by cache name.<p>
+     *
+     * @return the statistics of all caches
+     */
+    public List<CmsCacheStatistics> getCacheStatistics() {
+
+        return new ArrayList<CmsCacheStatistics>(m_cacheStatistics.values());
+    }
+
     /**
      * Returns the ACL cached with the given cache key or <code>null</code> if not found.<p>
      *
@@ -1458,6 +1634,34 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return m_cacheLocale.get(key);
     }
 
+    /**
+     * Returns all cached locks of resources with a root path starting with the given prefix.<p>
+     *
+     * For a folder path, this is the lock of the folder and the locks of all resources in the folder subtree.<p>
+     *
+     * @param rootPathPrefix the root path prefix
+     *
+     * @return a list of {@link CmsLock} objects
+     */
+    public List<CmsLock> getCachedLocks(String rootPathPrefix) {
+
+        return m_lockIndex.getLocks(rootPathPrefix);
+    }
+
+    /**
+     * Returns the cached locks of all parent folders of the given root path.<p>
+     *
+     * The locks are ordered from the top level folder down to the direct parent folder.<p>
+     *
+     * @param rootPath the root path to get the parent folder locks for
+     *
+     * @return a list of {@link CmsLock} objects
+     */
+    public List<CmsLock> getCachedParentLocks(String rootPath) {
+
+        return m_lockIndex.getParentLocks(rootPath);
+    }
+
     /**
      * Returns the lock cached with the given root path or <code>null</code> if not found.<p>
      *
@@ -1838,55 +2042,62 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         // create and register all system caches
 
         // temporary xml entities cache
-        m_cacheXmlTemporaryEntity = createLRUCacheMap(128);
+        m_cacheXmlTemporaryEntity = createCacheMap(CacheType.XML_ENTITY_TEMP, 128);
         register(CmsXmlEntityResolver.class.getName() + ".xmlEntityTemporaryCache", m_cacheXmlTemporaryEntity);
 
         // permanent xml entities cache
-        m_cacheXmlPermanentEntity = new ConcurrentHashMap<String, byte[]>(32);
+        m_cacheXmlPermanentEntity = new CmsCacheStatisticsMap<String, byte[]>(
+            new ConcurrentHashMap<String, byte[]>(32),
+            createCacheStatistics(CacheType.XML_ENTITY_PERM));
         register(CmsXmlEntityResolver.class.getName() + ".xmlEntityPermanentCache", m_cacheXmlPermanentEntity);
 
         // xml content definitions cache
-        m_cacheContentDefinitions = createLRUCacheMap(64);
+        m_cacheContentDefinitions = createCacheMap(CacheType.CONTENT_DEFINITION, 64);
         register(CmsXmlEntityResolver.class.getName() + ".contentDefinitionsCache", m_cacheContentDefinitions);
 
         // lock cache
-        m_cacheLock = new ConcurrentHashMap<String, CmsLock>();
+        m_lockIndex = new CmsLockPathIndex();
+        m_cacheLock = new CmsCacheStatisticsMap<String, CmsLock>(m_lockIndex, createCacheStatistics(CacheType.LOCK));
         register(CmsLockManager.class.getName(), m_cacheLock);
 
         // locale cache
-        m_cacheLocale = new ConcurrentHashMap<String, Locale>();
+        m_cacheLocale = new CmsCacheStatisticsMap<String, Locale>(
+            new ConcurrentHashMap<String, Locale>(),
+            createCacheStatistics(CacheType.LOCALE));
         register(CmsLocaleManager.class.getName(), m_cacheLocale);
 
         // permissions cache
-        m_cachePermission = createLRUCacheMap(cacheSettings.getPermissionCacheSize());
+        m_cachePermission = createCacheMap(CacheType.PERMISSION, cacheSettings.getPermissionCacheSize());
         register(CmsSecurityManager.class.getName(), m_cachePermission);
 
         // user cache
-        m_cacheUser = createLRUCacheMap(cacheSettings.getUserCacheSize());
+        m_cacheUser = createCacheMap(CacheType.USER, cacheSettings.getUserCacheSize());
         register(CmsDriverManager.class.getName() + ".userCache", m_cacheUser);
 
         // user list cache
-        m_cacheUserList = createLRUCacheMap(cacheSettings.getUserCacheSize());
+        m_cacheUserList = createCacheMap(CacheType.USER_LIST, cacheSettings.getUserCacheSize());
         register(CmsDriverManager.class.getName() + ".userListCache", m_cacheUserList);
 
         // group cache
-        m_cacheGroup = createLRUCacheMap(cacheSettings.getGroupCacheSize());
+        m_cacheGroup = createCacheMap(CacheType.GROUP, cacheSettings.getGroupCacheSize());
         register(CmsDriverManager.class.getName() + ".groupCache", m_cacheGroup);
 
         // organizational unit cache
-        m_cacheOrgUnit = createLRUCacheMap(cacheSettings.getOrgUnitCacheSize());
+        m_cacheOrgUnit = createCacheMap(CacheType.ORG_UNIT, cacheSettings.getOrgUnitCacheSize());
         register(CmsDriverManager.class.getName() + ".orgUnitCache", m_cacheOrgUnit);
 
         // user groups list cache
-        m_cacheUserGroups = createLRUCacheMap(cacheSettings.getUserGroupsCacheSize());
+        m_cacheUserGroups = createCacheMap(CacheType.USERGROUPS, cacheSettings.getUserGroupsCacheSize());
         register(CmsDriverManager.class.getName() + ".userGroupsCache", m_cacheUserGroups);
 
         // project cache
-        m_cacheProject = createLRUCacheMap(cacheSettings.getProjectCacheSize());
+        m_cacheProject = createCacheMap(CacheType.PROJECT, cacheSettings.getProjectCacheSize());
         register(CmsDriverManager.class.getName() + ".projectCache", m_cacheProject);
 
         // project resources cache cache
-        m_cacheProjectResources = createLRUCacheMap(cacheSettings.getProjectResourcesCacheSize());
+        m_cacheProjectResources = createCacheMap(
+            CacheType.PROJECT_RESOURCES,
+            cacheSettings.getProjectResourcesCacheSize());
         register(CmsDriverManager.class.getName() + ".projectResourcesCache", m_cacheProjectResources);
 
         // publish history
@@ -1901,43 +2112,47 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         register(CmsPublishQueue.class.getName() + ".publishQueue", buffer);
 
         // resource cache
-        m_cacheResource = createLRUCacheMap(cacheSettings.getResourceCacheSize());
+        m_cacheResource = createCacheMap(CacheType.RESOURCE, cacheSettings.getResourceCacheSize());
         register(CmsDriverManager.class.getName() + ".resourceCache", m_cacheResource);
 
         // roles cache
-        m_cacheHasRoles = createLRUCacheMap(cacheSettings.getRolesCacheSize());
+        m_cacheHasRoles = createCacheMap(CacheType.HAS_ROLE, cacheSettings.getRolesCacheSize());
         register(CmsDriverManager.class.getName() + ".rolesCache", m_cacheHasRoles);
 
         // role lists cache
-        m_cacheRoleLists = createLRUCacheMap(cacheSettings.getRolesCacheSize());
+        m_cacheRoleLists = createCacheMap(CacheType.ROLE_LIST, cacheSettings.getRolesCacheSize());
         register(CmsDriverManager.class.getName() + ".roleListsCache", m_cacheRoleLists);
 
         // resource list cache
-        m_cacheResourceList = createLRUCacheMap(cacheSettings.getResourcelistCacheSize());
+        m_cacheResourceList = createCacheMap(CacheType.RESOURCE_LIST, cacheSettings.getResourcelistCacheSize());
         register(CmsDriverManager.class.getName() + ".resourceListCache", m_cacheResourceList);
 
         // property cache
-        m_cacheProperty = createLRUCacheMap(cacheSettings.getPropertyCacheSize());
+        m_cacheProperty = createCacheMap(CacheType.PROPERTY, cacheSettings.getPropertyCacheSize());
         register(CmsDriverManager.class.getName() + ".propertyCache", m_cacheProperty);
 
         // property list cache
-        m_cachePropertyList = createLRUCacheMap(cacheSettings.getPropertyListsCacheSize());
+        m_cachePropertyList = createCacheMap(CacheType.PROPERTY_LIST, cacheSettings.getPropertyListsCacheSize());
         register(CmsDriverManager.class.getName() + ".propertyListCache", m_cachePropertyList);
 
         // published resources list cache
-        m_cachePublishedResources = createLRUCacheMap(5);
+        m_cachePublishedResources = createCacheMap(CacheType.PUBLISHED_RESOURCES, 5);
         register(CmsDriverManager.class.getName() + ".publishedResourcesCache", m_cachePublishedResources);
 
         // acl cache
-        m_cacheAccessControlList = createLRUCacheMap(cacheSettings.getAclCacheSize());
+        m_cacheAccessControlList = createCacheMap(CacheType.ACL, cacheSettings.getAclCacheSize());
         register(CmsDriverManager.class.getName() + ".accessControlListCache", m_cacheAccessControlList);
 
         // vfs object cache
-        m_cacheVfsObject = new ConcurrentHashMap<String, Object>();
+        m_cacheVfsObject = new CmsCacheStatisticsMap<String, Object>(
+            new ConcurrentHashMap<String, Object>(),
+            createCacheStatistics(CacheType.VFS_OBJECT));
         register(CmsVfsMemoryObjectCache.class.getName(), m_cacheVfsObject);
 
         // memory object cache
-        m_cacheMemObject = new ConcurrentHashMap<String, Object>();
+        m_cacheMemObject = new CmsCacheStatisticsMap<String, Object>(
+            new ConcurrentHashMap<String, Object>(),
+            createCacheStatistics(CacheType.MEMORY_OBJECT));
         register(CmsMemoryObjectCache.class.getName(), m_cacheMemObject);
 
         if (LOG.isDebugEnabled()) {
@@ -2040,6 +2255,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             // update the memory status
             monitor.updateStatus();
 
+            // shrink the caches with a byte budget if the heap usage is above the ceiling
+            monitor.checkCacheCeiling();
+
             // check if the system is in a low memory condition
             if (monitor.lowMemory()) {
                 // log warning
@@ -2091,6 +2309,32 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         }
     }
 
+    /**
+     * Adds the statistics of a cache to the monitor and publishes them as MBean.<p>
+     *
+     * Statistics and MBeans registered before with the same cache name are replaced.<p>
+     *
+     * @param statistics the statistics of the cache
+     */
+    public void registerCacheStatistics(CmsCacheStatistics statistics) {
+
+        m_cacheStatistics.put(statistics.getName(), statistics);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(CACHE_STATISTICS_MBEAN_PREFIX + statistics.getName());
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(new StandardMBean(statistics, I_CmsCacheStatistics.class), name);
+        } catch (Exception e) {
+            LOG.warn(
+                Messages.get().getBundle().key(
+                    Messages.LOG_MM_CACHE_STATISTICS_REGISTER_FAILED_1,
+                    statistics.getName()),
+                e);
+        }
+    }
+
     /**
      * Checks if some kind of persistence is required.<p>
      *
@@ -2172,7 +2416,43 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     }
 
     /**
-     * Flushes all cached objects.<p>
+     * Removes entries from the caches with a byte budget, until about the given number of bytes is released.<p>
+     *
+     * The bytes are released from all caches with a byte budget in proportion to their current size.
+     * Since the access order of the entries is not available, the entries are removed in the iteration order
+     * of the caches. The removed entries are counted as evictions.<p>
+     *
+     * @param bytes the number of bytes to release
+     *
+     * @return the number of bytes released
+     */
+    public long shrinkCaches(long bytes) {
+
+        long totalWeight = 0;
+        for (CacheType type : m_weightedCaches.keySet()) {
+            totalWeight += m_cacheStatistics.get(type.name()).getWeight();
+        }
+        if ((bytes <= 0) || (totalWeight <= 0)) {
+            return 0;
+        }
+        long released = 0;
+        for (Map.Entry<CacheType, Map<String, ?>> entry : m_weightedCaches.entrySet()) {
+            CmsCacheStatistics statistics = m_cacheStatistics.get(entry.getKey().name());
+            long weight = statistics.getWeight();
+            long target = weight - (long)((double)bytes * weight / totalWeight);
+            Iterator<String> keys = entry.getValue().keySet().iterator();
+            while ((statistics.getWeight() > target) && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+                statistics.recordEviction();
+            }
+            released += weight - statistics.getWeight();
+        }
+        return released;
+    }
+
+    /**
+     * Flushes all cached objects and removes the MBeans of the cache statistics.<p>
      *
      * @throws Exception if something goes wrong
      */
@@ -2181,6 +2461,19 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         for (CacheType type : CacheType.values()) {
             flushCache(type);
         }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (String cacheName : m_cacheStatistics.keySet()) {
+            try {
+                ObjectName name = new ObjectName(CACHE_STATISTICS_MBEAN_PREFIX + cacheName);
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+            } catch (Exception e) {
+                LOG.warn(
+                    Messages.get().getBundle().key(Messages.LOG_MM_CACHE_STATISTICS_UNREGISTER_FAILED_1, cacheName),
+                    e);
+            }
+        }
     }
 
     /**
@@ -2242,6 +2535,32 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cacheProject.remove(project.getName());
     }
 
+    /**
+     * Removes the cached property lists that are affected by a change of the properties of a resource.<p>
+     *
+     * The property lists of the resource itself are always removed. For a folder, the property lists
+     * including inherited properties of all resources in the folder are removed as well.
+     * If <code>subtree</code> is set, also the property lists without inherited properties of all resources
+     * in the folder are removed, e.g. if the folder has been moved or deleted.<p>
+     *
+     * Since the property cache is not keyed by resource, it is flushed.<p>
+     *
+     * @param rootPath the root path of the changed resource, folder paths must end with a slash
+     * @param subtree <code>true</code> if all resources in the folder have changed
+     */
+    public void uncachePropertyLists(String rootPath, boolean subtree) {
+
+        m_cacheProperty.clear();
+        removeKeys(m_cachePropertyList, m_propertyListIndex.removePath(rootPath));
+        removeKeys(m_cachePropertyList, m_inheritedPropertyListIndex.removePath(rootPath));
+        if (CmsResource.isFolder(rootPath)) {
+            removeKeys(m_cachePropertyList, m_inheritedPropertyListIndex.removeSubtree(rootPath));
+            if (subtree) {
+                removeKeys(m_cachePropertyList, m_propertyListIndex.removeSubtree(rootPath));
+            }
+        }
+    }
+
     /**
      * Removes the given publish job from the cache.<p>
      *
@@ -2295,6 +2614,29 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cacheXmlTemporaryEntity.remove(key);
     }
 
+    /**
+     * Shrinks the caches with a byte budget if the current heap usage is above the configured ceiling.<p>
+     *
+     * The caches release as many bytes as the heap usage exceeds the ceiling.<p>
+     */
+    protected void checkCacheCeiling() {
+
+        int ceiling = m_configuration.getCacheCeilingPercent();
+        if ((ceiling <= 0) || m_weightedCaches.isEmpty() || (m_memoryCurrent.getUsage() <= ceiling)) {
+            return;
+        }
+        long overflow = m_memoryCurrent.getUsedMemory() - ((m_memoryCurrent.getMaxMemory() * ceiling) / 100);
+        long released = shrinkCaches(overflow * 1048576);
+        if (LOG.isWarnEnabled()) {
+            LOG.warn(
+                Messages.get().getBundle().key(
+                    Messages.LOG_MM_SHRINK_CACHES_3,
+                    new Long(m_memoryCurrent.getUsage()),
+                    new Integer(ceiling),
+                    new Long(released)));
+        }
+    }
+
     /**
      * Clears the OpenCms caches.<p>
      */
@@ -2315,6 +2657,48 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         System.gc();
     }
 
+    /**
+     * Creates the cache map for a cache type.<p>
+     *
+     * If a byte budget is configured for the cache type, the cache is limited by the estimated
+     * memory size of its entries, otherwise by the given number of entries.<p>
+     *
+     * @param type the cache type
+     * @param capacity the max. number of entries, used if no byte budget is configured
+     *
+     * @return the cache map
+     */
+    protected <V> Map<String, V> createCacheMap(CacheType type, int capacity) {
+
+        CmsCacheStatistics statistics = createCacheStatistics(type);
+        long budget = m_configuration.getCacheBudget(type);
+        if (budget <= 0) {
+            m_weightedCaches.remove(type);
+            return createLRUCacheMap(capacity, statistics);
+        }
+        if (CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(
+                Messages.get().getBundle().key(Messages.LOG_MM_CACHE_BUDGET_2, type.name(), new Long(budget)));
+        }
+        Map<String, V> result = createWeightedCacheMap(budget, statistics);
+        m_weightedCaches.put(type, result);
+        return result;
+    }
+
+    /**
+     * Creates the statistics for a cache type and adds them to the monitor.<p>
+     *
+     * @param type the cache type
+     *
+     * @return the statistics of the cache
+     */
+    protected CmsCacheStatistics createCacheStatistics(CacheType type) {
+
+        CmsCacheStatistics statistics = new CmsCacheStatistics(type.name());
+        registerCacheStatistics(statistics);
+        return statistics;
+    }
+
     /**
      * Returns the cache costs of a monitored object.<p>
      *
@@ -2728,6 +3112,19 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         }
     }
 
+    /**
+     * Removes the given keys from a cache.<p>
+     *
+     * @param cache the cache
+     * @param keys the keys to remove
+     */
+    protected void removeKeys(Map<String, ?> cache, Set<String> keys) {
+
+        for (String key : keys) {
+            cache.remove(key);
+        }
+    }
+
     /**
      * Updates the memory information of the memory monitor.<p>
      */
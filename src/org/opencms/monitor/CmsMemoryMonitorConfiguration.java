@@ -27,11 +27,14 @@
 
 package org.opencms.monitor;
 
+import org.opencms.monitor.CmsMemoryMonitor.CacheType;
 import org.opencms.util.CmsStringUtil;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Memory Monitor configuration class.<p>
@@ -40,6 +43,12 @@ import java.util.List;
  */
 public class CmsMemoryMonitorConfiguration {
 
+    /** The byte budgets of the caches. */
+    private Map<CacheType, Long> m_cacheBudgets;
+
+    /** The heap usage in percent above which the caches with a byte budget are shrunk. */
+    private int m_cacheCeilingPercent;
+
     /** The memory monitor class name. */
     private String m_className;
 
@@ -67,6 +76,24 @@ public class CmsMemoryMonitorConfiguration {
     public CmsMemoryMonitorConfiguration() {
 
         m_emailReceiver = new ArrayList<String>();
+        m_cacheBudgets = new EnumMap<CacheType, Long>(CacheType.class);
+    }
+
+    /**
+     * Sets the byte budget of a cache.<p>
+     *
+     * A cache with a byte budget is limited by the estimated memory size of its entries,
+     * instead of the number of entries configured in the cache settings.<p>
+     *
+     * @param type the name of the cache type, see {@link CacheType}
+     * @param bytes the max. estimated memory size of all entries of the cache in bytes
+     */
+    public void addCacheBudget(String type, String bytes) {
+
+        long budget = Long.parseLong(bytes.trim());
+        if (budget > 0) {
+            m_cacheBudgets.put(CacheType.valueOf(type.trim().toUpperCase()), new Long(budget));
+        }
     }
 
     /**
@@ -79,6 +106,39 @@ public class CmsMemoryMonitorConfiguration {
         m_emailReceiver.add(emailReceiver);
     }
 
+    /**
+     * Returns the byte budget of the given cache type.<p>
+     *
+     * @param type the cache type
+     *
+     * @return the byte budget, or <code>0</code> if the cache is limited by the number of entries
+     */
+    public long getCacheBudget(CacheType type) {
+
+        Long budget = m_cacheBudgets.get(type);
+        return budget == null ? 0 : budget.longValue();
+    }
+
+    /**
+     * Returns the byte budgets of all caches.<p>
+     *
+     * @return the byte budgets of all caches
+     */
+    public Map<CacheType, Long> getCacheBudgets() {
+
+        return Collections.unmodifiableMap(m_cacheBudgets);
+    }
+
+    /**
+     * Returns the heap usage in percent above which the caches with a byte budget are shrunk.<p>
+     *
+     * @return the heap usage in percent, or <code>0</code> if the caches are never shrunk
+     */
+    public int getCacheCeilingPercent() {
+
+        return m_cacheCeilingPercent;
+    }
+
     /**
      * Returns the name of the memory monitor class.<p>
      *
@@ -180,6 +240,18 @@ public class CmsMemoryMonitorConfiguration {
         m_warningInterval = Integer.parseInt(warningInterval);
     }
 
+    /**
+     * Sets the heap usage in percent above which the caches with a byte budget are shrunk.<p>
+     *
+     * @param cacheCeilingPercent the heap usage in percent, empty or <code>0</code> to never shrink the caches
+     */
+    public void setCacheCeilingPercent(String cacheCeilingPercent) {
+
+        if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(cacheCeilingPercent)) {
+            m_cacheCeilingPercent = Integer.parseInt(cacheCeilingPercent.trim());
+        }
+    }
+
     /**
      * Sets the emailSender.<p>
      *
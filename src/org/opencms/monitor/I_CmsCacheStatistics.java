@@ -0,0 +1,111 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+/**
+ * The management interface of the statistics of a cache, used to publish the statistics via JMX.<p>
+ *
+ * @since 10.5.0
+ */
+public interface I_CmsCacheStatistics {
+
+    /**
+     * Returns the number of cached objects removed because the cache was full.<p>
+     *
+     * @return the number of evicted objects
+     */
+    long getEvictions();
+
+    /**
+     * Returns the ratio of hits to all lookups, between 0 and 1.<p>
+     *
+     * @return the hit ratio
+     */
+    double getHitRatio();
+
+    /**
+     * Returns the number of lookups that found a cached object.<p>
+     *
+     * @return the number of hits
+     */
+    long getHits();
+
+    /**
+     * Returns the average time in milliseconds to load an object that was not found in the cache.<p>
+     *
+     * @return the average load time in milliseconds
+     */
+    double getLoadTimeAverage();
+
+    /**
+     * Returns the byte budget of the cache.<p>
+     *
+     * @return the byte budget, or <code>0</code> if the cache is limited by the number of entries
+     */
+    long getMaxWeight();
+
+    /**
+     * Returns the number of lookups that did not find a cached object.<p>
+     *
+     * @return the number of misses
+     */
+    long getMisses();
+
+    /**
+     * Returns the name of the cache.<p>
+     *
+     * @return the name of the cache
+     */
+    String getName();
+
+    /**
+     * Returns the number of objects added to the cache.<p>
+     *
+     * @return the number of objects added to the cache
+     */
+    long getPuts();
+
+    /**
+     * Returns the number of objects currently in the cache, or <code>-1</code> if unknown.<p>
+     *
+     * @return the number of objects currently in the cache
+     */
+    long getSize();
+
+    /**
+     * Returns the estimated memory size of all objects in a cache with a byte budget.<p>
+     *
+     * @return the estimated memory size in bytes, or <code>0</code> if the cache has no byte budget
+     */
+    long getWeight();
+
+    /**
+     * Resets all counters.<p>
+     */
+    void reset();
+}
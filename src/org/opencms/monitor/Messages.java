@@ -43,6 +43,15 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_CLEAR_CACHE_MEM_CONS_0 = "LOG_CLEAR_CACHE_MEM_CONS_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_CACHE_BUDGET_2 = "LOG_MM_CACHE_BUDGET_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_CACHE_STATISTICS_REGISTER_FAILED_1 = "LOG_MM_CACHE_STATISTICS_REGISTER_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_CACHE_STATISTICS_UNREGISTER_FAILED_1 = "LOG_MM_CACHE_STATISTICS_UNREGISTER_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_CONNECTIONS_3 = "LOG_MM_CONNECTIONS_3";
 
@@ -79,6 +88,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_SESSION_STAT_3 = "LOG_MM_SESSION_STAT_3";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_SHRINK_CACHES_3 = "LOG_MM_SHRINK_CACHES_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_STARTUP_TIME_2 = "LOG_MM_STARTUP_TIME_2";
 
@@ -39,6 +39,7 @@ import org.opencms.file.CmsResource;
 import org.opencms.file.CmsUser;
 import org.opencms.lock.CmsLockType;
 import org.opencms.main.CmsEvent;
+import org.opencms.main.CmsEventListenerTask;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsInitException;
 import org.opencms.main.CmsLog;
@@ -50,10 +51,18 @@ import org.opencms.security.CmsAuthentificationException;
 import org.opencms.security.CmsRole;
 import org.opencms.util.CmsUUID;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 
@@ -70,9 +79,6 @@ public final class CmsPublishEngine {
     /** The id of the admin user. */
     private CmsUUID m_adminUserId;
 
-    /** The current running publish job. */
-    private CmsPublishThread m_currentPublishThread;
-
     /** The runtime info factory used during publishing. */
     private final I_CmsDbContextFactory m_dbContextFactory;
 
@@ -82,6 +88,9 @@ public final class CmsPublishEngine {
     /** The engine state. */
     private CmsPublishEngineState m_engineState;
 
+    /** The executor for the event listeners that handle the after publish event asynchronously. */
+    private ThreadPoolExecutor m_listenerExecutor;
+
     /** The publish listeners. */
     private final CmsPublishListenerCollection m_listeners;
 
@@ -94,6 +103,12 @@ public final class CmsPublishEngine {
     /** The amount of time the system will wait for a running publish job during shutdown. */
     private int m_publishQueueShutdowntime;
 
+    /** The max. number of publish jobs running at the same time. */
+    private int m_publishQueueWorkers;
+
+    /** The threads of the running publish jobs, in the order they have been started. */
+    private final List<CmsPublishThread> m_publishThreads;
+
     /** Is set during shutdown. */
     private boolean m_shuttingDown;
 
@@ -124,6 +139,9 @@ public final class CmsPublishEngine {
         m_publishHistory = new CmsPublishHistory(this);
         // initialize event handling
         m_listeners = new CmsPublishListenerCollection(this);
+        // initialize the running publish jobs
+        m_publishThreads = new CopyOnWriteArrayList<CmsPublishThread>();
+        m_publishQueueWorkers = CmsPublishManager.DEFAULT_QUEUE_WORKERS;
         // set engine state to normal processing
         m_engineState = CmsPublishEngineState.ENGINE_STARTED;
         if (CmsLog.INIT.isInfoEnabled()) {
@@ -132,30 +150,27 @@ public final class CmsPublishEngine {
     }
 
     /**
-     * Abandons the given publish thread.<p>
+     * Abandons the thread of the publish job which has been started first.<p>
      */
     public void abandonThread() {
 
-        if (!m_currentPublishThread.isAlive()) {
-            // thread is dead
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_DEAD_JOB_0));
-            }
-        } else {
-            // thread is not dead, and we suppose it hangs :(
-            if (LOG.isWarnEnabled()) {
-                LOG.warn(
-                    Messages.get().getBundle().key(
-                        Messages.LOG_THREADSTORE_PUBLISH_THREAD_INTERRUPT_2,
-                        m_currentPublishThread.getName(),
-                        m_currentPublishThread.getUUID()));
-            }
-            m_currentPublishThread.interrupt();
+        Iterator<CmsPublishThread> itThreads = m_publishThreads.iterator();
+        if (itThreads.hasNext()) {
+            abandonThread(itThreads.next());
+        }
+    }
+
+    /**
+     * Abandons the thread of the given running publish job.<p>
+     *
+     * @param publishJob the running publish job
+     */
+    public void abandonThread(CmsPublishJobRunning publishJob) {
+
+        CmsPublishThread publishThread = getPublishThread(publishJob.m_publishJob);
+        if (publishThread != null) {
+            abandonThread(publishThread);
         }
-        // just throw it away
-        m_currentPublishThread = null;
-        // and try again
-        checkCurrentPublishJobThread();
     }
 
     /**
@@ -186,31 +201,40 @@ public final class CmsPublishEngine {
             return;
         }
 
-        // there is no running publish job
-        if (m_currentPublishThread == null) {
-            // but something is waiting in the queue
-            if (!m_publishQueue.isEmpty()) {
-                // start the next waiting publish job
-                CmsPublishJobInfoBean publishJob = m_publishQueue.next();
-                m_currentPublishThread = new CmsPublishThread(this, publishJob);
-                m_currentPublishThread.start();
-            } else {
-                // nothing to do
+        // clean up the dead threads
+        for (CmsPublishThread publishThread : m_publishThreads) {
+            if (!publishThread.isAlive()) {
                 if (LOG.isDebugEnabled()) {
-                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_NO_RUNNING_JOB_0));
+                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_DEAD_JOB_0));
                 }
+                m_publishThreads.remove(publishThread);
             }
-            return;
         }
-        if (m_currentPublishThread.isAlive()) {
-            // normal running
-            // wait until it is finished
-            if (LOG.isDebugEnabled()) {
+
+        // start the waiting publish jobs that do not overlap the running ones
+        while ((m_publishThreads.size() < m_publishQueueWorkers) && !m_publishQueue.isEmpty()) {
+            List<CmsPublishJobInfoBean> runningJobs = new ArrayList<CmsPublishJobInfoBean>();
+            for (CmsPublishThread publishThread : m_publishThreads) {
+                runningJobs.add(publishThread.getPublishJob());
+            }
+            CmsPublishJobInfoBean publishJob = m_publishQueue.next(runningJobs);
+            if (publishJob == null) {
+                // all waiting jobs overlap a running job
+                break;
+            }
+            CmsPublishThread publishThread = new CmsPublishThread(this, publishJob);
+            m_publishThreads.add(publishThread);
+            publishThread.start();
+        }
+
+        if (LOG.isDebugEnabled()) {
+            if (m_publishThreads.isEmpty()) {
+                // nothing to do
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_NO_RUNNING_JOB_0));
+            } else {
+                // wait until the running jobs are finished
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_WAITING_0));
             }
-        } else {
-            // clean up the dead thread
-            abandonThread();
         }
     }
 
@@ -272,10 +296,11 @@ public final class CmsPublishEngine {
      */
     public CmsPublishJobBase getJobByPublishHistoryId(CmsUUID publishHistoryId) {
 
-        // try current running job
-        if ((m_currentPublishThread != null)
-            && m_currentPublishThread.getPublishJob().getPublishHistoryId().equals(publishHistoryId)) {
-            return new CmsPublishJobRunning(m_currentPublishThread.getPublishJob());
+        // try running jobs
+        for (CmsPublishThread publishThread : m_publishThreads) {
+            if (publishThread.getPublishJob().getPublishHistoryId().equals(publishHistoryId)) {
+                return new CmsPublishJobRunning(publishThread.getPublishJob());
+            }
         }
         // try enqueued jobs
         Iterator<CmsPublishJobEnqueued> itEnqueuedJobs = getPublishQueue().asList().iterator();
@@ -334,10 +359,10 @@ public final class CmsPublishEngine {
         // prevent new publish jobs are accepted
         m_shuttingDown = true;
 
-        // if a job is currently running,
+        // if jobs are currently running,
         // wait the specified amount of time,
-        // then write an abort message to the report
-        if (m_currentPublishThread != null) {
+        // then write an abort message to the reports
+        if (!m_publishThreads.isEmpty()) {
 
             // if a shutdown time is defined, wait  if a publish process is running
             if (m_publishQueueShutdowntime > 0) {
@@ -350,8 +375,8 @@ public final class CmsPublishEngine {
                 }
             }
 
-            if (m_currentPublishThread != null) {
-                CmsPublishJobInfoBean publishJob = m_currentPublishThread.getPublishJob();
+            for (CmsPublishThread publishThread : m_publishThreads) {
+                CmsPublishJobInfoBean publishJob = publishThread.getPublishJob();
                 try {
                     abortPublishJob(m_adminUserId, new CmsPublishJobEnqueued(publishJob), false);
                 } catch (CmsException e) {
@@ -374,6 +399,11 @@ public final class CmsPublishEngine {
             dbc.clear();
         }
 
+        if (m_listenerExecutor != null) {
+            // running event listeners are completed, but no new ones are started
+            m_listenerExecutor.shutdown();
+        }
+
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(
                 org.opencms.staticexport.Messages.get().getBundle().key(
@@ -398,9 +428,9 @@ public final class CmsPublishEngine {
         // abort event should be raised before the job is removed implicitly
         m_listeners.fireAbort(userId, publishJob);
 
-        if ((m_currentPublishThread == null)
-            || !publishJob.m_publishJob.equals(m_currentPublishThread.getPublishJob())) {
-            // engine is currently publishing another job or is not publishing
+        CmsPublishThread publishThread = getPublishThread(publishJob.m_publishJob);
+        if (publishThread == null) {
+            // engine is currently publishing other jobs or is not publishing
             if (!m_publishQueue.abortPublishJob(publishJob.m_publishJob)) {
                 // job not found
                 throw new CmsPublishException(
@@ -408,10 +438,10 @@ public final class CmsPublishEngine {
             }
         } else if (!m_shuttingDown) {
             // engine is currently publishing the job to abort
-            m_currentPublishThread.abort();
-        } else if (m_shuttingDown && (m_currentPublishThread != null)) {
-            // aborting the current job during shut down
-            I_CmsReport report = m_currentPublishThread.getReport();
+            publishThread.abort();
+        } else {
+            // aborting a running job during shut down
+            I_CmsReport report = publishThread.getReport();
             report.println();
             report.println();
             report.println(
@@ -459,19 +489,20 @@ public final class CmsPublishEngine {
 
         m_engineState = CmsPublishEngineState.ENGINE_STARTED;
         // start publish job if jobs waiting
-        if ((m_currentPublishThread == null) && !m_publishQueue.isEmpty()) {
+        if ((m_publishThreads.size() < m_publishQueueWorkers) && !m_publishQueue.isEmpty()) {
             checkCurrentPublishJobThread();
         }
     }
 
     /**
-     * Returns the current running publish job.<p>
+     * Returns the running publish job which has been started first.<p>
      *
-     * @return the current running publish job
+     * @return the running publish job which has been started first, or <code>null</code> if no job is running
      */
     protected CmsPublishThread getCurrentPublishJob() {
 
-        return m_currentPublishThread;
+        Iterator<CmsPublishThread> itThreads = m_publishThreads.iterator();
+        return itThreads.hasNext() ? itThreads.next() : null;
     }
 
     /**
@@ -516,6 +547,16 @@ public final class CmsPublishEngine {
         return m_publishQueue;
     }
 
+    /**
+     * Returns the threads of the running publish jobs, in the order they have been started.<p>
+     *
+     * @return the threads of the running publish jobs
+     */
+    protected List<CmsPublishThread> getPublishThreads() {
+
+        return Collections.unmodifiableList(new ArrayList<CmsPublishThread>(m_publishThreads));
+    }
+
     /**
      * Returns the content of the publish report assigned to the given publish job.<p>
      *
@@ -567,10 +608,17 @@ public final class CmsPublishEngine {
      * @param adminCms the admin cms
      * @param publishQueuePersistance flag if the queue is persisted
      * @param publishQueueShutdowntime amount of time to wait for a publish job during shutdown
+     * @param publishQueueWorkers the max. number of publish jobs running at the same time
+     * @param publishListenerThreads the max. number of threads for asynchronous after publish event listeners
      *
      * @throws CmsException if something goes wrong
      */
-    protected void initialize(CmsObject adminCms, boolean publishQueuePersistance, int publishQueueShutdowntime)
+    protected void initialize(
+        CmsObject adminCms,
+        boolean publishQueuePersistance,
+        int publishQueueShutdowntime,
+        int publishQueueWorkers,
+        int publishListenerThreads)
     throws CmsException {
 
         // check the driver manager
@@ -579,6 +627,29 @@ public final class CmsPublishEngine {
         }
 
         m_publishQueueShutdowntime = publishQueueShutdowntime;
+        m_publishQueueWorkers = Math.max(1, publishQueueWorkers);
+        int listenerThreads = Math.max(1, publishListenerThreads);
+        m_listenerExecutor = new ThreadPoolExecutor(
+            listenerThreads,
+            listenerThreads,
+            60,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactory() {
+
+                /** The number of the next thread. */
+                private AtomicInteger m_threadNumber = new AtomicInteger(1);
+
+                public Thread newThread(Runnable runnable) {
+
+                    Thread thread = new Thread(
+                        runnable,
+                        "OpenCms: Publish Event Listener " + m_threadNumber.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        m_listenerExecutor.allowCoreThreadTimeOut(true);
 
         // initially the engine is stopped, must be restartet after full system initialization
         m_engineState = CmsPublishEngineState.ENGINE_STOPPED;
@@ -590,15 +661,15 @@ public final class CmsPublishEngine {
 
     /**
      * Returns the working state, that is if no publish job
-     * is waiting to be processed and there is no current running
-     * publish job.<p>
+     * is waiting to be processed and there are no running
+     * publish jobs.<p>
      *
      * @return the working state
      */
     protected boolean isRunning() {
 
         return (((m_engineState == CmsPublishEngineState.ENGINE_STARTED) && !m_publishQueue.isEmpty())
-            || (m_currentPublishThread != null));
+            || !m_publishThreads.isEmpty());
     }
 
     /**
@@ -642,7 +713,7 @@ public final class CmsPublishEngine {
             LOG.error(t.getLocalizedMessage(), t);
         }
 
-        // trigger the old event mechanism
+        // trigger the old event mechanism, listeners that are not mandatory may still be running afterwards
         CmsDbContext dbc = m_dbContextFactory.getDbContext(publishJob.getCmsObject().getRequestContext());
         try {
             // fire an event that a project has been published
@@ -654,7 +725,23 @@ public final class CmsPublishEngine {
             eventData.put(I_CmsEventListener.KEY_PROJECTID, dbc.currentProject().getUuid());
             eventData.put(I_CmsEventListener.KEY_DBCONTEXT, dbc);
             CmsEvent afterPublishEvent = new CmsEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT, eventData);
-            OpenCms.fireCmsEvent(afterPublishEvent);
+            List<CmsEventListenerTask> listenerTasks = OpenCms.getEventManager().fireEvent(
+                afterPublishEvent,
+                m_listenerExecutor);
+            boolean listenerFailed = false;
+            for (CmsEventListenerTask listenerTask : listenerTasks) {
+                if (!listenerTask.isMandatory()) {
+                    continue;
+                }
+                listenerTask.waitForCompletion();
+                if (listenerTask.getFailure() != null) {
+                    listenerFailed = true;
+                    publishJob.getPublishReport().println(listenerTask.getFailure());
+                }
+            }
+            if (listenerFailed) {
+                dbc.rollback();
+            }
         } catch (Throwable t) {
             if (dbc != null) {
                 dbc.rollback();
@@ -679,24 +766,25 @@ public final class CmsPublishEngine {
             // log failure, most likely a database problem
             LOG.error(t.getLocalizedMessage(), t);
         }
-        try {
-            // finish the job
-            publishJob.finish();
-        } catch (Throwable t) {
-            // log failure, most likely a database problem
-            LOG.error(t.getLocalizedMessage(), t);
-        }
-        try {
-            // put the publish job into the history list
-            m_publishHistory.add(publishJob);
-        } catch (Throwable t) {
-            // log failure, most likely a database problem
-            LOG.error(t.getLocalizedMessage(), t);
-        }
-        if (Thread.currentThread() == m_currentPublishThread) {
-            // wipe the dead thread, only if this thread has not been abandoned
-            m_currentPublishThread = null;
+        // jobs may finish at the same time, keep the history in the order of the finish dates
+        synchronized (m_publishHistory) {
+            try {
+                // finish the job
+                publishJob.finish();
+            } catch (Throwable t) {
+                // log failure, most likely a database problem
+                LOG.error(t.getLocalizedMessage(), t);
+            }
+            try {
+                // put the publish job into the history list
+                m_publishHistory.add(publishJob);
+            } catch (Throwable t) {
+                // log failure, most likely a database problem
+                LOG.error(t.getLocalizedMessage(), t);
+            }
         }
+        // wipe the finished thread, only if this thread has not been abandoned
+        m_publishThreads.remove(Thread.currentThread());
         // clear the published resources cache
         OpenCms.getMemoryMonitor().flushCache(CmsMemoryMonitor.CacheType.PUBLISHED_RESOURCES);
         // try to start a new publish job
@@ -771,7 +859,7 @@ public final class CmsPublishEngine {
         if (m_engineState != CmsPublishEngineState.ENGINE_STARTED) {
             m_engineState = CmsPublishEngineState.ENGINE_STARTED;
             // start publish job if jobs waiting
-            if ((m_currentPublishThread == null) && !m_publishQueue.isEmpty()) {
+            if ((m_publishThreads.size() < m_publishQueueWorkers) && !m_publishQueue.isEmpty()) {
                 checkCurrentPublishJobThread();
             }
         }
@@ -812,6 +900,52 @@ public final class CmsPublishEngine {
         }
     }
 
+    /**
+     * Abandons the given publish thread.<p>
+     *
+     * @param publishThread the publish thread to abandon
+     */
+    private void abandonThread(CmsPublishThread publishThread) {
+
+        if (!publishThread.isAlive()) {
+            // thread is dead
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_PUBLISH_ENGINE_DEAD_JOB_0));
+            }
+        } else {
+            // thread is not dead, and we suppose it hangs :(
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_THREADSTORE_PUBLISH_THREAD_INTERRUPT_2,
+                        publishThread.getName(),
+                        publishThread.getUUID()));
+            }
+            publishThread.interrupt();
+        }
+        // just throw it away
+        m_publishThreads.remove(publishThread);
+        // and try again
+        checkCurrentPublishJobThread();
+    }
+
+    /**
+     * Returns the thread of the given running publish job.<p>
+     *
+     * @param publishJob the publish job
+     *
+     * @return the thread of the publish job, or <code>null</code> if the publish job is not running
+     */
+    private CmsPublishThread getPublishThread(CmsPublishJobInfoBean publishJob) {
+
+        for (CmsPublishThread publishThread : m_publishThreads) {
+            if (publishJob.equals(publishThread.getPublishJob())) {
+                return publishThread;
+            }
+        }
+        return null;
+    }
+
     /**
      * Returns <code>true</code> if the login manager allows login.<p>
      *
@@ -50,6 +50,9 @@ public final class CmsPublishJobInfoBean {
     /** The flag used to indicate a direct publish job. */
     public static final int C_PUBLISH_FLAG = 1;
 
+    /** The flag used to indicate a publish job started by a scheduled job. */
+    public static final int C_SCHEDULED_FLAG = 2;
+
     /** The cms context to use for publishing, will be set to <code>null</code> after publishing. */
     private CmsObject m_cms;
 
@@ -83,6 +86,9 @@ public final class CmsPublishJobInfoBean {
     /** Report to log the publish job to, will be set to <code>null</code> after publishing. */
     private I_CmsReport m_report;
 
+    /** If this publish job has been started by a scheduled job. */
+    private boolean m_scheduled;
+
     /** Number of resources to publish. */
     private int m_size;
 
@@ -128,6 +134,7 @@ public final class CmsPublishJobInfoBean {
         m_userId = userId;
         m_size = resourceCount;
         m_directPublish = ((flags & C_PUBLISH_FLAG) == C_PUBLISH_FLAG);
+        m_scheduled = ((flags & C_SCHEDULED_FLAG) == C_SCHEDULED_FLAG);
 
         m_enqueueTime = enqueueTime;
         m_startTime = startTime;
@@ -159,6 +166,7 @@ public final class CmsPublishJobInfoBean {
 
         m_size = m_publishList.size();
         m_directPublish = m_publishList.isDirectPublish();
+        m_scheduled = Boolean.TRUE.equals(cms.getRequestContext().getAttribute(CmsPublishManager.ATTRIBUTE_SCHEDULED));
 
         m_report = report;
     }
@@ -190,7 +198,7 @@ public final class CmsPublishJobInfoBean {
      */
     public int getFlags() {
 
-        return (m_directPublish) ? C_PUBLISH_FLAG : 0;
+        return ((m_directPublish) ? C_PUBLISH_FLAG : 0) | ((m_scheduled) ? C_SCHEDULED_FLAG : 0);
     }
 
     /**
@@ -447,6 +455,16 @@ public final class CmsPublishJobInfoBean {
         return (m_finishTime != 0L);
     }
 
+    /**
+     * Returns <code>true</code> if this publish job has been started by a scheduled job.<p>
+     *
+     * @return <code>true</code> if this publish job has been started by a scheduled job
+     */
+    protected boolean isScheduled() {
+
+        return m_scheduled;
+    }
+
     /**
      * Returns if the publish job is already started.<p>
      *
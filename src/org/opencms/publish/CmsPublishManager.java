@@ -66,15 +66,33 @@ public class CmsPublishManager {
         currentUser
     }
 
+    /** The request context attribute used to mark publish jobs started by a scheduled job. */
+    public static final String ATTRIBUTE_SCHEDULED = CmsPublishManager.class.getName() + ".ATTRIBUTE_SCHEDULED";
+
     /** The default history size. */
     public static final int DEFAULT_HISTORY_SIZE = 100;
 
+    /** The default max. number of threads for asynchronous after publish event listeners. */
+    public static final int DEFAULT_LISTENER_THREADS = 2;
+
+    /** The default time in seconds after which the priority of a waiting publish job is raised. */
+    public static final int DEFAULT_QUEUE_AGINGTIME = 300;
+
+    /** The default min. number of resources of a bulk publish job. */
+    public static final int DEFAULT_QUEUE_BULKSIZE = 5000;
+
     /** The default persistence setting for the publish queue. */
     public static final boolean DEFAULT_QUEUE_PERSISTANCE = false;
 
     /** The default shutdown time for the running publish job. */
     public static final int DEFAULT_QUEUE_SHUTDOWNTIME = 1;
 
+    /** The default number of resources below which a direct publish job is a small job. */
+    public static final int DEFAULT_QUEUE_SMALLSIZE = 50;
+
+    /** The default number of publish jobs running at the same time. */
+    public static final int DEFAULT_QUEUE_WORKERS = 1;
+
     /** Milliseconds in a second. */
     private static final int MS_ONE_SECOND = 1000;
 
@@ -87,18 +105,33 @@ public class CmsPublishManager {
     /** The maximum size of the publish history. */
     private int m_publishHistorySize;
 
+    /** The max. number of threads for asynchronous after publish event listeners. */
+    private int m_publishListenerThreads;
+
     /** Publish job verifier. */
     private CmsPublishListVerifier m_publishListVerifier = new CmsPublishListVerifier();
 
     /** The publish list remove mode. */
     private CmsPublishManager.PublishListRemoveMode m_publishListRemoveMode;
 
+    /** The time in seconds after which the priority of a waiting publish job is raised. */
+    private int m_publishQueueAgingTime;
+
+    /** The min. number of resources of a bulk publish job. */
+    private int m_publishQueueBulkSize;
+
     /** Indicates if the publish queue is re-initialized on startup. */
     private boolean m_publishQueuePersistance;
 
     /** The amount of time to wait for a publish job during shutdown. */
     private int m_publishQueueShutdowntime;
 
+    /** The number of resources below which a direct publish job is a small job. */
+    private int m_publishQueueSmallSize;
+
+    /** The max. number of publish jobs running at the same time. */
+    private int m_publishQueueWorkers;
+
     /** The security manager. */
     private CmsSecurityManager m_securityManager;
 
@@ -108,6 +141,11 @@ public class CmsPublishManager {
     public CmsPublishManager() {
 
         m_publishEngine = null;
+        m_publishQueueWorkers = DEFAULT_QUEUE_WORKERS;
+        m_publishListenerThreads = DEFAULT_LISTENER_THREADS;
+        m_publishQueueSmallSize = DEFAULT_QUEUE_SMALLSIZE;
+        m_publishQueueBulkSize = DEFAULT_QUEUE_BULKSIZE;
+        m_publishQueueAgingTime = DEFAULT_QUEUE_AGINGTIME;
         m_frozen = false;
     }
 
@@ -124,6 +162,11 @@ public class CmsPublishManager {
         m_publishHistorySize = historySize;
         m_publishQueuePersistance = queuePersistance;
         m_publishQueueShutdowntime = queueShutdowntime;
+        m_publishQueueWorkers = DEFAULT_QUEUE_WORKERS;
+        m_publishListenerThreads = DEFAULT_LISTENER_THREADS;
+        m_publishQueueSmallSize = DEFAULT_QUEUE_SMALLSIZE;
+        m_publishQueueBulkSize = DEFAULT_QUEUE_BULKSIZE;
+        m_publishQueueAgingTime = DEFAULT_QUEUE_AGINGTIME;
         m_frozen = false;
     }
 
@@ -135,6 +178,16 @@ public class CmsPublishManager {
         m_publishEngine.abandonThread();
     }
 
+    /**
+     * Abandons the thread of the given running publish job.<p>
+     *
+     * @param publishJob the running publish job
+     */
+    public void abandonThread(CmsPublishJobRunning publishJob) {
+
+        m_publishEngine.abandonThread(publishJob);
+    }
+
     /**
      * Aborts the given publish job.<p>
      *
@@ -198,6 +251,8 @@ public class CmsPublishManager {
     /**
      * Returns the current running publish job.<p>
      *
+     * If several publish jobs are running, the job which has been started first is returned.<p>
+     *
      * @return the current running publish job
      */
     public CmsPublishJobRunning getCurrentPublishJob() {
@@ -222,6 +277,21 @@ public class CmsPublishManager {
         return m_publishEngine.getJobByPublishHistoryId(publishHistoryId);
     }
 
+    /**
+     * Returns the next publish tag, i.e. the tag the next publish job will use.<p>
+     *
+     * Since every publish job uses a new tag, this can be used to check if
+     * something has been published since a given point in time.<p>
+     *
+     * @param cms the cms context
+     *
+     * @return the next publish tag
+     */
+    public int getNextPublishTag(CmsObject cms) {
+
+        return m_securityManager.readNextPublishTag(cms.getRequestContext());
+    }
+
     /**
      * Returns the publish history list with already publish jobs.<p>
      *
@@ -262,6 +332,18 @@ public class CmsPublishManager {
         return m_publishHistorySize;
     }
 
+    /**
+     * Returns the max. number of threads for asynchronous after publish event listeners.<p>
+     *
+     * @return the max. number of threads for asynchronous after publish event listeners
+     *
+     * @see org.opencms.main.I_CmsAsyncEventListener
+     */
+    public int getPublishListenerThreads() {
+
+        return m_publishListenerThreads;
+    }
+
     /**
      * Gets the publish job verifier.<p>
      *
@@ -403,6 +485,28 @@ public class CmsPublishManager {
         return m_publishEngine.getPublishQueue().asList();
     }
 
+    /**
+     * Returns the time in seconds after which the priority of a waiting publish job is raised.<p>
+     *
+     * @return the time in seconds after which the priority of a waiting publish job is raised
+     */
+    public int getPublishQueueAgingTime() {
+
+        return m_publishQueueAgingTime;
+    }
+
+    /**
+     * Returns the min. number of resources of a bulk publish job.<p>
+     *
+     * Bulk publish jobs have the lowest priority in the publish queue.<p>
+     *
+     * @return the min. number of resources of a bulk publish job
+     */
+    public int getPublishQueueBulkSize() {
+
+        return m_publishQueueBulkSize;
+    }
+
     /**
      * Returns the amount of time in seconds the system will wait during shutdown for a running publish job.<p>
      *
@@ -413,6 +517,40 @@ public class CmsPublishManager {
         return m_publishQueueShutdowntime;
     }
 
+    /**
+     * Returns the number of resources below which a direct publish job is a small job.<p>
+     *
+     * Small publish jobs have the highest priority in the publish queue.<p>
+     *
+     * @return the number of resources below which a direct publish job is a small job
+     */
+    public int getPublishQueueSmallSize() {
+
+        return m_publishQueueSmallSize;
+    }
+
+    /**
+     * Returns the statistics of the publish queue, i.e. the number of waiting jobs and the wait times.<p>
+     *
+     * @return the statistics of the publish queue
+     */
+    public CmsPublishQueueStatistics getPublishQueueStatistics() {
+
+        return m_publishEngine.getPublishQueue().getStatistics();
+    }
+
+    /**
+     * Returns the max. number of publish jobs running at the same time.<p>
+     *
+     * Publish jobs only run at the same time if their publish lists do not overlap.<p>
+     *
+     * @return the max. number of publish jobs running at the same time
+     */
+    public int getPublishQueueWorkers() {
+
+        return m_publishQueueWorkers;
+    }
+
     /**
      * Returns a new publish list that contains the unpublished resources related
      * to all resources in the given publish list, the related resources exclude
@@ -446,6 +584,20 @@ public class CmsPublishManager {
         return m_publishEngine.getReportContents(publishJob);
     }
 
+    /**
+     * Returns the running publish jobs, in the order they have been started.<p>
+     *
+     * @return the running publish jobs
+     */
+    public List<CmsPublishJobRunning> getRunningPublishJobs() {
+
+        List<CmsPublishJobRunning> result = new ArrayList<CmsPublishJobRunning>();
+        for (CmsPublishThread publishThread : m_publishEngine.getPublishThreads()) {
+            result.add(new CmsPublishJobRunning(publishThread.getPublishJob()));
+        }
+        return result;
+    }
+
     /**
      * Returns the current user's publish list.<p>
      *
@@ -469,7 +621,16 @@ public class CmsPublishManager {
      */
     public void initialize(CmsObject cms) throws CmsException {
 
-        m_publishEngine.initialize(cms, m_publishQueuePersistance, m_publishQueueShutdowntime);
+        m_publishEngine.getPublishQueue().setPriorities(
+            m_publishQueueSmallSize,
+            m_publishQueueBulkSize,
+            m_publishQueueAgingTime);
+        m_publishEngine.initialize(
+            cms,
+            m_publishQueuePersistance,
+            m_publishQueueShutdowntime,
+            m_publishQueueWorkers,
+            m_publishListenerThreads);
         m_frozen = true;
     }
 
@@ -673,6 +834,19 @@ public class CmsPublishManager {
         m_publishHistorySize = Integer.parseInt(publishHistorySize);
     }
 
+    /**
+     * Sets the max. number of threads for asynchronous after publish event listeners.<p>
+     *
+     * @param publishListenerThreads the number of threads, parsed as <code>int</code>
+     */
+    public void setPublishListenerThreads(String publishListenerThreads) {
+
+        if (m_frozen) {
+            throw new CmsRuntimeException(Messages.get().container(Messages.ERR_CONFIG_FROZEN_0));
+        }
+        m_publishListenerThreads = Integer.parseInt(publishListenerThreads);
+    }
+
     /**
      * Sets the publish list remove mode.<p>
      *
@@ -686,6 +860,32 @@ public class CmsPublishManager {
         m_publishListRemoveMode = publishListRemoveMode;
     }
 
+    /**
+     * Sets the time after which the priority of a waiting publish job is raised.<p>
+     *
+     * @param publishQueueAgingTime the time in seconds, parsed as <code>int</code>, <code>0</code> to keep the priority
+     */
+    public void setPublishQueueAgingTime(String publishQueueAgingTime) {
+
+        if (m_frozen) {
+            throw new CmsRuntimeException(Messages.get().container(Messages.ERR_CONFIG_FROZEN_0));
+        }
+        m_publishQueueAgingTime = Integer.parseInt(publishQueueAgingTime);
+    }
+
+    /**
+     * Sets the min. number of resources of a bulk publish job.<p>
+     *
+     * @param publishQueueBulkSize the number of resources, parsed as <code>int</code>, <code>0</code> for no bulk jobs
+     */
+    public void setPublishQueueBulkSize(String publishQueueBulkSize) {
+
+        if (m_frozen) {
+            throw new CmsRuntimeException(Messages.get().container(Messages.ERR_CONFIG_FROZEN_0));
+        }
+        m_publishQueueBulkSize = Integer.parseInt(publishQueueBulkSize);
+    }
+
     /**
      * Sets if the publish queue is re-initialized on startup.<p>
      *
@@ -712,6 +912,32 @@ public class CmsPublishManager {
         m_publishQueueShutdowntime = Integer.parseInt(publishQueueShutdowntime);
     }
 
+    /**
+     * Sets the number of resources below which a direct publish job is a small job.<p>
+     *
+     * @param publishQueueSmallSize the number of resources, parsed as <code>int</code>, <code>0</code> for none
+     */
+    public void setPublishQueueSmallSize(String publishQueueSmallSize) {
+
+        if (m_frozen) {
+            throw new CmsRuntimeException(Messages.get().container(Messages.ERR_CONFIG_FROZEN_0));
+        }
+        m_publishQueueSmallSize = Integer.parseInt(publishQueueSmallSize);
+    }
+
+    /**
+     * Sets the max. number of publish jobs running at the same time.<p>
+     *
+     * @param publishQueueWorkers the number of publish jobs, parsed as <code>int</code>
+     */
+    public void setPublishQueueWorkers(String publishQueueWorkers) {
+
+        if (m_frozen) {
+            throw new CmsRuntimeException(Messages.get().container(Messages.ERR_CONFIG_FROZEN_0));
+        }
+        m_publishQueueWorkers = Integer.parseInt(publishQueueWorkers);
+    }
+
     /**
      * Sets the security manager during initialization.<p>
      *
@@ -0,0 +1,53 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.publish;
+
+/**
+ * The priorities of the publish jobs in the publish queue, from the lowest to the highest priority.<p>
+ *
+ * Waiting publish jobs are started in the order of their priority. The priority of a waiting job is raised
+ * by one level for every interval of the configured aging time, so that jobs with a low priority are not delayed
+ * forever by jobs with a higher priority.<p>
+ *
+ * @since 10.5.0
+ */
+public enum CmsPublishPriority {
+
+    /** Publish jobs with at least the configured number of resources. */
+    BULK,
+
+    /** Publish jobs started by a scheduled job. */
+    SCHEDULED,
+
+    /** Publish jobs which are neither small, scheduled nor bulk jobs. */
+    NORMAL,
+
+    /** Direct publish jobs with less than the configured number of resources. */
+    SMALL
+}
@@ -29,16 +29,23 @@ package org.opencms.publish;
 
 import org.opencms.db.CmsDbContext;
 import org.opencms.db.CmsDriverManager;
+import org.opencms.db.CmsPublishList;
 import org.opencms.file.CmsObject;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
 import org.opencms.monitor.CmsMemoryMonitor;
+import org.opencms.util.CmsUUID;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import org.apache.commons.collections.Buffer;
 import org.apache.commons.collections.BufferUtils;
@@ -49,6 +56,13 @@ import org.apache.commons.logging.Log;
 /**
  * This queue contains all not jet started publish jobs.<p>
  *
+ * The waiting jobs are started in the order of their {@link CmsPublishPriority}, jobs with the same priority
+ * in the order they have been enqueued. The priority of a waiting job is raised by one level for every
+ * interval of the aging time it has been waiting.<p>
+ *
+ * The waiting jobs are kept in the publish queue cache of the memory monitor and in the publish job table.
+ * If jobs are missing in the cache, e.g. because the cache has been flushed, they are restored from the table.<p>
+ *
  * @since 6.5.5
  */
 public class CmsPublishQueue {
@@ -59,6 +73,30 @@ public class CmsPublishQueue {
     /** The publish engine. */
     protected final CmsPublishEngine m_publishEngine;
 
+    /** The ids of the waiting jobs. */
+    protected final Set<CmsUUID> m_waitingJobIds;
+
+    /** The admin cms object used to restore publish jobs. */
+    private CmsObject m_adminCms;
+
+    /** The time in milliseconds after which the priority of a waiting job is raised. */
+    private long m_agingTime;
+
+    /** The min. number of resources of a bulk job. */
+    private int m_bulkSize;
+
+    /** The max. wait time of the started jobs, by priority. */
+    private final AtomicLongArray m_maxWaitTimes;
+
+    /** The number of resources below which a direct publish job is a small job. */
+    private int m_smallSize;
+
+    /** The number of started jobs, by priority. */
+    private final AtomicLongArray m_startedJobs;
+
+    /** The total wait time of the started jobs, by priority. */
+    private final AtomicLongArray m_waitTimes;
+
     /**
      * Default constructor, for an empty queue.<p>
      *
@@ -67,6 +105,15 @@ public class CmsPublishQueue {
     protected CmsPublishQueue(final CmsPublishEngine publishEngine) {
 
         m_publishEngine = publishEngine;
+        m_waitingJobIds = Collections.newSetFromMap(new ConcurrentHashMap<CmsUUID, Boolean>());
+        int priorities = CmsPublishPriority.values().length;
+        m_startedJobs = new AtomicLongArray(priorities);
+        m_waitTimes = new AtomicLongArray(priorities);
+        m_maxWaitTimes = new AtomicLongArray(priorities);
+        setPriorities(
+            CmsPublishManager.DEFAULT_QUEUE_SMALLSIZE,
+            CmsPublishManager.DEFAULT_QUEUE_BULKSIZE,
+            CmsPublishManager.DEFAULT_QUEUE_AGINGTIME);
     }
 
     /**
@@ -105,6 +152,8 @@ public class CmsPublishQueue {
     protected boolean abortPublishJob(CmsPublishJobInfoBean publishJob) {
 
         if (OpenCms.getMemoryMonitor().getCachedPublishJob(publishJob.getPublishHistoryId().toString()) != null) {
+            // the id is removed first, so the job is not restored in the meantime
+            m_waitingJobIds.remove(publishJob.getPublishHistoryId());
             // remove publish job from cache
             OpenCms.getMemoryMonitor().uncachePublishJob(publishJob);
             return true;
@@ -143,18 +192,21 @@ public class CmsPublishQueue {
             }
         }
 
-        // add publish job to cache
+        // add publish job to cache, the id is added afterwards, so the job is not restored in the meantime
         OpenCms.getMemoryMonitor().cachePublishJob(publishJob);
+        m_waitingJobIds.add(publishJob.getPublishHistoryId());
     }
 
     /**
-     * Returns an unmodifiable list representation of this queue.<p>
+     * Returns an unmodifiable list representation of this queue, in the order the jobs will be started.<p>
      *
      * @return a list of {@link CmsPublishJobEnqueued} objects
      */
     protected List<CmsPublishJobEnqueued> asList() {
 
-        List<CmsPublishJobInfoBean> cachedPublishJobs = OpenCms.getMemoryMonitor().getAllCachedPublishJobs();
+        List<CmsPublishJobInfoBean> cachedPublishJobs = sortJobs(
+            OpenCms.getMemoryMonitor().getAllCachedPublishJobs(),
+            System.currentTimeMillis());
         List<CmsPublishJobEnqueued> result = new ArrayList<CmsPublishJobEnqueued>(cachedPublishJobs.size());
         Iterator<CmsPublishJobInfoBean> it = cachedPublishJobs.iterator();
         while (it.hasNext()) {
@@ -185,6 +237,107 @@ public class CmsPublishQueue {
         return false;
     }
 
+    /**
+     * Returns the stored waiting jobs which are missing in the publish queue cache.<p>
+     *
+     * The ids of waiting jobs which have been started in the meantime, or which are not stored anymore,
+     * are removed, as these jobs can not be restored.<p>
+     *
+     * @param cachedJobs the publish jobs in the publish queue cache
+     * @param storedJobs the publish jobs stored in the database
+     *
+     * @return the stored waiting jobs which are missing in the publish queue cache
+     */
+    protected List<CmsPublishJobInfoBean> getMissingJobs(
+        List<CmsPublishJobInfoBean> cachedJobs,
+        List<CmsPublishJobInfoBean> storedJobs) {
+
+        Set<CmsUUID> missingIds = new HashSet<CmsUUID>(m_waitingJobIds);
+        for (CmsPublishJobInfoBean publishJob : cachedJobs) {
+            missingIds.remove(publishJob.getPublishHistoryId());
+        }
+        List<CmsPublishJobInfoBean> result = new ArrayList<CmsPublishJobInfoBean>();
+        for (CmsPublishJobInfoBean publishJob : storedJobs) {
+            CmsUUID publishHistoryId = publishJob.getPublishHistoryId();
+            if (!missingIds.remove(publishHistoryId)) {
+                continue;
+            }
+            if (publishJob.isStarted() || !m_waitingJobIds.contains(publishHistoryId)) {
+                // the job has been started or removed in the meantime
+                m_waitingJobIds.remove(publishHistoryId);
+                continue;
+            }
+            result.add(publishJob);
+        }
+        // jobs which are not found anymore can not be restored
+        m_waitingJobIds.removeAll(missingIds);
+        return result;
+    }
+
+    /**
+     * Returns the priority of the given publish job.<p>
+     *
+     * @param publishJob the publish job
+     *
+     * @return the priority of the publish job
+     */
+    protected CmsPublishPriority getPriority(CmsPublishJobInfoBean publishJob) {
+
+        if ((m_bulkSize > 0) && (publishJob.getSize() >= m_bulkSize)) {
+            return CmsPublishPriority.BULK;
+        }
+        if (publishJob.isScheduled()) {
+            return CmsPublishPriority.SCHEDULED;
+        }
+        if (publishJob.isDirectPublish() && (publishJob.getSize() < m_smallSize)) {
+            return CmsPublishPriority.SMALL;
+        }
+        return CmsPublishPriority.NORMAL;
+    }
+
+    /**
+     * Returns the rank of the given publish job, that is its priority raised by the aging.<p>
+     *
+     * @param publishJob the publish job
+     * @param now the current time
+     *
+     * @return the rank of the publish job
+     */
+    protected long getRank(CmsPublishJobInfoBean publishJob, long now) {
+
+        long rank = getPriority(publishJob).ordinal();
+        if (m_agingTime > 0) {
+            rank += Math.max(0, now - publishJob.getEnqueueTime()) / m_agingTime;
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the statistics of this queue.<p>
+     *
+     * @return the statistics of this queue
+     */
+    protected CmsPublishQueueStatistics getStatistics() {
+
+        long now = System.currentTimeMillis();
+        int priorities = CmsPublishPriority.values().length;
+        int[] depth = new int[priorities];
+        long oldestWaitTime = 0;
+        for (CmsPublishJobInfoBean publishJob : OpenCms.getMemoryMonitor().getAllCachedPublishJobs()) {
+            depth[getPriority(publishJob).ordinal()]++;
+            oldestWaitTime = Math.max(oldestWaitTime, now - publishJob.getEnqueueTime());
+        }
+        long[] startedJobs = new long[priorities];
+        long[] waitTimes = new long[priorities];
+        long[] maxWaitTimes = new long[priorities];
+        for (int i = 0; i < priorities; i++) {
+            startedJobs[i] = m_startedJobs.get(i);
+            waitTimes[i] = m_waitTimes.get(i);
+            maxWaitTimes[i] = m_maxWaitTimes.get(i);
+        }
+        return new CmsPublishQueueStatistics(depth, oldestWaitTime, startedJobs, waitTimes, maxWaitTimes);
+    }
+
     /**
      * Initializes the internal FIFO queue with publish jobs from the database.<p>
      *
@@ -194,8 +347,10 @@ public class CmsPublishQueue {
     protected void initialize(CmsObject adminCms, boolean revive) {
 
         CmsDriverManager driverManager = m_publishEngine.getDriverManager();
+        m_adminCms = adminCms;
 
         try {
+            m_waitingJobIds.clear();
             OpenCms.getMemoryMonitor().flushCache(CmsMemoryMonitor.CacheType.PUBLISH_QUEUE);
             if (revive) {
                 // read all pending publish jobs from the database
@@ -219,6 +374,7 @@ public class CmsPublishQueue {
                                 job.revive(adminCms, driverManager.readPublishList(dbc, job.getPublishHistoryId()));
                                 m_publishEngine.lockPublishList(job);
                                 OpenCms.getMemoryMonitor().cachePublishJob(job);
+                                m_waitingJobIds.add(job.getPublishHistoryId());
                             } catch (CmsException exc) {
                                 // skip job
                                 dbc.rollback();
@@ -264,23 +420,57 @@ public class CmsPublishQueue {
      */
     protected boolean isEmpty() {
 
-        return ((OpenCms.getMemoryMonitor() == null)
-            || (OpenCms.getMemoryMonitor().getFirstCachedPublishJob() == null));
+        if (OpenCms.getMemoryMonitor() == null) {
+            return true;
+        }
+        restoreJobs();
+        return (OpenCms.getMemoryMonitor().getFirstCachedPublishJob() == null);
     }
 
     /**
      * Returns the next publish job to be published, removing it
-     * from the queue, or <code>null</code> if the queue is empty.<p>
+     * from the queue, or <code>null</code> if no publish job can be started.<p>
+     *
+     * The next publish job is the waiting job with the highest priority whose publish list does not overlap
+     * the publish list of a running job or of a job enqueued before it,
+     * so that overlapping publish jobs are always published in the order they have been enqueued.<p>
+     *
+     * The publish list of the returned job takes a snapshot for the overlap check before the job is started.<p>
+     *
+     * @param runningJobs the publish jobs which are currently running
      *
      * @return the next publish job to be published
      */
-    protected CmsPublishJobInfoBean next() {
-
-        CmsPublishJobInfoBean publishJob = OpenCms.getMemoryMonitor().getFirstCachedPublishJob();
-        if (publishJob != null) {
-            OpenCms.getMemoryMonitor().uncachePublishJob(publishJob);
+    protected CmsPublishJobInfoBean next(List<CmsPublishJobInfoBean> runningJobs) {
+
+        restoreJobs();
+        long now = System.currentTimeMillis();
+        List<CmsPublishJobInfoBean> waitingJobs = sortJobs(OpenCms.getMemoryMonitor().getAllCachedPublishJobs(), 0);
+        Iterator<CmsPublishJobInfoBean> itJobs = sortJobs(waitingJobs, now).iterator();
+        while (itJobs.hasNext()) {
+            CmsPublishJobInfoBean publishJob = itJobs.next();
+            // the job must not overtake the jobs enqueued before it
+            List<CmsPublishJobInfoBean> blockingJobs = new ArrayList<CmsPublishJobInfoBean>(runningJobs);
+            blockingJobs.addAll(waitingJobs.subList(0, waitingJobs.indexOf(publishJob)));
+            if (!isOverlapping(publishJob, blockingJobs)) {
+                if (publishJob.getPublishList() != null) {
+                    // the publish thread removes the published resources from the list while the job is running
+                    publishJob.getPublishList().initOverlapSnapshot();
+                }
+                // the id is removed first, so the job is not restored in the meantime
+                m_waitingJobIds.remove(publishJob.getPublishHistoryId());
+                OpenCms.getMemoryMonitor().uncachePublishJob(publishJob);
+                int index = getPriority(publishJob).ordinal();
+                long waitTime = now - publishJob.getEnqueueTime();
+                m_startedJobs.incrementAndGet(index);
+                m_waitTimes.addAndGet(index, waitTime);
+                if (waitTime > m_maxWaitTimes.get(index)) {
+                    m_maxWaitTimes.set(index, waitTime);
+                }
+                return publishJob;
+            }
         }
-        return publishJob;
+        return null;
     }
 
     /**
@@ -296,7 +486,8 @@ public class CmsPublishQueue {
             // signalizes that job will be removed
             m_publishEngine.publishJobRemoved(publishJob);
         } finally {
-            // remove publish job from cache
+            // remove publish job from cache, the id is removed first, so the job is not restored in the meantime
+            m_waitingJobIds.remove(publishJob.getPublishHistoryId());
             OpenCms.getMemoryMonitor().uncachePublishJob(publishJob);
         }
 
@@ -315,6 +506,48 @@ public class CmsPublishQueue {
         }
     }
 
+    /**
+     * Sets the configuration of the priorities.<p>
+     *
+     * @param smallSize the number of resources below which a direct publish job is a small job, <code>0</code> for none
+     * @param bulkSize the min. number of resources of a bulk job, <code>0</code> for none
+     * @param agingTime the time in seconds after which the priority of a waiting job is raised,
+     *      <code>0</code> to keep the priority
+     */
+    protected void setPriorities(int smallSize, int bulkSize, int agingTime) {
+
+        m_smallSize = smallSize;
+        m_bulkSize = bulkSize;
+        m_agingTime = agingTime * 1000L;
+    }
+
+    /**
+     * Returns the given publish jobs sorted by their rank and the time they have been enqueued.<p>
+     *
+     * @param publishJobs the publish jobs to sort
+     * @param now the current time, or <code>0</code> to sort the jobs only by the time they have been enqueued
+     *
+     * @return the sorted publish jobs
+     */
+    protected List<CmsPublishJobInfoBean> sortJobs(List<CmsPublishJobInfoBean> publishJobs, final long now) {
+
+        List<CmsPublishJobInfoBean> result = new ArrayList<CmsPublishJobInfoBean>(publishJobs);
+        Collections.sort(result, new Comparator<CmsPublishJobInfoBean>() {
+
+            public int compare(CmsPublishJobInfoBean job1, CmsPublishJobInfoBean job2) {
+
+                if (now > 0) {
+                    int order = Long.compare(getRank(job2, now), getRank(job1, now));
+                    if (order != 0) {
+                        return order;
+                    }
+                }
+                return Long.compare(job1.getEnqueueTime(), job2.getEnqueueTime());
+            }
+        });
+        return result;
+    }
+
     /**
      * Updates the given job in the list.<p>
      *
@@ -336,4 +569,77 @@ public class CmsPublishQueue {
             }
         }
     }
+
+    /**
+     * Checks if the publish list of the given publish job overlaps the publish list of one of the other jobs.<p>
+     *
+     * @param publishJob the publish job to check
+     * @param publishJobs the other publish jobs
+     *
+     * @return <code>true</code> if the publish job overlaps one of the other jobs
+     */
+    private boolean isOverlapping(CmsPublishJobInfoBean publishJob, List<CmsPublishJobInfoBean> publishJobs) {
+
+        if (publishJobs.isEmpty()) {
+            return false;
+        }
+        CmsPublishList publishList = publishJob.getPublishList();
+        if (publishList == null) {
+            return true;
+        }
+        for (CmsPublishJobInfoBean otherJob : publishJobs) {
+            CmsPublishList otherList = otherJob.getPublishList();
+            if ((otherList == null) || publishList.isOverlapping(otherList)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Restores the waiting jobs which are missing in the publish queue cache from the database.<p>
+     */
+    private void restoreJobs() {
+
+        if (m_waitingJobIds.isEmpty()
+            || (m_adminCms == null)
+            || !OpenCms.getMemoryMonitor().requiresPersistency()
+            || (OpenCms.getMemoryMonitor().getAllCachedPublishJobs().size() >= m_waitingJobIds.size())) {
+            return;
+        }
+        synchronized (m_waitingJobIds) {
+            if (OpenCms.getMemoryMonitor().getAllCachedPublishJobs().size() >= m_waitingJobIds.size()) {
+                // restored by another thread in the meantime
+                return;
+            }
+            CmsDriverManager driverManager = m_publishEngine.getDriverManager();
+            CmsDbContext dbc = m_publishEngine.getDbContext(null);
+            try {
+                List<CmsPublishJobInfoBean> missingJobs = getMissingJobs(
+                    OpenCms.getMemoryMonitor().getAllCachedPublishJobs(),
+                    driverManager.readPublishJobs(dbc, 0L, 0L));
+                for (CmsPublishJobInfoBean publishJob : missingJobs) {
+                    CmsUUID publishHistoryId = publishJob.getPublishHistoryId();
+                    try {
+                        publishJob.revive(m_adminCms, driverManager.readPublishList(dbc, publishHistoryId));
+                        OpenCms.getMemoryMonitor().cachePublishJob(publishJob);
+                        LOG.warn(
+                            Messages.get().getBundle().key(
+                                Messages.LOG_PUBLISH_QUEUE_JOB_RESTORED_1,
+                                publishHistoryId));
+                    } catch (CmsException e) {
+                        m_waitingJobIds.remove(publishHistoryId);
+                        LOG.error(
+                            Messages.get().getBundle().key(Messages.ERR_PUBLISH_JOB_INVALID_1, publishHistoryId),
+                            e);
+                    }
+                }
+            } catch (CmsException e) {
+                dbc.rollback();
+                LOG.error(e.getLocalizedMessage(), e);
+            } finally {
+                dbc.clear();
+            }
+        }
+    }
 }
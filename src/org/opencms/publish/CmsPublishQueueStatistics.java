@@ -0,0 +1,153 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.publish;
+
+/**
+ * A snapshot of the statistics of the publish queue.<p>
+ *
+ * The depth and the wait time of the oldest job describe the waiting jobs at the time the snapshot was taken.
+ * The number of started jobs and their wait times are counted since the publish engine has been started,
+ * for every priority the jobs had when they were enqueued.<p>
+ *
+ * @since 10.5.0
+ */
+public class CmsPublishQueueStatistics {
+
+    /** The number of waiting jobs, by priority. */
+    private int[] m_depth;
+
+    /** The max. wait time of the started jobs in milliseconds, by priority. */
+    private long[] m_maxWaitTimes;
+
+    /** The wait time of the oldest waiting job in milliseconds. */
+    private long m_oldestWaitTime;
+
+    /** The number of started jobs, by priority. */
+    private long[] m_startedJobs;
+
+    /** The total wait time of the started jobs in milliseconds, by priority. */
+    private long[] m_waitTimes;
+
+    /**
+     * Creates a new statistics snapshot.<p>
+     *
+     * All arrays are indexed by the ordinal of the {@link CmsPublishPriority}.<p>
+     *
+     * @param depth the number of waiting jobs
+     * @param oldestWaitTime the wait time of the oldest waiting job in milliseconds
+     * @param startedJobs the number of started jobs
+     * @param waitTimes the total wait time of the started jobs in milliseconds
+     * @param maxWaitTimes the max. wait time of the started jobs in milliseconds
+     */
+    public CmsPublishQueueStatistics(
+        int[] depth,
+        long oldestWaitTime,
+        long[] startedJobs,
+        long[] waitTimes,
+        long[] maxWaitTimes) {
+
+        m_depth = depth;
+        m_oldestWaitTime = oldestWaitTime;
+        m_startedJobs = startedJobs;
+        m_waitTimes = waitTimes;
+        m_maxWaitTimes = maxWaitTimes;
+    }
+
+    /**
+     * Returns the number of waiting jobs.<p>
+     *
+     * @return the number of waiting jobs
+     */
+    public int getDepth() {
+
+        int result = 0;
+        for (int depth : m_depth) {
+            result += depth;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of waiting jobs with the given priority.<p>
+     *
+     * @param priority the priority
+     *
+     * @return the number of waiting jobs with the given priority
+     */
+    public int getDepth(CmsPublishPriority priority) {
+
+        return m_depth[priority.ordinal()];
+    }
+
+    /**
+     * Returns the max. wait time of the started jobs with the given priority.<p>
+     *
+     * @param priority the priority
+     *
+     * @return the max. wait time in milliseconds
+     */
+    public long getMaxWaitTime(CmsPublishPriority priority) {
+
+        return m_maxWaitTimes[priority.ordinal()];
+    }
+
+    /**
+     * Returns the wait time of the oldest waiting job.<p>
+     *
+     * @return the wait time of the oldest waiting job in milliseconds, or <code>0</code> if no job is waiting
+     */
+    public long getOldestWaitTime() {
+
+        return m_oldestWaitTime;
+    }
+
+    /**
+     * Returns the number of started jobs with the given priority.<p>
+     *
+     * @param priority the priority
+     *
+     * @return the number of started jobs with the given priority
+     */
+    public long getStartedJobs(CmsPublishPriority priority) {
+
+        return m_startedJobs[priority.ordinal()];
+    }
+
+    /**
+     * Returns the total wait time of the started jobs with the given priority.<p>
+     *
+     * @param priority the priority
+     *
+     * @return the total wait time in milliseconds
+     */
+    public long getWaitTime(CmsPublishPriority priority) {
+
+        return m_waitTimes[priority.ordinal()];
+    }
+}
@@ -160,6 +160,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_PUBLISH_PROJECT_FAILED_0 = "LOG_PUBLISH_PROJECT_FAILED_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_PUBLISH_QUEUE_JOB_RESTORED_1 = "LOG_PUBLISH_QUEUE_JOB_RESTORED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_PUBLISH_REPORT_DEFAULT_PATH_TRY_1 = "LOG_PUBLISH_REPORT_DEFAULT_PATH_TRY_1";
 
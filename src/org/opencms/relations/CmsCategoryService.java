@@ -39,12 +39,15 @@ import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.logging.Log;
@@ -680,18 +683,40 @@ public class CmsCategoryService {
 
         List<CmsCategory> result = new ArrayList<CmsCategory>();
         String baseFolder = null;
-        Iterator<CmsRelation> itRelations = cms.getRelationsForResource(
+        List<CmsRelation> relations = cms.getRelationsForResource(
             resource,
-            CmsRelationFilter.TARGETS.filterType(CmsRelationType.CATEGORY)).iterator();
+            CmsRelationFilter.TARGETS.filterType(CmsRelationType.CATEGORY));
+        Iterator<CmsRelation> itRelations = relations.iterator();
         if (repair && itRelations.hasNext()) {
             baseFolder = getRepositoryBaseFolderName(cms);
         }
+        Map<CmsUUID, CmsResource> targets = Collections.emptyMap();
+        if (!repair && (relations.size() > 1)) {
+            // read all category folders at once
+            List<CmsUUID> targetIds = new ArrayList<CmsUUID>(relations.size());
+            for (CmsRelation relation : relations) {
+                targetIds.add(relation.getTargetId());
+            }
+            targets = new HashMap<CmsUUID, CmsResource>();
+            try {
+                for (CmsResource target : cms.readResources(targetIds, CmsResourceFilter.DEFAULT_FOLDERS)) {
+                    targets.put(target.getStructureId(), target);
+                }
+            } catch (CmsException e) {
+                // the targets are read one by one below
+                LOG.debug(e.getLocalizedMessage(), e);
+            }
+        }
         String resourceName = cms.getSitePath(resource);
         boolean repaired = false;
         while (itRelations.hasNext()) {
             CmsRelation relation = itRelations.next();
             try {
-                CmsResource res = relation.getTarget(cms, CmsResourceFilter.DEFAULT_FOLDERS);
+                CmsResource res = targets.get(relation.getTargetId());
+                if (res == null) {
+                    // the target may have been moved, or can not be read at all
+                    res = relation.getTarget(cms, CmsResourceFilter.DEFAULT_FOLDERS);
+                }
                 CmsCategory category = getCategory(cms, res);
                 if (!repair) {
                     result.add(category);
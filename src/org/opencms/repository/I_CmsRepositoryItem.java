@@ -27,6 +27,8 @@
 
 package org.opencms.repository;
 
+import java.io.InputStream;
+
 /**
  * This class represents items in the repository interface. That can be
  * files or folders (collections). <p>
@@ -42,6 +44,16 @@ public interface I_CmsRepositoryItem {
      */
     byte[] getContent();
 
+    /**
+     * Returns the content of this item as a stream.<p>
+     *
+     * In contrast to {@link #getContent()}, the content is not necessarily read into memory completely.
+     * The returned stream must always be closed after use.<p>
+     *
+     * @return the content of this item as a stream, or <code>null</code> if this item has no content
+     */
+    InputStream getContentStream();
+
     /**
      * Returns the length of the content of this item.<p>
      *
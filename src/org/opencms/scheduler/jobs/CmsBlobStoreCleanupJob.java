@@ -0,0 +1,89 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.scheduler.jobs;
+
+import org.opencms.file.CmsObject;
+import org.opencms.main.CmsLog;
+import org.opencms.scheduler.I_CmsScheduledJob;
+
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * A schedulable OpenCms job that removes the blobs which are no longer referenced by any file content
+ * from the blob store configured for the VFS driver.<p>
+ *
+ * The job must run in the context of a user with the root administrator role.<p>
+ *
+ * Job parameters:<p>
+ * <dl>
+ * <dt><code>maxage={time in hours}</code></dt>
+ * <dd>Specifies the minimum age (in hours) of an unreferenced blob before it is removed, default is 24 hours.
+ * This protects blobs that have just been written by a transaction that is not yet committed.</dd>
+ * </dl>
+ *
+ * @since 10.5.0
+ */
+public class CmsBlobStoreCleanupJob implements I_CmsScheduledJob {
+
+    /** Max age parameter. */
+    public static final String PARAM_MAXAGE = "maxage";
+
+    /** The default max age in hours. */
+    private static final float DEFAULT_MAXAGE = 24f;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsBlobStoreCleanupJob.class);
+
+    /**
+     * @see org.opencms.scheduler.I_CmsScheduledJob#launch(CmsObject, Map)
+     */
+    public String launch(CmsObject cms, Map<String, String> parameters) throws Exception {
+
+        String maxAgeStr = parameters.get(PARAM_MAXAGE);
+        float maxAge = DEFAULT_MAXAGE;
+        if (maxAgeStr != null) {
+            try {
+                maxAge = Float.parseFloat(maxAgeStr);
+            } catch (NumberFormatException e) {
+                LOG.error(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_BLOBSTORE_BAD_MAXAGE_2,
+                        maxAgeStr,
+                        new Float(maxAge)));
+            }
+        }
+
+        long dateLastUsed = System.currentTimeMillis() - (long)(maxAge * 60f * 60f * 1000f);
+        int count = cms.deleteUnreferencedBlobs(dateLastUsed);
+
+        return Messages.get().getBundle().key(Messages.LOG_BLOBSTORE_CLEANUP_COUNT_1, new Integer(count));
+    }
+}
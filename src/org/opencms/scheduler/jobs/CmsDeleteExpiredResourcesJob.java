@@ -175,6 +175,7 @@ public class CmsDeleteExpiredResourcesJob implements I_CmsScheduledJob {
             }
             if (changedFiles > 0) {
                 CmsPublishManager publishManager = OpenCms.getPublishManager();
+                cms.getRequestContext().setAttribute(CmsPublishManager.ATTRIBUTE_SCHEDULED, Boolean.TRUE);
                 publishManager.publishProject(cms, report);
                 // this is to not scramble the logging output:
                 publishManager.waitWhileRunning();
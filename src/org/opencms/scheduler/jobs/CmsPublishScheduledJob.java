@@ -35,6 +35,7 @@ import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
 import org.opencms.notification.CmsPublishNotification;
+import org.opencms.publish.CmsPublishManager;
 import org.opencms.report.CmsLogReport;
 import org.opencms.scheduler.CmsScheduledJobInfo;
 import org.opencms.scheduler.I_CmsScheduledJob;
@@ -113,7 +114,8 @@ public class CmsPublishScheduledJob implements I_CmsScheduledJob {
                 }
             }
 
-            // publish the project, the publish output will be put in the logfile
+            // publish the project as scheduled publish job, the publish output will be put in the logfile
+            cms.getRequestContext().setAttribute(CmsPublishManager.ATTRIBUTE_SCHEDULED, Boolean.TRUE);
             OpenCms.getPublishManager().publishProject(cms, report);
             OpenCms.getPublishManager().waitWhileRunning();
             finishMessage = Messages.get().getBundle().key(Messages.LOG_PUBLISH_FINISHED_1, project.getName());
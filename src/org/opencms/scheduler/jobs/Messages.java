@@ -43,6 +43,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String RPT_DELETE_EXPIRED_END_0 = "RPT_DELETE_EXPIRED_END_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_BLOBSTORE_BAD_MAXAGE_2 = "LOG_BLOBSTORE_BAD_MAXAGE_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_BLOBSTORE_CLEANUP_COUNT_1 = "LOG_BLOBSTORE_CLEANUP_COUNT_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_IMAGE_CACHE_BAD_MAXAGE_2 = "LOG_IMAGE_CACHE_BAD_MAXAGE_2";
 
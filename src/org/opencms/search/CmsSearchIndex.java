@@ -2154,14 +2154,7 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
 
         // check if the resource exits in the VFS,
         // this will implicitly check read permission and if the resource was deleted
-        CmsResourceFilter filter = CmsResourceFilter.DEFAULT;
-        if (isRequireViewPermission()) {
-            filter = CmsResourceFilter.DEFAULT_ONLY_VISIBLE;
-        } else if (isIgnoreExpiration()) {
-            filter = CmsResourceFilter.IGNORE_EXPIRATION;
-        }
-
-        return getResource(cms, doc, filter);
+        return getResource(cms, doc, getResourceFilter());
     }
 
     /**
@@ -2190,6 +2183,58 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         return null;
     }
 
+    /**
+     * Returns the filter used to read the OpenCms resources referenced by result documents.<p>
+     *
+     * @return the filter used to read the OpenCms resources referenced by result documents
+     */
+    protected CmsResourceFilter getResourceFilter() {
+
+        CmsResourceFilter filter = CmsResourceFilter.DEFAULT;
+        if (isRequireViewPermission()) {
+            filter = CmsResourceFilter.DEFAULT_ONLY_VISIBLE;
+        } else if (isIgnoreExpiration()) {
+            filter = CmsResourceFilter.IGNORE_EXPIRATION;
+        }
+        return filter;
+    }
+
+    /**
+     * Reads the OpenCms resources referenced by the given result documents with as few database queries as possible.<p>
+     *
+     * The result only contains the resources the user of the given OpenCms context is permitted to read,
+     * by root path without trailing slash.<p>
+     *
+     * @param cms the OpenCms user context to use for permission testing
+     * @param docs the search result documents to read the resources for
+     * @param filter the resource filter to apply
+     *
+     * @return the resources by root path, or <code>null</code> if reading the resources failed
+     */
+    protected Map<String, CmsResource> getResources(
+        CmsObject cms,
+        List<? extends I_CmsSearchDocument> docs,
+        CmsResourceFilter filter) {
+
+        List<String> paths = new ArrayList<String>(docs.size());
+        for (I_CmsSearchDocument doc : docs) {
+            paths.add(doc.getPath());
+        }
+        try {
+            CmsObject clone = OpenCms.initCmsObject(cms);
+            clone.getRequestContext().setSiteRoot("");
+            Map<String, CmsResource> result = new HashMap<String, CmsResource>();
+            for (CmsResource resource : clone.readResourcesForPaths(paths, filter)) {
+                result.put(CmsFileUtil.removeTrailingSeparator(resource.getRootPath()), resource);
+            }
+            return result;
+        } catch (CmsException e) {
+            // the resources will be read for each document
+            LOG.warn(e.getLocalizedMessage(), e);
+        }
+        return null;
+    }
+
     /**
      * Returns a cached Lucene term query filter for the given field and term.<p>
      *
@@ -45,6 +45,7 @@ import org.opencms.main.CmsException;
 import org.opencms.main.CmsIllegalArgumentException;
 import org.opencms.main.CmsIllegalStateException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsAsyncEventListener;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.main.OpenCmsSolrHandler;
@@ -106,7 +107,7 @@ import org.apache.solr.core.SolrCore;
  *
  * @since 6.0.0
  */
-public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
+public class CmsSearchManager implements I_CmsScheduledJob, I_CmsAsyncEventListener {
 
     /**
      *  Enumeration class for force unlock types.<p>
@@ -1549,6 +1550,27 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
 
     }
 
+    /**
+     * The indexes are updated asynchronously after a publish job, in parallel to the other listeners.<p>
+     *
+     * @see org.opencms.main.I_CmsAsyncEventListener#isAsync(int)
+     */
+    public boolean isAsync(int eventType) {
+
+        return eventType == I_CmsEventListener.EVENT_PUBLISH_PROJECT;
+    }
+
+    /**
+     * A publish job is only finished after the indexes have been updated,
+     * so that the published resources can be found as soon as the publish job is finished.<p>
+     *
+     * @see org.opencms.main.I_CmsAsyncEventListener#isMandatory(int)
+     */
+    public boolean isMandatory(int eventType) {
+
+        return true;
+    }
+
     /**
      * Returns if the offline indexing is paused.<p>
      *
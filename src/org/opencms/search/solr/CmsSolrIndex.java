@@ -62,6 +62,7 @@ import org.opencms.search.galleries.CmsGallerySearchResult;
 import org.opencms.search.galleries.CmsGallerySearchResultList;
 import org.opencms.security.CmsRole;
 import org.opencms.security.CmsRoleViolationException;
+import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsStringUtil;
 
@@ -74,6 +75,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import javax.servlet.ServletResponse;
 
@@ -649,6 +651,20 @@ public class CmsSolrIndex extends CmsSearchIndex {
                 m_postProcessor.init();
             }
 
+            // read the resources of the first documents at once, further documents are read only if required
+            int prefetchCount = Math.min(end, queryResponse.getResults().size());
+            List<CmsSolrDocument> prefetchDocs = new ArrayList<CmsSolrDocument>(prefetchCount);
+            for (int i = 0; i < prefetchCount; i++) {
+                CmsSolrDocument searchDoc = new CmsSolrDocument(queryResponse.getResults().get(i));
+                if (needsPermissionCheck(searchDoc)) {
+                    prefetchDocs.add(searchDoc);
+                }
+            }
+            Map<String, CmsResource> prefetchedResources = getResources(
+                searchCms,
+                prefetchDocs,
+                filter == null ? getResourceFilter() : filter);
+
             // process found documents
             List<CmsSearchResource> allDocs = new ArrayList<CmsSearchResource>();
             int cnt = 0;
@@ -658,9 +674,16 @@ public class CmsSolrIndex extends CmsSearchIndex {
                     CmsSolrDocument searchDoc = new CmsSolrDocument(doc);
                     if (needsPermissionCheck(searchDoc)) {
                         // only if the document is an OpenCms internal resource perform the permission check
-                        CmsResource resource = filter == null
-                        ? getResource(searchCms, searchDoc)
-                        : getResource(searchCms, searchDoc, filter);
+                        CmsResource resource;
+                        if ((prefetchedResources != null) && (i < prefetchCount)) {
+                            // resources that are not contained can not be read by the user
+                            resource = prefetchedResources.get(
+                                CmsFileUtil.removeTrailingSeparator(searchDoc.getPath()));
+                        } else {
+                            resource = filter == null
+                            ? getResource(searchCms, searchDoc)
+                            : getResource(searchCms, searchDoc, filter);
+                        }
                         if (resource != null) {
                             // permission check performed successfully: the user has read permissions!
                             if (cnt >= start) {
@@ -29,7 +29,6 @@ package org.opencms.staticexport;
 
 import org.opencms.ade.detailpage.CmsDetailPageUtil;
 import org.opencms.ade.detailpage.I_CmsDetailPageFinder;
-import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProperty;
 import org.opencms.file.CmsPropertyDefinition;
@@ -39,6 +38,7 @@ import org.opencms.file.types.CmsResourceTypeJsp;
 import org.opencms.i18n.CmsAcceptLanguageHeaderParser;
 import org.opencms.i18n.CmsI18nInfo;
 import org.opencms.i18n.CmsLocaleManager;
+import org.opencms.loader.CmsDumpLoader;
 import org.opencms.loader.I_CmsResourceLoader;
 import org.opencms.main.CmsContextInfo;
 import org.opencms.main.CmsEvent;
@@ -46,6 +46,7 @@ import org.opencms.main.CmsException;
 import org.opencms.main.CmsIllegalArgumentException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.CmsSystemInfo;
+import org.opencms.main.I_CmsAsyncEventListener;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.monitor.CmsMemoryMonitor;
@@ -62,9 +63,11 @@ import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 import org.opencms.workplace.CmsWorkplace;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
@@ -88,7 +91,7 @@ import org.apache.commons.logging.Log;
  *
  * @since 6.0.0
  */
-public class CmsStaticExportManager implements I_CmsEventListener {
+public class CmsStaticExportManager implements I_CmsAsyncEventListener {
 
     /** Name for the default file. */
     public static final String DEFAULT_FILE = "index.html";
@@ -597,7 +600,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_SE_RESOURCE_START_1, data));
         }
 
-        CmsFile file = exportCms.readFile(OpenCms.initResource(exportCms, vfsName, req, wrapRes));
+        CmsResource file = OpenCms.initResource(exportCms, vfsName, req, wrapRes);
         vfsName = exportCms.getSitePath(file);
 
         // check loader id for resource
@@ -608,6 +611,14 @@ public class CmsStaticExportManager implements I_CmsEventListener {
                 Messages.get().container(Messages.ERR_EXPORT_NOT_SUPPORTED_2, arguments));
         }
 
+        // the content of files exported by the dump loader after publishing is copied from the VFS as stream,
+        // all other loaders require the complete file content, this includes subclasses of the dump loader
+        // like the pointer and image loaders which change the content on export
+        boolean streamContent = !exportOnDemand && file.isFile() && (loader.getClass() == CmsDumpLoader.class);
+        if (!streamContent) {
+            file = exportCms.readFile(file);
+        }
+
         // ensure we have exactly the same setup as if called "the usual way"
         // we only have to do this in case of the static export on demand
         if (exportOnDemand) {
@@ -646,7 +657,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
                     locCms = OpenCms.initCmsObject(exportCms, ctxInfo);
                 }
                 // read the content in the matching locale
-                byte[] content = loader.export(locCms, file, req, wrapRes);
+                InputStream content = getExportContent(locCms, loader, file, streamContent, req, wrapRes);
                 if (content != null) {
                     // write to rfs
                     exported = true;
@@ -661,7 +672,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         if (!matched) {
             // no rule matched
             String exportPath = getExportPath(siteRoot + vfsName);
-            byte[] content = loader.export(exportCms, file, req, wrapRes);
+            InputStream content = getExportContent(exportCms, loader, file, streamContent, req, wrapRes);
             if (content != null) {
                 exported = true;
                 writeResource(req, exportPath, rfsName, resource, content);
@@ -1745,6 +1756,16 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         }
     }
 
+    /**
+     * The export for published resources is done asynchronously, in parallel to the other listeners.<p>
+     *
+     * @see org.opencms.main.I_CmsAsyncEventListener#isAsync(int)
+     */
+    public boolean isAsync(int eventType) {
+
+        return eventType == I_CmsEventListener.EVENT_PUBLISH_PROJECT;
+    }
+
     /**
      * Checks if the static export is required for the given VFS resource.<p>
      *
@@ -1824,6 +1845,16 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return m_fullStaticExport;
     }
 
+    /**
+     * A publish job is only finished after the published resources have been exported.<p>
+     *
+     * @see org.opencms.main.I_CmsAsyncEventListener#isMandatory(int)
+     */
+    public boolean isMandatory(int eventType) {
+
+        return true;
+    }
+
     /**
      * Returns <code>true</code> if the given VFS resource should be transported through a secure channel.<p>
      *
@@ -2825,6 +2856,31 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         byte[] content)
     throws CmsException {
 
+        writeResource(req, exportPath, rfsName, resource, new ByteArrayInputStream(content));
+    }
+
+    /**
+      * Writes a resource to the given export path with the given rfs name,
+      * reading the content from the given stream.<p>
+      *
+      * The content is copied with a buffer of a fixed size, the stream is closed afterwards.<p>
+      *
+      * @param req the current request
+      * @param exportPath the path to export the resource
+      * @param rfsName the rfs name
+      * @param resource the resource
+      * @param content the stream to read the content from
+      *
+      * @throws CmsException if something goes wrong
+      */
+    protected void writeResource(
+        HttpServletRequest req,
+        String exportPath,
+        String rfsName,
+        CmsResource resource,
+        InputStream content)
+    throws CmsException {
+
         String exportFileName = CmsFileUtil.normalizePath(exportPath + rfsName);
 
         // make sure all required parent folder exist
@@ -2834,8 +2890,11 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         // write new exported file content
         try {
             FileOutputStream exportStream = new FileOutputStream(exportFile);
-            exportStream.write(content);
-            exportStream.close();
+            try {
+                CmsFileUtil.copy(content, exportStream);
+            } finally {
+                exportStream.close();
+            }
 
             // log export success
             if (LOG.isInfoEnabled()) {
@@ -2850,6 +2909,12 @@ public class CmsStaticExportManager implements I_CmsEventListener {
             throw new CmsStaticExportException(
                 Messages.get().container(Messages.ERR_OUTPUT_STREAM_1, exportFileName),
                 t);
+        } finally {
+            try {
+                content.close();
+            } catch (IOException e) {
+                LOG.debug(e.getLocalizedMessage(), e);
+            }
         }
         // update the file with the modification date from the server
         if (req != null) {
@@ -2925,4 +2990,36 @@ public class CmsStaticExportManager implements I_CmsEventListener {
             return Collections.emptyMap();
         }
     }
+
+    /**
+     * Returns the content of the given file to write to the RFS.<p>
+     *
+     * @param cms the current users OpenCms context
+     * @param loader the loader for the file
+     * @param file the file to export
+     * @param streamContent if the content should be copied as stream from the VFS instead of using the loader
+     * @param req the current request
+     * @param res the current response
+     *
+     * @return the content to write, or <code>null</code> if nothing must be written
+     *
+     * @throws CmsException in case of errors accessing the VFS
+     * @throws ServletException in case of errors accessing the servlet
+     * @throws IOException in case of errors writing to the export output stream
+     */
+    private InputStream getExportContent(
+        CmsObject cms,
+        I_CmsResourceLoader loader,
+        CmsResource file,
+        boolean streamContent,
+        HttpServletRequest req,
+        HttpServletResponse res)
+    throws CmsException, ServletException, IOException {
+
+        if (streamContent) {
+            return cms.readContentStream(file);
+        }
+        byte[] content = loader.export(cms, file, req, res);
+        return (content == null) ? null : new ByteArrayInputStream(content);
+    }
 }
@@ -50,6 +50,7 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.net.URL;
 import java.util.ArrayList;
@@ -217,6 +218,31 @@ public final class CmsFileUtil {
         out.close();
     }
 
+    /**
+     * Copies all bytes from the given input stream to the given output stream.<p>
+     *
+     * The bytes are copied with a buffer of a fixed size, so the memory required does not depend
+     * on the number of bytes copied. None of the streams is closed.<p>
+     *
+     * @param in the input stream to read the bytes from
+     * @param out the output stream to write the bytes to
+     *
+     * @return the number of bytes copied
+     *
+     * @throws IOException in case reading or writing the bytes fails
+     */
+    public static long copy(InputStream in, OutputStream out) throws IOException {
+
+        byte[] buf = new byte[8192];
+        long result = 0;
+        int len;
+        while ((len = in.read(buf)) >= 0) {
+            out.write(buf, 0, len);
+            result += len;
+        }
+        return result;
+    }
+
     /**
      * Returns the formatted filesize to Bytes, KB, MB or GB depending on the given value.<p>
      *
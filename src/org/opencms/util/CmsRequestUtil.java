@@ -82,6 +82,9 @@ public final class CmsRequestUtil {
     /** HTTP Accept-Charset Header for internal requests used during static export. */
     public static final String HEADER_ACCEPT_CHARSET = "Accept-Charset";
 
+    /** HTTP Header "Accept-Encoding". */
+    public static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+
     /** HTTP Accept-Language Header for internal requests used during static export. */
     public static final String HEADER_ACCEPT_LANGUAGE = "Accept-Language";
 
@@ -94,6 +97,9 @@ public final class CmsRequestUtil {
     /** The "Content-Disposition" http header. */
     public static final String HEADER_CONTENT_DISPOSITION = "Content-Disposition";
 
+    /** The "Content-Encoding" http header. */
+    public static final String HEADER_CONTENT_ENCODING = "Content-Encoding";
+
     /** The "Content-Type" http header. */
     public static final String HEADER_CONTENT_TYPE = "Content-Type";
 
@@ -124,6 +130,9 @@ public final class CmsRequestUtil {
     /** HTTP Header "user-agent". */
     public static final String HEADER_USER_AGENT = "user-agent";
 
+    /** HTTP Header value "gzip" (for "Accept-Encoding" and "Content-Encoding"). */
+    public static final String HEADER_VALUE_GZIP = "gzip";
+
     /** HTTP Header value "max-age=" (for "Cache-Control"). */
     public static final String HEADER_VALUE_MAX_AGE = "max-age=";
 
@@ -136,6 +145,9 @@ public final class CmsRequestUtil {
     /** HTTP Header value "no-store" (for "Cache-Control"). */
     public static final String HEADER_VALUE_NO_STORE = "no-store";
 
+    /** HTTP Header "Vary". */
+    public static final String HEADER_VARY = "Vary";
+
     /** HTTP Header "WWW-Authenticate". */
     public static final String HEADER_WWW_AUTHENTICATE = "WWW-Authenticate";
 
@@ -523,7 +523,7 @@ public class CmsWebdavServlet extends HttpServlet {
 
         InputStream resourceInputStream = null;
         if (!item.isCollection()) {
-            resourceInputStream = new ByteArrayInputStream(item.getContent());
+            resourceInputStream = item.getContentStream();
         } else {
             resourceInputStream = is;
         }
@@ -564,15 +564,9 @@ public class CmsWebdavServlet extends HttpServlet {
         IOException exception = null;
         InputStream resourceInputStream = null;
 
-        // Optimization: If the binary content has already been loaded, send
-        // it directly
+        // the content of the item is streamed, so large files are not read into memory completely
         if (!item.isCollection()) {
-            byte[] buffer = item.getContent();
-            if (buffer != null) {
-                ostream.write(buffer, 0, buffer.length);
-                return;
-            }
-            resourceInputStream = new ByteArrayInputStream(item.getContent());
+            resourceInputStream = item.getContentStream();
         } else {
             resourceInputStream = is;
         }
@@ -612,7 +606,7 @@ public class CmsWebdavServlet extends HttpServlet {
 
         IOException exception = null;
 
-        InputStream resourceInputStream = new ByteArrayInputStream(item.getContent());
+        InputStream resourceInputStream = item.getContentStream();
 
         Reader reader = new InputStreamReader(resourceInputStream);
         exception = copyRange(reader, writer, range.getStart(), range.getEnd());
@@ -654,7 +648,7 @@ public class CmsWebdavServlet extends HttpServlet {
 
         while ((exception == null) && (ranges.hasNext())) {
 
-            InputStream resourceInputStream = new ByteArrayInputStream(item.getContent());
+            InputStream resourceInputStream = item.getContentStream();
 
             Reader reader = new InputStreamReader(resourceInputStream);
             CmsWebdavRange currentRange = ranges.next();
@@ -712,7 +706,7 @@ public class CmsWebdavServlet extends HttpServlet {
 
         IOException exception = null;
 
-        InputStream resourceInputStream = new ByteArrayInputStream(item.getContent());
+        InputStream resourceInputStream = item.getContentStream();
         InputStream istream = new BufferedInputStream(resourceInputStream, m_input);
         exception = copyRange(istream, ostream, range.getStart(), range.getEnd());
 
@@ -753,7 +747,7 @@ public class CmsWebdavServlet extends HttpServlet {
 
         while ((exception == null) && (ranges.hasNext())) {
 
-            InputStream resourceInputStream = new ByteArrayInputStream(item.getContent());
+            InputStream resourceInputStream = item.getContentStream();
             InputStream istream = new BufferedInputStream(resourceInputStream, m_input);
 
             CmsWebdavRange currentRange = ranges.next();
@@ -2178,7 +2172,7 @@ public class CmsWebdavServlet extends HttpServlet {
         try {
             I_CmsRepositoryItem item = m_session.getItem(path);
 
-            oldResourceStream = new ByteArrayInputStream(item.getContent());
+            oldResourceStream = item.getContentStream();
         } catch (CmsException e) {
             if (LOG.isErrorEnabled()) {
                 LOG.error(Messages.get().getBundle().key(Messages.LOG_ITEM_NOT_FOUND_1, path), e);
@@ -443,13 +443,38 @@ public class CmsXmlContainerPage extends CmsXmlContent {
      */
     protected CmsResource fillResource(CmsObject cms, Element element, CmsUUID resourceId) throws CmsException {
 
+        return fillResource(cms, element, resourceId, Collections.<CmsUUID, CmsResource> emptyMap());
+    }
+
+    /**
+     * Fills a {@link CmsXmlVfsFileValue} with the resource identified by the given id.<p>
+     *
+     * @param cms the current CMS context
+     * @param element the XML element to fill
+     * @param resourceId the ID identifying the resource to use
+     * @param resources the resources that have already been read, by structure id
+     *
+     * @return the resource
+     *
+     * @throws CmsException if the resource can not be read
+     */
+    protected CmsResource fillResource(
+        CmsObject cms,
+        Element element,
+        CmsUUID resourceId,
+        Map<CmsUUID, CmsResource> resources)
+    throws CmsException {
+
         String xpath = element.getPath();
         int pos = xpath.lastIndexOf("/" + XmlNode.Containers.name() + "/");
         if (pos > 0) {
             xpath = xpath.substring(pos + 1);
         }
         CmsRelationType type = getHandler().getRelationType(xpath);
-        CmsResource res = cms.readResource(resourceId, CmsResourceFilter.IGNORE_EXPIRATION);
+        CmsResource res = resources.get(resourceId);
+        if (res == null) {
+            res = cms.readResource(resourceId, CmsResourceFilter.IGNORE_EXPIRATION);
+        }
         CmsXmlVfsFileValue.fillEntry(element, res.getStructureId(), res.getRootPath(), type);
         return res;
     }
@@ -623,6 +648,21 @@ public class CmsXmlContainerPage extends CmsXmlContent {
         List<String> containerNames = new ArrayList<String>(cntPage.getNames());
         Collections.sort(containerNames);
 
+        // read the resources of all elements and formatters at once
+        Set<CmsUUID> resourceIds = new HashSet<CmsUUID>();
+        for (CmsContainerBean container : cntPage.getContainers().values()) {
+            for (CmsContainerElementBean element : container.getElements()) {
+                resourceIds.add(element.getId());
+                if (element.getFormatterId() != null) {
+                    resourceIds.add(element.getFormatterId());
+                }
+            }
+        }
+        Map<CmsUUID, CmsResource> resources = new HashMap<CmsUUID, CmsResource>();
+        for (CmsResource resource : cms.readResources(resourceIds, CmsResourceFilter.IGNORE_EXPIRATION)) {
+            resources.put(resource.getStructureId(), resource);
+        }
+
         for (String containerName : containerNames) {
             CmsContainerBean container = cntPage.getContainers().get(containerName);
 
@@ -643,9 +683,9 @@ public class CmsXmlContainerPage extends CmsXmlContent {
 
                 // the element
                 Element uriElem = elemElement.addElement(XmlNode.Uri.name());
-                CmsResource uriRes = fillResource(cms, uriElem, element.getId());
+                CmsResource uriRes = fillResource(cms, uriElem, element.getId(), resources);
                 Element formatterElem = elemElement.addElement(XmlNode.Formatter.name());
-                fillResource(cms, formatterElem, element.getFormatterId());
+                fillResource(cms, formatterElem, element.getFormatterId(), resources);
                 if (element.isCreateNew()) {
                     Element createNewElem = elemElement.addElement(XmlNode.CreateNew.name());
                     createNewElem.addText(Boolean.TRUE.toString());
@@ -0,0 +1,144 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.cache.TestCmsClockCache.CmsTestCacheObject;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark comparing the {@link CmsLruCache} with the {@link CmsClockCache}.<p>
+ *
+ * The benchmark simulates the Flex cache usage: most accesses are cache hits, some accesses
+ * replace cached objects. It is not part of the test suite, run it with the {@link #main(String[])} method
+ * or with the JMH command line, e.g. with <code>-t 32</code> to use 32 threads.<p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+public class CmsLruCacheBenchmark {
+
+    /** The number of cached objects. */
+    private static final int OBJECT_COUNT = 10000;
+
+    /** The costs of each cached object. */
+    private static final int OBJECT_COSTS = 1000;
+
+    /** The class name of the cache implementation to benchmark. */
+    @Param({"org.opencms.cache.CmsLruCache", "org.opencms.cache.CmsClockCache"})
+    String m_cacheClass;
+
+    /** The cache to benchmark. */
+    CmsLruCache m_cache;
+
+    /** The objects used in the benchmark. */
+    CmsTestCacheObject[] m_objects;
+
+    /**
+     * Runs the benchmark.<p>
+     *
+     * @param args the arguments, not used
+     *
+     * @throws RunnerException in case the benchmark fails
+     */
+    public static void main(String[] args) throws RunnerException {
+
+        new Runner(new OptionsBuilder().include(CmsLruCacheBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    /**
+     * Benchmarks cache hits, with every 10th access replacing an object in the cache.<p>
+     *
+     * @return the result of the cache operation
+     */
+    @Benchmark
+    public boolean mixed() {
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        CmsTestCacheObject object = m_objects[random.nextInt(OBJECT_COUNT)];
+        if (random.nextInt(10) == 0) {
+            m_cache.remove(object);
+            return m_cache.add(object);
+        }
+        return m_cache.touch(object);
+    }
+
+    /**
+     * Creates the cache and fills it with objects.<p>
+     *
+     * The cache can hold about 80% of the objects, so the mixed benchmark also measures the eviction.<p>
+     *
+     * @throws Exception in case the cache can not be created
+     */
+    @Setup
+    public void setUp() throws Exception {
+
+        long maxCosts = (OBJECT_COUNT * OBJECT_COSTS * 8L) / 10L;
+        m_cache = Class.forName(m_cacheClass).asSubclass(CmsLruCache.class).getConstructor(
+            Long.TYPE,
+            Long.TYPE,
+            Integer.TYPE).newInstance(new Long(maxCosts), new Long((maxCosts * 3L) / 4L), new Integer(-1));
+        m_objects = new CmsTestCacheObject[OBJECT_COUNT];
+        for (int i = 0; i < OBJECT_COUNT; i++) {
+            m_objects[i] = new CmsTestCacheObject(OBJECT_COSTS);
+            m_cache.add(m_objects[i]);
+        }
+    }
+
+    /**
+     * Benchmarks cache hits only.<p>
+     *
+     * @return the result of the cache operation
+     */
+    @Benchmark
+    public boolean touch() {
+
+        return m_cache.touch(m_objects[ThreadLocalRandom.current().nextInt(OBJECT_COUNT)]);
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.test.OpenCmsTestCase;
+
+/**
+ * Tests for the CmsClockCache.<p>
+ */
+public class TestCmsClockCache extends OpenCmsTestCase {
+
+    /**
+     * Simple cache object for the tests.<p>
+     */
+    static class CmsTestCacheObject implements I_CmsLruCacheObject {
+
+        /** Indicates if the object is in the cache. */
+        boolean m_cached;
+
+        /** The costs of the object. */
+        int m_costs;
+
+        /** The next object. */
+        I_CmsLruCacheObject m_next;
+
+        /** The previous object. */
+        I_CmsLruCacheObject m_previous;
+
+        /**
+         * Creates a new test object.<p>
+         *
+         * @param costs the costs
+         */
+        CmsTestCacheObject(int costs) {
+
+            m_costs = costs;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#addToLruCache()
+         */
+        public void addToLruCache() {
+
+            m_cached = true;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getLruCacheCosts()
+         */
+        public int getLruCacheCosts() {
+
+            return m_costs;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getNextLruObject()
+         */
+        public I_CmsLruCacheObject getNextLruObject() {
+
+            return m_next;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getPreviousLruObject()
+         */
+        public I_CmsLruCacheObject getPreviousLruObject() {
+
+            return m_previous;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getValue()
+         */
+        public Object getValue() {
+
+            return this;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#removeFromLruCache()
+         */
+        public void removeFromLruCache() {
+
+            m_cached = false;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#setNextLruObject(org.opencms.cache.I_CmsLruCacheObject)
+         */
+        public void setNextLruObject(I_CmsLruCacheObject theNextObject) {
+
+            m_next = theNextObject;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#setPreviousLruObject(org.opencms.cache.I_CmsLruCacheObject)
+         */
+        public void setPreviousLruObject(I_CmsLruCacheObject thePreviousObject) {
+
+            m_previous = thePreviousObject;
+        }
+    }
+
+    /**
+     * Tests adding, touching and removing objects.<p>
+     */
+    public void testAddAndRemove() {
+
+        CmsClockCache cache = new CmsClockCache(1000, 500, 100);
+        CmsTestCacheObject a = new CmsTestCacheObject(10);
+        CmsTestCacheObject b = new CmsTestCacheObject(20);
+
+        assertTrue(cache.add(a));
+        assertTrue(cache.add(b));
+        assertTrue(cache.add(a));
+        assertTrue(a.m_cached);
+        assertEquals(2, cache.size());
+        assertEquals(30, cache.getObjectCosts());
+        assertTrue(cache.touch(b));
+
+        assertSame(a, cache.remove(a));
+        assertFalse(a.m_cached);
+        assertNull(cache.remove(a));
+        assertFalse(cache.touch(a));
+        assertEquals(1, cache.size());
+        assertEquals(20, cache.getObjectCosts());
+
+        // objects that are too expensive are not cached
+        assertFalse(cache.add(new CmsTestCacheObject(101)));
+        assertEquals(1, cache.size());
+
+        cache.clear();
+        assertFalse(b.m_cached);
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getObjectCosts());
+    }
+
+    /**
+     * Tests that referenced objects get a second chance if the cache has to be cleaned up.<p>
+     */
+    public void testEviction() {
+
+        CmsClockCache cache = new CmsClockCache(100, 50, -1);
+        CmsTestCacheObject[] objects = new CmsTestCacheObject[10];
+        for (int i = 0; i < objects.length; i++) {
+            objects[i] = new CmsTestCacheObject(10);
+            cache.add(objects[i]);
+        }
+        assertEquals(100, cache.getObjectCosts());
+
+        // the oldest object is used, so the next objects are evicted first
+        cache.touch(objects[0]);
+        cache.add(new CmsTestCacheObject(10));
+
+        assertTrue(cache.getObjectCosts() < 50);
+        assertTrue(objects[0].m_cached);
+        assertFalse(objects[1].m_cached);
+        assertFalse(objects[2].m_cached);
+        assertTrue(objects[9].m_cached);
+    }
+}
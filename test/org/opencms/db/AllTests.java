@@ -65,6 +65,15 @@ public final class AllTests {
         suite.addTest(TestSubscriptionManager.suite());
         suite.addTest(TestAliases.suite());
         suite.addTest(TestUrlNameMapping.suite());
+        suite.addTest(new TestSuite(TestCmsFileSystemBlobStore.class));
+        suite.addTest(new TestSuite(TestCmsLockChanges.class));
+        suite.addTest(new TestSuite(TestCmsLogEntryWriter.class));
+        suite.addTest(new TestSuite(TestCmsPublishListOverlap.class));
+        suite.addTest(new TestSuite(TestCmsReadReplica.class));
+        suite.addTest(new TestSuite(TestCmsResourceTreeUpdates.class));
+        suite.addTest(new TestSuite(TestCmsSqlBatch.class));
+        suite.addTest(new TestSuite(TestCmsSqlStatistics.class));
+        suite.addTest(new TestSuite(TestCmsStructureTreeIndex.class));
         // $JUnit-END$
         return suite;
     }
@@ -0,0 +1,204 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+import org.opencms.db.generic.CmsSqlBatch;
+import org.opencms.db.generic.CmsSqlManager;
+import org.opencms.util.CmsUUID;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.dbcp.DriverManagerConnectionFactory;
+import org.apache.commons.dbcp.PoolableConnectionFactory;
+import org.apache.commons.dbcp.PoolingDriver;
+import org.apache.commons.pool.impl.GenericObjectPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark comparing publish history entries written one by one with entries written in JDBC batches,
+ * using a HSQLDB database.<p>
+ *
+ * It is not part of the test suite, run it with the {@link #main(String[])} method or with the JMH command line.<p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CmsSqlBatchBenchmark {
+
+    /** The number of statements per batch. */
+    private static final int BATCH_SIZE = 500;
+
+    /** The number of entries written per benchmark invocation. */
+    private static final int ENTRY_COUNT = 2000;
+
+    /** The name of the benchmark pool. */
+    private static final String POOL_NAME = "batchBenchmark";
+
+    /** The query used by the benchmark. */
+    private static final String QUERY_KEY = "C_RESOURCES_WRITE_PUBLISH_HISTORY";
+
+    /** The pool of the benchmark database. */
+    PoolingDriver m_pool;
+
+    /** The SQL manager. */
+    CmsSqlManager m_sqlManager;
+
+    /**
+     * Runs the benchmark.<p>
+     *
+     * @param args the arguments, not used
+     *
+     * @throws RunnerException in case the benchmark fails
+     */
+    public static void main(String[] args) throws RunnerException {
+
+        new Runner(new OptionsBuilder().include(CmsSqlBatchBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    /**
+     * Benchmarks writing the entries in batches.<p>
+     *
+     * @return the number of failed statements
+     */
+    @Benchmark
+    public int batch() {
+
+        CmsDbContext dbc = new CmsDbContext();
+        CmsUUID publishId = new CmsUUID();
+        CmsSqlBatch.begin(dbc, BATCH_SIZE);
+        CmsSqlBatch batch = CmsSqlBatch.getBatch(dbc, m_sqlManager);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            batch.add(
+                null,
+                QUERY_KEY,
+                "/batch" + i,
+                Integer.valueOf(1),
+                new CmsUUID().toString(),
+                new CmsUUID().toString(),
+                "/batch" + i,
+                Integer.valueOf(1),
+                Integer.valueOf(1),
+                publishId.toString(),
+                Integer.valueOf(1));
+        }
+        return CmsSqlBatch.end(dbc).size();
+    }
+
+    /**
+     * Creates the benchmark database.<p>
+     *
+     * @throws Exception in case the database can not be created
+     */
+    @Setup
+    public void setUp() throws Exception {
+
+        Class.forName("org.hsqldb.jdbcDriver");
+        GenericObjectPool connectionPool = new GenericObjectPool(null);
+        new PoolableConnectionFactory(
+            new DriverManagerConnectionFactory("jdbc:hsqldb:mem:" + POOL_NAME + System.nanoTime(), "sa", ""),
+            connectionPool,
+            null,
+            null,
+            false,
+            true);
+        m_pool = new PoolingDriver();
+        m_pool.registerPool(CmsDbPool.OPENCMS_URL_PREFIX + POOL_NAME, connectionPool);
+
+        m_sqlManager = new CmsSqlManager();
+        m_sqlManager.init(0, CmsDbPool.OPENCMS_URL_PREFIX + POOL_NAME);
+        Connection con = m_sqlManager.getConnection(new CmsDbContext());
+        try {
+            con.prepareStatement(
+                "CREATE TABLE CMS_PUBLISH_HISTORY (HISTORY_ID VARCHAR(36) NOT NULL, PUBLISH_TAG INT NOT NULL, "
+                    + "STRUCTURE_ID VARCHAR(36) NOT NULL, RESOURCE_ID VARCHAR(36) NOT NULL, "
+                    + "RESOURCE_PATH VARCHAR(1024) NOT NULL, RESOURCE_STATE INT NOT NULL, "
+                    + "RESOURCE_TYPE INT NOT NULL, SIBLING_COUNT INT NOT NULL)").execute();
+        } finally {
+            con.close();
+        }
+    }
+
+    /**
+     * Benchmarks writing the entries one by one.<p>
+     *
+     * @throws Exception in case writing an entry fails
+     */
+    @Benchmark
+    public void single() throws Exception {
+
+        CmsDbContext dbc = new CmsDbContext();
+        CmsUUID publishId = new CmsUUID();
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            Connection conn = m_sqlManager.getConnection(dbc);
+            PreparedStatement stmt = m_sqlManager.getPreparedStatement(conn, QUERY_KEY);
+            try {
+                stmt.setInt(1, 1);
+                stmt.setString(2, new CmsUUID().toString());
+                stmt.setString(3, new CmsUUID().toString());
+                stmt.setString(4, "/single" + i);
+                stmt.setInt(5, 1);
+                stmt.setInt(6, 1);
+                stmt.setString(7, publishId.toString());
+                stmt.setInt(8, 1);
+                stmt.executeUpdate();
+            } finally {
+                m_sqlManager.closeAll(dbc, conn, stmt, null);
+            }
+        }
+    }
+
+    /**
+     * Closes the benchmark database.<p>
+     *
+     * @throws Exception in case closing the pool fails
+     */
+    @TearDown
+    public void tearDown() throws Exception {
+
+        m_pool.closePool(CmsDbPool.OPENCMS_URL_PREFIX + POOL_NAME);
+    }
+}
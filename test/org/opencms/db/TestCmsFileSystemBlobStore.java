@@ -0,0 +1,172 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsFileUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+/**
+ * Unit tests for the file system blob store.<p>
+ */
+public class TestCmsFileSystemBlobStore extends OpenCmsTestCase {
+
+    /** The threshold used in the tests. */
+    private static final int THRESHOLD = 1000;
+
+    /** The directory of the blob store. */
+    private File m_directory;
+
+    /** The blob store. */
+    private CmsFileSystemBlobStore m_store;
+
+    /**
+     * Tests deleting the unreferenced blobs.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testDeleteUnreferenced() throws Exception {
+
+        String used = m_store.getKey(m_store.store(createContent(THRESHOLD, 1)));
+        byte[] unused = m_store.store(createContent(THRESHOLD, 2));
+
+        // recently used blobs are kept
+        assertEquals(0, m_store.deleteUnreferenced(Collections.singleton(used), System.currentTimeMillis() - 60000));
+        assertEquals(
+            1,
+            m_store.deleteUnreferenced(
+                new HashSet<String>(Arrays.asList(used, "unknown")),
+                System.currentTimeMillis() + 60000));
+        assertNotNull(m_store.resolve(m_store.store(createContent(THRESHOLD, 1))));
+        try {
+            m_store.resolve(unused);
+            fail("deleted blob must not be found");
+        } catch (CmsDbEntryNotFoundException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Tests resolving the stream of a database value.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testResolveStream() throws Exception {
+
+        byte[] content = createContent(THRESHOLD * 2, 3);
+        byte[] reference = m_store.store(content);
+        byte[] result = CmsFileUtil.readFully(m_store.resolve(new ByteArrayInputStream(reference)));
+        assertTrue(Arrays.equals(content, result));
+
+        // values that are no references are returned unchanged
+        byte[] small = createContent(m_store.getReferenceLength(), 4);
+        assertTrue(Arrays.equals(small, CmsFileUtil.readFully(m_store.resolve(new ByteArrayInputStream(small)))));
+        byte[] longer = new byte[reference.length + 1];
+        System.arraycopy(reference, 0, longer, 0, reference.length);
+        assertTrue(Arrays.equals(longer, CmsFileUtil.readFully(m_store.resolve(new ByteArrayInputStream(longer)))));
+    }
+
+    /**
+     * Tests storing and resolving contents.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testStoreAndResolve() throws Exception {
+
+        // small contents are kept in the database
+        byte[] small = createContent(THRESHOLD - 1, 5);
+        assertSame(small, m_store.store(small));
+        assertNull(m_store.getKey(small));
+
+        // large contents are replaced by a reference, identical contents share the blob
+        byte[] large = createContent(THRESHOLD, 6);
+        byte[] reference = m_store.store(large);
+        assertEquals(m_store.getReferenceLength(), reference.length);
+        String key = m_store.getKey(reference);
+        assertNotNull(key);
+        assertTrue(Arrays.equals(reference, m_store.store(createContent(THRESHOLD, 6))));
+        assertTrue(Arrays.equals(large, m_store.resolve(reference)));
+        assertTrue(Arrays.equals(small, m_store.resolve(small)));
+        assertNull(m_store.resolve((byte[])null));
+
+        // small contents that look like a reference are stored as blob as well
+        byte[] fake = m_store.store(reference);
+        assertFalse(Arrays.equals(reference, fake));
+        assertTrue(Arrays.equals(reference, m_store.resolve(fake)));
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        super.setUp();
+        m_directory = File.createTempFile("blobstore", "");
+        m_directory.delete();
+        CmsParameterConfiguration configuration = new CmsParameterConfiguration();
+        configuration.put(CmsFileSystemBlobStore.CONFIGURATION_PATH, m_directory.getAbsolutePath());
+        configuration.put(CmsFileSystemBlobStore.CONFIGURATION_THRESHOLD, String.valueOf(THRESHOLD));
+        m_store = new CmsFileSystemBlobStore();
+        m_store.initConfiguration(configuration);
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() throws Exception {
+
+        CmsFileUtil.purgeDirectory(m_directory);
+        super.tearDown();
+    }
+
+    /**
+     * Creates test content.<p>
+     *
+     * @param length the length of the content
+     * @param seed the seed used to make the content unique
+     *
+     * @return the test content
+     */
+    private byte[] createContent(int length, int seed) {
+
+        byte[] result = new byte[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = (byte)(i * seed);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.db.generic.CmsProjectDriver;
+import org.opencms.db.generic.CmsSqlManager;
+import org.opencms.file.CmsProject;
+import org.opencms.lock.CmsLock;
+import org.opencms.lock.CmsLockType;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.dbcp.DriverManagerConnectionFactory;
+import org.apache.commons.dbcp.PoolableConnectionFactory;
+import org.apache.commons.dbcp.PoolingDriver;
+import org.apache.commons.pool.impl.GenericObjectPool;
+
+/**
+ * Unit tests for writing the lock changes of single resources in the project driver, using a HSQLDB database.<p>
+ */
+public class TestCmsLockChanges extends OpenCmsTestCase {
+
+    /**
+     * Project driver that uses the SQL manager of the test database.<p>
+     */
+    private static class CmsTestProjectDriver extends CmsProjectDriver {
+
+        /**
+         * Creates a new test driver.<p>
+         *
+         * @param sqlManager the SQL manager of the test database
+         */
+        CmsTestProjectDriver(CmsSqlManager sqlManager) {
+
+            m_sqlManager = sqlManager;
+        }
+    }
+
+    /** The name of the test pool. */
+    private static final String POOL_NAME = "lockchanges";
+
+    /** The project driver. */
+    private CmsProjectDriver m_driver;
+
+    /** The pool of the test database. */
+    private PoolingDriver m_pool;
+
+    /** The project used by the tests. */
+    private CmsProject m_project;
+
+    /** The SQL manager. */
+    private CmsSqlManager m_sqlManager;
+
+    /** The user used by the tests. */
+    private CmsUUID m_userId;
+
+    /**
+     * Tests that only the locks of the changed resources are replaced.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testWriteLockChanges() throws Exception {
+
+        m_driver.writeLocks(
+            new CmsDbContext(),
+            Arrays.asList(createLock("/a/", CmsLockType.EXCLUSIVE), createLock("/b.txt", CmsLockType.EXCLUSIVE)));
+        assertEquals(Arrays.asList("/a/ 4", "/b.txt 4"), readLocks());
+
+        // "/a/" has been unlocked, "/c.txt" has been locked, "/d.txt" has been locked temporarily
+        m_driver.writeLockChanges(
+            new CmsDbContext(),
+            Arrays.asList("/a/", "/c.txt", "/d.txt"),
+            Arrays.asList(createLock("/c.txt", CmsLockType.EXCLUSIVE), createLock("/d.txt", CmsLockType.TEMPORARY)));
+        assertEquals(Arrays.asList("/b.txt 4", "/c.txt 4"), readLocks());
+
+        // a changed lock replaces the stored lock
+        m_driver.writeLockChanges(
+            new CmsDbContext(),
+            Collections.singletonList("/c.txt"),
+            Collections.singletonList(createLock("/c.txt", CmsLockType.PUBLISH)));
+        assertEquals(Arrays.asList("/b.txt 4", "/c.txt 7"), readLocks());
+
+        // nothing to do
+        m_driver.writeLockChanges(
+            new CmsDbContext(),
+            Collections.<String> emptyList(),
+            Collections.<CmsLock> emptyList());
+        assertEquals(Arrays.asList("/b.txt 4", "/c.txt 7"), readLocks());
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        super.setUp();
+        Class.forName("org.hsqldb.jdbcDriver");
+        GenericObjectPool connectionPool = new GenericObjectPool(null);
+        new PoolableConnectionFactory(
+            new DriverManagerConnectionFactory("jdbc:hsqldb:mem:" + POOL_NAME + System.nanoTime(), "sa", ""),
+            connectionPool,
+            null,
+            null,
+            false,
+            true);
+        m_pool = new PoolingDriver();
+        m_pool.registerPool(CmsDbPool.OPENCMS_URL_PREFIX + POOL_NAME, connectionPool);
+
+        m_sqlManager = new CmsSqlManager();
+        m_sqlManager.init(0, CmsDbPool.OPENCMS_URL_PREFIX + POOL_NAME);
+        m_driver = new CmsTestProjectDriver(m_sqlManager);
+        m_project = new CmsProject(
+            new CmsUUID(),
+            "test",
+            "",
+            CmsUUID.getNullUUID(),
+            CmsUUID.getNullUUID(),
+            CmsUUID.getNullUUID(),
+            0,
+            0,
+            CmsProject.PROJECT_TYPE_NORMAL);
+        m_userId = new CmsUUID();
+
+        CmsDbContext dbc = new CmsDbContext();
+        Connection con = m_sqlManager.getConnection(dbc);
+        PreparedStatement stmt = null;
+        try {
+            stmt = con.prepareStatement(
+                "CREATE TABLE CMS_RESOURCE_LOCKS (RESOURCE_PATH VARCHAR(1024) NOT NULL, USER_ID VARCHAR(36) NOT NULL, "
+                    + "PROJECT_ID VARCHAR(36) NOT NULL, LOCK_TYPE INT NOT NULL)");
+            stmt.executeUpdate();
+        } finally {
+            m_sqlManager.closeAll(dbc, con, stmt, null);
+        }
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() throws Exception {
+
+        m_pool.closePool(CmsDbPool.OPENCMS_URL_PREFIX + POOL_NAME);
+        super.tearDown();
+    }
+
+    /**
+     * Creates a lock of the test user in the test project.<p>
+     *
+     * @param path the locked path
+     * @param type the lock type
+     *
+     * @return the lock
+     */
+    private CmsLock createLock(String path, CmsLockType type) {
+
+        return new CmsLock(path, m_userId, m_project, type);
+    }
+
+    /**
+     * Reads the stored locks as path and lock type.<p>
+     *
+     * @return the sorted locks
+     *
+     * @throws Exception if something goes wrong
+     */
+    private List<String> readLocks() throws Exception {
+
+        CmsDbContext dbc = new CmsDbContext();
+        Connection con = m_sqlManager.getConnection(dbc);
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        List<String> result = new ArrayList<String>();
+        try {
+            stmt = con.prepareStatement("SELECT RESOURCE_PATH, LOCK_TYPE, USER_ID, PROJECT_ID FROM CMS_RESOURCE_LOCKS");
+            res = stmt.executeQuery();
+            while (res.next()) {
+                assertEquals(m_userId.toString(), res.getString(3));
+                assertEquals(m_project.getUuid().toString(), res.getString(4));
+                result.add(res.getString(1) + " " + res.getInt(2));
+            }
+        } finally {
+            m_sqlManager.closeAll(dbc, con, stmt, res);
+        }
+        Collections.sort(result);
+        return result;
+    }
+}
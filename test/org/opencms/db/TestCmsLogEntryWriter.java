@@ -0,0 +1,249 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+import org.opencms.db.log.CmsLogEntry;
+import org.opencms.db.log.CmsLogEntryType;
+import org.opencms.file.CmsDataAccessException;
+import org.opencms.file.CmsRequestContext;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit tests for the background writer of the log entries.<p>
+ */
+public class TestCmsLogEntryWriter extends OpenCmsTestCase {
+
+    /**
+     * Log entry writer that records the written batches instead of writing them to the database.<p>
+     */
+    private static class CmsRecordingWriter extends CmsLogEntryWriter {
+
+        /** The written batches. */
+        List<List<CmsLogEntry>> m_batches = Collections.synchronizedList(new ArrayList<List<CmsLogEntry>>());
+
+        /** Flag indicating if writing fails, like without database connection. */
+        volatile boolean m_fail;
+
+        /**
+         * Creates a new writer.<p>
+         *
+         * @param queueSize the capacity of the queue
+         * @param batchSize the number of log entries written in one batch
+         * @param flushInterval the max. time in ms log entries are kept in the queue
+         */
+        CmsRecordingWriter(int queueSize, int batchSize, long flushInterval) {
+
+            super(null, new I_CmsDbContextFactory() {
+
+                public CmsDbContext getDbContext() {
+
+                    return new CmsDbContext();
+                }
+
+                public CmsDbContext getDbContext(CmsRequestContext context) {
+
+                    return new CmsDbContext(context);
+                }
+
+                public void initialize(CmsDriverManager driverManager) {
+
+                    // noop
+                }
+            }, new Object(), queueSize, batchSize, flushInterval);
+        }
+
+        /**
+         * Returns the number of written log entries.<p>
+         *
+         * @return the number of written log entries
+         */
+        int getWrittenCount() {
+
+            int result = 0;
+            synchronized (m_batches) {
+                for (List<CmsLogEntry> batch : m_batches) {
+                    result += batch.size();
+                }
+            }
+            return result;
+        }
+
+        /**
+         * @see org.opencms.db.CmsLogEntryWriter#write(org.opencms.db.CmsDbContext, java.util.List)
+         */
+        @Override
+        protected void write(CmsDbContext dbc, List<CmsLogEntry> entries) throws CmsDataAccessException {
+
+            if (m_fail) {
+                throw new CmsDataAccessException(
+                    Messages.get().container(Messages.LOG_LOG_ENTRY_WRITE_FAILED_1, new Integer(entries.size())));
+            }
+            m_batches.add(new ArrayList<CmsLogEntry>(entries));
+        }
+    }
+
+    /**
+     * Tests that the background thread writes full batches and the remaining entries after the flush interval.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testBackgroundWrite() throws Exception {
+
+        CmsRecordingWriter writer = new CmsRecordingWriter(1000, 10, 200);
+        writer.start();
+        try {
+            for (int i = 0; i < 25; i++) {
+                writer.add(createEntry());
+            }
+            long timeout = System.currentTimeMillis() + 5000;
+            while ((writer.getWrittenCount() < 25) && (System.currentTimeMillis() < timeout)) {
+                Thread.sleep(20);
+            }
+            assertEquals(25, writer.getWrittenCount());
+            assertEquals(0, writer.getPendingCount());
+            for (List<CmsLogEntry> batch : writer.m_batches) {
+                assertTrue(batch.size() <= 10);
+            }
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+    /**
+     * Tests that the calling thread writes the pending entries if the queue is full.<p>
+     */
+    public void testBackpressure() {
+
+        CmsRecordingWriter writer = new CmsRecordingWriter(5, 2, 60000);
+        for (int i = 0; i < 5; i++) {
+            writer.add(createEntry());
+        }
+        assertEquals(0, writer.getWrittenCount());
+        writer.add(createEntry());
+        assertEquals(5, writer.getWrittenCount());
+        assertEquals(3, writer.m_batches.size());
+        assertEquals(1, writer.getPendingCount());
+    }
+
+    /**
+     * Tests that the entries of a failed write are kept in the queue and written by the next flush.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testFailedWrite() throws Exception {
+
+        CmsRecordingWriter writer = new CmsRecordingWriter(1000, 2, 60000);
+        List<CmsLogEntry> entries = new ArrayList<CmsLogEntry>();
+        for (int i = 0; i < 5; i++) {
+            CmsLogEntry entry = createEntry();
+            entries.add(entry);
+            writer.add(entry);
+        }
+        writer.m_fail = true;
+        try {
+            writer.flush(new CmsDbContext());
+            fail("writing without database must fail");
+        } catch (CmsDataAccessException e) {
+            // expected
+        }
+        assertEquals(0, writer.getWrittenCount());
+        assertEquals(5, writer.getPendingCount());
+
+        writer.m_fail = false;
+        writer.flush(new CmsDbContext());
+        assertEquals(0, writer.getPendingCount());
+        List<CmsLogEntry> written = new ArrayList<CmsLogEntry>();
+        for (List<CmsLogEntry> batch : writer.m_batches) {
+            written.addAll(batch);
+        }
+        // the entries are written in the order they have been added
+        assertEquals(entries, written);
+    }
+
+    /**
+     * Tests that a new entry is dropped if the queue is full and the pending entries can not be written.<p>
+     */
+    public void testFailedWriteQueueFull() {
+
+        CmsRecordingWriter writer = new CmsRecordingWriter(3, 2, 60000);
+        for (int i = 0; i < 3; i++) {
+            writer.add(createEntry());
+        }
+        writer.m_fail = true;
+        writer.add(createEntry());
+        assertEquals(0, writer.getWrittenCount());
+        assertEquals(3, writer.getPendingCount());
+
+        writer.m_fail = false;
+        writer.add(createEntry());
+        assertEquals(3, writer.getWrittenCount());
+        assertEquals(1, writer.getPendingCount());
+    }
+
+    /**
+     * Tests that flushing and shutting down write all pending entries.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testFlushAndShutdown() throws Exception {
+
+        CmsRecordingWriter writer = new CmsRecordingWriter(1000, 100, 60000);
+        writer.start();
+        for (int i = 0; i < 3; i++) {
+            writer.add(createEntry());
+        }
+        writer.flush(new CmsDbContext());
+        assertEquals(3, writer.getWrittenCount());
+
+        writer.add(createEntry());
+        writer.shutdown();
+        assertEquals(4, writer.getWrittenCount());
+        assertEquals(0, writer.getPendingCount());
+    }
+
+    /**
+     * Creates a log entry.<p>
+     *
+     * @return the log entry
+     */
+    private CmsLogEntry createEntry() {
+
+        return new CmsLogEntry(
+            new CmsUUID(),
+            System.currentTimeMillis(),
+            new CmsUUID(),
+            CmsLogEntryType.RESOURCE_PUBLISHED_MODIFIED,
+            new String[] {"/test.html"});
+    }
+}
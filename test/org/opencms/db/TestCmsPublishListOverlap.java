@@ -0,0 +1,149 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+import org.opencms.file.CmsResource;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+import java.util.Collections;
+
+/**
+ * Tests the overlap check of publish lists used to publish jobs at the same time.<p>
+ */
+public class TestCmsPublishListOverlap extends OpenCmsTestCase {
+
+    /**
+     * Tests publish lists with files.<p>
+     */
+    public void testFiles() {
+
+        CmsPublishList first = createPublishList(createResource("/sites/default/a.html", new CmsUUID()));
+        CmsPublishList same = createPublishList(createResource("/sites/default/a.html", new CmsUUID()));
+        CmsPublishList prefix = createPublishList(createResource("/sites/default/a.html.bak", new CmsUUID()));
+        CmsPublishList other = createPublishList(createResource("/sites/default/b.html", new CmsUUID()));
+
+        assertTrue(first.isOverlapping(same));
+        assertFalse(first.isOverlapping(prefix));
+        assertFalse(prefix.isOverlapping(first));
+        assertFalse(first.isOverlapping(other));
+    }
+
+    /**
+     * Tests publish lists with folders.<p>
+     */
+    public void testFolders() {
+
+        CmsPublishList folder = createPublishList(createResource("/sites/default/news/", new CmsUUID()));
+        CmsPublishList child = createPublishList(createResource("/sites/default/news/a/b.html", new CmsUUID()));
+        CmsPublishList other = createPublishList(createResource("/sites/default/newsletter.html", new CmsUUID()));
+
+        assertTrue(folder.isOverlapping(child));
+        assertTrue(child.isOverlapping(folder));
+        assertFalse(folder.isOverlapping(other));
+        assertFalse(other.isOverlapping(folder));
+    }
+
+    /**
+     * Tests publish lists with siblings.<p>
+     */
+    public void testSiblings() {
+
+        CmsUUID resourceId = new CmsUUID();
+        CmsPublishList first = createPublishList(createResource("/sites/default/a.html", resourceId));
+        CmsPublishList sibling = createPublishList(createResource("/sites/other/b.html", resourceId));
+
+        assertTrue(first.isOverlapping(sibling));
+        assertTrue(sibling.isOverlapping(first));
+    }
+
+    /**
+     * Tests that the overlap snapshot is used after resources have been removed from the publish list.<p>
+     */
+    public void testSnapshot() {
+
+        CmsResource resource = createResource("/sites/default/a.html", new CmsUUID());
+        CmsPublishList running = createPublishList(resource);
+        CmsPublishList waiting = createPublishList(createResource("/sites/default/a.html", new CmsUUID()));
+
+        running.initOverlapSnapshot();
+        // the publish thread removes the published resources from the list
+        running.remove(resource);
+        assertEquals(0, running.size());
+
+        assertTrue(running.isOverlapping(waiting));
+        assertTrue(waiting.isOverlapping(running));
+    }
+
+    /**
+     * Creates a publish list with the given resource.<p>
+     *
+     * @param resource the resource to publish
+     *
+     * @return the publish list
+     */
+    private CmsPublishList createPublishList(CmsResource resource) {
+
+        CmsPublishList publishList = new CmsPublishList(Collections.singletonList(resource), false);
+        publishList.add(resource, true);
+        return publishList;
+    }
+
+    /**
+     * Creates a changed resource.<p>
+     *
+     * @param rootPath the root path
+     * @param resourceId the resource id
+     *
+     * @return the resource
+     */
+    private CmsResource createResource(String rootPath, CmsUUID resourceId) {
+
+        boolean folder = rootPath.endsWith("/");
+        return new CmsResource(
+            new CmsUUID(),
+            resourceId,
+            rootPath,
+            folder ? 0 : 1,
+            folder,
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.STATE_CHANGED,
+            0,
+            CmsUUID.getNullUUID(),
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            0,
+            0,
+            0);
+    }
+}
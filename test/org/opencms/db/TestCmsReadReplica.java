@@ -0,0 +1,233 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+import org.opencms.db.generic.CmsReplicaRoutingConnection;
+import org.opencms.db.generic.CmsSqlManager;
+import org.opencms.file.CmsProject;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.apache.commons.dbcp.DriverManagerConnectionFactory;
+import org.apache.commons.dbcp.PoolableConnectionFactory;
+import org.apache.commons.dbcp.PoolingDriver;
+import org.apache.commons.pool.impl.GenericObjectPool;
+
+/**
+ * Unit tests for the routing of online reads to a read replica, using two HSQLDB databases.<p>
+ */
+public class TestCmsReadReplica extends OpenCmsTestCase {
+
+    /** The pool of the primary database. */
+    private PoolingDriver m_primaryPool;
+
+    /** The pool of the replica database. */
+    private PoolingDriver m_replicaPool;
+
+    /**
+     * Tests that the primary pool is used while a publish job is running and during the lag window.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testLagWindow() throws Exception {
+
+        CmsReadReplica replica = new CmsReadReplica("opencms:replica", 60000, 60000);
+        CmsSqlManager sqlManager = createSqlManager(replica);
+
+        replica.publishStarted();
+        assertEquals("primary", readValue(sqlManager, createOnlineContext()));
+        replica.publishFinished();
+        assertFalse(replica.isAvailable());
+        assertEquals("primary", readValue(sqlManager, createOnlineContext()));
+
+        replica = new CmsReadReplica("opencms:replica", 0, 60000);
+        sqlManager = createSqlManager(replica);
+        replica.publishStarted();
+        replica.publishFinished();
+        assertEquals("replica", readValue(sqlManager, createOnlineContext()));
+    }
+
+    /**
+     * Tests that the primary pool is used if the replica fails.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testReplicaFailure() throws Exception {
+
+        CmsReadReplica replica = new CmsReadReplica("opencms:missing", 0, 60000);
+        CmsSqlManager sqlManager = createSqlManager(replica);
+        assertEquals("primary", readValue(sqlManager, createOnlineContext()));
+        assertFalse(replica.isAvailable());
+    }
+
+    /**
+     * Tests that only the reads in the online project use the replica.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testRouting() throws Exception {
+
+        CmsReadReplica replica = new CmsReadReplica("opencms:replica", 0, 0);
+        CmsSqlManager sqlManager = createSqlManager(replica);
+
+        CmsDbContext dbc = createOnlineContext();
+        Connection con = sqlManager.getConnection(dbc);
+        assertTrue(con instanceof CmsReplicaRoutingConnection);
+        con.close();
+        assertEquals("replica", readValue(sqlManager, dbc));
+
+        CmsDbContext offlineDbc = new CmsDbContext();
+        offlineDbc.setProjectId(new CmsUUID());
+        assertEquals("primary", readValue(sqlManager, offlineDbc));
+        assertEquals("primary", readValue(sqlManager, new CmsDbContext()));
+
+        // after a write, all reads of the context use the primary pool
+        con = sqlManager.getConnection(dbc);
+        PreparedStatement stmt = con.prepareStatement("UPDATE T_REPLICA_TEST SET VALUE_NAME = 'written'");
+        assertEquals(1, stmt.executeUpdate());
+        sqlManager.closeAll(dbc, con, stmt, null);
+        assertEquals("written", readValue(sqlManager, dbc));
+        assertEquals("replica", readValue(sqlManager, createOnlineContext()));
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        super.setUp();
+        m_primaryPool = createPool("primary");
+        m_replicaPool = createPool("replica");
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() throws Exception {
+
+        m_primaryPool.closePool("opencms:primary");
+        m_replicaPool.closePool("opencms:replica");
+        super.tearDown();
+    }
+
+    /**
+     * Creates a database context in the online project.<p>
+     *
+     * @return the database context
+     */
+    private CmsDbContext createOnlineContext() {
+
+        CmsDbContext dbc = new CmsDbContext();
+        dbc.setProjectId(CmsProject.ONLINE_PROJECT_ID);
+        return dbc;
+    }
+
+    /**
+     * Creates a pool for a new in-memory database with a test table containing the name of the database.<p>
+     *
+     * @param name the name of the database and the pool
+     *
+     * @return the pooling driver
+     *
+     * @throws Exception if something goes wrong
+     */
+    private PoolingDriver createPool(String name) throws Exception {
+
+        Class.forName("org.hsqldb.jdbcDriver");
+        GenericObjectPool connectionPool = new GenericObjectPool(null);
+        new PoolableConnectionFactory(
+            new DriverManagerConnectionFactory("jdbc:hsqldb:mem:" + name + System.nanoTime(), "sa", ""),
+            connectionPool,
+            null,
+            null,
+            false,
+            true);
+        PoolingDriver driver = new PoolingDriver();
+        driver.registerPool(CmsDbPool.OPENCMS_URL_PREFIX + name, connectionPool);
+
+        Connection con = new CmsSqlManager().getConnectionByUrl(
+            CmsDbPool.DBCP_JDBC_URL_PREFIX + CmsDbPool.OPENCMS_URL_PREFIX + name);
+        try {
+            con.prepareStatement("CREATE TABLE T_REPLICA_TEST (VALUE_NAME VARCHAR(32))").execute();
+            PreparedStatement stmt = con.prepareStatement("INSERT INTO T_REPLICA_TEST VALUES (?)");
+            stmt.setString(1, name);
+            stmt.execute();
+        } finally {
+            con.close();
+        }
+        return driver;
+    }
+
+    /**
+     * Creates a SQL manager using the primary pool and the given read replica.<p>
+     *
+     * @param replica the read replica
+     *
+     * @return the SQL manager
+     */
+    private CmsSqlManager createSqlManager(CmsReadReplica replica) {
+
+        CmsSqlManager sqlManager = new CmsSqlManager();
+        sqlManager.init(0, "opencms:primary");
+        sqlManager.setReadReplica(replica);
+        return sqlManager;
+    }
+
+    /**
+     * Reads the value of the test table with the given database context.<p>
+     *
+     * @param sqlManager the SQL manager
+     * @param dbc the database context
+     *
+     * @return the value of the test table
+     *
+     * @throws SQLException if something goes wrong
+     */
+    private String readValue(CmsSqlManager sqlManager, CmsDbContext dbc) throws SQLException {
+
+        Connection con = sqlManager.getConnection(dbc);
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        try {
+            stmt = con.prepareStatement("SELECT VALUE_NAME FROM T_REPLICA_TEST");
+            res = stmt.executeQuery();
+            assertTrue(res.next());
+            return res.getString(1);
+        } finally {
+            sqlManager.closeAll(dbc, con, stmt, res);
+        }
+    }
+}
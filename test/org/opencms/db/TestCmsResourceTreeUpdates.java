@@ -0,0 +1,373 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+import org.opencms.db.generic.CmsSqlManager;
+import org.opencms.db.generic.CmsVfsDriver;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsResource;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.dbcp.DriverManagerConnectionFactory;
+import org.apache.commons.dbcp.PoolableConnectionFactory;
+import org.apache.commons.dbcp.PoolingDriver;
+import org.apache.commons.pool.impl.GenericObjectPool;
+
+/**
+ * Unit tests for the set based delete and move of folder trees in the VFS driver, using a HSQLDB database.<p>
+ */
+public class TestCmsResourceTreeUpdates extends OpenCmsTestCase {
+
+    /**
+     * VFS driver that uses the SQL manager of the test database.<p>
+     */
+    private static class CmsTestVfsDriver extends CmsVfsDriver {
+
+        /**
+         * Creates a new test driver.<p>
+         *
+         * @param sqlManager the SQL manager of the test database
+         */
+        CmsTestVfsDriver(CmsSqlManager sqlManager) {
+
+            m_sqlManager = sqlManager;
+        }
+    }
+
+    /** The name of the test pool. */
+    private static final String POOL_NAME = "resourcetree";
+
+    /** The VFS driver. */
+    private CmsVfsDriver m_driver;
+
+    /** The structure ids by path. */
+    private Map<String, CmsUUID> m_ids;
+
+    /** The pool of the test database. */
+    private PoolingDriver m_pool;
+
+    /** The project used by the tests. */
+    private CmsProject m_project;
+
+    /** The SQL manager. */
+    private CmsSqlManager m_sqlManager;
+
+    /**
+     * Tests marking all resources below a folder as deleted.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testDeleteResourceTree() throws Exception {
+
+        createTree();
+        m_driver.deleteResourceTree(new CmsDbContext(), m_project, "/a/");
+
+        assertEquals(Arrays.asList("/a 0", "/a/b 3", "/a/b/c.txt 3", "/a/d.txt 3", "/ab.txt 0"), readStates());
+        assertEquals(m_project.getUuid().toString(), readValue("PROJECT_LASTMODIFIED", "/a/b/c.txt"));
+        // resources which were already deleted are not changed
+        assertEquals(CmsUUID.getNullUUID().toString(), readValue("PROJECT_LASTMODIFIED", "/a/d.txt"));
+        assertEquals(CmsUUID.getNullUUID().toString(), readValue("PROJECT_LASTMODIFIED", "/ab.txt"));
+    }
+
+    /**
+     * Tests moving all resources below a folder.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testMoveResourceTree() throws Exception {
+
+        createTree();
+        execute("INSERT INTO CMS_PROJECTRESOURCES (PROJECT_ID, RESOURCE_PATH) VALUES (?,?)", "p", "/a/b/");
+        createRelation("/a/b/c.txt", "/ab.txt", m_ids.get("/ab.txt").toString());
+        createRelation("/ab.txt", "/a/d.txt", m_ids.get("/a/d.txt").toString());
+        // a broken relation to the new path of a moved resource
+        createRelation("/ab.txt", "/x/b/c.txt", new CmsUUID().toString());
+
+        // the folder itself is moved before the tree
+        execute(
+            "UPDATE CMS_OFFLINE_STRUCTURE SET RESOURCE_PATH=? WHERE STRUCTURE_ID=?",
+            "/x",
+            m_ids.get("/a").toString());
+        m_driver.moveResourceTree(new CmsDbContext(), m_project, "/a/", "/x/");
+
+        // unchanged resources are changed, new and deleted resources keep their state
+        assertEquals(Arrays.asList("/ab.txt 0", "/x 0", "/x/b 1", "/x/b/c.txt 2", "/x/d.txt 3"), readStates());
+        assertEquals(
+            Arrays.asList(
+                "/ab.txt -> /x/b/c.txt " + m_ids.get("/a/b/c.txt"),
+                "/ab.txt -> /x/d.txt " + m_ids.get("/a/d.txt"),
+                "/x/b/c.txt -> /ab.txt " + m_ids.get("/ab.txt")),
+            readRelations());
+        assertEquals(
+            Collections.singletonList("/x/b/"),
+            readList("SELECT RESOURCE_PATH FROM CMS_PROJECTRESOURCES"));
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        super.setUp();
+        Class.forName("org.hsqldb.jdbcDriver");
+        GenericObjectPool connectionPool = new GenericObjectPool(null);
+        new PoolableConnectionFactory(
+            new DriverManagerConnectionFactory("jdbc:hsqldb:mem:" + POOL_NAME + System.nanoTime(), "sa", ""),
+            connectionPool,
+            null,
+            null,
+            false,
+            true);
+        m_pool = new PoolingDriver();
+        m_pool.registerPool(CmsDbPool.OPENCMS_URL_PREFIX + POOL_NAME, connectionPool);
+
+        m_sqlManager = new CmsSqlManager();
+        m_sqlManager.init(0, CmsDbPool.OPENCMS_URL_PREFIX + POOL_NAME);
+        m_driver = new CmsTestVfsDriver(m_sqlManager);
+        m_project = new CmsProject(
+            new CmsUUID(),
+            "test",
+            "",
+            CmsUUID.getNullUUID(),
+            CmsUUID.getNullUUID(),
+            CmsUUID.getNullUUID(),
+            0,
+            0,
+            CmsProject.PROJECT_TYPE_NORMAL);
+        m_ids = new HashMap<String, CmsUUID>();
+        execute(
+            "CREATE TABLE CMS_OFFLINE_STRUCTURE (STRUCTURE_ID VARCHAR(36) NOT NULL, RESOURCE_ID VARCHAR(36) NOT NULL, "
+                + "RESOURCE_PATH VARCHAR(1024) NOT NULL, STRUCTURE_STATE INT NOT NULL, PRIMARY KEY (STRUCTURE_ID))");
+        execute(
+            "CREATE TABLE CMS_OFFLINE_RESOURCES (RESOURCE_ID VARCHAR(36) NOT NULL, RESOURCE_STATE INT NOT NULL, "
+                + "PROJECT_LASTMODIFIED VARCHAR(36) NOT NULL, PRIMARY KEY (RESOURCE_ID))");
+        execute(
+            "CREATE TABLE CMS_OFFLINE_RESOURCE_RELATIONS (RELATION_SOURCE_ID VARCHAR(36) NOT NULL, "
+                + "RELATION_SOURCE_PATH VARCHAR(1024) NOT NULL, RELATION_TARGET_ID VARCHAR(36) NOT NULL, "
+                + "RELATION_TARGET_PATH VARCHAR(1024) NOT NULL)");
+        execute(
+            "CREATE TABLE CMS_PROJECTRESOURCES (PROJECT_ID VARCHAR(36) NOT NULL, RESOURCE_PATH VARCHAR(1024) NOT NULL, "
+                + "PRIMARY KEY (PROJECT_ID, RESOURCE_PATH))");
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() throws Exception {
+
+        m_pool.closePool(CmsDbPool.OPENCMS_URL_PREFIX + POOL_NAME);
+        super.tearDown();
+    }
+
+    /**
+     * Creates a structure and a resource entry.<p>
+     *
+     * @param path the path of the entry, without trailing slash
+     * @param structureState the structure state
+     * @param resourceState the resource state
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void createEntry(String path, int structureState, int resourceState) throws Exception {
+
+        CmsUUID structureId = new CmsUUID();
+        CmsUUID resourceId = new CmsUUID();
+        m_ids.put(path, structureId);
+        execute(
+            "INSERT INTO CMS_OFFLINE_STRUCTURE (STRUCTURE_ID, RESOURCE_ID, RESOURCE_PATH, STRUCTURE_STATE) "
+                + "VALUES (?,?,?," + structureState + ")",
+            structureId.toString(),
+            resourceId.toString(),
+            path);
+        execute(
+            "INSERT INTO CMS_OFFLINE_RESOURCES (RESOURCE_ID, RESOURCE_STATE, PROJECT_LASTMODIFIED) "
+                + "VALUES (?," + resourceState + ",?)",
+            resourceId.toString(),
+            CmsUUID.getNullUUID().toString());
+    }
+
+    /**
+     * Creates a relation.<p>
+     *
+     * @param source the source path
+     * @param target the target path
+     * @param targetId the target id
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void createRelation(String source, String target, String targetId) throws Exception {
+
+        execute(
+            "INSERT INTO CMS_OFFLINE_RESOURCE_RELATIONS "
+                + "(RELATION_SOURCE_ID, RELATION_SOURCE_PATH, RELATION_TARGET_ID, RELATION_TARGET_PATH) "
+                + "VALUES (?,?,?,?)",
+            m_ids.get(source).toString(),
+            source,
+            targetId,
+            target);
+    }
+
+    /**
+     * Creates the test tree.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void createTree() throws Exception {
+
+        int unchanged = CmsResource.STATE_UNCHANGED.getState();
+        createEntry("/a", unchanged, unchanged);
+        createEntry("/a/b", unchanged, unchanged);
+        // the structure entry of a new resource may be unchanged, the resource entry determines the state
+        createEntry("/a/b/c.txt", unchanged, CmsResource.STATE_NEW.getState());
+        createEntry("/a/d.txt", CmsResource.STATE_DELETED.getState(), unchanged);
+        // a path that starts with the folder name, but is not below the folder
+        createEntry("/ab.txt", unchanged, unchanged);
+    }
+
+    /**
+     * Executes an SQL statement.<p>
+     *
+     * @param sql the statement
+     * @param params the string parameters
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void execute(String sql, String... params) throws Exception {
+
+        CmsDbContext dbc = new CmsDbContext();
+        Connection con = m_sqlManager.getConnection(dbc);
+        PreparedStatement stmt = null;
+        try {
+            stmt = con.prepareStatement(sql);
+            for (int i = 0; i < params.length; i++) {
+                stmt.setString(i + 1, params[i]);
+            }
+            stmt.executeUpdate();
+        } finally {
+            m_sqlManager.closeAll(dbc, con, stmt, null);
+        }
+    }
+
+    /**
+     * Reads the rows returned by a query, with the columns separated by blanks.<p>
+     *
+     * @param sql the query
+     * @param params the string parameters
+     *
+     * @return the sorted rows
+     *
+     * @throws Exception if something goes wrong
+     */
+    private List<String> readList(String sql, String... params) throws Exception {
+
+        CmsDbContext dbc = new CmsDbContext();
+        Connection con = m_sqlManager.getConnection(dbc);
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        List<String> result = new ArrayList<String>();
+        try {
+            stmt = con.prepareStatement(sql);
+            for (int i = 0; i < params.length; i++) {
+                stmt.setString(i + 1, params[i]);
+            }
+            res = stmt.executeQuery();
+            int columns = res.getMetaData().getColumnCount();
+            while (res.next()) {
+                StringBuffer row = new StringBuffer(res.getString(1));
+                for (int i = 2; i <= columns; i++) {
+                    row.append(' ').append(res.getString(i));
+                }
+                result.add(row.toString());
+            }
+        } finally {
+            m_sqlManager.closeAll(dbc, con, stmt, res);
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Reads all relations as source path, target path and target id.<p>
+     *
+     * @return the sorted relations
+     *
+     * @throws Exception if something goes wrong
+     */
+    private List<String> readRelations() throws Exception {
+
+        return readList(
+            "SELECT RELATION_SOURCE_PATH, '->', RELATION_TARGET_PATH, RELATION_TARGET_ID "
+                + "FROM CMS_OFFLINE_RESOURCE_RELATIONS");
+    }
+
+    /**
+     * Reads the paths and structure states of all structure entries.<p>
+     *
+     * @return the sorted paths with the states
+     *
+     * @throws Exception if something goes wrong
+     */
+    private List<String> readStates() throws Exception {
+
+        return readList("SELECT RESOURCE_PATH, STRUCTURE_STATE FROM CMS_OFFLINE_STRUCTURE");
+    }
+
+    /**
+     * Reads a column of the resource entry of a structure entry.<p>
+     *
+     * @param column the column name
+     * @param path the path of the structure entry when it was created
+     *
+     * @return the value
+     *
+     * @throws Exception if something goes wrong
+     */
+    private String readValue(String column, String path) throws Exception {
+
+        return readList(
+            "SELECT R."
+                + column
+                + " FROM CMS_OFFLINE_RESOURCES R, CMS_OFFLINE_STRUCTURE S "
+                + "WHERE R.RESOURCE_ID=S.RESOURCE_ID AND S.STRUCTURE_ID=?",
+            m_ids.get(path).toString()).get(0);
+    }
+}
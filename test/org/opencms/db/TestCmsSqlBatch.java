@@ -0,0 +1,222 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+import org.opencms.db.generic.CmsSqlBatch;
+import org.opencms.db.generic.CmsSqlManager;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.dbcp.DriverManagerConnectionFactory;
+import org.apache.commons.dbcp.PoolableConnectionFactory;
+import org.apache.commons.dbcp.PoolingDriver;
+import org.apache.commons.pool.impl.GenericObjectPool;
+
+/**
+ * Unit tests for the JDBC batches used while publishing, using a HSQLDB database.<p>
+ */
+public class TestCmsSqlBatch extends OpenCmsTestCase {
+
+    /** The name of the test pool. */
+    private static final String POOL_NAME = "batch";
+
+    /** The query used by the tests. */
+    private static final String QUERY_KEY = "C_RESOURCES_WRITE_PUBLISH_HISTORY";
+
+    /** The pool of the test database. */
+    private PoolingDriver m_pool;
+
+    /** The SQL manager. */
+    private CmsSqlManager m_sqlManager;
+
+    /**
+     * Tests that statements are executed when the batch size is reached and when the batch is flushed.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testBatch() throws Exception {
+
+        CmsDbContext dbc = new CmsDbContext();
+        assertNull(CmsSqlBatch.getBatch(dbc, m_sqlManager));
+
+        CmsSqlBatch.begin(dbc, 10);
+        CmsSqlBatch batch = CmsSqlBatch.getBatch(dbc, m_sqlManager);
+        assertSame(batch, CmsSqlBatch.getBatch(dbc, m_sqlManager));
+        CmsUUID publishId = new CmsUUID();
+        for (int i = 0; i < 25; i++) {
+            addEntry(batch, publishId, "/file" + i);
+        }
+        assertEquals(5, batch.getPendingCount());
+        assertEquals(20, countEntries());
+
+        assertTrue(CmsSqlBatch.flush(dbc).isEmpty());
+        assertEquals(0, batch.getPendingCount());
+        assertEquals(25, countEntries());
+
+        assertTrue(CmsSqlBatch.end(dbc).isEmpty());
+        assertNull(CmsSqlBatch.getBatch(dbc, m_sqlManager));
+    }
+
+    /**
+     * Tests that failed statements are reported and the other statements of the batch are written.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testFailure() throws Exception {
+
+        CmsDbContext dbc = new CmsDbContext();
+        CmsSqlBatch.begin(dbc, 100);
+        CmsSqlBatch batch = CmsSqlBatch.getBatch(dbc, m_sqlManager);
+        CmsUUID publishId = new CmsUUID();
+        CmsUUID structureId = new CmsUUID();
+        for (int i = 0; i < 10; i++) {
+            if ((i == 4) || (i == 6)) {
+                // violates the unique constraint of the publish history, both failures have the same description
+                batch.add(
+                    null,
+                    QUERY_KEY,
+                    "/duplicate",
+                    createParameters(publishId, structureId, "/file" + (i - 1)));
+            } else {
+                batch.add(null, QUERY_KEY, "/file" + i, createParameters(publishId, structureId, "/file" + i));
+            }
+        }
+        Map<String, List<CmsDbSqlException>> errors = CmsSqlBatch.end(dbc);
+        assertEquals(1, errors.size());
+        assertEquals(2, errors.get("/duplicate").size());
+        assertEquals(8, countEntries());
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        super.setUp();
+        Class.forName("org.hsqldb.jdbcDriver");
+        GenericObjectPool connectionPool = new GenericObjectPool(null);
+        new PoolableConnectionFactory(
+            new DriverManagerConnectionFactory("jdbc:hsqldb:mem:" + POOL_NAME + System.nanoTime(), "sa", ""),
+            connectionPool,
+            null,
+            null,
+            false,
+            true);
+        m_pool = new PoolingDriver();
+        m_pool.registerPool(CmsDbPool.OPENCMS_URL_PREFIX + POOL_NAME, connectionPool);
+
+        m_sqlManager = new CmsSqlManager();
+        m_sqlManager.init(0, CmsDbPool.OPENCMS_URL_PREFIX + POOL_NAME);
+        Connection con = m_sqlManager.getConnection(new CmsDbContext());
+        try {
+            con.prepareStatement(
+                "CREATE TABLE CMS_PUBLISH_HISTORY (HISTORY_ID VARCHAR(36) NOT NULL, PUBLISH_TAG INT NOT NULL, "
+                    + "STRUCTURE_ID VARCHAR(36) NOT NULL, RESOURCE_ID VARCHAR(36) NOT NULL, "
+                    + "RESOURCE_PATH VARCHAR(1024) NOT NULL, RESOURCE_STATE INT NOT NULL, "
+                    + "RESOURCE_TYPE INT NOT NULL, SIBLING_COUNT INT NOT NULL, "
+                    + "UNIQUE (HISTORY_ID, PUBLISH_TAG, STRUCTURE_ID, RESOURCE_PATH))").execute();
+        } finally {
+            con.close();
+        }
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() throws Exception {
+
+        m_pool.closePool(CmsDbPool.OPENCMS_URL_PREFIX + POOL_NAME);
+        super.tearDown();
+    }
+
+    /**
+     * Adds a publish history entry for a new resource to the given batch.<p>
+     *
+     * @param batch the batch
+     * @param publishId the publish id
+     * @param path the root path of the resource
+     */
+    private void addEntry(CmsSqlBatch batch, CmsUUID publishId, String path) {
+
+        batch.add(null, QUERY_KEY, path, createParameters(publishId, new CmsUUID(), path));
+    }
+
+    /**
+     * Counts the entries of the publish history.<p>
+     *
+     * @return the number of entries
+     *
+     * @throws Exception if something goes wrong
+     */
+    private int countEntries() throws Exception {
+
+        CmsDbContext dbc = new CmsDbContext();
+        Connection con = m_sqlManager.getConnection(dbc);
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        try {
+            stmt = con.prepareStatement("SELECT COUNT(*) FROM CMS_PUBLISH_HISTORY");
+            res = stmt.executeQuery();
+            assertTrue(res.next());
+            return res.getInt(1);
+        } finally {
+            m_sqlManager.closeAll(dbc, con, stmt, res);
+        }
+    }
+
+    /**
+     * Creates the parameters of a publish history entry.<p>
+     *
+     * @param publishId the publish id
+     * @param structureId the structure id
+     * @param path the root path
+     *
+     * @return the parameters
+     */
+    private Object[] createParameters(CmsUUID publishId, CmsUUID structureId, String path) {
+
+        return new Object[] {
+            Integer.valueOf(1),
+            structureId.toString(),
+            new CmsUUID().toString(),
+            path,
+            Integer.valueOf(1),
+            Integer.valueOf(1),
+            publishId.toString(),
+            Integer.valueOf(1)};
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+import org.opencms.db.generic.CmsStatisticsPreparedStatement;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.apache.commons.dbcp.DelegatingConnection;
+
+/**
+ * Unit tests for the SQL statistics.<p>
+ */
+public class TestCmsSqlStatistics extends OpenCmsTestCase {
+
+    /**
+     * Tests recording executions of a query.<p>
+     */
+    public void testQueryStatistics() {
+
+        CmsSqlStatistics statistics = new CmsSqlStatistics(0);
+        try {
+            CmsSqlQueryStatistics query = statistics.getQueryStatistics("C_TEST_READ");
+            assertSame(query, statistics.getQueryStatistics("C_TEST_READ"));
+            statistics.recordExecution(query, CmsUUID.getNullUUID(), 3000000, false);
+            statistics.recordExecution(query, CmsUUID.getNullUUID(), 1000000, true);
+            query.recordRows(5);
+
+            assertEquals(2, query.getCount());
+            assertEquals(1, query.getErrors());
+            assertEquals(4.0, query.getExecutionTimeTotal(), 0.001);
+            assertEquals(3.0, query.getExecutionTimeMax(), 0.001);
+            assertEquals(2.0, query.getExecutionTimeAverage(), 0.001);
+            assertEquals(5, query.getRows());
+
+            statistics.reset();
+            assertEquals(0, query.getCount());
+            assertEquals(0.0, query.getExecutionTimeMax(), 0.001);
+        } finally {
+            statistics.shutdown();
+        }
+    }
+
+    /**
+     * Tests the statement wrapper that records the executions and the rows read.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testStatement() throws Exception {
+
+        CmsSqlStatistics statistics = new CmsSqlStatistics(0);
+        try {
+            PreparedStatement stmt = new CmsStatisticsPreparedStatement(
+                new DelegatingConnection(null),
+                createStatement(3),
+                statistics,
+                "C_TEST_READ",
+                null);
+            ResultSet res = stmt.executeQuery();
+            while (res.next()) {
+                // read all rows
+            }
+            res.close();
+            res.close();
+            assertEquals(7, stmt.executeUpdate());
+            stmt.close();
+
+            CmsSqlQueryStatistics query = statistics.getQueryStatistics("C_TEST_READ");
+            assertEquals(2, query.getCount());
+            assertEquals(0, query.getErrors());
+            assertEquals(10, query.getRows());
+        } finally {
+            statistics.shutdown();
+        }
+    }
+
+    /**
+     * Creates a statement that returns a result set with the given number of rows,
+     * and an update count of 7.<p>
+     *
+     * @param rows the number of rows
+     *
+     * @return the statement
+     */
+    private PreparedStatement createStatement(final int rows) {
+
+        final ResultSet res = (ResultSet)Proxy.newProxyInstance(
+            getClass().getClassLoader(),
+            new Class<?>[] {ResultSet.class},
+            new InvocationHandler() {
+
+                private int m_row;
+
+                public Object invoke(Object proxy, Method method, Object[] args) {
+
+                    if (method.getName().equals("equals")) {
+                        return Boolean.valueOf(proxy == args[0]);
+                    } else if (method.getName().equals("hashCode")) {
+                        return Integer.valueOf(System.identityHashCode(proxy));
+                    } else if (method.getName().equals("next")) {
+                        m_row++;
+                        return Boolean.valueOf(m_row <= rows);
+                    }
+                    return null;
+                }
+            });
+        return (PreparedStatement)Proxy.newProxyInstance(
+            getClass().getClassLoader(),
+            new Class<?>[] {PreparedStatement.class},
+            new InvocationHandler() {
+
+                public Object invoke(Object proxy, Method method, Object[] args) throws SQLException {
+
+                    if (method.getName().equals("equals")) {
+                        return Boolean.valueOf(proxy == args[0]);
+                    } else if (method.getName().equals("hashCode")) {
+                        return Integer.valueOf(System.identityHashCode(proxy));
+                    } else if (method.getName().equals("executeQuery")) {
+                        return res;
+                    } else if (method.getName().equals("executeUpdate")) {
+                        return Integer.valueOf(7);
+                    }
+                    return null;
+                }
+            });
+    }
+}
@@ -0,0 +1,414 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.db.generic.CmsSqlManager;
+import org.opencms.db.generic.CmsStructureTreeIndex;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.dbcp.DriverManagerConnectionFactory;
+import org.apache.commons.dbcp.PoolableConnectionFactory;
+import org.apache.commons.dbcp.PoolingDriver;
+import org.apache.commons.pool.impl.GenericObjectPool;
+
+/**
+ * Unit tests for the structure tree index, using a HSQLDB database.<p>
+ */
+public class TestCmsStructureTreeIndex extends OpenCmsTestCase {
+
+    /** The name of the test pool. */
+    private static final String POOL_NAME = "tree";
+
+    /** The project id used by the tests. */
+    private static final CmsUUID PROJECT_ID = CmsStructureTreeIndex.OFFLINE_TABLES_ID;
+
+    /** The structure ids by path. */
+    private Map<String, CmsUUID> m_ids;
+
+    /** The structure tree index. */
+    private CmsStructureTreeIndex m_index;
+
+    /** The pool of the test database. */
+    private PoolingDriver m_pool;
+
+    /** The SQL manager. */
+    private CmsSqlManager m_sqlManager;
+
+    /**
+     * Tests that new entries are added to the subtrees of all their ancestors.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testInsert() throws Exception {
+
+        createTree(true);
+        assertEquals(Arrays.asList("/a/b", "/a/b/c.txt", "/a/d.txt"), readSubtree("/a/"));
+        assertEquals(Arrays.asList("/a/b/c.txt"), readSubtree("/a/b"));
+        assertEquals(Collections.emptyList(), readSubtree("/e/"));
+        assertEquals(readSubtreeByPath("/a/"), readSubtree("/a/"));
+    }
+
+    /**
+     * Tests moving a folder with its subtree.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testMove() throws Exception {
+
+        createTree(true);
+        int count = countRows();
+        // an unchanged parent must not change the index
+        m_index.move(new CmsDbContext(), PROJECT_ID, m_ids.get("/a/b"), m_ids.get("/a").toString());
+        assertEquals(count, countRows());
+
+        updatePath("/a/b", "/e/b", "/e");
+        updatePath("/a/b/c.txt", "/e/b/c.txt", "/e/b");
+        m_index.move(new CmsDbContext(), PROJECT_ID, m_ids.get("/e/b"), m_ids.get("/e").toString());
+        assertEquals(count, countRows());
+        assertEquals(Arrays.asList("/a/d.txt"), readSubtree("/a/"));
+        assertEquals(Arrays.asList("/e/b", "/e/b/c.txt"), readSubtree("/e/"));
+        assertEquals(readSubtreeByPath("/e/"), readSubtree("/e/"));
+    }
+
+    /**
+     * Tests that the index is detected as inconsistent if structure entries are changed without maintaining it.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testIsConsistent() throws Exception {
+
+        CmsDbContext dbc = new CmsDbContext();
+        assertTrue(m_index.isConsistent(dbc, PROJECT_ID));
+        createTree(false);
+        assertFalse(m_index.isConsistent(dbc, PROJECT_ID));
+        m_index.rebuild(dbc, PROJECT_ID);
+        assertTrue(m_index.isConsistent(dbc, PROJECT_ID));
+
+        // a new entry written while the index is disabled
+        createEntry("/e/f.txt", false);
+        assertFalse(m_index.isConsistent(dbc, PROJECT_ID));
+        m_index.rebuild(dbc, PROJECT_ID);
+        assertEquals(Arrays.asList("/e/f.txt"), readSubtree("/e/"));
+
+        // an entry removed while the index is disabled
+        execute("DELETE FROM CMS_OFFLINE_STRUCTURE WHERE RESOURCE_PATH=?", "/a/d.txt");
+        assertFalse(m_index.isConsistent(dbc, PROJECT_ID));
+        m_index.rebuild(dbc, PROJECT_ID);
+        assertTrue(m_index.isConsistent(dbc, PROJECT_ID));
+        assertEquals(readSubtreeByPath("/a/"), readSubtree("/a/"));
+    }
+
+    /**
+     * Tests building the index from the structure table.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testRebuild() throws Exception {
+
+        createTree(false);
+        CmsDbContext dbc = new CmsDbContext();
+        assertTrue(m_index.isEmpty(dbc, PROJECT_ID));
+        // 6 entries with 0, 1, 2, 3, 2 and 1 ancestors
+        assertEquals(15, m_index.rebuild(dbc, PROJECT_ID));
+        assertEquals(15, countRows());
+        assertEquals(Arrays.asList("/a/b", "/a/b/c.txt", "/a/d.txt"), readSubtree("/a/"));
+
+        // the result must be the same as maintaining the index
+        List<String> rows = readRows();
+        tearDown();
+        setUp();
+        createTree(true);
+        assertEquals(rows, readRows());
+    }
+
+    /**
+     * Tests removing entries.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testRemove() throws Exception {
+
+        createTree(true);
+        m_index.remove(new CmsDbContext(), PROJECT_ID, m_ids.get("/a/b/c.txt"));
+        assertEquals(Arrays.asList("/a/b", "/a/d.txt"), readSubtree("/a/"));
+        m_index.remove(new CmsDbContext(), PROJECT_ID, m_ids.get("/a/b"));
+        assertEquals(Arrays.asList("/a/d.txt"), readSubtree("/a/"));
+        assertEquals(8, countRows());
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        super.setUp();
+        Class.forName("org.hsqldb.jdbcDriver");
+        GenericObjectPool connectionPool = new GenericObjectPool(null);
+        new PoolableConnectionFactory(
+            new DriverManagerConnectionFactory("jdbc:hsqldb:mem:" + POOL_NAME + System.nanoTime(), "sa", ""),
+            connectionPool,
+            null,
+            null,
+            false,
+            true);
+        m_pool = new PoolingDriver();
+        m_pool.registerPool(CmsDbPool.OPENCMS_URL_PREFIX + POOL_NAME, connectionPool);
+
+        m_sqlManager = new CmsSqlManager();
+        m_sqlManager.init(0, CmsDbPool.OPENCMS_URL_PREFIX + POOL_NAME);
+        m_index = new CmsStructureTreeIndex(m_sqlManager);
+        m_ids = new HashMap<String, CmsUUID>();
+        execute(
+            "CREATE TABLE CMS_OFFLINE_STRUCTURE (STRUCTURE_ID VARCHAR(36) NOT NULL, PARENT_ID VARCHAR(36) NOT NULL, "
+                + "RESOURCE_PATH VARCHAR(1024) NOT NULL, PRIMARY KEY (STRUCTURE_ID))");
+        execute("CREATE INDEX CMS_OFFLINE_STRUCTURE_06_IDX ON CMS_OFFLINE_STRUCTURE (RESOURCE_PATH)");
+        execute(
+            "CREATE TABLE CMS_OFFLINE_STRUCTURE_TREE (ANCESTOR_ID VARCHAR(36) NOT NULL, "
+                + "STRUCTURE_ID VARCHAR(36) NOT NULL, TREE_DEPTH INT NOT NULL, "
+                + "PRIMARY KEY (ANCESTOR_ID, STRUCTURE_ID))");
+        execute("CREATE INDEX CMS_OFFLINE_STRUCTURE_TREE_01_IDX ON CMS_OFFLINE_STRUCTURE_TREE (STRUCTURE_ID)");
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() throws Exception {
+
+        m_pool.closePool(CmsDbPool.OPENCMS_URL_PREFIX + POOL_NAME);
+        super.tearDown();
+    }
+
+    /**
+     * Counts the rows of the index.<p>
+     *
+     * @return the number of rows
+     *
+     * @throws Exception if something goes wrong
+     */
+    private int countRows() throws Exception {
+
+        return readRows().size();
+    }
+
+    /**
+     * Creates a structure entry.<p>
+     *
+     * @param path the path of the entry, without trailing slash
+     * @param index if the entry should be added to the index
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void createEntry(String path, boolean index) throws Exception {
+
+        CmsUUID structureId = new CmsUUID();
+        m_ids.put(path, structureId);
+        CmsUUID parentId = CmsUUID.getNullUUID();
+        if (path.length() > 1) {
+            String parent = path.substring(0, path.lastIndexOf('/'));
+            parentId = m_ids.get(parent.length() == 0 ? "/" : parent);
+        }
+        execute(
+            "INSERT INTO CMS_OFFLINE_STRUCTURE (STRUCTURE_ID, PARENT_ID, RESOURCE_PATH) VALUES (?,?,?)",
+            structureId.toString(),
+            parentId.toString(),
+            path);
+        if (index) {
+            m_index.insert(new CmsDbContext(), PROJECT_ID, structureId);
+        }
+    }
+
+    /**
+     * Creates the test tree.<p>
+     *
+     * @param index if the entries should be added to the index
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void createTree(boolean index) throws Exception {
+
+        createEntry("/", index);
+        createEntry("/a", index);
+        createEntry("/a/b", index);
+        createEntry("/a/b/c.txt", index);
+        createEntry("/a/d.txt", index);
+        createEntry("/e", index);
+    }
+
+    /**
+     * Executes an SQL statement.<p>
+     *
+     * @param sql the statement
+     * @param params the string parameters
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void execute(String sql, String... params) throws Exception {
+
+        CmsDbContext dbc = new CmsDbContext();
+        Connection con = m_sqlManager.getConnection(dbc);
+        PreparedStatement stmt = null;
+        try {
+            stmt = con.prepareStatement(sql);
+            for (int i = 0; i < params.length; i++) {
+                stmt.setString(i + 1, params[i]);
+            }
+            stmt.executeUpdate();
+        } finally {
+            m_sqlManager.closeAll(dbc, con, stmt, null);
+        }
+    }
+
+    /**
+     * Reads the paths returned by a query.<p>
+     *
+     * @param sql the query
+     * @param param the parameter
+     *
+     * @return the sorted paths
+     *
+     * @throws Exception if something goes wrong
+     */
+    private List<String> readPaths(String sql, String param) throws Exception {
+
+        CmsDbContext dbc = new CmsDbContext();
+        Connection con = m_sqlManager.getConnection(dbc);
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        List<String> result = new ArrayList<String>();
+        try {
+            stmt = con.prepareStatement(sql);
+            stmt.setString(1, param);
+            res = stmt.executeQuery();
+            while (res.next()) {
+                result.add(res.getString(1));
+            }
+        } finally {
+            m_sqlManager.closeAll(dbc, con, stmt, res);
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Reads all rows of the index as paths of the ancestor and the entry with the depth.<p>
+     *
+     * @return the sorted rows
+     *
+     * @throws Exception if something goes wrong
+     */
+    private List<String> readRows() throws Exception {
+
+        Map<String, String> paths = new HashMap<String, String>();
+        for (Map.Entry<String, CmsUUID> entry : m_ids.entrySet()) {
+            paths.put(entry.getValue().toString(), entry.getKey());
+        }
+        CmsDbContext dbc = new CmsDbContext();
+        Connection con = m_sqlManager.getConnection(dbc);
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        List<String> result = new ArrayList<String>();
+        try {
+            stmt = con.prepareStatement("SELECT ANCESTOR_ID, STRUCTURE_ID, TREE_DEPTH FROM CMS_OFFLINE_STRUCTURE_TREE");
+            res = stmt.executeQuery();
+            while (res.next()) {
+                result.add(paths.get(res.getString(1)) + " " + paths.get(res.getString(2)) + " " + res.getInt(3));
+            }
+        } finally {
+            m_sqlManager.closeAll(dbc, con, stmt, res);
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Reads the subtree of a folder with the index.<p>
+     *
+     * @param folder the folder path
+     *
+     * @return the sorted paths of the subtree
+     *
+     * @throws Exception if something goes wrong
+     */
+    private List<String> readSubtree(String folder) throws Exception {
+
+        return readPaths(
+            "SELECT RESOURCE_PATH FROM CMS_OFFLINE_STRUCTURE WHERE "
+                + m_sqlManager.readQuery(PROJECT_ID, "C_RESOURCES_SELECT_BY_TREE_INDEX"),
+            folder.endsWith("/") ? folder.substring(0, folder.length() - 1) : folder);
+    }
+
+    /**
+     * Reads the subtree of a folder by path prefix.<p>
+     *
+     * @param folder the folder path with trailing slash
+     *
+     * @return the sorted paths of the subtree
+     *
+     * @throws Exception if something goes wrong
+     */
+    private List<String> readSubtreeByPath(String folder) throws Exception {
+
+        return readPaths(
+            "SELECT RESOURCE_PATH FROM CMS_OFFLINE_STRUCTURE WHERE "
+                + m_sqlManager.readQuery(PROJECT_ID, "C_RESOURCES_SELECT_BY_PATH_PREFIX"),
+            folder + "%");
+    }
+
+    /**
+     * Changes the path and the parent of a structure entry.<p>
+     *
+     * @param path the current path
+     * @param newPath the new path
+     * @param newParent the path of the new parent
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void updatePath(String path, String newPath, String newParent) throws Exception {
+
+        CmsUUID structureId = m_ids.remove(path);
+        m_ids.put(newPath, structureId);
+        execute(
+            "UPDATE CMS_OFFLINE_STRUCTURE SET RESOURCE_PATH=?, PARENT_ID=? WHERE STRUCTURE_ID=?",
+            newPath,
+            m_ids.get(newParent).toString(),
+            structureId.toString());
+    }
+}
@@ -83,6 +83,8 @@ public class TestDeletion extends OpenCmsTestCase {
         suite.addTest(new TestDeletion("testDeleteFolderWithLockedSiblings"));
         suite.addTest(new TestDeletion("testDeleteFolderWithLockedResources"));
         suite.addTest(new TestDeletion("testDeleteWithoutWritePermissions"));
+        suite.addTest(new TestDeletion("testDeleteFolderRemoveNewSiblings"));
+        suite.addTest(new TestDeletion("testDeleteFolderLocks"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -280,6 +282,76 @@ public class TestDeletion extends OpenCmsTestCase {
         OpenCms.getPublishManager().waitWhileRunning();
     }
 
+    /**
+     * Tests the locks of the sub resources after deleting a folder structure.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testDeleteFolderLocks() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the locks of the sub resources after deleting a folder structure");
+
+        String folder = "/treeFolder2/";
+        cms.createResource(folder, CmsResourceTypeFolder.getStaticTypeId());
+        cms.createResource(folder + "sub/", CmsResourceTypeFolder.getStaticTypeId());
+        cms.createResource(folder + "file.txt", CmsResourceTypePlain.getStaticTypeId(), "test1".getBytes(), null);
+        cms.createResource(folder + "sub/file.txt", CmsResourceTypePlain.getStaticTypeId(), "test2".getBytes(), null);
+        OpenCms.getPublishManager().publishProject(cms);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        cms.lockResource(folder);
+        assertLock(cms, folder + "file.txt", CmsLockType.INHERITED);
+        assertLock(cms, folder + "sub/file.txt", CmsLockType.INHERITED);
+        cms.deleteResource(folder, CmsResource.DELETE_PRESERVE_SIBLINGS);
+
+        // like deleting the resources one by one, the inherited locks are changed to exclusive locks
+        assertLock(cms, folder, CmsLockType.EXCLUSIVE);
+        assertLock(cms, folder + "file.txt", CmsLockType.EXCLUSIVE);
+        assertLock(cms, folder + "sub/", CmsLockType.EXCLUSIVE);
+        assertLock(cms, folder + "sub/file.txt", CmsLockType.EXCLUSIVE);
+        assertState(cms, folder + "sub/file.txt", CmsResource.STATE_DELETED);
+
+        OpenCms.getPublishManager().publishProject(cms);
+        OpenCms.getPublishManager().waitWhileRunning();
+        assertFalse(cms.existsResource(folder, CmsResourceFilter.ALL));
+    }
+
+    /**
+     * Tests to delete a folder structure with new siblings, removing the siblings.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testDeleteFolderRemoveNewSiblings() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing to delete a folder structure with new siblings, removing the siblings");
+
+        String folder = "/treeFolder1/";
+        String file = folder + "file.txt";
+        cms.createResource(folder, CmsResourceTypeFolder.getStaticTypeId());
+        cms.createResource(file, CmsResourceTypePlain.getStaticTypeId(), "test".getBytes(), null);
+        OpenCms.getPublishManager().publishProject(cms);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        // siblings which have never been published, inside and outside of the folder
+        cms.copyResource(file, folder + "sibling.txt", CmsResource.COPY_AS_SIBLING);
+        cms.copyResource(file, "/treeSibling1.txt", CmsResource.COPY_AS_SIBLING);
+        assertState(cms, folder + "sibling.txt", CmsResource.STATE_NEW);
+
+        cms.lockResource(folder);
+        cms.deleteResource(folder, CmsResource.DELETE_REMOVE_SIBLINGS);
+
+        // the published file is marked as deleted, the new siblings are removed
+        assertState(cms, file, CmsResource.STATE_DELETED);
+        assertFalse(cms.existsResource(folder + "sibling.txt", CmsResourceFilter.ALL));
+        assertFalse(cms.existsResource("/treeSibling1.txt", CmsResourceFilter.ALL));
+
+        OpenCms.getPublishManager().publishProject(cms);
+        OpenCms.getPublishManager().waitWhileRunning();
+        assertFalse(cms.existsResource(folder, CmsResourceFilter.ALL));
+    }
+
     /**
      * Tests to delete a folder structure with (from other user) locked resources inside.<p>
      *
@@ -36,6 +36,7 @@ import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
 import org.opencms.test.OpenCmsTestResourceFilter;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -224,6 +225,7 @@ public class TestProperty extends OpenCmsTestCase {
         suite.addTest(new TestProperty("testCaseSensitiveProperties"));
         suite.addTest(new TestProperty("testReadResourcesWithProperty"));
         suite.addTest(new TestProperty("testReadLocalizedProperty"));
+        suite.addTest(new TestProperty("testReadPropertyObjectsOfResources"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -696,6 +698,46 @@ public class TestProperty extends OpenCmsTestCase {
 
     }
 
+    /**
+     * Tests reading the properties of many resources at once.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testReadPropertyObjectsOfResources() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing reading the properties of many resources at once");
+
+        String source = "/folder1/page1.html";
+        String sibling = "/folder1/page1_bulk.html";
+        cms.createSibling(source, sibling, null);
+        cms.lockResource(sibling);
+        cms.writePropertyObject(sibling, new CmsProperty("Title", "Sibling title", "Shared title"));
+        cms.unlockResource(sibling);
+
+        List<CmsResource> resources = cms.getResourcesInFolder("/folder1/", CmsResourceFilter.ALL);
+        assertTrue(resources.size() > 2);
+        Map<CmsUUID, List<CmsProperty>> result = cms.readPropertyObjects(resources);
+        assertEquals(resources.size(), result.size());
+        for (CmsResource resource : resources) {
+            List<CmsProperty> expected = cms.readPropertyObjects(resource, false);
+            List<CmsProperty> properties = result.get(resource.getStructureId());
+            assertEquals(expected.size(), properties.size());
+            for (CmsProperty property : properties) {
+                assertTrue(property.isFrozen());
+                CmsProperty expectedProperty = CmsProperty.get(property.getName(), expected);
+                assertTrue(
+                    "Property '" + property.getName() + "' of " + resource.getRootPath() + " must be identical",
+                    expectedProperty.isIdentical(property));
+            }
+        }
+
+        // the shared value must be read for both siblings
+        Map<String, String> sourceProperties = CmsProperty.toMap(
+            result.get(cms.readResource(source).getStructureId()));
+        assertEquals("Shared title", sourceProperties.get("Title"));
+    }
+
     /**
      * Tests the writePropertyObject method for writing of a property on a folder.<p>
      *
@@ -31,8 +31,15 @@ import org.opencms.main.CmsException;
 import org.opencms.main.OpenCms;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsUUID;
 
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import junit.extensions.TestSetup;
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -73,6 +80,8 @@ public class TestReadResource extends OpenCmsTestCase {
         suite.addTest(new TestReadResource("testReadAfterExpirationDateIgnore"));
         suite.addTest(new TestReadResource("testReadWithResourceID"));
         suite.addTest(new TestReadResource("testReadWithWrongResourceID"));
+        suite.addTest(new TestReadResource("testReadResourcesWithIdsAndPaths"));
+        suite.addTest(new TestReadResource("testReadContentStream"));
         suite.addTest(new TestReadResource("testReadFileWithResourceID"));
 
         TestSetup wrapper = new TestSetup(suite) {
@@ -340,6 +349,70 @@ public class TestReadResource extends OpenCmsTestCase {
         }
     }
 
+    /**
+     * Test reading many resources at once by their structure ids and paths.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testReadResourcesWithIdsAndPaths() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing reading many resources at once by structure id and path");
+
+        List<String> paths = new ArrayList<String>();
+        paths.add("/folder1/subfolder11/index.html");
+        paths.add("/folder1/");
+        paths.add("/folder1/page1.html");
+        paths.add("/folder1/doesnotexist.html");
+        paths.add("/folder1/page2.html");
+
+        List<CmsResource> resourcesByPath = cms.readResourcesForPaths(paths, CmsResourceFilter.DEFAULT);
+        assertEquals(4, resourcesByPath.size());
+        List<CmsUUID> ids = new ArrayList<CmsUUID>();
+        for (CmsResource resource : resourcesByPath) {
+            assertEquals(cms.readResource(cms.getSitePath(resource)), resource);
+            ids.add(resource.getStructureId());
+        }
+        // unknown ids are skipped, the result has the order of the given ids
+        ids.add(1, new CmsUUID("a7b5d298-b3ab-11d8-b3e3-514d35713fed"));
+        Collections.reverse(ids);
+        List<CmsResource> resourcesById = cms.readResources(ids, CmsResourceFilter.DEFAULT);
+        assertEquals(4, resourcesById.size());
+        Collections.reverse(resourcesById);
+        assertEquals(resourcesByPath, resourcesById);
+        for (int i = 0; i < resourcesById.size(); i++) {
+            assertEquals(resourcesByPath.get(i).getRootPath(), resourcesById.get(i).getRootPath());
+            assertEquals(resourcesByPath.get(i).getDateLastModified(), resourcesById.get(i).getDateLastModified());
+        }
+    }
+
+    /**
+     * Test reading the content of a file as stream.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testReadContentStream() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing reading the content of a file as stream");
+
+        String path = "/folder1/image1.gif";
+        CmsResource resource = cms.readResource(path);
+        InputStream content = cms.readContentStream(resource);
+        try {
+            assertTrue(Arrays.equals(cms.readFile(path).getContents(), CmsFileUtil.readFully(content, false)));
+        } finally {
+            content.close();
+        }
+
+        try {
+            cms.readContentStream(cms.readResource("/folder1/"));
+            fail("content of a folder could be read");
+        } catch (CmsException e) {
+            // expected
+        }
+    }
+
     /**
      * Test readFile with the structure id.<p>
      *
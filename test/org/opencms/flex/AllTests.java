@@ -59,6 +59,11 @@ public final class AllTests {
         OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
         //$JUnit-BEGIN$
         suite.addTest(new TestSuite(TestCmsFlexCacheEntry.class));
+        suite.addTest(new TestSuite(TestCmsFlexCacheKeyIndex.class));
+        suite.addTest(new TestSuite(TestCmsFlexCacheDependencyIndex.class));
+        suite.addTest(new TestSuite(TestCmsFlexCacheOffHeapStore.class));
+        suite.addTest(new TestSuite(TestCmsFlexCacheSingleFlight.class));
+        suite.addTest(new TestSuite(TestCmsFlexCacheSnapshot.class));
         suite.addTest(TestCmsFlexResponse.suite());
         //$JUnit-END$
         return suite;
@@ -0,0 +1,190 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsResource;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Tests for the CmsFlexCacheDependencyIndex.<p>
+ */
+public class TestCmsFlexCacheDependencyIndex extends OpenCmsTestCase {
+
+    /**
+     * Tests that entries are found by the structure id and the root path of a published resource.<p>
+     */
+    public void testDependencyOnResource() {
+
+        CmsFlexCacheDependencyIndex index = new CmsFlexCacheDependencyIndex();
+        CmsUUID id = new CmsUUID();
+        CmsFlexCacheEntry entry = createEntry(id, "/sites/default/news/a.html", null);
+        CmsFlexCacheEntry other = createEntry(new CmsUUID(), "/sites/default/news/b.html", null);
+        index.add(entry);
+        index.add(other);
+
+        Set<CmsFlexCacheEntry> result = index.getDependentEntries(
+            Collections.singletonList(createPublishedResource(id, "/sites/default/news/a.html", false)));
+        assertEquals(1, result.size());
+        assertTrue(result.contains(entry));
+
+        // the entry must also be found by the structure id if the resource was moved
+        result = index.getDependentEntries(
+            Collections.singletonList(createPublishedResource(id, "/sites/default/archive/a.html", false)));
+        assertEquals(1, result.size());
+        assertTrue(result.contains(entry));
+
+        index.remove(entry);
+        result = index.getDependentEntries(
+            Collections.singletonList(createPublishedResource(id, "/sites/default/news/a.html", false)));
+        assertTrue(result.isEmpty());
+    }
+
+    /**
+     * Tests that entries listing a folder are found for new resources in the folder.<p>
+     */
+    public void testDependencyOnFolderListing() {
+
+        CmsFlexCacheDependencyIndex index = new CmsFlexCacheDependencyIndex();
+        CmsFlexCacheEntry entry = createEntry(new CmsUUID(), "/sites/default/index.html", "/sites/default/news/");
+        index.add(entry);
+
+        Set<CmsFlexCacheEntry> result = index.getDependentEntries(
+            Collections.singletonList(
+                createPublishedResource(new CmsUUID(), "/sites/default/news/2017/new.html", false)));
+        assertTrue(result.contains(entry));
+
+        result = index.getDependentEntries(
+            Collections.singletonList(createPublishedResource(new CmsUUID(), "/sites/default/other.html", false)));
+        assertTrue(result.isEmpty());
+    }
+
+    /**
+     * Tests that entries reading resources below a published folder are found.<p>
+     */
+    public void testDependencyOnParentFolder() {
+
+        CmsFlexCacheDependencyIndex index = new CmsFlexCacheDependencyIndex();
+        CmsFlexCacheEntry entry = createEntry(new CmsUUID(), "/sites/default/news/a.html", null);
+        index.add(entry);
+
+        Set<CmsFlexCacheEntry> result = index.getDependentEntries(
+            Collections.singletonList(createPublishedResource(new CmsUUID(), "/sites/default/news/", true)));
+        assertTrue(result.contains(entry));
+
+        result = index.getDependentEntries(
+            Collections.singletonList(createPublishedResource(new CmsUUID(), "/sites/default/newsletter/", true)));
+        assertTrue(result.isEmpty());
+    }
+
+    /**
+     * Tests that entries without dependencies are always found.<p>
+     */
+    public void testUntrackedEntry() {
+
+        CmsFlexCacheDependencyIndex index = new CmsFlexCacheDependencyIndex();
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        index.add(entry);
+
+        Set<CmsFlexCacheEntry> result = index.getDependentEntries(
+            Collections.singletonList(createPublishedResource(new CmsUUID(), "/sites/default/any.html", false)));
+        assertTrue(result.contains(entry));
+    }
+
+    /**
+     * Creates a cache entry with the given dependencies.<p>
+     *
+     * @param id the structure id of the resource read
+     * @param rootPath the root path of the resource read
+     * @param folder the root path of the folder listed, may be <code>null</code>
+     *
+     * @return the cache entry
+     */
+    private CmsFlexCacheEntry createEntry(CmsUUID id, String rootPath, String folder) {
+
+        CmsFlexRequestContextInfo info = new CmsFlexRequestContextInfo();
+        info.updateFromResource(createResource(id, rootPath, false));
+        if (folder != null) {
+            info.addFolderDependency(folder);
+        }
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        entry.addDependencies(info);
+        entry.complete();
+        return entry;
+    }
+
+    /**
+     * Creates a published resource.<p>
+     *
+     * @param id the structure id
+     * @param rootPath the root path
+     * @param folder if the resource is a folder
+     *
+     * @return the published resource
+     */
+    private CmsPublishedResource createPublishedResource(CmsUUID id, String rootPath, boolean folder) {
+
+        return new CmsPublishedResource(createResource(id, rootPath, folder));
+    }
+
+    /**
+     * Creates a resource for the tests.<p>
+     *
+     * @param id the structure id
+     * @param rootPath the root path
+     * @param folder if the resource is a folder
+     *
+     * @return the resource
+     */
+    private CmsResource createResource(CmsUUID id, String rootPath, boolean folder) {
+
+        return new CmsResource(
+            id,
+            new CmsUUID(),
+            rootPath,
+            folder ? 0 : 1,
+            folder,
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.STATE_NEW,
+            0,
+            CmsUUID.getNullUUID(),
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            0,
+            0,
+            0);
+    }
+}
@@ -27,13 +27,85 @@
 
 package org.opencms.flex;
 
+import org.opencms.file.CmsResource;
 import org.opencms.test.OpenCmsTestCase;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
 /**
  * Tests for the CmsFlexCacheEntry.<p>
  */
 public class TestCmsFlexCacheEntry extends OpenCmsTestCase {
 
+    /**
+     * Tests storing a gzip compressed copy of the output.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testCompress() throws Exception {
+
+        byte[] bytes = new byte[2000];
+        Arrays.fill(bytes, (byte)'a');
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        entry.add(bytes);
+        // entries must be completed first
+        assertFalse(entry.compress(512));
+        entry.complete();
+        int size = entry.getLruCacheCosts();
+        assertFalse(entry.compress(4096));
+        assertTrue(entry.compress(512));
+        byte[] compressed = entry.getCompressedOutput();
+        assertEquals(size + compressed.length, entry.getLruCacheCosts());
+        GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[512];
+        int count;
+        while ((count = in.read(buffer)) > 0) {
+            out.write(buffer, 0, count);
+        }
+        assertTrue(Arrays.equals(bytes, out.toByteArray()));
+
+        // entries with includes are not compressed
+        CmsFlexCacheEntry include = new CmsFlexCacheEntry();
+        include.add(bytes);
+        include.add("/system/include.jsp", null, null);
+        include.complete();
+        assertFalse(include.compress(0));
+        assertNull(include.getCompressedOutput());
+    }
+
+    /**
+     * Tests marking entries as stale with the "stale" cache directive.<p>
+     */
+    public void testMarkStale() {
+
+        CmsFlexCacheKey key = new CmsFlexCacheKey("/test.jsp", "uri;stale=30", true);
+        assertFalse(key.hadParseError());
+        assertEquals(30, key.getStale());
+        assertEquals("uri;stale=(30);", key.toString());
+        assertEquals(-1, new CmsFlexCacheKey("/test.jsp", "uri", true).getStale());
+
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        entry.complete();
+        // entries without stale timeout must be removed
+        assertFalse(entry.markStale());
+        assertFalse(entry.isStale());
+        assertEquals(CmsResource.DATE_EXPIRED_DEFAULT, entry.getDateStaleExpires());
+
+        entry.setStaleTimeout(key.getStale() * 1000L);
+        long time = System.currentTimeMillis();
+        assertTrue(entry.markStale());
+        assertTrue(entry.isStale());
+        long dateStaleExpires = entry.getDateStaleExpires();
+        assertTrue(dateStaleExpires >= (time + 30000));
+        // marking the entry again does not extend the time it is served
+        assertTrue(entry.markStale());
+        assertEquals(dateStaleExpires, entry.getDateStaleExpires());
+    }
+
     /**
      * Tests the method getAbsoluteUri.<p>
      */
@@ -0,0 +1,114 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.flex;
+
+import org.opencms.cache.CmsClockCache;
+import org.opencms.test.OpenCmsTestCase;
+
+/**
+ * Tests for the concurrent resource key index of the CmsFlexCache used with the CLOCK entry cache.<p>
+ */
+public class TestCmsFlexCacheKeyIndex extends OpenCmsTestCase {
+
+    /** The cache directives of the test resources. */
+    private static final String CACHE_DIRECTIVES = "uri";
+
+    /** The variation of the test resources. */
+    private static final String VARIATION = "uri=(/index.html);";
+
+    /**
+     * Tests that the number of keys is limited, and that the entries of released keys are removed.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testKeyLimit() throws Exception {
+
+        CmsFlexCache cache = createCache(3);
+        for (int i = 0; i < 10; i++) {
+            put(cache, "/test" + i + ".jsp");
+            assertTrue(cache.keySize() <= 3);
+            // the key that has just been added is never released
+            assertNotNull(cache.getKey(CmsFlexCacheKey.getKeyName("/test" + i + ".jsp", true)));
+        }
+        assertEquals(3, cache.keySize());
+        assertEquals(3, cache.size());
+        assertEquals(3, cache.getEntryLruCache().size());
+    }
+
+    /**
+     * Tests that keys without cached variations are released before keys with cached variations.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testUnusedKeysFirst() throws Exception {
+
+        CmsFlexCache cache = createCache(3);
+        cache.putKey(new CmsFlexCacheKey("/unused.jsp", CACHE_DIRECTIVES, true));
+        put(cache, "/a.jsp");
+        put(cache, "/b.jsp");
+        assertEquals(3, cache.keySize());
+
+        put(cache, "/c.jsp");
+        assertEquals(3, cache.keySize());
+        assertNull(cache.getKey(CmsFlexCacheKey.getKeyName("/unused.jsp", true)));
+        assertNotNull(cache.getKey(CmsFlexCacheKey.getKeyName("/a.jsp", true)));
+        assertNotNull(cache.getKey(CmsFlexCacheKey.getKeyName("/b.jsp", true)));
+        assertNotNull(cache.getKey(CmsFlexCacheKey.getKeyName("/c.jsp", true)));
+        assertEquals(3, cache.size());
+    }
+
+    /**
+     * Creates an enabled cache with the CLOCK entry cache.<p>
+     *
+     * @param maxKeys the max. number of keys
+     *
+     * @return the cache
+     */
+    private CmsFlexCache createCache(int maxKeys) {
+
+        CmsFlexCacheConfiguration configuration = new CmsFlexCacheConfiguration();
+        configuration.initialize("true", "false", "1000000", "500000", "100000", String.valueOf(maxKeys));
+        configuration.setEntryCacheClass(CmsClockCache.class.getName());
+        return new CmsFlexCache(configuration);
+    }
+
+    /**
+     * Caches a completed entry for the given resource.<p>
+     *
+     * @param cache the cache
+     * @param resource the resource name
+     */
+    private void put(CmsFlexCache cache, String resource) {
+
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        entry.add("<p>rendered</p>".getBytes());
+        entry.complete();
+        assertTrue(cache.put(new CmsFlexCacheKey(resource, CACHE_DIRECTIVES, true), entry, VARIATION));
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Tests for the CmsFlexCacheOffHeapStore.<p>
+ */
+public class TestCmsFlexCacheOffHeapStore extends OpenCmsTestCase {
+
+    /**
+     * Tests storing and reading segments.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testAllocate() throws Exception {
+
+        CmsFlexCacheOffHeapStore store = new CmsFlexCacheOffHeapStore(CmsFlexCacheOffHeapStore.SLAB_SIZE, 100);
+        byte[] bytes = createBytes(250);
+        CmsFlexCacheOffHeapSegment segment = store.allocate(bytes);
+
+        assertEquals(250, segment.getLength());
+        assertTrue(Arrays.equals(bytes, segment.getBytes()));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        segment.writeTo(out);
+        assertTrue(Arrays.equals(bytes, out.toByteArray()));
+        assertEquals(300, store.getUsedBytes());
+        assertEquals((CmsFlexCacheOffHeapStore.SLAB_SIZE / 100) * 100, store.getAllocatedBytes());
+
+        store.free(segment);
+        assertEquals(0, store.getUsedBytes());
+    }
+
+    /**
+     * Tests that nothing is stored if the capacity is exhausted, and that freed blocks are reused.<p>
+     */
+    public void testCapacity() {
+
+        int blockSize = CmsFlexCacheOffHeapStore.SLAB_SIZE / 4;
+        CmsFlexCacheOffHeapStore store = new CmsFlexCacheOffHeapStore(CmsFlexCacheOffHeapStore.SLAB_SIZE, blockSize);
+        CmsFlexCacheOffHeapSegment first = store.allocate(createBytes(3 * blockSize));
+        assertNotNull(first);
+        assertNull(store.allocate(createBytes(2 * blockSize)));
+        // the block taken by the failed allocation must be available again
+        assertNotNull(store.allocate(createBytes(blockSize)));
+
+        store.free(first);
+        assertNotNull(store.allocate(createBytes(2 * blockSize)));
+        assertEquals(CmsFlexCacheOffHeapStore.SLAB_SIZE, store.getAllocatedBytes());
+    }
+
+    /**
+     * Tests moving the output of a cache entry off-heap and releasing it.<p>
+     */
+    public void testEntry() {
+
+        CmsFlexCacheOffHeapStore store = new CmsFlexCacheOffHeapStore(CmsFlexCacheOffHeapStore.SLAB_SIZE, 64);
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        byte[] bytes = createBytes(100);
+        entry.add(bytes);
+        entry.add("/system/include.jsp", null, null);
+        entry.add(createBytes(10));
+        entry.complete();
+
+        entry.moveToOffHeap(store);
+        assertTrue(entry.isOffHeap());
+        assertTrue(entry.elements().get(0) instanceof CmsFlexCacheOffHeapSegment);
+        assertEquals("/system/include.jsp", entry.elements().get(1));
+        assertTrue(Arrays.equals(bytes, ((CmsFlexCacheOffHeapSegment)entry.elements().get(0)).getBytes()));
+        assertEquals(3 * 64, store.getUsedBytes());
+        assertTrue(entry.toString().contains("<![CDATA["));
+        // reading the output for the string representation must not free it
+        assertEquals(3 * 64, store.getUsedBytes());
+
+        entry.releaseOffHeap();
+        assertEquals(0, store.getUsedBytes());
+        // the freed output is skipped
+        assertFalse(entry.toString().contains("<![CDATA["));
+    }
+
+    /**
+     * Creates test bytes.<p>
+     *
+     * @param length the number of bytes
+     *
+     * @return the test bytes
+     */
+    private byte[] createBytes(int length) {
+
+        byte[] result = new byte[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = (byte)i;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.flex;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for the single-flight rendering of the CmsFlexCache.<p>
+ */
+public class TestCmsFlexCacheSingleFlight extends OpenCmsTestCase {
+
+    /** The cache directives of the test resource. */
+    private static final String CACHE_DIRECTIVES = "uri";
+
+    /** The name of the test resource. */
+    private static final String RESOURCE = "/test.jsp";
+
+    /** The variation of the test resource. */
+    private static final String VARIATION = "uri=(/index.html);";
+
+    /**
+     * Tests that concurrent misses for the same variation render the resource only once,
+     * and that all waiting requests get the new entry.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testConcurrentMisses() throws Exception {
+
+        final CmsFlexCache cache = createCache(10000);
+        final int threadCount = 8;
+        final AtomicInteger renders = new AtomicInteger();
+        final CountDownLatch attempts = new CountDownLatch(threadCount - 1);
+        final CountDownLatch start = new CountDownLatch(1);
+        final CmsFlexCacheEntry renderedEntry = createEntry();
+        final List<CmsFlexCacheEntry> results = new ArrayList<CmsFlexCacheEntry>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = new Thread() {
+
+                @Override
+                public void run() {
+
+                    CmsFlexCacheKey key = new CmsFlexCacheKey(RESOURCE, CACHE_DIRECTIVES, true);
+                    String renderKey = cache.getRenderKey(key, VARIATION);
+                    try {
+                        start.await();
+                        if (cache.startRender(renderKey)) {
+                            try {
+                                renders.incrementAndGet();
+                                // make sure all other requests tried to render before the entry is cached
+                                attempts.await(5, TimeUnit.SECONDS);
+                                cache.put(key, renderedEntry, VARIATION);
+                            } finally {
+                                cache.finishRender(renderKey);
+                            }
+                        } else {
+                            attempts.countDown();
+                            CmsFlexCacheEntry entry = cache.waitForRender(key, VARIATION);
+                            synchronized (results) {
+                                results.add(entry);
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        // ignore, the result is missing
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join(10000);
+        }
+
+        assertEquals(1, renders.get());
+        assertEquals(threadCount - 1, results.size());
+        for (CmsFlexCacheEntry entry : results) {
+            assertSame(renderedEntry, entry);
+        }
+        assertEquals(threadCount - 1, cache.getCoalescedRenderCount());
+        assertEquals(0, cache.getSingleFlightTimeoutCount());
+    }
+
+    /**
+     * Tests that waiting requests are released if the render fails, and that the resource can be rendered again.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testRenderFailure() throws Exception {
+
+        final CmsFlexCache cache = createCache(10000);
+        CmsFlexCacheKey key = new CmsFlexCacheKey(RESOURCE, CACHE_DIRECTIVES, true);
+        final String renderKey = cache.getRenderKey(key, VARIATION);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch fail = new CountDownLatch(1);
+        Thread renderer = new Thread() {
+
+            @Override
+            public void run() {
+
+                try {
+                    cache.startRender(renderKey);
+                    started.countDown();
+                    try {
+                        fail.await();
+                        throw new IllegalStateException("render failed");
+                    } finally {
+                        cache.finishRender(renderKey);
+                    }
+                } catch (InterruptedException e) {
+                    // ignore
+                } catch (IllegalStateException e) {
+                    // expected
+                }
+            }
+        };
+        renderer.start();
+        started.await();
+        assertFalse(cache.startRender(renderKey));
+
+        long time = System.currentTimeMillis();
+        fail.countDown();
+        // the waiting request must render the resource on its own, without waiting for the timeout
+        assertNull(cache.waitForRender(key, VARIATION));
+        assertTrue((System.currentTimeMillis() - time) < 5000);
+        renderer.join();
+        assertEquals(0, cache.getSingleFlightTimeoutCount());
+        assertTrue(cache.startRender(renderKey));
+        cache.finishRender(renderKey);
+    }
+
+    /**
+     * Tests that a waiting request renders the resource on its own after the wait timeout has been reached.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testTimeout() throws Exception {
+
+        final CmsFlexCache cache = createCache(100);
+        final CmsFlexCacheKey key = new CmsFlexCacheKey(RESOURCE, CACHE_DIRECTIVES, true);
+        String renderKey = cache.getRenderKey(key, VARIATION);
+        assertTrue(cache.startRender(renderKey));
+        // a nested include of the rendering request must not wait for itself
+        assertNull(cache.waitForRender(key, VARIATION));
+        assertEquals(0, cache.getSingleFlightTimeoutCount());
+
+        final List<CmsFlexCacheEntry> results = new ArrayList<CmsFlexCacheEntry>();
+        Thread waiter = new Thread() {
+
+            @Override
+            public void run() {
+
+                results.add(cache.waitForRender(key, VARIATION));
+            }
+        };
+        long time = System.currentTimeMillis();
+        waiter.start();
+        waiter.join(10000);
+        assertTrue((System.currentTimeMillis() - time) >= 100);
+        assertEquals(1, results.size());
+        // the request falls back to rendering the resource on its own
+        assertNull(results.get(0));
+        assertEquals(1, cache.getSingleFlightTimeoutCount());
+        assertEquals(0, cache.getCoalescedRenderCount());
+        cache.finishRender(renderKey);
+    }
+
+    /**
+     * Creates an enabled cache with single-flight rendering.<p>
+     *
+     * @param timeout the single-flight wait timeout in milliseconds
+     *
+     * @return the cache
+     */
+    private CmsFlexCache createCache(long timeout) {
+
+        CmsFlexCacheConfiguration configuration = new CmsFlexCacheConfiguration();
+        configuration.initialize("true", "false", "1000000", "500000", "100000", "1000");
+        configuration.setSingleFlight("true", String.valueOf(timeout));
+        return new CmsFlexCache(configuration);
+    }
+
+    /**
+     * Creates a completed cache entry.<p>
+     *
+     * @return the cache entry
+     */
+    private CmsFlexCacheEntry createEntry() {
+
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        entry.add("<p>rendered</p>".getBytes());
+        entry.complete();
+        return entry;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.flex.CmsFlexCache.CmsFlexCacheVariation;
+import org.opencms.test.OpenCmsTestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for the CmsFlexCacheSnapshot.<p>
+ */
+public class TestCmsFlexCacheSnapshot extends OpenCmsTestCase {
+
+    /**
+     * Tests that a snapshot with an invalid format is rejected.<p>
+     */
+    public void testInvalidSnapshot() {
+
+        try {
+            CmsFlexCacheSnapshot.read(new ByteArrayInputStream("no snapshot".getBytes()));
+            fail("invalid snapshot must not be read");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Tests writing a snapshot and reading it again.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testWriteAndRead() throws Exception {
+
+        long dateExpires = System.currentTimeMillis() + 60000;
+        CmsFlexRequestContextInfo info = new CmsFlexRequestContextInfo();
+        info.addFolderDependency("/sites/default/news/");
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        Map<String, List<String>> headers = new HashMap<String, List<String>>();
+        headers.put("X-Test", Collections.singletonList("value"));
+        entry.addHeaders(headers);
+        entry.add("<p>".getBytes());
+        Map<String, String[]> params = new HashMap<String, String[]>();
+        params.put("param", new String[] {"a", "b"});
+        entry.add("/system/include.jsp", params, null);
+        entry.add("</p>".getBytes());
+        entry.addDependencies(info);
+        entry.complete();
+        entry.setDateExpires(dateExpires);
+
+        // expired entries and offline entries are not written
+        CmsFlexCacheEntry expired = new CmsFlexCacheEntry();
+        expired.complete();
+        expired.setDateExpires(System.currentTimeMillis() - 1000);
+        CmsFlexCacheVariation online = new CmsFlexCacheVariation(
+            new CmsFlexCacheKey("/test.jsp", "uri;timeout=60", true));
+        online.m_map.put("uri=(/index.html);", entry);
+        online.m_map.put("uri=(/expired.html);", expired);
+        CmsFlexCacheVariation offline = new CmsFlexCacheVariation(
+            new CmsFlexCacheKey("/test.jsp", "uri;timeout=60", false));
+        offline.m_map.put("uri=(/index.html);", entry);
+
+        CmsFlexCacheSnapshot snapshot = new CmsFlexCacheSnapshot(42, 1000);
+        snapshot.addVariation(online);
+        snapshot.addVariation(offline);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(1, snapshot.write(out));
+
+        CmsFlexCacheSnapshot result = CmsFlexCacheSnapshot.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(42, result.getPublishTag());
+        assertEquals(1000, result.getDateCreated());
+        assertEquals(1, result.getVariations().size());
+        CmsFlexCacheVariation variation = result.getVariations().get(0);
+        assertEquals(online.m_key.getResource(), variation.m_key.getResource());
+        assertEquals(60, variation.m_key.getTimeout());
+        assertEquals(1, variation.m_map.size());
+
+        CmsFlexCacheEntry restored = (CmsFlexCacheEntry)variation.m_map.get("uri=(/index.html);");
+        assertEquals(dateExpires, restored.getDateExpires());
+        assertEquals(5, restored.elements().size());
+        assertTrue(Arrays.equals("<p>".getBytes(), (byte[])restored.elements().get(0)));
+        assertEquals("/system/include.jsp", restored.elements().get(1));
+        assertEquals(2, ((String[])((Map<?, ?>)restored.elements().get(2)).get("param")).length);
+        assertTrue(Arrays.equals("</p>".getBytes(), (byte[])restored.elements().get(4)));
+        assertTrue(restored.getIdDependencies().isEmpty());
+        assertEquals(Collections.singleton("/sites/default/news/"), restored.getFolderDependencies());
+    }
+}
@@ -65,6 +65,7 @@ public final class AllTests {
         suite.addTest(TestCmsShellInline.suite());
         suite.addTest(TestOpenCmsSingleton.suite());
         suite.addTest(TestCmsEvents.suite());
+        suite.addTest(new TestSuite(TestCmsEventManager.class));
         suite.addTest(TestCmsSystemInfo.suite());
         // $JUnit-END$
         return suite;
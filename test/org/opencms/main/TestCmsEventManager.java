@@ -0,0 +1,173 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.main;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Tests for firing events with asynchronous event listeners.<p>
+ */
+public class TestCmsEventManager extends OpenCmsTestCase {
+
+    /**
+     * Tests that asynchronous listeners are started after the other listeners and may still run afterwards.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testAsyncListener() throws Exception {
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final TestEventListener syncListener = new TestEventListener();
+        TestAsyncListener asyncListener = new TestAsyncListener(false) {
+
+            @Override
+            public void cmsEvent(CmsEvent event) {
+
+                // the synchronous listener has already been called
+                m_syncDone = syncListener.hasRecievedEvent(event.getType());
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+            }
+        };
+        CmsEventManager eventManager = new CmsEventManager();
+        eventManager.addCmsEventListener(asyncListener, new int[] {I_CmsEventListener.EVENT_PUBLISH_PROJECT});
+        eventManager.addCmsEventListener(syncListener, new int[] {I_CmsEventListener.EVENT_PUBLISH_PROJECT});
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            List<CmsEventListenerTask> tasks = eventManager.fireEvent(
+                new CmsEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT, null),
+                executor);
+            assertEquals(2, tasks.size());
+            CmsEventListenerTask asyncTask = tasks.get(0);
+            CmsEventListenerTask syncTask = tasks.get(1);
+            assertTrue(asyncTask.isAsync());
+            assertFalse(asyncTask.isMandatory());
+            assertFalse(asyncTask.isDone());
+            assertFalse(syncTask.isAsync());
+            assertTrue(syncTask.isMandatory());
+            assertTrue(syncTask.isDone());
+
+            release.countDown();
+            asyncTask.waitForCompletion();
+            assertTrue(asyncListener.m_syncDone);
+            assertNull(asyncTask.getFailure());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Tests that a failing listener does not affect the other listeners.<p>
+     */
+    public void testFailingListener() {
+
+        I_CmsEventListener failingListener = new I_CmsEventListener() {
+
+            public void cmsEvent(CmsEvent event) {
+
+                throw new IllegalStateException();
+            }
+        };
+        TestEventListener listener = new TestEventListener();
+        CmsEventManager eventManager = new CmsEventManager();
+        eventManager.addCmsEventListener(failingListener);
+        eventManager.addCmsEventListener(listener);
+
+        List<CmsEventListenerTask> tasks = eventManager.fireEvent(
+            new CmsEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT, null),
+            null);
+        assertTrue(tasks.get(0).getFailure() instanceof IllegalStateException);
+        assertNull(tasks.get(1).getFailure());
+        assertTrue(listener.hasRecievedEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT));
+    }
+
+    /**
+     * Tests that asynchronous listeners are called on the current thread without executor.<p>
+     */
+    public void testWithoutExecutor() {
+
+        TestAsyncListener asyncListener = new TestAsyncListener(true);
+        CmsEventManager eventManager = new CmsEventManager();
+        eventManager.addCmsEventListener(asyncListener);
+
+        List<CmsEventListenerTask> tasks = eventManager.fireEvent(
+            new CmsEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT, null),
+            null);
+        assertTrue(tasks.get(0).isDone());
+        assertTrue(tasks.get(0).isMandatory());
+        assertTrue(asyncListener.hasRecievedEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT));
+    }
+
+    /**
+     * Event listener that handles the after publish event asynchronously.<p>
+     */
+    private static class TestAsyncListener extends TestEventListener implements I_CmsAsyncEventListener {
+
+        /** Indicates if the synchronous listeners were done when this listener was called. */
+        volatile boolean m_syncDone;
+
+        /** Indicates if this listener is mandatory. */
+        private boolean m_mandatory;
+
+        /**
+         * Creates a new listener.<p>
+         *
+         * @param mandatory indicates if this listener is mandatory
+         */
+        TestAsyncListener(boolean mandatory) {
+
+            m_mandatory = mandatory;
+        }
+
+        /**
+         * @see org.opencms.main.I_CmsAsyncEventListener#isAsync(int)
+         */
+        public boolean isAsync(int eventType) {
+
+            return eventType == I_CmsEventListener.EVENT_PUBLISH_PROJECT;
+        }
+
+        /**
+         * @see org.opencms.main.I_CmsAsyncEventListener#isMandatory(int)
+         */
+        public boolean isMandatory(int eventType) {
+
+            return m_mandatory;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.monitor;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+/**
+ * Tests for the CmsCacheKeyPathIndex.<p>
+ */
+public class TestCmsCacheKeyPathIndex extends OpenCmsTestCase {
+
+    /**
+     * Tests adding and removing the keys of a single path.<p>
+     */
+    public void testRemovePath() {
+
+        CmsCacheKeyPathIndex index = new CmsCacheKeyPathIndex();
+        index.add("/a/b/c.html", "key1");
+        index.add("/a/b/c.html", "key2");
+        index.add("/a/b/c.html", "key2");
+        index.add("/a/b/d.html", "key3");
+        assertEquals(3, index.size());
+
+        assertEquals(new HashSet<String>(Arrays.asList("key1", "key2")), index.removePath("/a/b/c.html"));
+        assertEquals(1, index.size());
+        assertTrue(index.removePath("/a/b/c.html").isEmpty());
+    }
+
+    /**
+     * Tests removing the keys of a subtree.<p>
+     */
+    public void testRemoveSubtree() {
+
+        CmsCacheKeyPathIndex index = new CmsCacheKeyPathIndex();
+        index.add("/a/b/", "folder");
+        index.add("/a/b/c.html", "file");
+        index.add("/a/b/d/e.html", "deep");
+        index.add("/a/bc/", "sibling");
+        index.add("/a/b0.html", "other");
+        index.add("/a/", "parent");
+
+        assertEquals(new HashSet<String>(Arrays.asList("file", "deep")), index.removeSubtree("/a/b/"));
+        assertEquals(4, index.size());
+        assertTrue(index.removeSubtree("/a/b/").isEmpty());
+        assertEquals(new HashSet<String>(Arrays.asList("folder")), index.removePath("/a/b/"));
+        assertEquals(3, index.removeSubtree("/").size());
+        assertEquals(0, index.size());
+    }
+
+    /**
+     * Tests removing the keys that are no longer cached.<p>
+     */
+    public void testRetainKeys() {
+
+        CmsCacheKeyPathIndex index = new CmsCacheKeyPathIndex();
+        index.add("/a.html", "key1");
+        index.add("/a.html", "key2");
+        index.add("/b.html", "key3");
+        Map<String, Object> cache = new HashMap<String, Object>();
+        cache.put("key2", Boolean.TRUE);
+
+        index.retainKeys(cache);
+        assertEquals(1, index.size());
+        assertTrue(index.removePath("/b.html").isEmpty());
+        assertEquals(new HashSet<String>(Arrays.asList("key2")), index.removePath("/a.html"));
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import org.opencms.main.CmsCacheMetricsHandler;
+import org.opencms.monitor.CmsMemoryMonitor.CacheType;
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tests for the CmsCacheStatistics.<p>
+ */
+public class TestCmsCacheStatistics extends OpenCmsTestCase {
+
+    /**
+     * Tests reading the byte budgets from the memory monitor configuration.<p>
+     */
+    public void testBudgetConfiguration() {
+
+        CmsMemoryMonitorConfiguration configuration = new CmsMemoryMonitorConfiguration();
+        configuration.addCacheBudget("resource_list", "1048576");
+        configuration.addCacheBudget("PROPERTY", "0");
+        configuration.setCacheCeilingPercent("80");
+
+        assertEquals(1048576, configuration.getCacheBudget(CacheType.RESOURCE_LIST));
+        assertEquals(0, configuration.getCacheBudget(CacheType.PROPERTY));
+        assertEquals(1, configuration.getCacheBudgets().size());
+        assertEquals(80, configuration.getCacheCeilingPercent());
+    }
+
+    /**
+     * Tests that evictions of an LRU cache map are counted.<p>
+     */
+    public void testEvictions() {
+
+        CmsCacheStatistics statistics = new CmsCacheStatistics("TEST");
+        Map<String, String> cache = CmsMemoryMonitor.createLRUCacheMap(2, statistics);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+        cache.put("d", "4");
+        assertEquals(4, statistics.getPuts());
+        assertEquals(2, statistics.getEvictions());
+        assertEquals(2, statistics.getSize());
+
+        // explicit removals are no evictions
+        cache.clear();
+        assertEquals(2, statistics.getEvictions());
+        assertEquals(0, statistics.getSize());
+    }
+
+    /**
+     * Tests the buckets of the latency histogram.<p>
+     */
+    public void testHistogram() {
+
+        CmsLatencyHistogram histogram = new CmsLatencyHistogram();
+        histogram.record(500000L);
+        histogram.record(1000000L);
+        histogram.record(1000001L);
+        histogram.record(7000000000L);
+        long[] counts = histogram.getBucketCounts();
+        assertEquals(CmsLatencyHistogram.getBucketBounds().length + 1, counts.length);
+        assertEquals(2, counts[0]);
+        assertEquals(3, counts[1]);
+        assertEquals(3, counts[counts.length - 2]);
+        assertEquals(4, counts[counts.length - 1]);
+        assertEquals(4, histogram.getCount());
+        assertEquals(7002500001L, histogram.getSum());
+
+        histogram.reset();
+        assertEquals(0, histogram.getBucketCounts()[counts.length - 1]);
+        assertEquals(0, histogram.getSum());
+    }
+
+    /**
+     * Tests that a weighted cache map is limited by the estimated memory size of its entries.<p>
+     */
+    public void testWeightedCache() {
+
+        CmsCacheStatistics statistics = new CmsCacheStatistics("TEST");
+        Map<String, List<String>> cache = CmsMemoryMonitor.createWeightedCacheMap(1000000, statistics);
+        List<String> small = Collections.singletonList("a");
+        List<String> large = new ArrayList<String>();
+        for (int i = 0; i < 1000; i++) {
+            large.add("value " + i);
+        }
+        int smallSize = CmsMemoryMonitor.getCacheEntrySize("small", small);
+        int largeSize = CmsMemoryMonitor.getCacheEntrySize("large", large);
+        assertTrue(largeSize > (100 * smallSize));
+
+        cache.put("small", small);
+        cache.put("large", large);
+        assertEquals(1000000, statistics.getMaxWeight());
+        assertEquals(smallSize + largeSize, statistics.getWeight());
+
+        // replacing an entry replaces its weight
+        cache.put("large", small);
+        assertEquals(smallSize + CmsMemoryMonitor.getCacheEntrySize("large", small), statistics.getWeight());
+
+        for (int i = 0; i < 40; i++) {
+            cache.put("large" + i, large);
+        }
+        assertTrue(statistics.getEvictions() > 0);
+        assertTrue(statistics.getWeight() <= 1000000);
+
+        cache.clear();
+        assertEquals(0, statistics.getWeight());
+    }
+
+    /**
+     * Tests counting hits, misses and load times.<p>
+     */
+    public void testHitsAndMisses() {
+
+        CmsCacheStatistics statistics = new CmsCacheStatistics("TEST");
+        Map<String, String> cache = new CmsCacheStatisticsMap<String, String>(
+            new ConcurrentHashMap<String, String>(),
+            statistics);
+        assertNull(cache.get("a"));
+        cache.put("a", "1");
+        assertEquals("1", cache.get("a"));
+        assertEquals("1", cache.get("a"));
+        // a put without a miss before is not recorded as load time
+        cache.put("b", "2");
+        assertNull(cache.get("c"));
+        // a put of another key than the missed one is not recorded as load time
+        cache.put("d", "4");
+
+        assertEquals(2, statistics.getHits());
+        assertEquals(2, statistics.getMisses());
+        assertEquals(3, statistics.getPuts());
+        assertEquals(3, statistics.getSize());
+        assertEquals(0.5, statistics.getHitRatio(), 0.0001);
+        assertEquals(1, statistics.getLoadTimes().getCount());
+
+        statistics.reset();
+        assertEquals(0, statistics.getHits());
+        assertEquals(0, statistics.getMisses());
+        assertEquals(0, statistics.getLoadTimes().getCount());
+        assertEquals(0.0, statistics.getHitRatio(), 0.0001);
+    }
+
+    /**
+     * Tests the Prometheus text format written by the metrics handler.<p>
+     */
+    public void testMetrics() {
+
+        CmsCacheStatistics statistics = new CmsCacheStatistics("TEST");
+        statistics.recordHit();
+        statistics.recordMiss();
+        statistics.recordLoadTime(3000000L);
+        String metrics = new CmsCacheMetricsHandler().getMetrics(Collections.singletonList(statistics));
+
+        assertTrue(metrics.contains("# TYPE opencms_cache_hits_total counter\n"));
+        assertTrue(metrics.contains("opencms_cache_hits_total{cache=\"TEST\"} 1\n"));
+        assertTrue(metrics.contains("opencms_cache_misses_total{cache=\"TEST\"} 1\n"));
+        assertTrue(metrics.contains("opencms_cache_load_seconds_bucket{cache=\"TEST\",le=\"0.002\"} 0\n"));
+        assertTrue(metrics.contains("opencms_cache_load_seconds_bucket{cache=\"TEST\",le=\"0.005\"} 1\n"));
+        assertTrue(metrics.contains("opencms_cache_load_seconds_bucket{cache=\"TEST\",le=\"+Inf\"} 1\n"));
+        assertTrue(metrics.contains("opencms_cache_load_seconds_count{cache=\"TEST\"} 1\n"));
+        // the size is unknown, so it is not written
+        assertFalse(metrics.contains("opencms_cache_size{"));
+    }
+}
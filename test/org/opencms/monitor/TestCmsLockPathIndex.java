@@ -0,0 +1,160 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import org.opencms.lock.CmsLock;
+import org.opencms.lock.CmsLockType;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Tests for the CmsLockPathIndex.<p>
+ */
+public class TestCmsLockPathIndex extends OpenCmsTestCase {
+
+    /**
+     * Tests putting, reading and removing locks.<p>
+     */
+    public void testPutAndRemove() {
+
+        CmsLockPathIndex index = new CmsLockPathIndex();
+        CmsLock folderLock = createLock("/a/b/");
+        CmsLock fileLock = createLock("/a/b");
+        assertNull(index.put("/a/b/", folderLock));
+        assertNull(index.put("/a/b", fileLock));
+        assertEquals(2, index.size());
+        assertSame(folderLock, index.get("/a/b/"));
+        assertSame(fileLock, index.get("/a/b"));
+        assertNull(index.get("/a/"));
+        assertFalse(index.containsKey("/a/b/c"));
+
+        CmsLock newLock = createLock("/a/b/");
+        assertSame(folderLock, index.put("/a/b/", newLock));
+        assertEquals(2, index.size());
+        assertEquals(new HashSet<String>(Arrays.asList("/a/b/", "/a/b")), index.keySet());
+
+        assertSame(newLock, index.remove("/a/b/"));
+        assertNull(index.remove("/a/b/"));
+        assertEquals(1, index.size());
+        assertNull(index.get("/a/b/"));
+        assertSame(fileLock, index.get("/a/b"));
+
+        index.clear();
+        assertEquals(0, index.size());
+        assertTrue(index.isEmpty());
+    }
+
+    /**
+     * Tests looking up the locks of parent folders.<p>
+     */
+    public void testParentLocks() {
+
+        CmsLockPathIndex index = createIndex("/", "/a/", "/a/b/", "/a/b/c.html", "/a/bc/", "/x/");
+
+        assertEquals(Arrays.asList("/", "/a/", "/a/b/"), getPaths(index.getParentLocks("/a/b/c.html")));
+        assertEquals(Arrays.asList("/", "/a/"), getPaths(index.getParentLocks("/a/b/")));
+        assertEquals(Arrays.asList("/", "/a/", "/a/bc/"), getPaths(index.getParentLocks("/a/bc/d/e.html")));
+        assertEquals(Arrays.asList("/"), getPaths(index.getParentLocks("/y/z.html")));
+        assertTrue(index.getParentLocks("/").isEmpty());
+    }
+
+    /**
+     * Tests looking up the locks by path prefix.<p>
+     */
+    public void testPrefixLocks() {
+
+        CmsLockPathIndex index = createIndex("/a/", "/a/b/", "/a/b/c.html", "/a/b/d/e.html", "/a/bc/", "/a/b0.html");
+
+        assertEquals(Arrays.asList("/a/b/", "/a/b/c.html", "/a/b/d/e.html"), getPaths(index.getLocks("/a/b/")));
+        assertEquals(
+            Arrays.asList("/a/b/", "/a/b/c.html", "/a/b/d/e.html", "/a/b0.html", "/a/bc/"),
+            getPaths(index.getLocks("/a/b")));
+        assertEquals(Arrays.asList("/a/b/c.html"), getPaths(index.getLocks("/a/b/c.html")));
+        assertEquals(6, index.getLocks("").size());
+        assertTrue(index.getLocks("/x/").isEmpty());
+
+        // removing locks must not remove the locks below
+        index.remove("/a/b/");
+        index.remove("/a/b/c.html");
+        assertEquals(Arrays.asList("/a/b/d/e.html"), getPaths(index.getLocks("/a/b/")));
+        index.remove("/a/b/d/e.html");
+        assertTrue(index.getLocks("/a/b/").isEmpty());
+        assertEquals(3, index.size());
+    }
+
+    /**
+     * Creates an index with exclusive locks for the given paths.<p>
+     *
+     * @param paths the locked paths
+     *
+     * @return the index
+     */
+    private CmsLockPathIndex createIndex(String... paths) {
+
+        CmsLockPathIndex index = new CmsLockPathIndex();
+        for (String path : paths) {
+            index.put(path, createLock(path));
+        }
+        return index;
+    }
+
+    /**
+     * Creates an exclusive lock for the given path.<p>
+     *
+     * @param path the locked path
+     *
+     * @return the lock
+     */
+    private CmsLock createLock(String path) {
+
+        return new CmsLock(path, new CmsUUID(), null, CmsLockType.EXCLUSIVE);
+    }
+
+    /**
+     * Returns the sorted paths of the given locks.<p>
+     *
+     * @param locks the locks
+     *
+     * @return the sorted paths
+     */
+    private List<String> getPaths(List<CmsLock> locks) {
+
+        List<String> result = new ArrayList<String>();
+        for (CmsLock lock : locks) {
+            result.add(lock.getResourceName());
+        }
+        Collections.sort(result);
+        return result;
+    }
+}
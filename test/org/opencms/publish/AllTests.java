@@ -57,7 +57,9 @@ public final class AllTests {
         TestSuite suite = new TestSuite("Tests for package " + AllTests.class.getPackage().getName());
         OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
         //$JUnit-BEGIN$
+        suite.addTest(new TestSuite(TestCmsPublishQueue.class));
         suite.addTest(TestPublishManager.suite());
+        suite.addTest(TestPublishParallel.suite());
         //$JUnit-END$
         return suite;
     }
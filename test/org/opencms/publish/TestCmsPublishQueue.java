@@ -0,0 +1,224 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.publish;
+
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Unit tests for the priorities and the restore of the waiting jobs of the publish queue.<p>
+ */
+public class TestCmsPublishQueue extends OpenCmsTestCase {
+
+    /** The aging time used by the tests, in seconds. */
+    private static final int AGING_TIME = 60;
+
+    /** The min. number of resources of a bulk job used by the tests. */
+    private static final int BULK_SIZE = 1000;
+
+    /** One minute in milliseconds. */
+    private static final long MINUTE = 60000L;
+
+    /** The current time used by the tests. */
+    private static final long NOW = 100 * MINUTE;
+
+    /** The number of resources below which a direct publish job is a small job used by the tests. */
+    private static final int SMALL_SIZE = 10;
+
+    /**
+     * Tests that a bulk job is started before newer small jobs once it has waited long enough.<p>
+     */
+    public void testAging() {
+
+        CmsPublishQueue queue = createQueue();
+        CmsPublishJobInfoBean bulk = createJob(0, BULK_SIZE, NOW - (2 * MINUTE));
+        CmsPublishJobInfoBean small = createJob(CmsPublishJobInfoBean.C_PUBLISH_FLAG, 1, NOW);
+
+        // after two aging intervals the bulk job is still ranked below the small job
+        assertEquals(2, queue.getRank(bulk, NOW));
+        assertEquals(Arrays.asList(small, bulk), queue.sortJobs(Arrays.asList(bulk, small), NOW));
+
+        // after three intervals both jobs have the same rank, so the job enqueued first wins
+        long now = NOW + MINUTE;
+        small = createJob(CmsPublishJobInfoBean.C_PUBLISH_FLAG, 1, now);
+        assertEquals(queue.getRank(small, now), queue.getRank(bulk, now));
+        assertEquals(Arrays.asList(bulk, small), queue.sortJobs(Arrays.asList(small, bulk), now));
+
+        // after four intervals the bulk job overtakes all new small jobs
+        now = NOW + (2 * MINUTE);
+        small = createJob(CmsPublishJobInfoBean.C_PUBLISH_FLAG, 1, now);
+        assertEquals(4, queue.getRank(bulk, now));
+        assertEquals(Arrays.asList(bulk, small), queue.sortJobs(Arrays.asList(small, bulk), now));
+
+        // without aging the bulk job waits for all small jobs
+        queue.setPriorities(SMALL_SIZE, BULK_SIZE, 0);
+        assertEquals(0, queue.getRank(bulk, now));
+        assertEquals(Arrays.asList(small, bulk), queue.sortJobs(Arrays.asList(bulk, small), now));
+    }
+
+    /**
+     * Tests that the restored jobs get the priority stored in their flags.<p>
+     */
+    public void testFlags() {
+
+        CmsPublishQueue queue = createQueue();
+        CmsPublishJobInfoBean scheduled = createJob(
+            CmsPublishJobInfoBean.C_PUBLISH_FLAG | CmsPublishJobInfoBean.C_SCHEDULED_FLAG,
+            1,
+            NOW);
+        CmsPublishJobInfoBean restored = createJob(scheduled.getFlags(), 1, NOW);
+        assertTrue(restored.isScheduled());
+        assertTrue(restored.isDirectPublish());
+        assertEquals(scheduled.getFlags(), restored.getFlags());
+        // a small scheduled job is a scheduled job
+        assertEquals(CmsPublishPriority.SCHEDULED, queue.getPriority(restored));
+
+        restored = createJob(CmsPublishJobInfoBean.C_PUBLISH_FLAG, 1, NOW);
+        assertFalse(restored.isScheduled());
+        assertEquals(CmsPublishPriority.SMALL, queue.getPriority(restored));
+    }
+
+    /**
+     * Tests the rank and the order of jobs of all priorities enqueued at the same time.<p>
+     */
+    public void testPriorities() {
+
+        CmsPublishQueue queue = createQueue();
+        CmsPublishJobInfoBean bulk = createJob(CmsPublishJobInfoBean.C_PUBLISH_FLAG, BULK_SIZE, NOW);
+        CmsPublishJobInfoBean scheduled = createJob(CmsPublishJobInfoBean.C_SCHEDULED_FLAG, 100, NOW);
+        CmsPublishJobInfoBean normal = createJob(0, 1, NOW);
+        CmsPublishJobInfoBean small = createJob(CmsPublishJobInfoBean.C_PUBLISH_FLAG, SMALL_SIZE - 1, NOW);
+
+        assertEquals(CmsPublishPriority.BULK, queue.getPriority(bulk));
+        assertEquals(CmsPublishPriority.SCHEDULED, queue.getPriority(scheduled));
+        assertEquals(CmsPublishPriority.NORMAL, queue.getPriority(normal));
+        assertEquals(CmsPublishPriority.SMALL, queue.getPriority(small));
+        // a direct publish job with the small size is no small job
+        assertEquals(
+            CmsPublishPriority.NORMAL,
+            queue.getPriority(createJob(CmsPublishJobInfoBean.C_PUBLISH_FLAG, SMALL_SIZE, NOW)));
+
+        assertEquals(0, queue.getRank(bulk, NOW));
+        assertEquals(1, queue.getRank(scheduled, NOW));
+        assertEquals(2, queue.getRank(normal, NOW));
+        assertEquals(3, queue.getRank(small, NOW));
+
+        List<CmsPublishJobInfoBean> jobs = Arrays.asList(bulk, scheduled, normal, small);
+        assertEquals(Arrays.asList(small, normal, scheduled, bulk), queue.sortJobs(jobs, NOW));
+        // without the current time the jobs are sorted by the time they have been enqueued only
+        assertEquals(jobs, queue.sortJobs(jobs, 0));
+    }
+
+    /**
+     * Tests that the waiting jobs missing in the cache are found in the stored jobs,
+     * and that the ids of the jobs which can not be restored are removed.<p>
+     */
+    public void testRestore() {
+
+        CmsPublishQueue queue = createQueue();
+        CmsPublishJobInfoBean cached = createJob(0, 1, NOW);
+        CmsPublishJobInfoBean missing = createJob(CmsPublishJobInfoBean.C_SCHEDULED_FLAG, 1, NOW);
+        CmsPublishJobInfoBean started = new CmsPublishJobInfoBean(
+            new CmsUUID(),
+            new CmsUUID(),
+            "test",
+            new CmsUUID(),
+            "en",
+            0,
+            1,
+            NOW,
+            NOW + MINUTE,
+            0);
+        CmsPublishJobInfoBean removed = createJob(0, 1, NOW);
+        CmsUUID notStoredId = new CmsUUID();
+        queue.m_waitingJobIds.addAll(
+            Arrays.asList(
+                cached.getPublishHistoryId(),
+                missing.getPublishHistoryId(),
+                started.getPublishHistoryId(),
+                notStoredId));
+
+        List<CmsPublishJobInfoBean> restored = queue.getMissingJobs(
+            Collections.singletonList(cached),
+            Arrays.asList(cached, missing, started, removed));
+        assertEquals(Collections.singletonList(missing), restored);
+        assertEquals(
+            new HashSet<CmsUUID>(Arrays.asList(cached.getPublishHistoryId(), missing.getPublishHistoryId())),
+            queue.m_waitingJobIds);
+        // the restored job keeps the priority stored in its flags
+        assertEquals(CmsPublishPriority.SCHEDULED, queue.getPriority(restored.get(0)));
+
+        // nothing is missing once the job is cached again
+        List<CmsPublishJobInfoBean> cachedJobs = new ArrayList<CmsPublishJobInfoBean>(Arrays.asList(cached, missing));
+        assertTrue(queue.getMissingJobs(cachedJobs, Arrays.asList(cached, missing)).isEmpty());
+        assertEquals(2, queue.m_waitingJobIds.size());
+    }
+
+    /**
+     * Creates a waiting publish job as read from the database.<p>
+     *
+     * @param flags the flags of the job
+     * @param size the number of resources
+     * @param enqueueTime the time the job has been enqueued
+     *
+     * @return the publish job
+     */
+    private CmsPublishJobInfoBean createJob(int flags, int size, long enqueueTime) {
+
+        return new CmsPublishJobInfoBean(
+            new CmsUUID(),
+            new CmsUUID(),
+            "test",
+            new CmsUUID(),
+            "en",
+            flags,
+            size,
+            enqueueTime,
+            0,
+            0);
+    }
+
+    /**
+     * Creates a publish queue with the test priorities.<p>
+     *
+     * @return the publish queue
+     */
+    private CmsPublishQueue createQueue() {
+
+        CmsPublishQueue queue = new CmsPublishQueue(null);
+        queue.setPriorities(SMALL_SIZE, BULK_SIZE, AGING_TIME);
+        return queue;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.publish;
+
+import org.opencms.util.CmsUUID;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test event listener implementation, letting each started publish job wait until a given number of
+ * publish jobs has been started.<p>
+ *
+ * @since 10.5.0
+ */
+public class TestPublishEventListener3 implements I_CmsPublishEventListener {
+
+    /** The max. number of seconds a started publish job waits for the other publish jobs. */
+    private static final int WAIT_SECONDS = 30;
+
+    /** The latch counting down the started publish jobs. */
+    private CountDownLatch m_started;
+
+    /** Flag indicating if a started publish job has waited in vain for the other publish jobs. */
+    private volatile boolean m_timedOut;
+
+    /**
+     * Constructor with the number of publish jobs which have to run at the same time.<p>
+     *
+     * @param publishJobs the number of publish jobs
+     */
+    public TestPublishEventListener3(int publishJobs) {
+
+        m_started = new CountDownLatch(publishJobs);
+    }
+
+    /**
+     * Returns if all publish jobs have been started while the other publish jobs were running.<p>
+     *
+     * @return <code>true</code> if the publish jobs have been running at the same time
+     */
+    public boolean isParallel() {
+
+        return !m_timedOut && (m_started.getCount() == 0);
+    }
+
+    /**
+     * @see org.opencms.publish.I_CmsPublishEventListener#onAbort(CmsUUID, org.opencms.publish.CmsPublishJobEnqueued)
+     */
+    public void onAbort(CmsUUID userId, CmsPublishJobEnqueued publishJob) {
+
+        // noop
+    }
+
+    /**
+     * @see org.opencms.publish.I_CmsPublishEventListener#onEnqueue(org.opencms.publish.CmsPublishJobBase)
+     */
+    public void onEnqueue(CmsPublishJobBase publishJob) {
+
+        // noop
+    }
+
+    /**
+     * @see org.opencms.publish.I_CmsPublishEventListener#onFinish(org.opencms.publish.CmsPublishJobRunning)
+     */
+    public void onFinish(CmsPublishJobRunning publishJob) {
+
+        // noop
+    }
+
+    /**
+     * @see org.opencms.publish.I_CmsPublishEventListener#onRemove(org.opencms.publish.CmsPublishJobFinished)
+     */
+    public void onRemove(CmsPublishJobFinished publishJob) {
+
+        // noop
+    }
+
+    /**
+     * @see org.opencms.publish.I_CmsPublishEventListener#onStart(org.opencms.publish.CmsPublishJobEnqueued)
+     */
+    public void onStart(CmsPublishJobEnqueued publishJob) {
+
+        // the event is fired by the publish thread, so the job is not published until the other jobs are running
+        m_started.countDown();
+        try {
+            if (!m_started.await(WAIT_SECONDS, TimeUnit.SECONDS)) {
+                m_timedOut = true;
+            }
+        } catch (InterruptedException e) {
+            m_timedOut = true;
+        }
+    }
+}
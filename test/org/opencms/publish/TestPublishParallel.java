@@ -0,0 +1,141 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.publish;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.main.OpenCms;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import java.util.List;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests publishing with more than one publish queue worker.<p>
+ *
+ * @since 10.5.0
+ */
+public class TestPublishParallel extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestPublishParallel(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestPublishParallel.class.getName());
+
+        suite.addTest(new TestPublishParallel("testParallelJobs"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                // the special configuration sets two publish queue workers
+                setupOpenCms("simpletest", "/", "parallelPublishConfig");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that two publish jobs which do not overlap are published at the same time.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testParallelJobs() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing publishing publish jobs which do not overlap at the same time");
+
+        assertEquals(2, OpenCms.getPublishManager().getPublishQueueWorkers());
+
+        String source = "/folder2/subfolder21/image1.gif";
+        String destination1 = "/folder1/testParallel1.gif";
+        String destination2 = "/folder2/testParallel2.gif";
+
+        cms.copyResource(source, destination1, CmsResource.COPY_AS_NEW);
+        cms.copyResource(source, destination2, CmsResource.COPY_AS_NEW);
+
+        // each job waits at its start until the other job has been started
+        TestPublishEventListener3 listener = new TestPublishEventListener3(2);
+        OpenCms.getPublishManager().addPublishListener(listener);
+
+        assertFalse(OpenCms.getPublishManager().isRunning());
+        // stop the publish engine so both jobs are waiting when it is started again
+        OpenCms.getPublishManager().stopPublishing();
+        OpenCms.getPublishManager().publishResource(cms, destination1);
+        OpenCms.getPublishManager().publishResource(cms, destination2);
+        assertEquals(2, OpenCms.getPublishManager().getPublishQueue().size());
+
+        // start the background publishing again and wait until both jobs are finished
+        OpenCms.getPublishManager().startPublishing();
+        OpenCms.getPublishManager().waitWhileRunning();
+        OpenCms.getPublishManager().removePublishListener(listener);
+
+        // both jobs have been started before one of them has finished
+        assertTrue(listener.isParallel());
+        List<CmsPublishJobFinished> history = OpenCms.getPublishManager().getPublishHistory();
+        CmsPublishJobFinished firstJob = history.get(history.size() - 2);
+        CmsPublishJobFinished lastJob = history.get(history.size() - 1);
+        assertTrue(firstJob.getStartTime() <= lastJob.getFinishTime());
+        assertTrue(lastJob.getStartTime() <= firstJob.getFinishTime());
+
+        // both resources have been published
+        assertState(cms, destination1, CmsResource.STATE_UNCHANGED);
+        assertState(cms, destination2, CmsResource.STATE_UNCHANGED);
+        assertEquals(0, OpenCms.getPublishManager().getPublishQueue().size());
+    }
+}
@@ -40,6 +40,7 @@ import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.xml.CmsXmlEntityResolver;
 
+import java.io.File;
 import java.util.Collections;
 import java.util.regex.Pattern;
 
@@ -81,6 +82,7 @@ public class TestCmsStaticExportManager extends OpenCmsTestCase {
 
         suite.addTest(new TestCmsStaticExportManager("testExportJspLinkGeneration"));
         suite.addTest(new TestCmsStaticExportManager("testDefaultSuffixLinkGeneration"));
+        suite.addTest(new TestCmsStaticExportManager("testPointerExport"));
         suite.addTest(new TestCmsStaticExportManager("testSiteExport"));
 
         TestSetup wrapper = new TestSetup(suite) {
@@ -256,6 +258,42 @@ public class TestCmsStaticExportManager extends OpenCmsTestCase {
         checkLinkWithParameters(cms, vfsName, expected);
     }
 
+    /**
+     * Tests the export of a pointer after publishing, which must not copy the content of the pointer.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testPointerExport() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the export of a pointer after publishing");
+
+        String vfsName = "/testPointer.html";
+        String target = "http://www.opencms.org/";
+        int pointerType = OpenCms.getResourceManager().getResourceType("pointer").getTypeId();
+        cms.createResource(vfsName, pointerType, target.getBytes(), Collections.<CmsProperty> emptyList());
+        cms.writePropertyObject(
+            vfsName,
+            new CmsProperty(CmsPropertyDefinition.PROPERTY_EXPORT, CmsStringUtil.TRUE, null));
+        cms.unlockResource(vfsName);
+        OpenCms.getPublishManager().publishResource(cms, vfsName);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        // export the pointer like the export after publishing, i.e. without request and response
+        cms.getRequestContext().setCurrentProject(cms.readProject("Online"));
+        CmsStaticExportData data = OpenCms.getStaticExportManager().getVfsExportData(cms, vfsName);
+        assertNotNull(data);
+        OpenCms.getStaticExportManager().export(null, null, cms, data);
+
+        String exportFileName = CmsFileUtil.normalizePath(
+            OpenCms.getStaticExportManager().getExportPath(data.getVfsName()) + data.getRfsName());
+        String exported = new String(CmsFileUtil.readFile(new File(exportFileName)));
+        // the pointer loader exports a page redirecting to the target, not the plain target
+        assertTrue(exported.startsWith("<html>"));
+        assertTrue(exported.indexOf("refresh") > 0);
+        assertTrue(exported.indexOf(target) > 0);
+    }
+
     /**
      * Tests saving XML contents with links from/to various sites.<p>
      * 
@@ -30,6 +30,7 @@ package org.opencms.util;
 import org.opencms.test.OpenCmsTestCase;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
@@ -135,6 +136,24 @@ public class TestCmsFileUtil extends OpenCmsTestCase {
         }
     }
 
+    /**
+     * Test copying a stream that is read in more than one iteration
+     * with {@link CmsFileUtil#copy(InputStream, java.io.OutputStream)}.<p>
+     *
+     * @throws IOException in case the test fails
+     */
+    public void testCopyStream() throws IOException {
+
+        TestInputStream is = new TestInputStream();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(24, CmsFileUtil.copy(is, out));
+        byte[] data = out.toByteArray();
+        assertEquals(24, data.length);
+        assertEquals(1, data[15]);
+        assertEquals(2, data[16]);
+        assertFalse("input stream must not be closed", is.isClosed());
+    }
+
     /**
      * Test the behavior of {@link CmsFileUtil#readFully(InputStream)}
      * when the read takes more than one iteration to complete.<p>
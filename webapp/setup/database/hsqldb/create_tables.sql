@@ -372,6 +372,26 @@ CREATE INDEX CMS_ONLINE_STRUCTURE_06_IDX
 
 CREATE INDEX CMS_ONLINE_STRUCTURE_07_IDX 
     ON CMS_ONLINE_STRUCTURE (RESOURCE_ID);
+
+CREATE CACHED TABLE CMS_OFFLINE_STRUCTURE_TREE (
+    ANCESTOR_ID VARCHAR(36) NOT NULL,
+    STRUCTURE_ID VARCHAR(36) NOT NULL,
+    TREE_DEPTH INT NOT NULL,
+    PRIMARY KEY (ANCESTOR_ID, STRUCTURE_ID)
+);
+
+CREATE INDEX CMS_OFFLINE_STRUCTURE_TREE_01_IDX 
+    ON CMS_OFFLINE_STRUCTURE_TREE (STRUCTURE_ID);
+
+CREATE CACHED TABLE CMS_ONLINE_STRUCTURE_TREE (
+    ANCESTOR_ID VARCHAR(36) NOT NULL,
+    STRUCTURE_ID VARCHAR(36) NOT NULL,
+    TREE_DEPTH INT NOT NULL,
+    PRIMARY KEY (ANCESTOR_ID, STRUCTURE_ID)
+);
+
+CREATE INDEX CMS_ONLINE_STRUCTURE_TREE_01_IDX 
+    ON CMS_ONLINE_STRUCTURE_TREE (STRUCTURE_ID);
             
 CREATE CACHED TABLE CMS_HISTORY_STRUCTURE (
     PUBLISH_TAG INT NOT NULL,
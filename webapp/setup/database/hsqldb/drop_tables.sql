@@ -28,6 +28,8 @@ DROP TABLE CMS_ONLINE_PROPERTYDEF;
 DROP TABLE CMS_ONLINE_RESOURCE_RELATIONS;
 DROP TABLE CMS_ONLINE_RESOURCES;
 DROP TABLE CMS_ONLINE_STRUCTURE;
+DROP TABLE CMS_OFFLINE_STRUCTURE_TREE;
+DROP TABLE CMS_ONLINE_STRUCTURE_TREE;
 DROP TABLE CMS_PROJECTRESOURCES;
 DROP TABLE CMS_PROJECTS;
 DROP TABLE CMS_PUBLISH_HISTORY;
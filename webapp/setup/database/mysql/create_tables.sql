@@ -283,6 +283,22 @@ CREATE TABLE CMS_ONLINE_STRUCTURE (
     INDEX RESOURCE_ID_IDX (RESOURCE_ID)
 ) ENGINE = MYISAM CHARACTER SET UTF8;
 
+CREATE TABLE CMS_OFFLINE_STRUCTURE_TREE (
+    ANCESTOR_ID VARCHAR(36) BINARY NOT NULL,
+    STRUCTURE_ID VARCHAR(36) BINARY NOT NULL,
+    TREE_DEPTH INT NOT NULL,
+    PRIMARY KEY (ANCESTOR_ID, STRUCTURE_ID),
+    INDEX STRUCTURE_ID_IDX (STRUCTURE_ID)
+) ENGINE = MYISAM CHARACTER SET UTF8;
+
+CREATE TABLE CMS_ONLINE_STRUCTURE_TREE (
+    ANCESTOR_ID VARCHAR(36) BINARY NOT NULL,
+    STRUCTURE_ID VARCHAR(36) BINARY NOT NULL,
+    TREE_DEPTH INT NOT NULL,
+    PRIMARY KEY (ANCESTOR_ID, STRUCTURE_ID),
+    INDEX STRUCTURE_ID_IDX (STRUCTURE_ID)
+) ENGINE = MYISAM CHARACTER SET UTF8;
+
 CREATE TABLE CMS_HISTORY_STRUCTURE (
     PUBLISH_TAG INT NOT NULL,
     VERSION INT NOT NULL,
@@ -72,6 +72,10 @@ DROP INDEX CMS_ONLINE_STRUCTURE_05_IDX;
 DROP INDEX CMS_ONLINE_STRUCTURE_06_IDX;
 DROP INDEX CMS_ONLINE_STRUCTURE_07_IDX;
 DROP TABLE CMS_ONLINE_STRUCTURE;
+DROP INDEX CMS_OFFLINE_STRUCTURE_TREE_01_IDX;
+DROP TABLE CMS_OFFLINE_STRUCTURE_TREE;
+DROP INDEX CMS_ONLINE_STRUCTURE_TREE_01_IDX;
+DROP TABLE CMS_ONLINE_STRUCTURE_TREE;
 DROP INDEX CMS_CONTENTS_01_IDX;
 DROP INDEX CMS_CONTENTS_02_IDX;
 DROP INDEX CMS_CONTENTS_03_IDX;